@@ -3,6 +3,7 @@ package com.muyi.core.config;
 import com.muyi.rpc.server.RpcServerConfig;
 import org.yaml.snakeyaml.Yaml;
 
+import com.muyi.db.async.AsyncLandConfig;
 import com.muyi.db.config.DbConfig;
 import com.muyi.rpc.client.RpcClientConfig;
 import java.io.FileInputStream;
@@ -218,8 +219,24 @@ public class ServerConfig {
         if (dbData.containsKey("landIntervalMs")) db.landIntervalMs(((Number) dbData.get("landIntervalMs")).longValue());
         if (dbData.containsKey("landBatchSize")) db.landBatchSize(((Number) dbData.get("landBatchSize")).intValue());
         if (dbData.containsKey("landMaxRetries")) db.landMaxRetries(((Number) dbData.get("landMaxRetries")).intValue());
+        if (dbData.containsKey("landRetryBackoffMs")) db.landRetryBackoffMs(((Number) dbData.get("landRetryBackoffMs")).longValue());
+        if (dbData.containsKey("landRetryBackoffMaxMs")) db.landRetryBackoffMaxMs(((Number) dbData.get("landRetryBackoffMaxMs")).longValue());
+        if (dbData.containsKey("landCircuitFailureThreshold")) db.landCircuitFailureThreshold(((Number) dbData.get("landCircuitFailureThreshold")).intValue());
+        if (dbData.containsKey("landCircuitOpenMs")) db.landCircuitOpenMs(((Number) dbData.get("landCircuitOpenMs")).longValue());
+        if (dbData.containsKey("landJournalDir")) db.landJournalDir((String) dbData.get("landJournalDir"));
+        if (dbData.containsKey("landDeadLetterDir")) db.landDeadLetterDir((String) dbData.get("landDeadLetterDir"));
+        if (dbData.containsKey("landQueueCapacity")) db.landQueueCapacity(((Number) dbData.get("landQueueCapacity")).intValue());
+        if (dbData.containsKey("landOverflow")) db.landOverflow(AsyncLandConfig.Overflow.valueOf(((String) dbData.get("landOverflow")).toUpperCase()));
+        if (dbData.containsKey("landSpillDir")) db.landSpillDir((String) dbData.get("landSpillDir"));
+        if (dbData.containsKey("landGroupCommit")) db.landGroupCommit((Boolean) dbData.get("landGroupCommit"));
+        if (dbData.containsKey("landStatementCacheSize")) db.landStatementCacheSize(((Number) dbData.get("landStatementCacheSize")).intValue());
+        if (dbData.containsKey("queryCacheMaxBytes")) db.queryCacheMaxBytes(((Number) dbData.get("queryCacheMaxBytes")).longValue());
+        if (dbData.containsKey("queryCacheTtlMs")) db.queryCacheTtlMs(((Number) dbData.get("queryCacheTtlMs")).longValue());
         if (dbData.containsKey("prepStmtCacheSize")) db.prepStmtCacheSize(((Number) dbData.get("prepStmtCacheSize")).intValue());
         if (dbData.containsKey("prepStmtCacheSqlLimit")) db.prepStmtCacheSqlLimit(((Number) dbData.get("prepStmtCacheSqlLimit")).intValue());
+        if (dbData.containsKey("allowMultiQueries")) db.allowMultiQueries((Boolean) dbData.get("allowMultiQueries"));
+        if (dbData.containsKey("loadCoalesceMaxBatch")) db.loadCoalesceMaxBatch(((Number) dbData.get("loadCoalesceMaxBatch")).intValue());
+        if (dbData.containsKey("loadCoalesceWindowMs")) db.loadCoalesceWindowMs(((Number) dbData.get("loadCoalesceWindowMs")).longValue());
         if (dbData.containsKey("logSql")) db.logSql((Boolean) dbData.get("logSql"));
         return db;
     }
@@ -6,6 +6,7 @@ import com.muyi.core.config.ModuleConfig;
 import com.muyi.core.log.ModuleRegistry;
 import com.muyi.core.scheduler.GameScheduler;
 import com.muyi.core.thread.ThreadPoolManager;
+import com.muyi.core.web.DbGmController;
 import com.muyi.core.web.GroovyHandler;
 import com.muyi.core.web.WebServer;
 import com.muyi.db.DbManager;
@@ -133,6 +134,9 @@ public abstract class AbstractGameModule implements GameModule {
         if (webPort > 0) {
             this.webServer = new WebServer(webPort).moduleContext(name(), String.valueOf(config.getServerId()));
             registerWebRoutes(webServer);
+            if (dbManager != null) {
+                webServer.registerController(new DbGmController(dbManager));
+            }
             
             if (config.isGroovyEnabled()) {
                 new GroovyHandler(this).register(webServer);
@@ -0,0 +1,109 @@
+package com.muyi.core.web;
+
+import com.muyi.core.web.annotation.GmApi;
+import com.muyi.core.web.annotation.GmController;
+import com.muyi.core.web.annotation.HttpMethod;
+import com.muyi.db.DbManager;
+import com.muyi.db.async.AsyncLandManager;
+import com.muyi.db.cdc.ChangeStream;
+import com.muyi.db.log.LogSink;
+import com.muyi.db.sql.ReplicaRouter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 数据库 GM 控制器
+ * <p>
+ * 模块配置了数据库且开启 Web 服务时由 {@link com.muyi.core.module.AbstractGameModule} 自动注册，
+ * 用于查看异步落地管线的积压、延迟和失败情况，查看、重放落地死信，以及只读副本的路由统计。
+ *
+ * @author muyi
+ */
+@GmController("/gm/db")
+public class DbGmController {
+
+    private final DbManager dbManager;
+
+    public DbGmController(DbManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    /**
+     * 异步落地指标
+     */
+    @GmApi(path = "/land/metrics", description = "查询异步落地队列深度、延迟分布与失败计数")
+    public Map<String, Object> landMetrics() {
+        return dbManager.getAsyncLandManager().metricsSnapshot();
+    }
+
+    /**
+     * 落地死信
+     */
+    @GmApi(path = "/land/deadletters", description = "查看重试耗尽的落地死信（最多 100 条）")
+    public Map<String, Object> deadLetters() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        AsyncLandManager landManager = dbManager.getAsyncLandManager();
+        result.put("count", landManager.getDeadLetterCount());
+        result.put("entries", landManager.listDeadLetters(100));
+        return result;
+    }
+
+    /**
+     * 重放落地死信
+     */
+    @GmApi(path = "/land/deadletters/replay", method = HttpMethod.POST, description = "按快照重放落地死信，失败的保留")
+    public Map<String, Object> replayDeadLetters() {
+        return dbManager.getAsyncLandManager().replayDeadLetters();
+    }
+
+    /**
+     * 只读副本路由统计
+     */
+    @GmApi(path = "/replica/stats", description = "查询只读副本路由策略与主库/副本读取次数")
+    public Map<String, Object> replicaStats() {
+        ReplicaRouter router = dbManager.getReplicaRouter();
+        if (router == null) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("replica", false);
+            return result;
+        }
+        return router.snapshot();
+    }
+
+    /**
+     * 行为日志写入统计
+     */
+    @GmApi(path = "/log/metrics", description = "查询行为日志写入的追加/写入/丢弃行数与各表缓冲行数")
+    public Map<String, Object> logMetrics() {
+        LogSink sink = dbManager.getLogSink();
+        if (sink == null) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("enabled", false);
+            return result;
+        }
+        return sink.snapshot();
+    }
+
+    /**
+     * 异步查询隔离舱统计
+     */
+    @GmApi(path = "/query/async/stats", description = "查询异步查询各调用方类别的并发、排队、拒绝数与排队耗时")
+    public Map<String, Object> asyncQueryStats() {
+        return dbManager.getAsyncQueryExecutor().snapshot();
+    }
+
+    /**
+     * 变更流统计
+     */
+    @GmApi(path = "/cdc/stats", description = "查询变更流的最新序号、各订阅者的消费位置、积压与丢失数")
+    public Map<String, Object> changeStreamStats() {
+        ChangeStream changeStream = dbManager.getAsyncLandManager().getChangeStream();
+        if (changeStream == null) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("enabled", false);
+            return result;
+        }
+        return changeStream.snapshot();
+    }
+}
@@ -0,0 +1,489 @@
+package com.muyi.db.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * 实体访问器注解处理器
+ * <p>
+ * 为每个 {@code @Table} 标注的 {@code BaseEntity} 子类生成 {@code <实体类名>_Accessor}（实现 {@code EntityAccessor}）：
+ * <ul>
+ *   <li>字段序号常量（父类字段在前，按声明顺序）</li>
+ *   <li>基于 VarHandle 的类型化 getter/setter（不触发变更追踪）</li>
+ *   <li>按字段类型绑定 PreparedStatement / 读取 ResultSet，基本类型不装箱</li>
+ *   <li>主键值提取与主键哈希</li>
+ * </ul>
+ * 使用方式（build.gradle）：
+ * <pre>{@code
+ * annotationProcessor project(':db-processor')
+ * }</pre>
+ * 注解按全限定名匹配，本模块不依赖 db 模块。
+ */
+@SupportedAnnotationTypes(EntityAccessorProcessor.TABLE)
+public class EntityAccessorProcessor extends AbstractProcessor {
+
+    static final String TABLE = "com.muyi.db.annotation.Table";
+    private static final String PRIMARY_KEY = "com.muyi.db.annotation.PrimaryKey";
+    private static final String BASE_ENTITY = "com.muyi.db.core.BaseEntity";
+    private static final String ACCESSOR = "com.muyi.db.core.EntityAccessor";
+    private static final String SUFFIX = "_Accessor";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement table = processingEnv.getElementUtils().getTypeElement(TABLE);
+        TypeElement baseEntity = processingEnv.getElementUtils().getTypeElement(BASE_ENTITY);
+        if (table == null || baseEntity == null) {
+            return false;
+        }
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror baseType = types.erasure(baseEntity.asType());
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(table)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (!types.isSubtype(types.erasure(type.asType()), baseType)
+                    || type.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            if (!isAccessible(type)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Private entity class, accessor not generated", type);
+                continue;
+            }
+            try {
+                generate(type);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Failed to generate entity accessor: " + e.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 生成类与实体同包，实体及其外部类不能为 private
+     */
+    private boolean isAccessible(TypeElement type) {
+        Element current = type;
+        while (current instanceof TypeElement) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    // ==================== 字段收集 ====================
+
+    /**
+     * 实体字段
+     *
+     * @param name       字段名
+     * @param declaring  声明类（源码形式）
+     * @param type       字段类型（擦除后，源码形式）
+     * @param kind       类型分类
+     * @param pkOrder    主键顺序（非主键为 -1）
+     */
+    private record FieldModel(String name, String declaring, String type, Kind kind, int pkOrder) {
+
+        String constant() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (Character.isUpperCase(c) && i > 0) {
+                    sb.append('_');
+                }
+                sb.append(Character.toUpperCase(c));
+            }
+            return sb.toString();
+        }
+
+        String handle() {
+            return "H_" + constant();
+        }
+
+        String capitalized() {
+            return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+    }
+
+    private List<FieldModel> collectFields(TypeElement type) {
+        List<FieldModel> fields = new ArrayList<>();
+        collectFields(type, fields);
+        return fields;
+    }
+
+    private void collectFields(TypeElement type, List<FieldModel> out) {
+        Types types = processingEnv.getTypeUtils();
+        // 父类字段在前（与 EntityMetadata 一致），到 BaseEntity 为止
+        TypeMirror superType = type.getSuperclass();
+        if (superType.getKind() == TypeKind.DECLARED) {
+            TypeElement superElement = (TypeElement) ((DeclaredType) superType).asElement();
+            String superName = superElement.getQualifiedName().toString();
+            if (!superName.equals(BASE_ENTITY) && !superName.equals("java.lang.Object")) {
+                collectFields(superElement, out);
+            }
+        }
+
+        String declaring = types.erasure(type.asType()).toString();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            String fieldType = types.erasure(field.asType()).toString();
+            out.add(new FieldModel(field.getSimpleName().toString(), declaring, fieldType,
+                    Kind.of(fieldType), primaryKeyOrder(field)));
+        }
+    }
+
+    private int primaryKeyOrder(VariableElement field) {
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!annotation.getQualifiedName().contentEquals(PRIMARY_KEY)) {
+                continue;
+            }
+            for (var entry : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+                ExecutableElement key = entry.getKey();
+                AnnotationValue value = entry.getValue();
+                if (key.getSimpleName().contentEquals("order")) {
+                    return (Integer) value.getValue();
+                }
+            }
+            return 0;
+        }
+        return -1;
+    }
+
+    // ==================== 代码生成 ====================
+
+    private void generate(TypeElement type) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String entityType = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+        String className = accessorSimpleName(type);
+
+        List<FieldModel> fields = collectFields(type);
+        List<FieldModel> primaryKeys = new ArrayList<>();
+        for (FieldModel field : fields) {
+            if (field.pkOrder() >= 0) {
+                primaryKeys.add(field);
+            }
+        }
+        primaryKeys.sort(Comparator.comparingInt(FieldModel::pkOrder));
+
+        StringBuilder src = new StringBuilder(8192);
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("import java.lang.invoke.MethodHandles;\n")
+                .append("import java.lang.invoke.VarHandle;\n")
+                .append("import java.sql.PreparedStatement;\n")
+                .append("import java.sql.ResultSet;\n")
+                .append("import java.sql.SQLException;\n")
+                .append("import java.sql.Types;\n\n");
+        src.append("/**\n * ").append(entityType).append(" 访问器（由 EntityAccessorProcessor 生成，请勿修改）\n */\n");
+        src.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        src.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        src.append("public final class ").append(className).append(" implements ").append(ACCESSOR).append(" {\n\n");
+
+        // 字段序号常量
+        for (int i = 0; i < fields.size(); i++) {
+            src.append("    public static final int ").append(fields.get(i).constant()).append(" = ").append(i).append(";\n");
+        }
+        src.append("\n    private static final String[] FIELD_NAMES = {");
+        for (int i = 0; i < fields.size(); i++) {
+            src.append(i > 0 ? ", " : "").append('"').append(fields.get(i).name()).append('"');
+        }
+        src.append("};\n\n");
+
+        // VarHandle
+        for (FieldModel field : fields) {
+            src.append("    private static final VarHandle ").append(field.handle()).append(";\n");
+        }
+        src.append("\n    static {\n        try {\n");
+        List<String> lookups = new ArrayList<>();
+        for (FieldModel field : fields) {
+            if (!lookups.contains(field.declaring())) {
+                lookups.add(field.declaring());
+                src.append("            MethodHandles.Lookup lookup").append(lookups.size() - 1)
+                        .append(" = MethodHandles.privateLookupIn(").append(field.declaring())
+                        .append(".class, MethodHandles.lookup());\n");
+            }
+        }
+        for (FieldModel field : fields) {
+            src.append("            ").append(field.handle()).append(" = lookup").append(lookups.indexOf(field.declaring()))
+                    .append(".findVarHandle(").append(field.declaring()).append(".class, \"").append(field.name())
+                    .append("\", ").append(field.type()).append(".class);\n");
+        }
+        src.append("        } catch (ReflectiveOperationException e) {\n")
+                .append("            throw new ExceptionInInitializerError(e);\n")
+                .append("        }\n    }\n\n");
+
+        // 类型化 getter/setter
+        for (FieldModel field : fields) {
+            src.append("    public static ").append(field.type()).append(" get").append(field.capitalized())
+                    .append("(").append(entityType).append(" entity) {\n")
+                    .append("        return (").append(field.type()).append(") ").append(field.handle()).append(".get(entity);\n")
+                    .append("    }\n\n");
+            src.append("    public static void set").append(field.capitalized()).append("(").append(entityType)
+                    .append(" entity, ").append(field.type()).append(" value) {\n")
+                    .append("        ").append(field.handle()).append(".set(entity, value);\n")
+                    .append("    }\n\n");
+        }
+
+        // EntityAccessor 实现
+        src.append("    @Override\n    public String[] fieldNames() {\n        return FIELD_NAMES.clone();\n    }\n\n");
+
+        src.append("    @Override\n    public Object get(Object entity, int ordinal) {\n")
+                .append("        ").append(entityType).append(" e = (").append(entityType).append(") entity;\n")
+                .append("        return switch (ordinal) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            FieldModel field = fields.get(i);
+            src.append("            case ").append(i).append(" -> ").append(field.kind().get(field)).append(";\n");
+        }
+        src.append("            default -> throw new IndexOutOfBoundsException(ordinal);\n        };\n    }\n\n");
+
+        src.append("    @Override\n    public void set(Object entity, int ordinal, Object value) {\n")
+                .append("        ").append(entityType).append(" e = (").append(entityType).append(") entity;\n")
+                .append("        switch (ordinal) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            FieldModel field = fields.get(i);
+            src.append("            case ").append(i).append(" -> ").append(field.handle()).append(".set(e, ")
+                    .append(field.kind().convert(field)).append(");\n");
+        }
+        src.append("            default -> throw new IndexOutOfBoundsException(ordinal);\n        }\n    }\n\n");
+
+        src.append("    @Override\n    public void bind(PreparedStatement ps, int parameterIndex, Object entity, int ordinal) throws SQLException {\n")
+                .append("        ").append(entityType).append(" e = (").append(entityType).append(") entity;\n")
+                .append("        switch (ordinal) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            FieldModel field = fields.get(i);
+            src.append("            case ").append(i).append(" -> ").append(field.kind().bind(field)).append("\n");
+        }
+        src.append("            default -> throw new IndexOutOfBoundsException(ordinal);\n        }\n    }\n\n");
+
+        src.append("    @Override\n    public void read(ResultSet rs, int columnIndex, Object entity, int ordinal) throws SQLException {\n")
+                .append("        ").append(entityType).append(" e = (").append(entityType).append(") entity;\n")
+                .append("        switch (ordinal) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            FieldModel field = fields.get(i);
+            src.append("            case ").append(i).append(" -> ").append(field.kind().read(field)).append("\n");
+        }
+        src.append("            default -> throw new IndexOutOfBoundsException(ordinal);\n        }\n    }\n\n");
+
+        src.append("    @Override\n    public Object[] primaryKeyValues(Object entity) {\n")
+                .append("        ").append(entityType).append(" e = (").append(entityType).append(") entity;\n")
+                .append("        return new Object[]{");
+        for (int i = 0; i < primaryKeys.size(); i++) {
+            FieldModel pk = primaryKeys.get(i);
+            src.append(i > 0 ? ", " : "").append(pk.kind().get(pk));
+        }
+        src.append("};\n    }\n\n");
+
+        src.append("    @Override\n    public int primaryKeyHash(Object entity) {\n")
+                .append("        ").append(entityType).append(" e = (").append(entityType).append(") entity;\n")
+                .append("        int h = 1;\n");
+        for (FieldModel pk : primaryKeys) {
+            src.append("        h = 31 * h + ").append(pk.kind().hash(pk)).append(";\n");
+        }
+        src.append("        return h;\n    }\n}\n");
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(src.toString());
+        }
+    }
+
+    /**
+     * 生成类名：嵌套类以 _ 连接外部类名（与 EntityAccessor.accessorClassName 一致）
+     */
+    private String accessorSimpleName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement outer) {
+            name.insert(0, outer.getSimpleName() + "_");
+            enclosing = outer.getEnclosingElement();
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    // ==================== 类型分类 ====================
+
+    /**
+     * 字段类型分类，决定各访问方法生成的代码
+     */
+    private enum Kind {
+        LONG("long", "Long", "BIGINT", "longValue", "0L"),
+        INT("int", "Int", "INTEGER", "intValue", "0"),
+        SHORT("short", "Short", "SMALLINT", "shortValue", "(short) 0"),
+        BYTE("byte", "Byte", "TINYINT", "byteValue", "(byte) 0"),
+        DOUBLE("double", "Double", "DOUBLE", "doubleValue", "0.0"),
+        FLOAT("float", "Float", "REAL", "floatValue", "0.0f"),
+        BOOLEAN("boolean", "Boolean", "BOOLEAN", null, "false"),
+        BOXED_LONG("java.lang.Long", "Long", "BIGINT", "longValue", null),
+        BOXED_INT("java.lang.Integer", "Int", "INTEGER", "intValue", null),
+        BOXED_SHORT("java.lang.Short", "Short", "SMALLINT", "shortValue", null),
+        BOXED_BYTE("java.lang.Byte", "Byte", "TINYINT", "byteValue", null),
+        BOXED_DOUBLE("java.lang.Double", "Double", "DOUBLE", "doubleValue", null),
+        BOXED_FLOAT("java.lang.Float", "Float", "REAL", "floatValue", null),
+        BOXED_BOOLEAN("java.lang.Boolean", "Boolean", "BOOLEAN", null, null),
+        STRING("java.lang.String", "String", null, null, null),
+        BYTES("byte[]", "Bytes", null, null, null),
+        DECIMAL("java.math.BigDecimal", "BigDecimal", null, null, null),
+        TIMESTAMP("java.sql.Timestamp", "Timestamp", null, null, null),
+        UTIL_DATE("java.util.Date", "Object", null, null, null),
+        LOCAL_DATE_TIME("java.time.LocalDateTime", "Object", null, null, null),
+        LOCAL_DATE("java.time.LocalDate", "Object", null, null, null),
+        OBJECT(null, "Object", null, null, null);
+
+        private final String javaType;
+        private final String jdbcSuffix;
+        private final String sqlType;
+        private final String numberMethod;
+        private final String zero;
+
+        Kind(String javaType, String jdbcSuffix, String sqlType, String numberMethod, String zero) {
+            this.javaType = javaType;
+            this.jdbcSuffix = jdbcSuffix;
+            this.sqlType = sqlType;
+            this.numberMethod = numberMethod;
+            this.zero = zero;
+        }
+
+        static Kind of(String type) {
+            for (Kind kind : values()) {
+                if (type.equals(kind.javaType)) {
+                    return kind;
+                }
+            }
+            return OBJECT;
+        }
+
+        boolean isPrimitive() {
+            return zero != null;
+        }
+
+        boolean isBoxed() {
+            return zero == null && sqlType != null;
+        }
+
+        /**
+         * 包装类对应的基本类型（两组枚举顺序一致）
+         */
+        String primitive() {
+            return values()[ordinal() - BOXED_LONG.ordinal()].javaType;
+        }
+
+        /**
+         * 基本类型对应的包装类
+         */
+        String wrapper() {
+            return values()[ordinal() + BOXED_LONG.ordinal()].javaType;
+        }
+
+        String get(FieldModel f) {
+            if (this == OBJECT) {
+                return "(Object) " + f.handle() + ".get(e)";
+            }
+            return "(" + f.type() + ") " + f.handle() + ".get(e)";
+        }
+
+        String convert(FieldModel f) {
+            if (this == BOOLEAN) {
+                return "value instanceof Number n ? n.intValue() != 0 : value != null && (Boolean) value";
+            }
+            if (this == BOXED_BOOLEAN) {
+                return "value == null ? null : value instanceof Number n ? Boolean.valueOf(n.intValue() != 0) : (Boolean) value";
+            }
+            if (isPrimitive()) {
+                return "value == null ? " + zero + " : ((Number) value)." + numberMethod + "()";
+            }
+            if (isBoxed()) {
+                return "value == null ? null : " + javaType + ".valueOf(((Number) value)." + numberMethod + "())";
+            }
+            if (this == STRING) {
+                return "value == null ? null : value.toString()";
+            }
+            return "(" + f.type() + ") value";
+        }
+
+        String bind(FieldModel f) {
+            String value = get(f);
+            if (isPrimitive()) {
+                return "ps.set" + jdbcSuffix + "(parameterIndex, " + value + ");";
+            }
+            if (isBoxed()) {
+                return "{\n                " + f.type() + " v = " + value + ";\n"
+                        + "                if (v == null) {\n"
+                        + "                    ps.setNull(parameterIndex, Types." + sqlType + ");\n"
+                        + "                } else {\n"
+                        + "                    ps.set" + jdbcSuffix + "(parameterIndex, v);\n"
+                        + "                }\n            }";
+            }
+            return "ps.set" + jdbcSuffix + "(parameterIndex, " + value + ");";
+        }
+
+        String read(FieldModel f) {
+            if (isPrimitive()) {
+                return f.handle() + ".set(e, rs.get" + jdbcSuffix + "(columnIndex));";
+            }
+            if (isBoxed()) {
+                String p = primitive();
+                return "{\n                " + p + " v = rs.get" + jdbcSuffix + "(columnIndex);\n"
+                        + "                " + f.handle() + ".set(e, rs.wasNull() ? null : " + javaType + ".valueOf(v));\n"
+                        + "            }";
+            }
+            if (this == UTIL_DATE) {
+                // Timestamp 是 java.util.Date 子类，驱动对 DATETIME 的 getObject 返回 LocalDateTime，不能直接赋值
+                return f.handle() + ".set(e, (java.util.Date) rs.getTimestamp(columnIndex));";
+            }
+            if (this == LOCAL_DATE_TIME || this == LOCAL_DATE) {
+                return f.handle() + ".set(e, rs.getObject(columnIndex, " + javaType + ".class));";
+            }
+            if (this == OBJECT) {
+                return f.handle() + ".set(e, (" + f.type() + ") rs.getObject(columnIndex));";
+            }
+            return f.handle() + ".set(e, rs.get" + jdbcSuffix + "(columnIndex));";
+        }
+
+        String hash(FieldModel f) {
+            if (isPrimitive()) {
+                return wrapper() + ".hashCode(" + get(f) + ")";
+            }
+            return "java.util.Objects.hashCode(" + get(f) + ")";
+        }
+    }
+}
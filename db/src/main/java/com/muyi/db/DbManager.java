@@ -1,21 +1,40 @@
 package com.muyi.db;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.muyi.db.annotation.LandOptions;
 import com.muyi.db.async.AsyncLandConfig;
 import com.muyi.db.async.AsyncLandManager;
+import com.muyi.db.cache.EntityCacheManager;
+import com.muyi.db.cache.QueryCache;
+import com.muyi.db.cdc.ChangeStream;
+import com.muyi.db.cdc.ChangeSubscriber;
 import com.muyi.db.config.DbConfig;
 import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.FieldInfo;
+import com.muyi.db.log.LogSchema;
+import com.muyi.db.log.LogSink;
+import com.muyi.db.sql.AsyncQueryExecutor;
+import com.muyi.db.sql.ConditionQuery;
+import com.muyi.db.sql.LoadCoalescer;
+import com.muyi.db.sql.ReplicaRouter;
+import com.muyi.db.sql.SqlBuilder;
 import com.muyi.db.sql.SqlExecutor;
 
 /**
@@ -60,6 +79,37 @@ public class DbManager {
     private final DataSource dataSource;
     private final SqlExecutor sqlExecutor;
     private final AsyncLandManager asyncLandManager;
+
+    /**
+     * 实体 L1 缓存（禁用时为 null）
+     */
+    private final EntityCacheManager entityCache;
+
+    /**
+     * 自定义查询结果缓存（禁用时为 null）
+     */
+    private final QueryCache queryCache;
+
+    /**
+     * 登录加载合并器（未启用时为 null）
+     */
+    private final LoadCoalescer loadCoalescer;
+
+    /**
+     * 只读副本数据源与路由（未配置副本时均为 null）
+     */
+    private final DataSource replicaDataSource;
+    private final ReplicaRouter replicaRouter;
+
+    /**
+     * 行为日志写入器（未启用时为 null）
+     */
+    private final LogSink logSink;
+
+    /**
+     * 异步查询执行器
+     */
+    private final AsyncQueryExecutor asyncQueryExecutor;
     
     /**
      * 关闭状态标志
@@ -67,10 +117,17 @@ public class DbManager {
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
     public DbManager(DbConfig config) {
-        this(config, config.createDataSource());
+        this(config, config.createDataSource(), config.createReplicaDataSource());
     }
 
     public DbManager(DbConfig config, DataSource dataSource) {
+        this(config, dataSource, null);
+    }
+
+    /**
+     * @param replicaDataSource 只读副本数据源，null 表示所有查询走主库
+     */
+    public DbManager(DbConfig config, DataSource dataSource, DataSource replicaDataSource) {
         this.config = config;
         this.dataSource = dataSource;
         this.sqlExecutor = new SqlExecutor(dataSource);
@@ -80,7 +137,52 @@ public class DbManager {
                         .landIntervalMs(config.getLandIntervalMs())
                         .batchSize(config.getLandBatchSize())
                         .maxRetries(config.getLandMaxRetries())
+                        .retryBackoffMs(config.getLandRetryBackoffMs())
+                        .retryBackoffMaxMs(config.getLandRetryBackoffMaxMs())
+                        .circuitFailureThreshold(config.getLandCircuitFailureThreshold())
+                        .circuitOpenMs(config.getLandCircuitOpenMs())
+                        .deadLetterDir(config.getLandDeadLetterDir())
+                        .journalDir(config.getLandJournalDir())
+                        .journalSegmentSize(config.getLandJournalSegmentSize())
+                        .statementMode(config.getLandStatementMode())
+                        .maxPacketBytes(config.getLandMaxPacketBytes())
+                        .routingMode(config.getLandRoutingMode())
+                        .queueCapacity(config.getLandQueueCapacity())
+                        .overflow(config.getLandOverflow())
+                        .spillDir(config.getLandSpillDir())
+                        .groupCommit(config.isLandGroupCommit())
+                        .statementCacheSize(config.getLandStatementCacheSize())
+                        .criticalMaxDelayMs(config.getLandCriticalMaxDelayMs())
+                        .bulkMaxDelayMs(config.getLandBulkMaxDelayMs())
+                        .changeStreamCapacity(config.getLandChangeStreamCapacity())
+                        .changeLogDir(config.getLandChangeLogDir())
+                        .changeLogRetainSegments(config.getLandChangeLogRetainSegments())
         );
+        if (config.getEntityCacheMaxBytes() > 0) {
+            this.entityCache = new EntityCacheManager(config.getEntityCacheMaxBytes());
+            asyncLandManager.addListener(entityCache);
+        } else {
+            this.entityCache = null;
+        }
+        if (config.getQueryCacheMaxBytes() > 0) {
+            this.queryCache = new QueryCache(config.getQueryCacheMaxBytes(), config.getQueryCacheTtlMs());
+            asyncLandManager.addListener(queryCache);
+        } else {
+            this.queryCache = null;
+        }
+        this.loadCoalescer = config.getLoadCoalesceMaxBatch() > 0
+                ? new LoadCoalescer(sqlExecutor, config.getLoadCoalesceWindowMs(), config.getLoadCoalesceMaxBatch())
+                : null;
+        this.replicaDataSource = replicaDataSource;
+        if (replicaDataSource != null) {
+            this.replicaRouter = new ReplicaRouter(sqlExecutor, new SqlExecutor(replicaDataSource), asyncLandManager,
+                    config.getReplicaPolicies(), config.getReplicaDefaultPolicy(), config.getReplicaLagMs());
+            asyncLandManager.addListener(replicaRouter);
+        } else {
+            this.replicaRouter = null;
+        }
+        this.logSink = config.isLogSinkEnabled() ? new LogSink(dataSource, config.createLogSinkConfig()) : null;
+        this.asyncQueryExecutor = config.createAsyncQueryExecutor();
 
         logger.info("DbManager initialized");
     }
@@ -92,7 +194,7 @@ public class DbManager {
      */
     public <T extends BaseEntity<T>> boolean insert(T entity) {
         checkNotShutdown();
-        return sqlExecutor.insert(entity);
+        return cacheOnSuccess(entity, sqlExecutor.insert(entity));
     }
 
     /**
@@ -100,7 +202,7 @@ public class DbManager {
      */
     public <T extends BaseEntity<T>> boolean insertWithKey(T entity, String keyField) {
         checkNotShutdown();
-        return sqlExecutor.insertWithGeneratedKey(entity, keyField);
+        return cacheOnSuccess(entity, sqlExecutor.insertWithGeneratedKey(entity, keyField));
     }
 
     /**
@@ -108,7 +210,7 @@ public class DbManager {
      */
     public <T extends BaseEntity<T>> boolean update(T entity) {
         checkNotShutdown();
-        return sqlExecutor.update(entity);
+        return cacheOnSuccess(entity, sqlExecutor.update(entity));
     }
 
     /**
@@ -116,7 +218,7 @@ public class DbManager {
      */
     public <T extends BaseEntity<T>> boolean updatePartial(T entity) {
         checkNotShutdown();
-        return sqlExecutor.updatePartial(entity);
+        return cacheOnSuccess(entity, sqlExecutor.updatePartial(entity));
     }
 
     /**
@@ -124,7 +226,7 @@ public class DbManager {
      */
     public <T extends BaseEntity<T>> boolean upsert(T entity) {
         checkNotShutdown();
-        return sqlExecutor.upsert(entity);
+        return cacheOnSuccess(entity, sqlExecutor.upsert(entity));
     }
 
     /**
@@ -132,7 +234,41 @@ public class DbManager {
      */
     public <T extends BaseEntity<T>> boolean delete(T entity) {
         checkNotShutdown();
-        return sqlExecutor.delete(entity);
+        if (entityCache != null) {
+            entityCache.invalidate(entity);
+        }
+        return invalidateOnSuccess(entity, sqlExecutor.delete(entity));
+    }
+
+    private boolean cacheOnSuccess(BaseEntity<?> entity, boolean success) {
+        if (success && entityCache != null) {
+            entityCache.put(entity);
+        }
+        return invalidateOnSuccess(entity, success);
+    }
+
+    private boolean invalidateOnSuccess(BaseEntity<?> entity, boolean success) {
+        if (success && queryCache != null) {
+            queryCache.invalidateTable(entity.getTableName());
+        }
+        if (success && replicaRouter != null) {
+            replicaRouter.markWritten(entity);
+        }
+        return success;
+    }
+
+    /**
+     * 按表读取策略选择执行器（未配置副本时为主库）
+     */
+    private SqlExecutor readExecutor(BaseEntity<?> template) {
+        return replicaRouter != null ? replicaRouter.route(template) : sqlExecutor;
+    }
+
+    /**
+     * 显式只读查询的执行器（未配置副本时为主库）
+     */
+    private SqlExecutor readOnlyExecutor() {
+        return replicaRouter != null ? replicaRouter.replica() : sqlExecutor;
     }
 
     // ==================== 查询操作（自动合并脏数据）====================
@@ -161,9 +297,32 @@ public class DbManager {
         if (dirty != null) {
             return dirty;
         }
+
+        // 检查 L1 缓存
+        if (entityCache != null && entityCache.isCached(entityClass)) {
+            T cached = entityCache.get(entityClass, cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+            SqlExecutor executor = readExecutor(template);
+            T loaded = executor.selectByPrimaryKey(template, pkValues);
+            if (loaded == null) {
+                return null;
+            }
+            // 查询期间可能有提交（业务实例已写入缓存或脏数据缓存）：以内存中的实例为准，不用数据库副本覆盖
+            if (asyncLandManager.isDeleted(entityClass, cacheKey)) {
+                return null;
+            }
+            dirty = asyncLandManager.getDirty(entityClass, cacheKey);
+            if (dirty != null) {
+                return dirty;
+            }
+            // 副本可能落后于主库：副本读到的行只返回不写入缓存，避免旧数据长期留在缓存中
+            return executor == sqlExecutor ? entityCache.putIfAbsent(loaded) : loaded;
+        }
         
         // 查询数据库
-        return sqlExecutor.selectByPrimaryKey(template, pkValues);
+        return readExecutor(template).selectByPrimaryKey(template, pkValues);
     }
 
     /**
@@ -171,62 +330,120 @@ public class DbManager {
      * <p>
      * 合并逻辑：
      * 1. 查询数据库获取结果
-     * 2. 获取该类型所有脏数据
-     * 3. 用脏数据覆盖 DB 结果（按主键匹配）
-     * 4. 脏数据中符合条件但 DB 没有的，补充到结果
-     * 5. 排除已删除的实体
+     * 2. 逐行按主键用脏数据覆盖 DB 结果，排除已删除的实体
+     * 3. 脏数据中符合条件但 DB 没有的，补充到结果；被覆盖后不再符合条件的行排除
+     * <p>
+     * 第 3 步只在提供 conditionMatcher 时执行：条件中包含 {@code @DirtyIndex} 字段时只取索引命中的脏数据，
+     * 否则遍历该类型的全部脏数据
      * 
      * @param template 模板实体
      * @param conditions 查询条件
      * @param conditionMatcher 条件匹配器（判断脏数据是否符合条件），null 则不补充新数据
      */
-    @SuppressWarnings("unchecked")
     public <T extends BaseEntity<T>> List<T> selectByCondition(T template, Map<String, Object> conditions, 
             Predicate<T> conditionMatcher) {
-        Class<T> entityClass = (Class<T>) template.getClass();
-        
         // 查询数据库
-        List<T> dbResults = sqlExecutor.selectByCondition(template, conditions);
-        
-        // 获取脏数据
-        List<T> dirtyList = asyncLandManager.getAllDirty(entityClass);
-        if (dirtyList.isEmpty()) {
-            // 没有脏数据，只需排除已删除的
-            return filterDeleted(dbResults, entityClass);
+        List<T> dbResults = readExecutor(template).selectByCondition(template, conditions);
+        return mergeDirty(template, conditions, conditionMatcher, dbResults);
+    }
+    
+    /**
+     * 按条件查询，单列等值条件的并发请求跨调用合并（自动合并脏数据）
+     * <p>
+     * 用于玩家登录加载：启用 {@link DbConfig#loadCoalesceMaxBatch} 时，同一张表同一列的并发请求
+     * 合并为一条 {@code IN} 查询，再按列值分发；未启用或条件不是单列等值时等同于
+     * {@link #selectByCondition(BaseEntity, Map, Predicate)}
+     */
+    public <T extends BaseEntity<T>> List<T> selectCoalesced(ConditionQuery<T> query) {
+        Map<String, Object> conditions = query.conditions();
+        if (loadCoalescer != null && conditions != null && conditions.size() == 1) {
+            Map.Entry<String, Object> condition = conditions.entrySet().iterator().next();
+            FieldInfo field = query.template().getMetadata().resolveField(condition.getKey());
+            if (field != null && condition.getValue() != null) {
+                List<T> dbResults = loadCoalescer.load(query.template(), field, condition.getValue());
+                return mergeDirty(query.template(), conditions, query.matcher(), dbResults);
+            }
+        }
+        return selectByCondition(query.template(), conditions, query.matcher());
+    }
+    
+    /**
+     * 按条件批量查询（自动合并脏数据，合并规则同 {@link #selectByCondition(BaseEntity, Map, Predicate)}）
+     * <p>
+     * 开启 {@link DbConfig#allowMultiQueries} 时所有查询在同一连接上一次往返执行，
+     * 否则（或多语句执行失败时）逐条查询。
+     *
+     * @return 各查询的结果（与 queries 顺序一致）
+     */
+    public List<List<BaseEntity<?>>> selectByConditions(List<ConditionQuery<?>> queries) {
+        List<List<BaseEntity<?>>> dbResults = null;
+        if (config.isAllowMultiQueries() && queries.size() > 1) {
+            try {
+                dbResults = sqlExecutor.selectMultiStatement(queries);
+            } catch (SQLException e) {
+                logger.warn("Multi-statement query failed, fallback to sequential queries", e);
+            }
+        }
+        List<List<BaseEntity<?>>> results = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            results.add(mergeQuery(queries.get(i), dbResults != null ? dbResults.get(i) : null));
         }
+        return results;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T extends BaseEntity<T>> List<BaseEntity<?>> mergeQuery(ConditionQuery<T> query, List<BaseEntity<?>> dbResults) {
+        List<T> merged = dbResults != null
+                ? mergeDirty(query.template(), query.conditions(), query.matcher(), (List<T>) (List<?>) dbResults)
+                : selectByCondition(query.template(), query.conditions(), query.matcher());
+        return (List<BaseEntity<?>>) (List<?>) merged;
+    }
+    
+    /**
+     * 合并脏数据：逐行按主键用脏数据覆盖并排除已删除的，提供匹配器时补充 DB 中没有的新增数据
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends BaseEntity<T>> List<T> mergeDirty(T template, Map<String, Object> conditions,
+            Predicate<T> conditionMatcher, List<T> dbResults) {
+        Class<T> entityClass = (Class<T>) template.getClass();
         
-        // 构建主键到脏数据的映射
-        Map<Object, T> dirtyMap = new HashMap<>();
-        for (T dirty : dirtyList) {
-            Object pk = createPrimaryKey(dirty);
-            dirtyMap.put(pk, dirty);
+        // 用脏数据覆盖（按主键逐行查找，已删除的排除）
+        List<T> merged = filterDeleted(dbResults, entityClass);
+        if (conditionMatcher == null || !asyncLandManager.hasDirty(entityClass)) {
+            return merged;
         }
         
-        // 合并结果
-        List<T> merged = new ArrayList<>();
-        for (T dbEntity : dbResults) {
-            Object pk = createPrimaryKey(dbEntity);
-            
-            // 检查是否已删除
-            if (asyncLandManager.isDeleted(entityClass, pk)) {
-                continue;
+        // 被脏数据覆盖的行可能已修改条件字段，不再符合条件的排除；再补充脏数据中有但 DB 没有的（新增的）
+        List<T> result = new ArrayList<>(merged.size());
+        Set<Object> found = new HashSet<>();
+        for (T entity : merged) {
+            Object pk = createPrimaryKey(entity);
+            found.add(pk);
+            if (asyncLandManager.getDirty(entityClass, pk) != entity || conditionMatcher.test(entity)) {
+                result.add(entity);
+            }
+        }
+        for (T dirty : dirtyCandidates(entityClass, conditions)) {
+            if (!found.contains(createPrimaryKey(dirty)) && conditionMatcher.test(dirty)) {
+                result.add(dirty);
             }
-            
-            // 用脏数据覆盖
-            T dirty = dirtyMap.remove(pk);
-            merged.add(dirty != null ? dirty : dbEntity);
         }
         
-        // 补充脏数据中有但 DB 没有的（新增的）
-        if (conditionMatcher != null) {
-            for (T dirty : dirtyMap.values()) {
-                if (conditionMatcher.test(dirty)) {
-                    merged.add(dirty);
+        return result;
+    }
+    
+    /**
+     * 可能符合条件的脏数据：优先使用 {@code @DirtyIndex} 索引，没有可用索引时返回全部脏数据
+     */
+    private <T extends BaseEntity<T>> List<T> dirtyCandidates(Class<T> entityClass, Map<String, Object> conditions) {
+        if (conditions != null) {
+            for (Map.Entry<String, Object> condition : conditions.entrySet()) {
+                if (asyncLandManager.hasDirtyIndex(entityClass, condition.getKey())) {
+                    return asyncLandManager.getDirtyByIndex(entityClass, condition.getKey(), condition.getValue());
                 }
             }
         }
-        
-        return merged;
+        return asyncLandManager.getAllDirty(entityClass);
     }
     
     /**
@@ -245,10 +462,112 @@ public class DbManager {
     @SuppressWarnings("unchecked")
     public <T extends BaseEntity<T>> List<T> selectBySql(T template, String sql, Object... params) {
         Class<T> entityClass = (Class<T>) template.getClass();
-        List<T> results = sqlExecutor.selectBySql(template, sql, params);
+        List<T> results = readExecutor(template).selectBySql(template, sql, params);
+        return filterDeleted(results, entityClass);
+    }
+
+    /**
+     * 在只读副本上执行自定义查询（自动排除已删除的脏数据并用脏数据覆盖）
+     * <p>
+     * 不检查表策略，调用方接受副本复制延迟；用于 GM 导出、排行榜重建、日志查询等重查询。
+     * 未配置副本时等同 {@link #selectBySql}。
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BaseEntity<T>> List<T> selectBySqlReadOnly(T template, String sql, Object... params) {
+        Class<T> entityClass = (Class<T>) template.getClass();
+        List<T> results = readOnlyExecutor().selectBySql(template, sql, params);
+        return filterDeleted(results, entityClass);
+    }
+
+    /**
+     * 执行自定义查询，结果按 SQL + 参数缓存（需配置 {@link DbConfig#queryCacheMaxBytes}，未启用时等同 selectBySql）
+     * <p>
+     * 缓存的是数据库结果，每次返回前仍会排除已删除的脏数据并用脏数据覆盖；引用的表有写入落地后缓存失效。
+     * 返回的实体对象可能被多个调用方共享。
+     * <p>
+     * 缓存始终从主库加载，不走只读副本：失效以主库落地为准，副本结果可能落后于失效时刻，缓存后会一直保留旧数据。
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BaseEntity<T>> List<T> selectBySqlCached(T template, String sql, Object... params) {
+        if (queryCache == null) {
+            return selectBySql(template, sql, params);
+        }
+        Class<T> entityClass = (Class<T>) template.getClass();
+        List<T> results = queryCache.get(sql, params,
+                () -> java.util.Collections.unmodifiableList(sqlExecutor.selectBySql(template, sql, params)),
+                QueryCache::estimateEntities);
         return filterDeleted(results, entityClass);
     }
 
+    /**
+     * 流式遍历查询结果（不在内存中保留结果集，自动排除已删除的脏数据并使用脏数据覆盖）
+     * <p>
+     * 用于 GM 扫描、数据迁移等大结果集场景，拉取行数由 {@link DbConfig#queryFetchSize} 控制
+     *
+     * @return 回调的行数
+     */
+    public <T extends BaseEntity<T>> long forEach(T template, String sql, java.util.function.Consumer<? super T> action,
+                                                  Object... params) {
+        return forEachOn(readExecutor(template), template, sql, action, params);
+    }
+
+    /**
+     * 在只读副本上流式遍历查询结果（不检查表策略，未配置副本时走主库）
+     */
+    public <T extends BaseEntity<T>> long forEachReadOnly(T template, String sql, java.util.function.Consumer<? super T> action,
+                                                          Object... params) {
+        return forEachOn(readOnlyExecutor(), template, sql, action, params);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends BaseEntity<T>> long forEachOn(SqlExecutor executor, T template, String sql,
+                                                   java.util.function.Consumer<? super T> action, Object... params) {
+        Class<T> entityClass = (Class<T>) template.getClass();
+        long[] count = {0};
+        executor.forEach(template, sql, streamingFetchSize(), entity -> {
+            T current = overlayDirty(entity, entityClass);
+            if (current != null) {
+                action.accept(current);
+                count[0]++;
+            }
+        }, params);
+        return count[0];
+    }
+
+    /**
+     * 遍历整张表（分表实体依次遍历所有分表）
+     */
+    public <T extends BaseEntity<T>> long forEach(T template, java.util.function.Consumer<? super T> action) {
+        List<String> tableNames = template.getDynamicTableName() != null
+                ? List.of(template.getDynamicTableName())
+                : template.getMetadata().getShardTableNames();
+        long count = 0;
+        for (String tableName : tableNames) {
+            count += forEach(template, SqlBuilder.buildSelectByCondition(template, null, tableName), action);
+        }
+        return count;
+    }
+
+    /**
+     * 流式查询（惰性 Stream，必须关闭以释放连接）
+     * <pre>{@code
+     * try (Stream<PlayerEntity> players = db.stream(new PlayerEntity(), "SELECT * FROM player")) {
+     *     players.forEach(...);
+     * }
+     * }</pre>
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BaseEntity<T>> java.util.stream.Stream<T> stream(T template, String sql, Object... params) {
+        Class<T> entityClass = (Class<T>) template.getClass();
+        return readExecutor(template).stream(template, sql, streamingFetchSize(), params)
+                .map(entity -> overlayDirty(entity, entityClass))
+                .filter(java.util.Objects::nonNull);
+    }
+
+    private int streamingFetchSize() {
+        return config.isUseCursorFetch() ? config.getQueryFetchSize() : Integer.MIN_VALUE;
+    }
+
     /**
      * 执行自定义查询（返回 Map）
      */
@@ -256,6 +575,32 @@ public class DbManager {
         return sqlExecutor.selectMapBySql(sql, params);
     }
 
+    /**
+     * 在只读副本上执行自定义查询（返回 Map，不合并脏数据，未配置副本时走主库）
+     */
+    public List<Map<String, Object>> selectMapBySqlReadOnly(String sql, Object... params) {
+        return readOnlyExecutor().selectMapBySql(sql, params);
+    }
+
+    /**
+     * 执行自定义查询（返回 Map），结果按 SQL + 参数缓存（未启用时等同 selectMapBySql）
+     * <p>
+     * 返回的列表与行均不可修改（由所有调用方共享）；不合并脏数据，引用的表有写入落地后缓存失效。
+     */
+    public List<Map<String, Object>> selectMapBySqlCached(String sql, Object... params) {
+        if (queryCache == null) {
+            return selectMapBySql(sql, params);
+        }
+        return queryCache.get(sql, params, () -> {
+            List<Map<String, Object>> rows = sqlExecutor.selectMapBySql(sql, params);
+            List<Map<String, Object>> readOnly = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                readOnly.add(java.util.Collections.unmodifiableMap(row));
+            }
+            return java.util.Collections.unmodifiableList(readOnly);
+        }, QueryCache::estimateRows);
+    }
+
     /**
      * 查询单个值（用于 COUNT、SUM、MAX 等聚合查询）
      * <p>
@@ -273,6 +618,72 @@ public class DbManager {
     public <T> T selectOne(String sql, Class<T> resultType, T defaultValue, Object... params) {
         return sqlExecutor.selectOne(sql, resultType, defaultValue, params);
     }
+
+    /**
+     * 在只读副本上查询单个值（统计类聚合查询，未配置副本时走主库）
+     */
+    public <T> T selectOneReadOnly(String sql, Class<T> resultType, T defaultValue, Object... params) {
+        return readOnlyExecutor().selectOne(sql, resultType, defaultValue, params);
+    }
+
+    // ==================== 异步查询 ====================
+
+    /**
+     * 在虚拟线程中执行任意查询，受调用方类别的隔离舱和全局并发上限约束
+     * <p>
+     * 示例（RPC 处理线程中查询，结果回到玩家分片线程处理）：
+     * <pre>{@code
+     * db.queryAsync("rpc", () -> db.selectByCondition(new MailEntity(), Map.of("uid", uid)))
+     *         .thenAcceptAsync(mails -> player.onMailsLoaded(mails), playerExecutor);
+     * }</pre>
+     *
+     * @param category 调用方类别（见 {@link DbConfig#asyncQueryBulkhead}），null 使用默认类别
+     * @return 查询结果；隔离舱已满或排队超时时以 DbException 失败
+     */
+    public <T> CompletableFuture<T> queryAsync(String category, Supplier<T> query) {
+        checkNotShutdown();
+        return asyncQueryExecutor.submit(category, query);
+    }
+
+    /**
+     * 异步按主键查询（默认类别，语义同 {@link #selectByPrimaryKey}）
+     */
+    public <T extends BaseEntity<T>> CompletableFuture<T> selectByPrimaryKeyAsync(
+            T template, Object... pkValues) {
+        return queryAsync(AsyncQueryExecutor.DEFAULT_CATEGORY, () -> selectByPrimaryKey(template, pkValues));
+    }
+
+    /**
+     * 异步按条件查询（默认类别，语义同 {@link #selectByCondition(BaseEntity, Map)}）
+     */
+    public <T extends BaseEntity<T>> CompletableFuture<List<T>> selectByConditionAsync(
+            T template, Map<String, Object> conditions) {
+        return queryAsync(AsyncQueryExecutor.DEFAULT_CATEGORY, () -> selectByCondition(template, conditions));
+    }
+
+    /**
+     * 异步执行自定义查询（默认类别，语义同 {@link #selectBySql}）
+     */
+    public <T extends BaseEntity<T>> CompletableFuture<List<T>> selectBySqlAsync(
+            T template, String sql, Object... params) {
+        return queryAsync(AsyncQueryExecutor.DEFAULT_CATEGORY, () -> selectBySql(template, sql, params));
+    }
+
+    /**
+     * 异步执行自定义查询（返回 Map，默认类别）
+     */
+    public CompletableFuture<List<Map<String, Object>>> selectMapBySqlAsync(
+            String sql, Object... params) {
+        return queryAsync(AsyncQueryExecutor.DEFAULT_CATEGORY, () -> selectMapBySql(sql, params));
+    }
+
+    /**
+     * 异步查询单个值（默认类别，语义同 {@link #selectOne}）
+     */
+    public <T> CompletableFuture<T> selectOneAsync(String sql, Class<T> resultType, T defaultValue,
+                                                   Object... params) {
+        return queryAsync(AsyncQueryExecutor.DEFAULT_CATEGORY, () -> selectOne(sql, resultType, defaultValue, params));
+    }
     
     // ==================== 脏数据辅助方法 ====================
     
@@ -302,6 +713,32 @@ public class DbManager {
         return pkValues.length == 1 ? pkValues[0] : java.util.Arrays.asList(pkValues);
     }
     
+    /**
+     * 单行脏数据覆盖：已删除返回 null，有未落地数据返回脏数据，已缓存返回缓存中的同一对象
+     */
+    private <T extends BaseEntity<T>> T overlayDirty(T entity, Class<T> entityClass) {
+        Object pk = createPrimaryKey(entity);
+        if (asyncLandManager.isDeleted(entityClass, pk)) {
+            return null;
+        }
+        T dirty = asyncLandManager.getDirty(entityClass, pk);
+        if (dirty != null) {
+            return dirty;
+        }
+        return cachedOr(entity, entityClass, pk);
+    }
+
+    /**
+     * 缓存中已有同主键对象时返回缓存对象，保证同一实体在进程内只有一个实例
+     */
+    private <T extends BaseEntity<T>> T cachedOr(T entity, Class<T> entityClass, Object pk) {
+        if (entityCache == null) {
+            return entity;
+        }
+        T cached = entityCache.get(entityClass, pk);
+        return cached != null ? cached : entity;
+    }
+
     private <T extends BaseEntity<T>> List<T> filterDeleted(List<T> results, Class<T> entityClass) {
         if (results.isEmpty()) {
             return results;
@@ -313,7 +750,7 @@ public class DbManager {
             if (!asyncLandManager.isDeleted(entityClass, pk)) {
                 // 检查是否有脏数据覆盖
                 T dirty = asyncLandManager.getDirty(entityClass, pk);
-                filtered.add(dirty != null ? dirty : entity);
+                filtered.add(dirty != null ? dirty : cachedOr(entity, entityClass, pk));
             }
         }
         return filtered;
@@ -326,7 +763,7 @@ public class DbManager {
      */
     public <T extends BaseEntity<T>> int[] batchInsert(List<T> entities) {
         checkNotShutdown();
-        return sqlExecutor.batchInsert(entities);
+        return batchByTable(entities, sqlExecutor::batchInsert);
     }
 
     /**
@@ -334,7 +771,7 @@ public class DbManager {
      */
     public <T extends BaseEntity<T>> int[] batchUpdate(List<T> entities) {
         checkNotShutdown();
-        return sqlExecutor.batchUpdate(entities);
+        return batchByTable(entities, sqlExecutor::batchUpdate);
     }
 
     /**
@@ -342,7 +779,47 @@ public class DbManager {
      */
     public <T extends BaseEntity<T>> int[] batchDelete(List<T> entities) {
         checkNotShutdown();
-        return sqlExecutor.batchDelete(entities);
+        return batchByTable(entities, sqlExecutor::batchDelete);
+    }
+
+    /**
+     * 按物理表拆分批量操作（分表实体可能分布在多张表），结果按原顺序返回
+     */
+    private <T extends BaseEntity<T>> int[] batchByTable(List<T> entities, Function<List<T>, int[]> executor) {
+        if (entities == null || entities.isEmpty()) {
+            return new int[0];
+        }
+        Map<String, List<Integer>> indexesByTable = new LinkedHashMap<>();
+        for (int i = 0; i < entities.size(); i++) {
+            indexesByTable.computeIfAbsent(entities.get(i).getTableName(), k -> new ArrayList<>()).add(i);
+        }
+        if (replicaRouter != null) {
+            replicaRouter.markWritten(entities.get(0));
+        }
+        if (indexesByTable.size() == 1) {
+            int[] results = executor.apply(entities);
+            invalidateTables(indexesByTable.keySet());
+            return results;
+        }
+        int[] results = new int[entities.size()];
+        for (List<Integer> indexes : indexesByTable.values()) {
+            List<T> tableEntities = new ArrayList<>(indexes.size());
+            for (int index : indexes) {
+                tableEntities.add(entities.get(index));
+            }
+            int[] tableResults = executor.apply(tableEntities);
+            for (int i = 0; i < indexes.size() && i < tableResults.length; i++) {
+                results[indexes.get(i)] = tableResults[i];
+            }
+        }
+        invalidateTables(indexesByTable.keySet());
+        return results;
+    }
+
+    private void invalidateTables(java.util.Collection<String> tableNames) {
+        if (queryCache != null) {
+            tableNames.forEach(queryCache::invalidateTable);
+        }
     }
 
     // ==================== 异步落地 ====================
@@ -371,12 +848,39 @@ public class DbManager {
         asyncLandManager.submitDelete(entity);
     }
 
+    /**
+     * 按指定优先级提交异步插入（覆盖实体 @LandOptions 配置）
+     * <pre>{@code
+     * db.submitInsert(order, LandOptions.Priority.CRITICAL);  // 充值订单立即落地
+     * }</pre>
+     */
+    public void submitInsert(BaseEntity<?> entity, LandOptions.Priority priority) {
+        checkNotShutdown();
+        asyncLandManager.submitInsert(entity, priority);
+    }
+
+    /**
+     * 按指定优先级提交异步更新（覆盖实体 @LandOptions 配置）
+     */
+    public void submitUpdate(BaseEntity<?> entity, LandOptions.Priority priority) {
+        checkNotShutdown();
+        asyncLandManager.submitUpdate(entity, priority);
+    }
+
+    /**
+     * 按指定优先级提交异步删除（覆盖实体 @LandOptions 配置）
+     */
+    public void submitDelete(BaseEntity<?> entity, LandOptions.Priority priority) {
+        checkNotShutdown();
+        asyncLandManager.submitDelete(entity, priority);
+    }
+
     /**
      * 立即同步落地
      */
     public boolean landNow(BaseEntity<?> entity) {
         checkNotShutdown();
-        return asyncLandManager.landNow(entity);
+        return invalidateOnSuccess(entity, asyncLandManager.landNow(entity));
     }
 
     // ==================== 事务 ====================
@@ -386,7 +890,17 @@ public class DbManager {
      */
     public void executeInTransaction(java.util.function.Consumer<java.sql.Connection> action) {
         checkNotShutdown();
-        sqlExecutor.executeInTransaction(action);
+        try {
+            sqlExecutor.executeInTransaction(action);
+        } finally {
+            // 无法得知事务写了哪些表
+            if (queryCache != null) {
+                queryCache.invalidateAll();
+            }
+            if (replicaRouter != null) {
+                replicaRouter.markAllWritten();
+            }
+        }
     }
 
     // ==================== 原生 SQL ====================
@@ -396,7 +910,45 @@ public class DbManager {
      */
     public int executeSql(String sql, Object... params) {
         checkNotShutdown();
-        return sqlExecutor.executeSql(sql, params);
+        int rows = sqlExecutor.executeSql(sql, params);
+        if (queryCache != null) {
+            queryCache.invalidateSql(sql);
+        }
+        if (replicaRouter != null) {
+            replicaRouter.markAllWritten();
+        }
+        return rows;
+    }
+
+    // ==================== 行为日志 ====================
+
+    /**
+     * 追加一条行为日志（资源/道具流水、战报等），异步批量写入，不经过实体落地管线
+     *
+     * @param values 按 schema 列顺序的值
+     * @return false 表示缓冲已满被丢弃
+     */
+    public boolean appendLog(LogSchema schema, Object... values) {
+        if (logSink == null) {
+            throw new IllegalStateException("Log sink is not enabled, see DbConfig.logSinkEnabled");
+        }
+        return logSink.append(schema, values);
+    }
+
+    // ==================== 变更流 ====================
+
+    /**
+     * 订阅已落地提交的实体变更（排行榜、联盟统计等派生视图据此增量更新）
+     *
+     * @param name   订阅名（线程名与监控）
+     * @param tables 关注的逻辑表名，null 表示全部
+     */
+    public ChangeStream.Subscription subscribeChanges(String name, Set<String> tables, ChangeSubscriber subscriber) {
+        ChangeStream changeStream = asyncLandManager.getChangeStream();
+        if (changeStream == null) {
+            throw new IllegalStateException("Change stream is not enabled, see DbConfig.landChangeStreamCapacity");
+        }
+        return changeStream.subscribe(name, tables, subscriber);
     }
 
     // ==================== 生命周期 ====================
@@ -411,7 +963,14 @@ public class DbManager {
         }
         
         logger.info("Shutting down DbManager...");
+        asyncQueryExecutor.shutdown(config.getAsyncQueryMaxWaitMs());
         asyncLandManager.shutdown();
+        if (loadCoalescer != null) {
+            loadCoalescer.shutdown();
+        }
+        if (logSink != null) {
+            logSink.close();
+        }
         
         if (dataSource instanceof AutoCloseable) {
             try {
@@ -420,6 +979,13 @@ public class DbManager {
                 logger.error("Failed to close datasource", e);
             }
         }
+        if (replicaDataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) replicaDataSource).close();
+            } catch (Exception e) {
+                logger.error("Failed to close replica datasource", e);
+            }
+        }
         
         logger.info("DbManager shutdown completed");
     }
@@ -454,6 +1020,45 @@ public class DbManager {
         return sqlExecutor;
     }
 
+    /**
+     * 实体 L1 缓存（禁用时返回 null）
+     */
+    public EntityCacheManager getEntityCache() {
+        return entityCache;
+    }
+
+    /**
+     * 自定义查询结果缓存（禁用时返回 null）
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * 登录加载合并器（未启用时返回 null）
+     */
+    public LoadCoalescer getLoadCoalescer() {
+        return loadCoalescer;
+    }
+
+    /**
+     * 只读副本路由（未配置副本时返回 null）
+     */
+    public ReplicaRouter getReplicaRouter() {
+        return replicaRouter;
+    }
+
+    /**
+     * 行为日志写入器（未启用时返回 null）
+     */
+    public LogSink getLogSink() {
+        return logSink;
+    }
+
+    public AsyncQueryExecutor getAsyncQueryExecutor() {
+        return asyncQueryExecutor;
+    }
+
     public AsyncLandManager getAsyncLandManager() {
         return asyncLandManager;
     }
@@ -6,6 +6,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import com.muyi.db.codec.ColumnCodec;
+
 /**
  * 列注解，标记实体字段对应的数据库列
  */
@@ -33,4 +35,12 @@ public @interface Column {
      * 默认值
      */
     String defaultValue() default "";
+    
+    /**
+     * 列编解码器（默认 {@link ColumnCodec} 本身表示不使用），字段值编码为 byte[] 存入 BLOB 列
+     *
+     * @see com.muyi.db.codec.BinaryCodec
+     */
+    @SuppressWarnings("rawtypes")
+    Class<? extends ColumnCodec> codec() default ColumnCodec.class;
 }
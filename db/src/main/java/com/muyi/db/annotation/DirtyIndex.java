@@ -0,0 +1,35 @@
+package com.muyi.db.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 脏数据缓存二级索引
+ * <p>
+ * 异步落地队列中尚未落地的实体按主键保存在脏数据缓存中。{@code DbManager.selectByCondition}
+ * 需要把这些实体合并进查询结果，没有索引时只能遍历该类型的全部脏数据；
+ * 查询条件包含带此注解的字段时，只取出索引值相同的脏数据。
+ * <p>
+ * 适合按玩家加载的数据（如 {@code uid}）。索引在提交和落地时维护，
+ * 取的是提交时的字段值：修改索引字段后需要重新提交（submitUpdate）才会反映到索引。
+ *
+ * <pre>{@code
+ * @Table("t_hero")
+ * public class HeroEntity extends BaseEntity<HeroEntity> {
+ *     @PrimaryKey(autoIncrement = true)
+ *     private long id;
+ *
+ *     @Column
+ *     @DirtyIndex
+ *     private long uid;
+ * }
+ * }</pre>
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface DirtyIndex {
+}
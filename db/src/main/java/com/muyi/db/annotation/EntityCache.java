@@ -0,0 +1,34 @@
+package com.muyi.db.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 启用实体 L1 缓存（按主键缓存实体对象，{@code DbManager.selectByPrimaryKey} 优先命中缓存）
+ * <p>
+ * 适合被频繁跨玩家读取的实体（查看他人城池、联盟成员列表等）。
+ * 缓存与异步落地联动：提交插入/更新时写入缓存，提交删除或落地最终失败时失效。
+ * <p>
+ * 注意：缓存只在本进程内有效，绕过 DbManager 直接修改数据库的数据不会反映到缓存中。
+ *
+ * <pre>{@code
+ * @Table("player")
+ * @EntityCache(maxBytes = 64 * 1024 * 1024)
+ * public class PlayerEntity extends BaseEntity<PlayerEntity> {
+ *     // ...
+ * }
+ * }</pre>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface EntityCache {
+
+    /**
+     * 缓存占用的堆内存上限（估算字节数，0 表示使用 {@code DbConfig#entityCacheMaxBytes}）
+     */
+    long maxBytes() default 0;
+}
@@ -0,0 +1,126 @@
+package com.muyi.db.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 实体异步落地选项
+ * <p>
+ * 未标注的实体使用全局配置（{@code AsyncLandConfig#statementMode / routingMode}），优先级默认为 NORMAL
+ *
+ * <pre>{@code
+ * @Table("player_item")
+ * @LandOptions(statement = LandOptions.Statement.UPSERT)
+ * public class PlayerItemEntity extends BaseEntity<PlayerItemEntity> {
+ *     // ...
+ * }
+ *
+ * // 热点表按主键分散到 0~3 号工作线程
+ * @Table("t_hero")
+ * @LandOptions(routing = LandOptions.Routing.PRIMARY_KEY, workers = {0, 1, 2, 3})
+ * public class HeroEntity extends BaseEntity<HeroEntity> {
+ *     // ...
+ * }
+ *
+ * // 充值订单立即落地，不等待落地间隔
+ * @Table("t_recharge_order")
+ * @LandOptions(priority = LandOptions.Priority.CRITICAL)
+ * public class RechargeOrderEntity extends BaseEntity<RechargeOrderEntity> {
+ *     // ...
+ * }
+ * }</pre>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LandOptions {
+
+    /**
+     * 落地语句模式
+     */
+    Statement statement() default Statement.DEFAULT;
+
+    /**
+     * 工作线程路由方式
+     */
+    Routing routing() default Routing.DEFAULT;
+
+    /**
+     * PRIMARY_KEY 路由可使用的工作线程索引（空表示全部工作线程，越界的索引忽略）
+     */
+    int[] workers() default {};
+
+    /**
+     * 落地优先级（提交时可单独指定，覆盖此处配置）
+     */
+    Priority priority() default Priority.DEFAULT;
+
+    /**
+     * 落地语句模式
+     */
+    enum Statement {
+        /**
+         * 使用全局配置
+         */
+        DEFAULT,
+        /**
+         * 单行语句 + JDBC 批量（依赖驱动 rewriteBatchedStatements 合并）
+         */
+        BATCH,
+        /**
+         * 多行语句：INSERT 使用多 VALUES，DELETE 使用 IN 列表，按 max_allowed_packet 分块；UPDATE 仍按变更列批量
+         */
+        MULTI_ROW,
+        /**
+         * 在 MULTI_ROW 基础上，INSERT 与 UPDATE 合并为多行 {@code INSERT ... ON DUPLICATE KEY UPDATE}（整行写入）
+         * <p>
+         * 适合"创建后频繁修改"的实体：同一批次中的新增和修改只需一条语句，插入重试也不会主键冲突
+         */
+        UPSERT
+    }
+
+    /**
+     * 工作线程路由方式
+     */
+    enum Routing {
+        /**
+         * 使用全局配置
+         */
+        DEFAULT,
+        /**
+         * 按表路由：{@link WorkerIndex} 指定的线程，否则按实体类 hash 固定到一个线程
+         */
+        TABLE,
+        /**
+         * 按主键 hash 分散到多个线程（同一实体的任务始终进入同一线程，保证顺序）
+         * <p>
+         * 适合单表写入量超过一个线程落地能力的热点表
+         */
+        PRIMARY_KEY
+    }
+
+    /**
+     * 落地优先级（越靠前越紧急），决定任务在工作线程中的最长等待时间
+     */
+    enum Priority {
+        /**
+         * 使用实体配置，未配置时为 NORMAL
+         */
+        DEFAULT,
+        /**
+         * 提交后立即唤醒工作线程落地（或在 {@code criticalMaxDelayMs} 内攒成小批次），用于充值、交易等不能丢的数据
+         */
+        CRITICAL,
+        /**
+         * 按落地间隔和批量大小落地
+         */
+        NORMAL,
+        /**
+         * 最长保留 {@code bulkMaxDelayMs} 再落地，期间的重复提交全部合并，用于计数器、外观等可容忍延迟的数据
+         */
+        BULK
+    }
+}
@@ -1,9 +1,24 @@
 package com.muyi.db.async;
 
+import com.muyi.db.annotation.LandOptions;
+
 /**
  * 异步落地配置
  */
 public class AsyncLandConfig {
+
+    /**
+     * 工作线程队列满时的处理策略
+     */
+    public enum Overflow {
+        /** 阻塞提交线程直到队列有空位（提交方自然限速） */
+        BLOCK,
+        /** 溢出任务进入溢出链表（容量与队列相同，实体已在队列中的重复提交本来就会合并）；溢出链表也满时按 BLOCK 处理 */
+        COALESCE,
+        /** 不阻塞，溢出任务的实体快照写入本地文件，实体只保留在脏数据缓存中，队列有空位后读回（需配置 spillDir） */
+        SPILL
+    }
+
     /**
      * 落地线程数
      */
@@ -28,6 +43,108 @@ public class AsyncLandConfig {
      */
     int maxRetries = 3;
 
+    /**
+     * 重试退避基准（毫秒）：第 n 次重试延迟约 base * 2^(n-1)（带随机抖动），0 表示立即重试
+     */
+    long retryBackoffMs = 100;
+
+    /**
+     * 重试退避上限（毫秒）
+     */
+    long retryBackoffMaxMs = 10_000;
+
+    /**
+     * 表熔断阈值：同一张表连续失败的批次数，0（默认）表示不启用熔断
+     */
+    int circuitFailureThreshold = 0;
+
+    /**
+     * 表熔断时长（毫秒）
+     */
+    long circuitOpenMs = 5_000;
+
+    /**
+     * 死信目录（null 表示不启用，重试耗尽的任务只记录日志后丢弃）
+     */
+    String deadLetterDir;
+
+    /**
+     * 落地日志目录（null 表示不启用）
+     * <p>
+     * 启用后每次提交都会先写本地日志，进程崩溃后重启时回放未落地的数据
+     */
+    String journalDir;
+
+    /**
+     * 落地日志单段大小（字节）
+     */
+    int journalSegmentSize = 64 * 1024 * 1024;
+
+    /**
+     * 默认落地语句模式（实体可通过 {@link LandOptions} 单独指定）
+     */
+    LandOptions.Statement statementMode = LandOptions.Statement.BATCH;
+
+    /**
+     * 多行语句的最大字节数（0 表示首次使用时读取服务端 max_allowed_packet）
+     */
+    int maxPacketBytes = 0;
+
+    /**
+     * 默认工作线程路由方式（实体可通过 {@link LandOptions} 单独指定）
+     */
+    LandOptions.Routing routingMode = LandOptions.Routing.TABLE;
+
+    /**
+     * 每个工作线程的环形队列容量（向上取整为 2 的幂），CRITICAL、BULK 通道各自使用同样的上限
+     */
+    int queueCapacity = 64 * 1024;
+
+    /**
+     * 队列满时的处理策略
+     */
+    Overflow overflow = Overflow.COALESCE;
+
+    /**
+     * 溢出文件目录（SPILL 策略必填，每个工作线程一个子目录）
+     */
+    String spillDir;
+
+    /**
+     * 组提交：每个工作线程固定一个连接，一轮落地的所有表在同一事务中提交（失败时逐表兜底）
+     */
+    boolean groupCommit = false;
+
+    /**
+     * 组提交模式下每个工作线程的预编译语句缓存容量
+     */
+    int statementCacheSize = 64;
+
+    /**
+     * CRITICAL 任务的最长等待（毫秒）：0 表示提交即唤醒工作线程落地，大于 0 时在此窗口内攒成小批次
+     */
+    long criticalMaxDelayMs = 0;
+
+    /**
+     * BULK 任务的最长等待（毫秒），到期后随下一轮落地写入
+     */
+    long bulkMaxDelayMs = 2_000;
+
+    /**
+     * 变更流环形缓冲区容量（0 表示不发布变更，否则须为 2 的幂）
+     */
+    int changeStreamCapacity = 0;
+
+    /**
+     * 本地变更日志目录（null 表示只在进程内发布，需同时启用变更流）
+     */
+    String changeLogDir;
+
+    /**
+     * 本地变更日志保留的段数（单段大小同 journalSegmentSize）
+     */
+    int changeLogRetainSegments = 8;
+
     public AsyncLandConfig landThreads(int threads) {
         if (threads <= 0) {
             throw new IllegalArgumentException("landThreads must be positive, got: " + threads);
@@ -60,6 +177,152 @@ public class AsyncLandConfig {
         return this;
     }
     
+    public AsyncLandConfig retryBackoffMs(long backoffMs) {
+        if (backoffMs < 0) {
+            throw new IllegalArgumentException("retryBackoffMs cannot be negative, got: " + backoffMs);
+        }
+        this.retryBackoffMs = backoffMs;
+        return this;
+    }
+
+    public AsyncLandConfig retryBackoffMaxMs(long backoffMaxMs) {
+        if (backoffMaxMs < 0) {
+            throw new IllegalArgumentException("retryBackoffMaxMs cannot be negative, got: " + backoffMaxMs);
+        }
+        this.retryBackoffMaxMs = backoffMaxMs;
+        return this;
+    }
+
+    public AsyncLandConfig circuitFailureThreshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("circuitFailureThreshold cannot be negative, got: " + threshold);
+        }
+        this.circuitFailureThreshold = threshold;
+        return this;
+    }
+
+    public AsyncLandConfig circuitOpenMs(long openMs) {
+        if (openMs <= 0) {
+            throw new IllegalArgumentException("circuitOpenMs must be positive, got: " + openMs);
+        }
+        this.circuitOpenMs = openMs;
+        return this;
+    }
+
+    public AsyncLandConfig deadLetterDir(String dir) {
+        this.deadLetterDir = dir;
+        return this;
+    }
+
+    public AsyncLandConfig journalDir(String dir) {
+        this.journalDir = dir;
+        return this;
+    }
+
+    public AsyncLandConfig journalSegmentSize(int size) {
+        if (size < 4096) {
+            throw new IllegalArgumentException("journalSegmentSize must be at least 4096, got: " + size);
+        }
+        this.journalSegmentSize = size;
+        return this;
+    }
+
+    public AsyncLandConfig statementMode(LandOptions.Statement mode) {
+        if (mode == null || mode == LandOptions.Statement.DEFAULT) {
+            throw new IllegalArgumentException("statementMode must be BATCH, MULTI_ROW or UPSERT, got: " + mode);
+        }
+        this.statementMode = mode;
+        return this;
+    }
+
+    public AsyncLandConfig maxPacketBytes(int bytes) {
+        if (bytes != 0 && bytes < 4096) {
+            throw new IllegalArgumentException("maxPacketBytes must be 0 (auto) or at least 4096, got: " + bytes);
+        }
+        this.maxPacketBytes = bytes;
+        return this;
+    }
+
+    public AsyncLandConfig routingMode(LandOptions.Routing mode) {
+        if (mode == null || mode == LandOptions.Routing.DEFAULT) {
+            throw new IllegalArgumentException("routingMode must be TABLE or PRIMARY_KEY, got: " + mode);
+        }
+        this.routingMode = mode;
+        return this;
+    }
+
+    public AsyncLandConfig queueCapacity(int capacity) {
+        if (capacity < 16 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("queueCapacity must be between 16 and 2^30, got: " + capacity);
+        }
+        this.queueCapacity = capacity;
+        return this;
+    }
+
+    public AsyncLandConfig overflow(Overflow overflow) {
+        if (overflow == null) {
+            throw new IllegalArgumentException("overflow must not be null");
+        }
+        this.overflow = overflow;
+        return this;
+    }
+
+    public AsyncLandConfig spillDir(String dir) {
+        this.spillDir = dir;
+        return this;
+    }
+
+    public AsyncLandConfig groupCommit(boolean enabled) {
+        this.groupCommit = enabled;
+        return this;
+    }
+
+    public AsyncLandConfig statementCacheSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("statementCacheSize must be positive, got: " + size);
+        }
+        this.statementCacheSize = size;
+        return this;
+    }
+
+    public AsyncLandConfig criticalMaxDelayMs(long delayMs) {
+        if (delayMs < 0) {
+            throw new IllegalArgumentException("criticalMaxDelayMs cannot be negative, got: " + delayMs);
+        }
+        this.criticalMaxDelayMs = delayMs;
+        return this;
+    }
+
+    public AsyncLandConfig bulkMaxDelayMs(long delayMs) {
+        if (delayMs < 0) {
+            throw new IllegalArgumentException("bulkMaxDelayMs cannot be negative, got: " + delayMs);
+        }
+        this.bulkMaxDelayMs = delayMs;
+        return this;
+    }
+
+    public AsyncLandConfig changeStreamCapacity(int capacity) {
+        if (capacity != 0 && (capacity < 16 || Integer.bitCount(capacity) != 1)) {
+            throw new IllegalArgumentException(
+                    "changeStreamCapacity must be 0 (disabled) or a power of two >= 16, got: " + capacity);
+        }
+        this.changeStreamCapacity = capacity;
+        return this;
+    }
+
+    public AsyncLandConfig changeLogDir(String dir) {
+        this.changeLogDir = dir;
+        return this;
+    }
+
+    public AsyncLandConfig changeLogRetainSegments(int segments) {
+        if (segments <= 0) {
+            throw new IllegalArgumentException("changeLogRetainSegments must be positive, got: " + segments);
+        }
+        this.changeLogRetainSegments = segments;
+        return this;
+    }
+
     // Getters
     public int getLandThreads() {
         return landThreads;
@@ -76,4 +339,84 @@ public class AsyncLandConfig {
     public int getMaxRetries() {
         return maxRetries;
     }
+
+    public long getRetryBackoffMs() {
+        return retryBackoffMs;
+    }
+
+    public long getRetryBackoffMaxMs() {
+        return retryBackoffMaxMs;
+    }
+
+    public int getCircuitFailureThreshold() {
+        return circuitFailureThreshold;
+    }
+
+    public long getCircuitOpenMs() {
+        return circuitOpenMs;
+    }
+
+    public String getDeadLetterDir() {
+        return deadLetterDir;
+    }
+
+    public String getJournalDir() {
+        return journalDir;
+    }
+
+    public int getJournalSegmentSize() {
+        return journalSegmentSize;
+    }
+
+    public LandOptions.Statement getStatementMode() {
+        return statementMode;
+    }
+
+    public int getMaxPacketBytes() {
+        return maxPacketBytes;
+    }
+
+    public LandOptions.Routing getRoutingMode() {
+        return routingMode;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    public String getSpillDir() {
+        return spillDir;
+    }
+
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public long getCriticalMaxDelayMs() {
+        return criticalMaxDelayMs;
+    }
+
+    public long getBulkMaxDelayMs() {
+        return bulkMaxDelayMs;
+    }
+
+    public int getChangeStreamCapacity() {
+        return changeStreamCapacity;
+    }
+
+    public String getChangeLogDir() {
+        return changeLogDir;
+    }
+
+    public int getChangeLogRetainSegments() {
+        return changeLogRetainSegments;
+    }
 }
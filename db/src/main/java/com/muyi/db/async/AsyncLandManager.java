@@ -1,21 +1,44 @@
 package com.muyi.db.async;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.muyi.db.annotation.LandOptions;
 import com.muyi.db.annotation.WorkerIndex;
+import com.muyi.db.cdc.ChangeLog;
+import com.muyi.db.cdc.ChangeStream;
 import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.EntityMetadata;
 import com.muyi.db.core.EntityState;
+import com.muyi.db.core.FieldInfo;
+import com.muyi.db.journal.DeadLetterStore;
+import com.muyi.db.journal.LandJournal;
+import com.muyi.db.journal.LandSpill;
+import com.muyi.db.sql.PinnedConnection;
 import com.muyi.db.sql.SqlExecutor;
 
 /**
@@ -25,15 +48,21 @@ import com.muyi.db.sql.SqlExecutor;
  * <ul>
  *   <li>异步批量落地，减少数据库压力</li>
  *   <li>版本控制，防止旧数据覆盖新数据</li>
- *   <li>失败重试机制</li>
+ *   <li>失败重试机制：指数退避、按表熔断、重试耗尽后写入死信（可选）</li>
  *   <li>优雅关闭，确保数据不丢失</li>
  *   <li>脏数据缓存，支持未落地数据的查询</li>
+ *   <li>落地日志（可选），进程崩溃后重启回放未落地数据</li>
  * </ul>
  */
 public class AsyncLandManager {
 
     private static final Logger logger = LoggerFactory.getLogger(AsyncLandManager.class);
 
+    /**
+     * 溢出目录中回放失败、留到下次启动的记录的文件名前缀
+     */
+    private static final String SPILL_REPLAY_PREFIX = "replay";
+
     /**
      * 工作线程组（每个线程有独立的队列）
      * <p>
@@ -47,12 +76,31 @@ public class AsyncLandManager {
      * 存储所有待落地的实体，用于查询时返回最新数据
      */
     private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Object, BaseEntity<?>>> dirtyCache = new ConcurrentHashMap<>();
+
+    /**
+     * 脏数据缓存二级索引：entityClass -> 索引（没有 {@code @DirtyIndex} 字段为 empty）
+     */
+    private final ConcurrentHashMap<Class<?>, Optional<DirtyCacheIndex>> dirtyIndexes = new ConcurrentHashMap<>();
     
     /**
-     * 注解解析缓存：entityClass -> workerIndex（-1 表示无注解）
+     * 路由解析缓存：entityClass -> 可用工作线程（长度为 1 表示按表固定线程）
+     */
+    private final ConcurrentHashMap<Class<?>, int[]> routeCache = new ConcurrentHashMap<>();
+
+    /**
+     * 落地优先级缓存：entityClass -> @LandOptions 配置的优先级（未配置为 NORMAL）
      */
-    private final ConcurrentHashMap<Class<?>, Integer> annotationCache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, LandOptions.Priority> priorityCache = new ConcurrentHashMap<>();
 
+    /**
+     * 落地语句模式缓存：entityClass -> 生效的语句模式
+     */
+    private final ConcurrentHashMap<Class<?>, LandOptions.Statement> statementCache = new ConcurrentHashMap<>();
+
+    /**
+     * 多行语句最大字节数（0 表示尚未从服务端读取）
+     */
+    private volatile int maxPacketBytes;
 
     /**
      * SQL 执行器
@@ -64,6 +112,36 @@ public class AsyncLandManager {
      */
     private final AsyncLandConfig config;
 
+    /**
+     * 落地日志（未启用时为 null）
+     */
+    private final LandJournal journal;
+
+    /**
+     * 按表熔断器（未启用时为 null）
+     */
+    private final TableCircuitBreaker circuitBreaker;
+
+    /**
+     * 死信（未启用时为 null）
+     */
+    private final DeadLetterStore deadLetters;
+
+    /**
+     * 已提交变更的发布流（未启用时为 null）
+     */
+    private final ChangeStream changeStream;
+
+    /**
+     * 每个工作线程的固定连接（未启用组提交时为 null）
+     */
+    private final PinnedConnection[] pinnedConnections;
+
+    /**
+     * 落地事件监听器
+     */
+    private final List<LandListener> listeners = new CopyOnWriteArrayList<>();
+
     /**
      * 是否已关闭
      */
@@ -76,25 +154,79 @@ public class AsyncLandManager {
     private final AtomicLong successTasks = new AtomicLong(0);
     private final AtomicLong failedTasks = new AtomicLong(0);      // 最终失败（放弃）的任务数
     private final AtomicLong retryCount = new AtomicLong(0);       // 重试次数（用于监控）
+    private final AtomicLong groupCommits = new AtomicLong(0);     // 组提交成功次数
+    private final AtomicLong groupFallbacks = new AtomicLong(0);   // 组提交失败转逐表落地的次数
+    private final AtomicLong parkCount = new AtomicLong(0);        // 因表熔断暂存的累计任务数（暂存中的任务计入 delayed）
+    private final AtomicLong deadLettered = new AtomicLong(0);     // 写入死信的任务数
+
+    /**
+     * 落地指标（延迟、批量大小、执行耗时、按表计数）
+     */
+    private final LandMetrics metrics = new LandMetrics();
 
     public AsyncLandManager(SqlExecutor sqlExecutor, AsyncLandConfig config) {
         this.sqlExecutor = sqlExecutor;
         this.config = config;
+        this.maxPacketBytes = config.getMaxPacketBytes();
+
+        if (config.getOverflow() == AsyncLandConfig.Overflow.SPILL && config.getSpillDir() == null) {
+            throw new IllegalArgumentException("spillDir is required for SPILL overflow");
+        }
+
+        this.circuitBreaker = config.getCircuitFailureThreshold() > 0
+                ? new TableCircuitBreaker(config.getCircuitFailureThreshold(), config.getCircuitOpenMs())
+                : null;
+        this.deadLetters = config.getDeadLetterDir() != null
+                ? new DeadLetterStore(Paths.get(config.getDeadLetterDir()), config.getJournalSegmentSize())
+                : null;
+        if (config.getChangeStreamCapacity() > 0) {
+            ChangeLog changeLog = config.getChangeLogDir() != null
+                    ? new ChangeLog(Paths.get(config.getChangeLogDir()), config.getJournalSegmentSize(),
+                            config.getChangeLogRetainSegments())
+                    : null;
+            this.changeStream = new ChangeStream(config.getChangeStreamCapacity(), changeLog);
+        } else {
+            this.changeStream = null;
+        }
+
+        // 先回放上次未落地的数据（溢出文件中的快照较旧，先于落地日志回放），再接收新任务
+        if (config.getSpillDir() != null) {
+            replaySpill(Paths.get(config.getSpillDir()));
+        }
+        if (config.getJournalDir() != null) {
+            this.journal = new LandJournal(Paths.get(config.getJournalDir()), config.getJournalSegmentSize());
+            replayJournal();
+        } else {
+            this.journal = null;
+        }
         
-        // 创建工作线程组（使用 BlockingQueue，无需调度线程）
+        // 创建工作线程组（每个线程一个有界环形队列，无需调度线程）
         this.workerThreads = new WorkerThread[config.getLandThreads()];
+        this.pinnedConnections = config.isGroupCommit() ? new PinnedConnection[config.getLandThreads()] : null;
         for (int i = 0; i < config.getLandThreads(); i++) {
+            PinnedConnection pinned = pinnedConnections != null
+                    ? pinnedConnections[i] = sqlExecutor.pinConnection(config.getStatementCacheSize())
+                    : null;
+            LandSpill spill = config.getOverflow() == AsyncLandConfig.Overflow.SPILL
+                    ? new LandSpill(spillDir(i), config.getJournalSegmentSize())
+                    : null;
             workerThreads[i] = new WorkerThread(
                     i, 
                     config.getLandIntervalMs(), 
                     config.getBatchSize(),
-                    this::processBatch
+                    config.getQueueCapacity(),
+                    config.getOverflow(),
+                    spill,
+                    this::resolveSpilled,
+                    batch -> processBatch(batch, pinned)
             );
+            workerThreads[i].setCriticalMaxDelayMs(config.getCriticalMaxDelayMs());
+            workerThreads[i].setBulkMaxDelayMs(config.getBulkMaxDelayMs());
             workerThreads[i].start();
         }
 
-        logger.info("AsyncLandManager started with {} worker threads",
-                config.getLandThreads());
+        logger.info("AsyncLandManager started with {} worker threads, groupCommit={}",
+                config.getLandThreads(), config.isGroupCommit());
     }
 
     // ==================== 提交任务 ====================
@@ -103,19 +235,33 @@ public class AsyncLandManager {
      * 提交插入任务
      */
     public void submitInsert(BaseEntity<?> entity) {
+        submitInsert(entity, LandOptions.Priority.DEFAULT);
+    }
+
+    /**
+     * 按指定优先级提交插入任务（DEFAULT 使用实体 @LandOptions 配置）
+     */
+    public void submitInsert(BaseEntity<?> entity, LandOptions.Priority priority) {
         entity.setState(EntityState.NEW);
-        submit(LandTask.ofInsert(entity), false);
+        submit(entity, TaskType.INSERT, false, priority);
     }
 
     /**
      * 提交更新任务
      */
     public void submitUpdate(BaseEntity<?> entity) {
+        submitUpdate(entity, LandOptions.Priority.DEFAULT);
+    }
+
+    /**
+     * 按指定优先级提交更新任务（DEFAULT 使用实体 @LandOptions 配置）
+     */
+    public void submitUpdate(BaseEntity<?> entity, LandOptions.Priority priority) {
         if (entity.getState() == EntityState.NEW) {
             // 新建状态的实体，改为插入
-            submit(LandTask.ofInsert(entity), false);
+            submit(entity, TaskType.INSERT, false, priority);
         } else {
-            submit(LandTask.ofUpdate(entity), false);
+            submit(entity, TaskType.UPDATE, false, priority);
         }
     }
 
@@ -123,6 +269,13 @@ public class AsyncLandManager {
      * 提交删除任务
      */
     public void submitDelete(BaseEntity<?> entity) {
+        submitDelete(entity, LandOptions.Priority.DEFAULT);
+    }
+
+    /**
+     * 按指定优先级提交删除任务（DEFAULT 使用实体 @LandOptions 配置）
+     */
+    public void submitDelete(BaseEntity<?> entity, LandOptions.Priority priority) {
         EntityState prevState = entity.getState();
         entity.setState(EntityState.DELETED);
         
@@ -131,65 +284,147 @@ public class AsyncLandManager {
         if (prevState == EntityState.NEW && entity.isInLandQueue()) {
             // 标记为不需要落地，让队列中的 INSERT 任务变成过期任务
             entity.syncVersion();
+            if (!shutdown.get()) {
+                appendJournal(entity, TaskType.DELETE);
+            }
+            fireSubmit(entity, TaskType.DELETE);
             logger.debug("Entity deleted before insert, skipping: {}", entity);
             return;
         }
         
         // 删除操作强制入队，即使已在队列中
-        submit(LandTask.ofDelete(entity), true);
+        submit(entity, TaskType.DELETE, true, priority);
     }
 
-    private void submit(LandTask task, boolean force) {
+    /**
+     * 提交任务（合并掉的重复提交不创建任务对象）
+     * <p>
+     * 合并到已在队列中的任务时，如果本次提交更紧急（例如 BULK 通道中的实体被 CRITICAL 提交），
+     * 通知工作线程提前取出低优先级通道，保证本次提交的最长等待时间
+     */
+    private void submit(BaseEntity<?> entity, TaskType type, boolean force, LandOptions.Priority priority) {
         if (shutdown.get()) {
             logger.warn("AsyncLandManager is shutdown, task rejected");
             return;
         }
 
-        BaseEntity<?> entity = task.getEntity();
+        // 先写日志：合并掉的重复提交也要记录最新快照
+        appendJournal(entity, type);
+        fireSubmit(entity, type);
         
+        LandOptions.Priority effective = resolvePriority(entity.getClass(), priority);
+
         // 已在队列中的不重复添加（除非强制）
         if (!force && entity.isInLandQueue()) {
+            // 索引字段可能已修改，刷新索引
+            reindexDirty(entity);
+            // 枚举顺序越靠前越紧急
+            if (effective.ordinal() < entity.getLandPriority().ordinal()) {
+                entity.setLandPriority(effective);
+                workerThreads[selectWorker(entity)].promote(effective);
+            }
             return;
         }
         entity.setInLandQueue(true);
+        entity.setLandPriority(effective);
         
         // 添加到脏数据缓存
         addToDirtyCache(entity);
 
         // 根据分片策略选择工作线程
         int workerIndex = selectWorker(entity);
-        workerThreads[workerIndex].submit(task);
+        workerThreads[workerIndex].submit(new LandTask(entity, type), effective);
 
         totalTasks.incrementAndGet();
     }
     
+    /**
+     * 生效的落地优先级：提交时指定 > @LandOptions > NORMAL
+     */
+    private LandOptions.Priority resolvePriority(Class<?> entityClass, LandOptions.Priority priority) {
+        if (priority != null && priority != LandOptions.Priority.DEFAULT) {
+            return priority;
+        }
+        return priorityCache.computeIfAbsent(entityClass, clazz -> {
+            LandOptions options = clazz.getAnnotation(LandOptions.class);
+            return options != null && options.priority() != LandOptions.Priority.DEFAULT
+                    ? options.priority() : LandOptions.Priority.NORMAL;
+        });
+    }
+
+    /**
+     * 写落地日志（失败只记录错误，不阻塞业务提交）
+     */
+    private void appendJournal(BaseEntity<?> entity, TaskType type) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(entity, type);
+        } catch (Exception e) {
+            logger.error("Failed to append land journal: {}", entity, e);
+        }
+    }
+
     /**
      * 选择工作线程
      * <p>
-     * 优先级：@WorkerIndex 注解 > 按表名 hash
+     * 按表路由：@WorkerIndex 注解 > 按表名 hash；
+     * 按主键路由：首次提交时按主键 hash 选择线程并记录在实体上，之后该实体的所有任务（含重试）都进入同一线程。
+     * 主键未生成（自增）时先按对象标识分配，主键生成后（INSERT 已执行）改按主键分配，
+     * 保证之后以相同主键加载的其他实例与其进入同一线程
      */
     private int selectWorker(BaseEntity<?> entity) {
-        Class<?> entityClass = entity.getClass();
-        
-        // 1. 优先使用 @WorkerIndex 注解指定的线程（带缓存）
-        int annotatedIndex = getAnnotatedWorkerIndex(entityClass);
-        if (annotatedIndex >= 0 && annotatedIndex < workerThreads.length) {
-            return annotatedIndex;
+        int[] candidates = getWorkerRoute(entity.getClass());
+        if (candidates.length == 1) {
+            return candidates[0];
         }
-        
-        // 2. 按表名 hash：同一表固定到同一线程
-        // 注意：Math.abs(Integer.MIN_VALUE) 仍为负数，使用位运算确保非负
-        int hash = entityClass.hashCode() & 0x7FFFFFFF;
-        return hash % workerThreads.length;
+        int assigned = entity.getLandWorker();
+        if (assigned >= 0 && !entity.isLandWorkerByIdentity()) {
+            return assigned;
+        }
+        boolean noPrimaryKey = Arrays.asList(entity.getPrimaryKeyValues()).contains(null);
+        if (assigned >= 0 && noPrimaryKey) {
+            return assigned;
+        }
+        int hash = noPrimaryKey ? System.identityHashCode(entity) : entity.getMetadata().getPrimaryKeyHash(entity);
+        hash ^= hash >>> 16;
+        int worker = candidates[Math.floorMod(hash, candidates.length)];
+        entity.setLandWorker(worker, noPrimaryKey);
+        return worker;
     }
-    
+
     /**
-     * 获取类上 @WorkerIndex 注解的值（带缓存）
+     * 解析实体可用的工作线程（带缓存）
      */
-    private int getAnnotatedWorkerIndex(Class<?> entityClass) {
-        return annotationCache.computeIfAbsent(entityClass, clazz -> {
+    private int[] getWorkerRoute(Class<?> entityClass) {
+        return routeCache.computeIfAbsent(entityClass, clazz -> {
+            LandOptions options = clazz.getAnnotation(LandOptions.class);
+            LandOptions.Routing routing = options != null && options.routing() != LandOptions.Routing.DEFAULT
+                    ? options.routing() : config.getRoutingMode();
+
+            if (routing == LandOptions.Routing.PRIMARY_KEY) {
+                int[] workers = options != null ? options.workers() : new int[0];
+                int[] valid = Arrays.stream(workers)
+                        .filter(i -> i >= 0 && i < workerThreads.length)
+                        .distinct()
+                        .toArray();
+                if (valid.length == 0) {
+                    valid = IntStream.range(0, workerThreads.length).toArray();
+                }
+                return valid;
+            }
+
+            // 1. 优先使用 @WorkerIndex 注解指定的线程
             WorkerIndex annotation = clazz.getAnnotation(WorkerIndex.class);
-            return annotation != null ? annotation.value() : -1;
+            if (annotation != null && annotation.value() >= 0 && annotation.value() < workerThreads.length) {
+                return new int[]{annotation.value()};
+            }
+
+            // 2. 按表名 hash：同一表固定到同一线程
+            // 注意：Math.abs(Integer.MIN_VALUE) 仍为负数，使用位运算确保非负
+            int hash = clazz.hashCode() & 0x7FFFFFFF;
+            return new int[]{hash % workerThreads.length};
         });
     }
     
@@ -232,6 +467,20 @@ public class AsyncLandManager {
         logger.info("Land interval updated to {} ms", landIntervalMs);
     }
     
+    /**
+     * 动态调整优先级通道的等待时间（所有工作线程）
+     *
+     * @param criticalMaxDelayMs CRITICAL 任务攒批窗口，0 表示提交即落地
+     * @param bulkMaxDelayMs     BULK 任务最长保留时间
+     */
+    public void setPriorityDelays(long criticalMaxDelayMs, long bulkMaxDelayMs) {
+        for (WorkerThread worker : workerThreads) {
+            worker.setCriticalMaxDelayMs(criticalMaxDelayMs);
+            worker.setBulkMaxDelayMs(bulkMaxDelayMs);
+        }
+        logger.info("Priority delays updated: critical={}ms, bulk={}ms", criticalMaxDelayMs, bulkMaxDelayMs);
+    }
+
     /**
      * 启用/禁用自适应调整（所有工作线程）
      * <p>
@@ -273,8 +522,22 @@ public class AsyncLandManager {
      */
     private void addToDirtyCache(BaseEntity<?> entity) {
         Object cacheKey = createCacheKey(entity);
-        dirtyCache.computeIfAbsent(entity.getClass(), k -> new ConcurrentHashMap<>())
-                .put(cacheKey, entity);
+        if (cacheKey == null) {
+            // 自增主键尚未生成，无法按主键查询，不进入脏数据缓存
+            return;
+        }
+        ConcurrentHashMap<Object, BaseEntity<?>> classCache =
+                dirtyCache.computeIfAbsent(entity.getClass(), k -> new ConcurrentHashMap<>());
+        DirtyCacheIndex index = getDirtyIndex(entity.getClass());
+        if (index == null) {
+            classCache.put(cacheKey, entity);
+            return;
+        }
+        // 在 compute 中更新索引，与同一主键的移除串行
+        classCache.compute(cacheKey, (k, previous) -> {
+            index.put(k, entity);
+            return entity;
+        });
     }
     
     /**
@@ -286,17 +549,54 @@ public class AsyncLandManager {
     private void removeFromDirtyCache(BaseEntity<?> entity) {
         Object cacheKey = createCacheKey(entity);
         ConcurrentHashMap<Object, BaseEntity<?>> classCache = dirtyCache.get(entity.getClass());
-        if (classCache != null) {
+        if (classCache != null && cacheKey != null) {
             // 使用条件移除：只有当缓存中的对象就是当前对象时才移除
             // 避免移除其他线程刚添加的新版本实体
-            classCache.remove(cacheKey, entity);
+            DirtyCacheIndex index = getDirtyIndex(entity.getClass());
+            if (index == null) {
+                classCache.remove(cacheKey, entity);
+                return;
+            }
+            classCache.computeIfPresent(cacheKey, (k, current) -> {
+                if (current != entity) {
+                    return current;
+                }
+                index.remove(k);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 刷新已在脏数据缓存中的实体的索引（已落地移除的不再加回缓存）
+     */
+    private void reindexDirty(BaseEntity<?> entity) {
+        DirtyCacheIndex index = getDirtyIndex(entity.getClass());
+        ConcurrentHashMap<Object, BaseEntity<?>> classCache = dirtyCache.get(entity.getClass());
+        Object cacheKey = createCacheKey(entity);
+        if (index == null || classCache == null || cacheKey == null) {
+            return;
         }
+        classCache.computeIfPresent(cacheKey, (k, current) -> {
+            if (current == entity) {
+                index.put(k, entity);
+            }
+            return current;
+        });
+    }
+
+    /**
+     * 获取实体类型的脏数据索引（没有 {@code @DirtyIndex} 字段返回 null）
+     */
+    private DirtyCacheIndex getDirtyIndex(Class<?> entityClass) {
+        return dirtyIndexes.computeIfAbsent(entityClass,
+                k -> Optional.ofNullable(DirtyCacheIndex.of(BaseEntity.metadataOf(k)))).orElse(null);
     }
     
     /**
      * 创建缓存 key（支持复合主键）
      * <p>
-     * 注意：使用 Arrays.asList 而非 List.of，因为主键值可能包含 null
+     * 注意：使用 Arrays.asList 而非 List.of，因为主键值可能包含 null；单主键为 null（自增未生成）时返回 null
      */
     private Object createCacheKey(BaseEntity<?> entity) {
         Object[] pkValues = entity.getPrimaryKeyValues();
@@ -313,15 +613,19 @@ public class AsyncLandManager {
      * 批量处理任务（由 WorkerThread 调用）
      * <p>
      * 优化：单次遍历完成过滤+类型分组+表分组，减少遍历次数
+     *
+     * @param pinned 工作线程的固定连接（未启用组提交时为 null）
      */
-    private void processBatch(List<LandTask> tasks) {
-        // 使用三维结构：TaskType -> EntityClass -> List<LandTask>
-        // 单次遍历完成所有分组
-        Map<TaskType, Map<Class<?>, List<LandTask>>> grouped = new EnumMap<>(TaskType.class);
+    private void processBatch(List<LandTask> tasks, PinnedConnection pinned) {
+        // 使用三维结构：TaskType -> (EntityClass, 物理表) -> List<LandTask>
+        // 单次遍历完成所有分组；分表实体按物理表拆分，保证每条批量语句只写一张表
+        Map<TaskType, Map<TableKey, List<LandTask>>> grouped = new EnumMap<>(TaskType.class);
         
         for (LandTask task : tasks) {
             BaseEntity<?> entity = task.getEntity();
             entity.setInLandQueue(false);
+            // 在读取实体字段之前捕获日志序号，之后的提交不会被本次落地误标记为完成
+            task.setJournalSeq(entity.getJournalSeq());
 
             // 根据任务类型决定是否跳过
             TaskType taskType = task.getType();
@@ -333,6 +637,7 @@ public class AsyncLandManager {
                     if (entityState == EntityState.DELETED) {
                         logger.debug("Skipping INSERT for deleted entity: {}", entity);
                         removeFromDirtyCache(entity);  // 从脏数据缓存移除
+                        markJournalDone(task);
                         continue;
                     }
                     break;
@@ -352,101 +657,748 @@ public class AsyncLandManager {
                     break;
             }
 
+            // UPSERT 模式下 UPDATE 与 INSERT 合并为同一组多行 upsert
+            if (taskType == TaskType.UPDATE && getStatementMode(entity.getClass()) == LandOptions.Statement.UPSERT) {
+                taskType = TaskType.INSERT;
+            }
+
             // 按类型和表分组（单次遍历完成）
             grouped.computeIfAbsent(taskType, k -> new LinkedHashMap<>())
-                    .computeIfAbsent(entity.getClass(), k -> new ArrayList<>())
+                    .computeIfAbsent(new TableKey(entity.getClass(), entity.getTableName()), k -> new ArrayList<>())
                     .add(task);
         }
 
-        // 按顺序处理：先删除，再插入，最后更新
-        processTaskTypeGroup(grouped.get(TaskType.DELETE));
-        processTaskTypeGroup(grouped.get(TaskType.INSERT));
-        processTaskTypeGroup(grouped.get(TaskType.UPDATE));
+        if (circuitBreaker != null && !shutdown.get()) {
+            parkOpenCircuits(grouped);
+        }
+
+        // 组提交失败时已回滚，逐表重新执行（每张表单独事务，互不影响）
+        if (pinned == null || grouped.isEmpty() || !landInGroup(grouped, pinned)) {
+            landGrouped(grouped, null);
+        }
+
+        if (journal != null) {
+            journal.checkpoint();
+        }
+    }
+
+    /**
+     * 熔断中的表：任务移出本轮，暂存到延迟队列（不消耗重试次数），熔断到期后重新参与落地
+     * <p>
+     * 关闭阶段不暂存，照常执行直到重试耗尽，保证关闭流程能结束。
+     */
+    private void parkOpenCircuits(Map<TaskType, Map<TableKey, List<LandTask>>> grouped) {
+        long now = System.currentTimeMillis();
+        Map<String, Long> decided = null;
+        for (Map<TableKey, List<LandTask>> byTable : grouped.values()) {
+            Iterator<Map.Entry<TableKey, List<LandTask>>> it = byTable.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<TableKey, List<LandTask>> entry = it.next();
+                String table = entry.getKey().tableName();
+                if (decided == null) {
+                    decided = new HashMap<>();
+                }
+                // 同一张表本轮只判断一次（半开状态只放行一个探测批次）
+                long wait = decided.computeIfAbsent(table, k -> circuitBreaker.blockedFor(k, now));
+                if (wait <= 0) {
+                    continue;
+                }
+                for (LandTask task : entry.getValue()) {
+                    task.getEntity().setInLandQueue(true);
+                    workerThreads[selectWorker(task.getEntity())].submitDelayed(task, wait);
+                }
+                parkCount.addAndGet(entry.getValue().size());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * 按顺序处理：先删除，再插入，最后更新
+     */
+    private void landGrouped(Map<TaskType, Map<TableKey, List<LandTask>>> grouped, LandGroup group) {
+        processTaskTypeGroup(TaskType.DELETE, grouped.get(TaskType.DELETE), group);
+        processTaskTypeGroup(TaskType.INSERT, grouped.get(TaskType.INSERT), group);
+        processTaskTypeGroup(TaskType.UPDATE, grouped.get(TaskType.UPDATE), group);
+    }
+
+    /**
+     * 组提交：本轮所有表在固定连接上的同一事务中执行，提交成功后再统一处理结果
+     *
+     * @return 是否提交成功；失败时已回滚并恢复变更位图
+     */
+    private boolean landInGroup(Map<TaskType, Map<TableKey, List<LandTask>>> grouped, PinnedConnection pinned) {
+        LandGroup group = new LandGroup();
+        try {
+            sqlExecutor.executeInGroup(pinned, () -> landGrouped(grouped, group));
+        } catch (Exception e) {
+            logger.warn("Group commit failed, falling back to per-table transactions", e);
+            group.onRollback.forEach(Runnable::run);
+            groupFallbacks.incrementAndGet();
+            return false;
+        }
+        groupCommits.incrementAndGet();
+        group.onCommit.forEach(Runnable::run);
+        return true;
+    }
+
+    /**
+     * 组提交中的一轮落地
+     * <p>
+     * 语句执行成功时事务尚未提交：实体状态更新（由 SqlExecutor 在提交后执行）和结果处理（移出脏数据缓存、
+     * 标记日志完成、通知监听器）推迟到提交之后，回滚时实体保持原状态并恢复已取出的变更位图，交给逐表兜底重新取出。
+     */
+    private static final class LandGroup {
+        final List<Runnable> onCommit = new ArrayList<>();
+        final List<Runnable> onRollback = new ArrayList<>();
     }
 
     /**
      * 处理某一类型的所有任务（已按表分组）
+     *
+     * @param group 所在组事务（逐表落地时为 null）
      */
-    private void processTaskTypeGroup(Map<Class<?>, List<LandTask>> byTable) {
+    private void processTaskTypeGroup(TaskType type, Map<TableKey, List<LandTask>> byTable, LandGroup group) {
         if (byTable == null || byTable.isEmpty()) {
             return;
         }
         for (List<LandTask> tableTasks : byTable.values()) {
-            processTableTasks(tableTasks);
+            processTableTasks(type, tableTasks, group);
         }
     }
 
+    /**
+     * 落地分组 key：实体类 + 物理表名
+     */
+    private record TableKey(Class<?> entityClass, String tableName) {
+    }
+
     /**
      * 处理单张表的任务批次
+     *
+     * @param type 分组类型（UPSERT 模式下 INSERT 组中包含 UPDATE 任务）
      */
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private void processTableTasks(List<LandTask> tasks) {
-        TaskType type = tasks.get(0).getType();
+    private void processTableTasks(TaskType type, List<LandTask> tasks, LandGroup group) {
+        if (type == TaskType.UPDATE) {
+            processUpdateTasks(tasks, group);
+            return;
+        }
+        LandOptions.Statement mode = getStatementMode(tasks.get(0).getEntity().getClass());
+        boolean multiRow = mode != LandOptions.Statement.BATCH;
+
         // 使用传统 for 循环代替 Stream，减少高频调用时的对象创建开销
         List<BaseEntity<?>> entities = new ArrayList<>(tasks.size());
+        // 多行写入整行：先取出变更标记，落地期间的新变更留给下一次落地，失败时恢复
+        List<long[]> drained = multiRow && type == TaskType.INSERT ? new ArrayList<>(tasks.size()) : null;
         for (LandTask task : tasks) {
             entities.add(task.getEntity());
+            if (drained != null) {
+                drained.add(task.getEntity().drainChangedBits());
+            }
+        }
+        if (group != null && drained != null) {
+            group.onRollback.add(() -> restoreChangedBits(tasks, drained));
         }
 
         try {
+            long start = System.nanoTime();
             int[] results;
             switch (type) {
-                case INSERT -> results = sqlExecutor.batchInsert((List) entities);
-                case UPDATE -> results = sqlExecutor.batchUpdate((List) entities);
-                case DELETE -> results = sqlExecutor.batchDelete((List) entities);
+                case INSERT -> results = switch (mode) {
+                    case UPSERT -> sqlExecutor.multiRowUpsert((List) entities, getMaxPacketBytes());
+                    case MULTI_ROW -> sqlExecutor.multiRowInsert((List) entities, getMaxPacketBytes());
+                    default -> sqlExecutor.batchInsert((List) entities);
+                };
+                case DELETE -> results = multiRow
+                        ? sqlExecutor.multiRowDelete((List) entities, getMaxPacketBytes())
+                        : sqlExecutor.batchDelete((List) entities);
                 default -> results = new int[0];
             }
-
-            // 处理结果
-            // 注意：results.length 可能与 tasks.size() 不同（某些 JDBC 驱动行为）
-            int resultCount = Math.min(results.length, tasks.size());
-            for (int i = 0; i < resultCount; i++) {
+            metrics.recordExecute(tasks.get(0).getEntity().getTableName(), tasks.size(), System.nanoTime() - start);
+            completeBatch(tasks, results, drained, group);
+        } catch (Exception e) {
+            if (group != null) {
+                // 组事务整体回滚，由组提交恢复变更位图后逐表兜底
+                throw e;
+            }
+            logger.error("Batch {} failed for table {}", type, tasks.get(0).getEntity().getClass().getSimpleName(), e);
+            recordTableFailure(tasks.get(0).getEntity().getTableName());
+            // 全部失败，放回队列重试
+            for (int i = 0; i < tasks.size(); i++) {
                 LandTask t = tasks.get(i);
-                // Statement.SUCCESS_NO_INFO (-2) 也视为成功
-                if (results[i] == 0) {
-                    handleFailedTask(t);
-                } else {
-                    // 落地成功，从脏数据缓存移除
-                    removeFromDirtyCache(t.getEntity());
-                    // 同步版本
-                    t.getEntity().syncVersion();
-                    successTasks.incrementAndGet();
+                if (drained != null) {
+                    t.getEntity().restoreChangedBits(drained.get(i));
                 }
+                handleFailedTask(t);
             }
-            // 如果 results 比 tasks 短，剩余任务视为失败
-            for (int i = resultCount; i < tasks.size(); i++) {
-                handleFailedTask(tasks.get(i));
+        }
+    }
+
+    /**
+     * 获取实体生效的落地语句模式（@LandOptions > 全局配置，带缓存）
+     */
+    private LandOptions.Statement getStatementMode(Class<?> entityClass) {
+        return statementCache.computeIfAbsent(entityClass, clazz -> {
+            LandOptions options = clazz.getAnnotation(LandOptions.class);
+            if (options == null || options.statement() == LandOptions.Statement.DEFAULT) {
+                return config.getStatementMode();
             }
-        } catch (Exception e) {
-            logger.error("Batch {} failed for table {}", type, tasks.get(0).getEntity().getClass().getSimpleName(), e);
-            // 全部失败，放回队列重试
-            for (LandTask t : tasks) {
+            return options.statement();
+        });
+    }
+
+    /**
+     * 多行语句最大字节数（未配置时读取服务端 max_allowed_packet，读取失败使用 4MB）
+     */
+    private int getMaxPacketBytes() {
+        int bytes = maxPacketBytes;
+        if (bytes == 0) {
+            long detected = 4L * 1024 * 1024;
+            try {
+                detected = sqlExecutor.selectOne("SELECT @@max_allowed_packet", Long.class, detected);
+            } catch (Exception e) {
+                logger.warn("Failed to read max_allowed_packet, using {} bytes", detected, e);
+            }
+            bytes = (int) Math.max(4096, Math.min(detected, Integer.MAX_VALUE));
+            maxPacketBytes = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * 处理单张表的 UPDATE 任务
+     * <p>
+     * 按变更字段集合（签名）分组，每组使用同一条部分更新语句批量执行，只写变更的列。
+     * 无变更标记的实体（setter 未调用 markChanged）按整行更新，保持原有语义。
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void processUpdateTasks(List<LandTask> tasks, LandGroup landGroup) {
+        EntityMetadata metadata = tasks.get(0).getEntity().getMetadata();
+
+        // 签名 -> 任务；FieldInfo 为元数据单例，列表可直接作为 key
+        Map<List<FieldInfo>, List<LandTask>> groups = new LinkedHashMap<>();
+        Map<List<FieldInfo>, List<long[]>> drainedByGroup = new HashMap<>();
+        for (LandTask task : tasks) {
+            // 在读取字段值之前取出变更字段，落地期间的新变更留给下一次落地
+            long[] drained = task.getEntity().drainChangedBits();
+            List<FieldInfo> signature = metadata.getChangedFields(drained);
+            groups.computeIfAbsent(signature, k -> new ArrayList<>()).add(task);
+            drainedByGroup.computeIfAbsent(signature, k -> new ArrayList<>()).add(drained);
+        }
+        if (landGroup != null) {
+            // 组事务回滚时所有签名分组（含尚未执行的）都要恢复
+            landGroup.onRollback.add(() -> groups.forEach(
+                    (signature, groupTasks) -> restoreChangedBits(groupTasks, drainedByGroup.get(signature))));
+        }
+
+        for (Map.Entry<List<FieldInfo>, List<LandTask>> group : groups.entrySet()) {
+            List<FieldInfo> signature = group.getKey();
+            List<LandTask> groupTasks = group.getValue();
+            List<long[]> drained = drainedByGroup.get(signature);
+            List<BaseEntity<?>> entities = new ArrayList<>(groupTasks.size());
+            for (LandTask task : groupTasks) {
+                entities.add(task.getEntity());
+            }
+
+            try {
+                long start = System.nanoTime();
+                int[] results = signature.isEmpty()
+                        ? sqlExecutor.batchUpdate((List) entities)
+                        : sqlExecutor.batchUpdatePartial((List) entities, signature);
+                metrics.recordExecute(groupTasks.get(0).getEntity().getTableName(), groupTasks.size(),
+                        System.nanoTime() - start);
+                completeBatch(groupTasks, results, drained, landGroup);
+            } catch (Exception e) {
+                if (landGroup != null) {
+                    throw e;
+                }
+                logger.error("Batch UPDATE failed for table {} ({} changed columns)",
+                        metadata.getTableName(), signature.size(), e);
+                recordTableFailure(groupTasks.get(0).getEntity().getTableName());
+                for (int i = 0; i < groupTasks.size(); i++) {
+                    LandTask t = groupTasks.get(i);
+                    t.getEntity().restoreChangedBits(drained.get(i));
+                    handleFailedTask(t);
+                }
+            }
+        }
+    }
+
+    /**
+     * 完成一条批量语句：逐表落地时立即处理结果，组提交时推迟到提交之后
+     */
+    private void completeBatch(List<LandTask> tasks, int[] results, List<long[]> drained, LandGroup group) {
+        if (group == null) {
+            handleBatchResults(tasks, results, drained);
+            return;
+        }
+        group.onCommit.add(() -> handleBatchResults(tasks, results, drained));
+    }
+
+    private static void restoreChangedBits(List<LandTask> tasks, List<long[]> drained) {
+        if (drained == null) {
+            return;
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).getEntity().restoreChangedBits(drained.get(i));
+        }
+    }
+
+    /**
+     * 处理批量执行结果
+     *
+     * @param drained 每个任务落地前取出的变更位图（失败时恢复），未取出时为 null
+     */
+    private void handleBatchResults(List<LandTask> tasks, int[] results, List<long[]> drained) {
+        // 批量执行未抛异常即视为表可用：DELETE/UPDATE 的行已不存在时 0 行受影响属正常，不计入熔断
+        if (circuitBreaker != null) {
+            circuitBreaker.recordSuccess(tasks.get(0).getEntity().getTableName());
+        }
+        // 注意：results.length 可能与 tasks.size() 不同（某些 JDBC 驱动行为）
+        int resultCount = Math.min(results.length, tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            LandTask t = tasks.get(i);
+            // Statement.SUCCESS_NO_INFO (-2) 也视为成功；results 比 tasks 短时剩余任务视为失败
+            if (i >= resultCount || results[i] == 0) {
+                if (drained != null) {
+                    t.getEntity().restoreChangedBits(drained.get(i));
+                }
                 handleFailedTask(t);
+            } else {
+                // 落地成功，从脏数据缓存移除
+                removeFromDirtyCache(t.getEntity());
+                // 同步版本
+                t.getEntity().syncVersion();
+                markJournalDone(t);
+                if (deadLetters != null) {
+                    deadLetters.resolve(t.getEntity());
+                }
+                successTasks.incrementAndGet();
+                metrics.recordLanded(t);
+                publishChange(t.getEntity(), t.getType(), drained != null ? drained.get(i) : null);
+                fireLanded(t);
             }
         }
     }
 
+    /**
+     * 发布已提交的变更
+     *
+     * @param changedBits 落地的变更位图，null 表示整行
+     */
+    private void publishChange(BaseEntity<?> entity, TaskType type, long[] changedBits) {
+        if (changeStream == null) {
+            return;
+        }
+        try {
+            EntityMetadata metadata = entity.getMetadata();
+            List<String> columns;
+            if (changedBits == null) {
+                columns = Collections.emptyList();
+            } else {
+                List<FieldInfo> fields = metadata.getChangedFields(changedBits);
+                columns = new ArrayList<>(fields.size());
+                for (FieldInfo field : fields) {
+                    columns.add(field.getColumnName());
+                }
+                columns = Collections.unmodifiableList(columns);
+            }
+            changeStream.publish(metadata.getTableName(), entity.getTableName(), type,
+                    entity.getPrimaryKeyValues(), columns, entity.getDbVersion());
+        } catch (Exception e) {
+            logger.error("Failed to publish change: {} {}", type, entity, e);
+        }
+    }
+
     private void handleFailedTask(LandTask task) {
         task.incrementRetryCount();
         retryCount.incrementAndGet();  // 记录重试次数（监控用）
+        metrics.recordRetry(task);
 
         if (task.getRetryCount() < config.getMaxRetries()) {
-            // 重新提交到对应的工作线程
+            // 退避后重新提交到对应的工作线程（延迟队列，不阻塞工作线程；关闭阶段立即重试）
             BaseEntity<?> entity = task.getEntity();
             int workerIndex = selectWorker(entity);
-            workerThreads[workerIndex].submit(task);
+            long delayMs = shutdown.get() ? 0 : retryDelayMs(task.getRetryCount());
             entity.setInLandQueue(true);
+            workerThreads[workerIndex].submitDelayed(task, delayMs);
             
-            logger.warn("Task retry {}/{}: {}", task.getRetryCount(), config.getMaxRetries(), entity);
+            logger.warn("Task retry {}/{} in {}ms: {}", task.getRetryCount(), config.getMaxRetries(), delayMs, entity);
         } else {
             // 达到最大重试次数，计入最终失败
             failedTasks.incrementAndGet();
+            metrics.recordDropped(task);
             // 从脏数据缓存移除，防止内存泄漏
             removeFromDirtyCache(task.getEntity());
-            logger.error("Task exceeded max retries, dropped: {}", task.getEntity());
+            if (addDeadLetter(task)) {
+                // 死信中已有快照，不再由落地日志回放
+                markJournalDone(task);
+                logger.error("Task exceeded max retries, moved to dead letters: {}", task.getEntity());
+            } else {
+                // 不写完成记录：启用落地日志时，下次启动会回放
+                logger.error("Task exceeded max retries, dropped: {}", task.getEntity());
+            }
+            fireDropped(task);
+        }
+    }
+
+    /**
+     * 第 n 次重试的退避时间：base * 2^(n-1)，不超过上限，在 [50%, 100%] 之间随机抖动，避免多张表同时重试
+     */
+    private long retryDelayMs(int retry) {
+        long base = config.getRetryBackoffMs();
+        if (base <= 0) {
+            return 0;
+        }
+        long delay = Math.min(config.getRetryBackoffMaxMs(), base << Math.min(retry - 1, 20));
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    private void recordTableFailure(String table) {
+        if (circuitBreaker != null) {
+            circuitBreaker.recordFailure(table, System.currentTimeMillis());
+        }
+    }
+
+    private boolean addDeadLetter(LandTask task) {
+        if (deadLetters == null) {
+            return false;
+        }
+        try {
+            if (deadLetters.add(task.getEntity(), task.getType())) {
+                deadLettered.incrementAndGet();
+                return true;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to write dead letter: {}", task.getEntity(), e);
+        }
+        return false;
+    }
+
+    // ==================== 事件监听 ====================
+
+    /**
+     * 注册落地事件监听器
+     */
+    public void addListener(LandListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(LandListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireSubmit(BaseEntity<?> entity, TaskType type) {
+        for (LandListener listener : listeners) {
+            try {
+                listener.onSubmit(entity, type);
+            } catch (Exception e) {
+                logger.error("Land listener onSubmit failed: {}", entity, e);
+            }
+        }
+    }
+
+    private void fireLanded(LandTask task) {
+        for (LandListener listener : listeners) {
+            try {
+                listener.onLanded(task.getEntity(), task.getType());
+            } catch (Exception e) {
+                logger.error("Land listener onLanded failed: {}", task.getEntity(), e);
+            }
+        }
+    }
+
+    private void fireDropped(LandTask task) {
+        for (LandListener listener : listeners) {
+            try {
+                listener.onDropped(task.getEntity(), task.getType());
+            } catch (Exception e) {
+                logger.error("Land listener onDropped failed: {}", task.getEntity(), e);
+            }
         }
     }
 
+    // ==================== 落地日志 ====================
+
+    private void markJournalDone(LandTask task) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.markDone(task.getEntity(), task.getJournalSeq());
+        } catch (Exception e) {
+            logger.error("Failed to mark land journal done: {}", task.getEntity(), e);
+        }
+    }
+
+    /**
+     * 工作线程的溢出目录
+     */
+    private Path spillDir(int worker) {
+        return Paths.get(config.getSpillDir(), "worker-" + worker);
+    }
+
+    /**
+     * 回放上次进程残留的溢出文件（按快照 upsert / delete）
+     * <p>
+     * 回放失败的记录移入同目录下的 {@value #SPILL_REPLAY_PREFIX} 文件留到下次启动，已回放成功的不会重复回放。
+     * 不能留在溢出文件中：SPILL 策略的工作线程会读回溢出文件，不在脏数据缓存中的记录视为已落地直接丢弃。
+     */
+    private void replaySpill(Path root) {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        List<Path> dirs = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, "worker-*")) {
+            stream.forEach(dirs::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list spill dir: " + root, e);
+        }
+        for (Path dir : dirs) {
+            LandSpill pending = new LandSpill(dir, SPILL_REPLAY_PREFIX, config.getJournalSegmentSize());
+            LandSpill spill = new LandSpill(dir, config.getJournalSegmentSize());
+            try {
+                // 上次回放失败的记录较旧，同一实体以溢出文件中的为准
+                Map<String, LandSpill.Entry> latest = new LinkedHashMap<>();
+                for (List<LandSpill.Entry> source : List.of(pending.readAll(), spill.readAll())) {
+                    for (LandSpill.Entry entry : source) {
+                        String key = LandSpill.keyOf(entry.className(), entry.tableName(), entry.primaryKey());
+                        latest.remove(key);
+                        latest.put(key, entry);
+                    }
+                }
+                if (latest.isEmpty()) {
+                    continue;
+                }
+                List<LandSpill.Entry> failed = new ArrayList<>();
+                for (LandSpill.Entry entry : latest.values()) {
+                    try {
+                        if (replaySnapshot(entry.type(), entry.className(), entry.tableName(), entry.values())) {
+                            continue;
+                        }
+                        logger.error("Land spill replay failed: {} {} {}", entry.type(), entry.tableName(), entry.values());
+                    } catch (Exception e) {
+                        logger.error("Land spill replay failed: {} {} {}", entry.type(), entry.tableName(), entry.values(), e);
+                    }
+                    failed.add(entry);
+                }
+                logger.info("Land spill {} replayed {}/{} entries", dir, latest.size() - failed.size(), latest.size());
+                // 先写好待回放文件再删除溢出文件，中途退出时两份同时存在，下次按实体去重结果不变
+                if (failed.isEmpty()) {
+                    pending.clear();
+                } else {
+                    pending.rewrite(failed);
+                }
+                spill.clear();
+            } finally {
+                spill.close();
+                pending.close();
+            }
+        }
+    }
+
+    /**
+     * 溢出记录读回：按主键定位脏数据缓存中的最新实体（已落地或已放弃的不在缓存中，返回 null）
+     */
+    private LandTask resolveSpilled(LandSpill.Entry entry) {
+        try {
+            BaseEntity<?> entity = findDirty(entry);
+            return entity != null ? LandTask.of(entity) : null;
+        } catch (Exception e) {
+            logger.error("Failed to resolve spilled task: {} {}", entry.className(), Arrays.toString(entry.primaryKey()), e);
+            return null;
+        }
+    }
+
+    /**
+     * 按快照记录的类名、物理表和主键查找脏数据缓存中的实体
+     */
+    private BaseEntity<?> findDirty(LandSpill.Entry entry) throws ClassNotFoundException {
+        Class<?> clazz = Class.forName(entry.className(), true, AsyncLandManager.class.getClassLoader());
+        ConcurrentHashMap<Object, BaseEntity<?>> classCache = dirtyCache.get(clazz);
+        if (classCache == null) {
+            return null;
+        }
+        Object[] pk = entry.primaryKey();
+        BaseEntity<?> entity = classCache.get(pk.length == 1 ? pk[0] : Arrays.asList(pk));
+        return entity != null && entity.getTableName().equals(entry.tableName()) ? entity : null;
+    }
+
+    /**
+     * 回放上次进程未落地的数据
+     * <p>
+     * 有主键的 INSERT/UPDATE 使用 upsert 写入完整快照（幂等），DELETE 重复执行也无副作用。
+     * 主键未生成（自增）的 INSERT 不回放：无法判断上次是否已提交，upsert 会在已提交时再插入一行。
+     * 这类记录只打印完整快照（ERROR 日志）由人工核对补录，并视为已处理，不阻塞日志清理。
+     * 其他记录回放失败则保留旧日志，下次启动继续回放。
+     */
+    private void replayJournal() {
+        List<LandJournal.Entry> entries = journal.getRecoveredEntries();
+        if (entries.isEmpty()) {
+            journal.finishRecovery(true);
+            return;
+        }
+        int replayed = 0;
+        int skipped = 0;
+        boolean allReplayed = true;
+        for (LandJournal.Entry entry : entries) {
+            try {
+                if (entry.type() == TaskType.INSERT && !LandSpill.isSpillable(snapshotOf(entry.className(),
+                        entry.tableName(), entry.values()))) {
+                    logger.error("Land journal skipped INSERT without generated primary key, check and re-insert manually: {} {}",
+                            entry.tableName(), entry.values());
+                    journal.markReplayed(entry);
+                    skipped++;
+                    continue;
+                }
+                if (replayEntry(entry)) {
+                    journal.markReplayed(entry);
+                    replayed++;
+                } else {
+                    allReplayed = false;
+                    logger.error("Land journal replay failed: {} {} {}", entry.type(), entry.tableName(), entry.values());
+                }
+            } catch (Exception e) {
+                allReplayed = false;
+                logger.error("Land journal replay failed: {} {} {}", entry.type(), entry.tableName(), entry.values(), e);
+            }
+        }
+        journal.finishRecovery(allReplayed);
+        logger.info("Land journal replayed {}/{} entries, skipped {} unkeyed inserts", replayed, entries.size(), skipped);
+    }
+
+    private boolean replayEntry(LandJournal.Entry entry) throws ReflectiveOperationException {
+        return replaySnapshot(entry.type(), entry.className(), entry.tableName(), entry.values());
+    }
+
+    /**
+     * 按快照同步落地（启动回放用）
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private boolean replaySnapshot(TaskType type, String className, String tableName, Map<String, Object> values)
+            throws ReflectiveOperationException {
+        BaseEntity entity = snapshotOf(className, tableName, values);
+        boolean landed;
+        if (type == TaskType.DELETE) {
+            // 批量接口失败抛异常，影响行数为 0（已删除）也视为成功
+            sqlExecutor.batchDelete(List.of(entity));
+            landed = true;
+        } else {
+            landed = sqlExecutor.upsert(entity);
+        }
+        if (landed && deadLetters != null) {
+            deadLetters.resolve(entity);
+        }
+        if (landed) {
+            publishChange(entity, type, null);
+        }
+        return landed;
+    }
+
+    /**
+     * 按快照还原实体（物理表与类默认表不同时设置动态表名）
+     */
+    private static BaseEntity<?> snapshotOf(String className, String tableName, Map<String, Object> values)
+            throws ReflectiveOperationException {
+        Class<?> clazz = Class.forName(className, true, AsyncLandManager.class.getClassLoader());
+        BaseEntity<?> entity = (BaseEntity<?>) clazz.getDeclaredConstructor().newInstance();
+        entity.fromMap(values);
+        if (!tableName.equals(entity.getTableName())) {
+            entity.setDynamicTableName(tableName);
+        }
+        return entity;
+    }
+
+    // ==================== 变更流 ====================
+
+    /**
+     * 已提交变更的发布流（未启用时为 null）
+     */
+    public ChangeStream getChangeStream() {
+        return changeStream;
+    }
+
+    // ==================== 死信 ====================
+
+    /**
+     * 当前有效的死信数（未启用时为 0）
+     */
+    public int getDeadLetterCount() {
+        return deadLetters != null ? deadLetters.size() : 0;
+    }
+
+    /**
+     * 查看死信（GM 接口用，最多返回 limit 条）
+     */
+    public List<Map<String, Object>> listDeadLetters(int limit) {
+        if (deadLetters == null) {
+            return List.of();
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (LandSpill.Entry entry : deadLetters.list()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("type", entry.type().name());
+            info.put("table", entry.tableName());
+            info.put("entity", entry.className());
+            info.put("primaryKey", Arrays.asList(entry.primaryKey()));
+            result.add(info);
+        }
+        return result;
+    }
+
+    /**
+     * 重放死信（排除故障后由 GM 接口调用）
+     * <p>
+     * 按快照同步 upsert / delete；实体仍在脏数据缓存中（有更新的待落地任务）的跳过，由该任务落地最新数据。
+     * 重放成功和跳过的死信逐条作废，重放失败的保留，可再次重放；全部处理完后压缩死信文件。
+     *
+     * @return replayed / skipped / failed / remaining 计数
+     */
+    public synchronized Map<String, Object> replayDeadLetters() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (deadLetters == null) {
+            result.put("deadLetter", false);
+            return result;
+        }
+        int replayed = 0;
+        int skipped = 0;
+        int failed = 0;
+        long mark = deadLetters.mark();
+        for (LandSpill.Entry entry : deadLetters.list()) {
+            try {
+                if (findDirty(entry) != null) {
+                    skipped++;
+                    deadLetters.remove(entry, mark);
+                } else if (replaySnapshot(entry.type(), entry.className(), entry.tableName(), entry.values())) {
+                    replayed++;
+                    deadLetters.remove(entry, mark);
+                } else {
+                    failed++;
+                }
+            } catch (Exception e) {
+                failed++;
+                logger.error("Dead letter replay failed: {} {} {}", entry.type(), entry.tableName(),
+                        Arrays.toString(entry.primaryKey()), e);
+            }
+        }
+        try {
+            deadLetters.compact();
+        } catch (Exception e) {
+            logger.error("Failed to compact dead letters", e);
+        }
+        logger.info("Dead letters replayed: {}, skipped: {}, failed: {}", replayed, skipped, failed);
+        result.put("replayed", replayed);
+        result.put("skipped", skipped);
+        result.put("failed", failed);
+        result.put("remaining", deadLetters.size());
+        return result;
+    }
+
     // ==================== 同步落地 ====================
 
     /**
@@ -486,7 +1438,7 @@ public class AsyncLandManager {
         if (shutdown.compareAndSet(false, true)) {
             logger.info("Shutting down AsyncLandManager, waiting for all tasks to complete...");
             
-            // 发送毒丸，通知所有工作线程停止
+            // 通知所有工作线程停止（处理完剩余任务后退出）
             for (WorkerThread worker : workerThreads) {
                 worker.shutdownWorker();
             }
@@ -503,6 +1455,24 @@ public class AsyncLandManager {
                 }
             }
             
+            if (pinnedConnections != null) {
+                for (PinnedConnection pinned : pinnedConnections) {
+                    pinned.close();
+                }
+            }
+
+            if (journal != null) {
+                // 全部落地成功则删除日志，否则保留到下次启动回放
+                journal.close(true);
+            }
+            if (deadLetters != null) {
+                deadLetters.close();
+            }
+            if (changeStream != null) {
+                // 订阅者处理完已发布的变更后退出
+                changeStream.close();
+            }
+
             logger.info("AsyncLandManager shutdown completed. Total: {}, Success: {}, Failed: {}",
                     totalTasks.get(), successTasks.get(), failedTasks.get());
         }
@@ -594,6 +1564,56 @@ public class AsyncLandManager {
         return result;
     }
     
+    /**
+     * 某类型是否有未落地的脏数据（包括已删除的）
+     */
+    public boolean hasDirty(Class<?> entityClass) {
+        ConcurrentHashMap<Object, BaseEntity<?>> classCache = dirtyCache.get(entityClass);
+        return classCache != null && !classCache.isEmpty();
+    }
+
+    /**
+     * 字段是否声明了脏数据索引（{@code @DirtyIndex}，按字段名或列名）
+     */
+    public boolean hasDirtyIndex(Class<?> entityClass, String fieldName) {
+        DirtyCacheIndex index = getDirtyIndex(entityClass);
+        return index != null && index.position(fieldName) >= 0;
+    }
+
+    /**
+     * 按索引字段值获取脏数据（不包括已删除的）
+     * <p>
+     * 只访问索引值相同的实体，不遍历该类型的全部脏数据。例如按 uid 取某个玩家未落地的数据：
+     * <pre>{@code
+     * List<HeroEntity> pending = landManager.getDirtyByIndex(HeroEntity.class, "uid", uid);
+     * }</pre>
+     *
+     * @param entityClass 实体类型
+     * @param fieldName   索引字段名或列名
+     * @param value       字段值（按字段类型转换后比较）
+     * @throws IllegalArgumentException 字段未声明 {@code @DirtyIndex}
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BaseEntity<T>> List<T> getDirtyByIndex(Class<T> entityClass, String fieldName, Object value) {
+        DirtyCacheIndex index = getDirtyIndex(entityClass);
+        int position = index != null ? index.position(fieldName) : -1;
+        if (position < 0) {
+            throw new IllegalArgumentException("No @DirtyIndex on " + entityClass.getName() + "." + fieldName);
+        }
+        ConcurrentHashMap<Object, BaseEntity<?>> classCache = dirtyCache.get(entityClass);
+        if (classCache == null) {
+            return Collections.emptyList();
+        }
+        List<T> result = new ArrayList<>();
+        for (Object cacheKey : index.keys(position, value)) {
+            BaseEntity<?> entity = classCache.get(cacheKey);
+            if (entity != null && entity.getState() != EntityState.DELETED && index.matches(position, entity, value)) {
+                result.add((T) entity);
+            }
+        }
+        return result;
+    }
+
     /**
      * 获取脏数据缓存大小
      */
@@ -631,4 +1651,76 @@ public class AsyncLandManager {
         return count;
     }
 
+    /**
+     * 落地指标（累计值，调用方可自行导出）
+     */
+    public LandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 落地管线快照（GM 接口 / 监控导出用）
+     * <p>
+     * 包含累计计数、各工作线程的队列深度与自适应状态、按物理表的排队数与落地计数、延迟 / 批量大小 / 执行耗时分布。
+     * 按表排队数需要遍历队列，只应在监控查询时调用。
+     */
+    public Map<String, Object> metricsSnapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("totalTasks", totalTasks.get());
+        snapshot.put("successTasks", successTasks.get());
+        snapshot.put("failedTasks", failedTasks.get());
+        snapshot.put("retryCount", retryCount.get());
+        snapshot.put("pendingTasks", getPendingTasks());
+        snapshot.put("dirtyCacheSize", getDirtyCacheSize());
+        if (pinnedConnections != null) {
+            snapshot.put("groupCommits", groupCommits.get());
+            snapshot.put("groupFallbacks", groupFallbacks.get());
+        }
+        if (circuitBreaker != null) {
+            snapshot.put("parkCount", parkCount.get());
+            snapshot.put("openCircuits", circuitBreaker.snapshot());
+        }
+        if (deadLetters != null) {
+            snapshot.put("deadLettered", deadLettered.get());
+            snapshot.put("deadLetters", deadLetters.size());
+        }
+        if (changeStream != null) {
+            snapshot.put("changeStream", changeStream.snapshot());
+        }
+
+        List<Map<String, Object>> workers = new ArrayList<>(workerThreads.length);
+        Map<String, Integer> queued = new HashMap<>();
+        for (WorkerThread worker : workerThreads) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("id", worker.getWorkerId());
+            info.put("queueSize", worker.getQueueSize());
+            info.put("state", worker.getAdaptiveState().name());
+            info.put("batchSize", worker.getBatchSize());
+            info.put("intervalMs", worker.getLandIntervalMs());
+            info.put("capacity", worker.getQueueCapacity());
+            info.put("overflowCount", worker.getOverflowCount());
+            info.put("spilled", worker.getSpilledCount());
+            info.put("delayed", worker.getDelayedCount());
+            info.put("critical", worker.getCriticalCount());
+            info.put("bulk", worker.getBulkCount());
+            workers.add(info);
+            worker.countQueuedByTable(queued);
+        }
+        snapshot.put("workers", workers);
+
+        Map<String, Object> tables = new TreeMap<>();
+        for (Map.Entry<String, LandMetrics.TableMetrics> entry : metrics.getTables().entrySet()) {
+            tables.put(entry.getKey(), entry.getValue().toMap(queued.getOrDefault(entry.getKey(), 0)));
+        }
+        for (Map.Entry<String, Integer> entry : queued.entrySet()) {
+            tables.computeIfAbsent(entry.getKey(), k -> new LandMetrics.TableMetrics().toMap(entry.getValue()));
+        }
+        snapshot.put("tables", tables);
+
+        snapshot.put("landLatencyMs", metrics.getLandLatencyMs().toMap());
+        snapshot.put("batchRows", metrics.getBatchRows().toMap());
+        snapshot.put("executeMicros", metrics.getExecuteMicros().toMap());
+        return snapshot;
+    }
+
 }
@@ -0,0 +1,132 @@
+package com.muyi.db.async;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.EntityMetadata;
+import com.muyi.db.core.FieldInfo;
+
+/**
+ * 单个实体类型的脏数据缓存二级索引（{@code @DirtyIndex} 字段值 -> 缓存 key 集合）
+ * <p>
+ * 每个缓存 key 记录上次建索引时的字段值，字段值变化时从旧桶移到新桶，空桶随即删除。
+ * {@link #put}/{@link #remove} 必须在脏数据缓存对该 key 的 compute 中调用，
+ * 由 ConcurrentHashMap 的桶锁保证同一 key 的索引更新串行。
+ */
+final class DirtyCacheIndex {
+
+    /**
+     * null 值占位（ConcurrentHashMap 不支持 null key）
+     */
+    private static final Object NULL = new Object();
+
+    private final List<FieldInfo> fields;
+
+    /**
+     * 按字段下标：字段值 -> 缓存 key 集合
+     */
+    private final ConcurrentHashMap<Object, Set<Object>>[] buckets;
+
+    /**
+     * 缓存 key -> 建索引时的字段值
+     */
+    private final ConcurrentHashMap<Object, Object[]> indexedValues = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    private DirtyCacheIndex(List<FieldInfo> fields) {
+        this.fields = fields;
+        this.buckets = new ConcurrentHashMap[fields.size()];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * 创建索引（实体没有 {@code @DirtyIndex} 字段时返回 null）
+     */
+    static DirtyCacheIndex of(EntityMetadata metadata) {
+        List<FieldInfo> fields = metadata.getDirtyIndexFields();
+        return fields.isEmpty() ? null : new DirtyCacheIndex(fields);
+    }
+
+    /**
+     * 查找索引字段下标（按字段名或列名，未建索引返回 -1）
+     */
+    int position(String name) {
+        for (int i = 0; i < fields.size(); i++) {
+            FieldInfo field = fields.get(i);
+            if (field.getFieldName().equals(name) || field.getColumnName().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 建立或更新索引
+     */
+    void put(Object cacheKey, BaseEntity<?> entity) {
+        Object[] values = new Object[fields.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = mask(fields.get(i).getValue(entity));
+        }
+        Object[] previous = indexedValues.put(cacheKey, values);
+        for (int i = 0; i < values.length; i++) {
+            if (previous != null) {
+                if (previous[i].equals(values[i])) {
+                    continue;
+                }
+                unlink(i, previous[i], cacheKey);
+            }
+            buckets[i].compute(values[i], (v, keys) -> {
+                Set<Object> linked = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                linked.add(cacheKey);
+                return linked;
+            });
+        }
+    }
+
+    /**
+     * 移除索引
+     */
+    void remove(Object cacheKey) {
+        Object[] previous = indexedValues.remove(cacheKey);
+        if (previous == null) {
+            return;
+        }
+        for (int i = 0; i < previous.length; i++) {
+            unlink(i, previous[i], cacheKey);
+        }
+    }
+
+    /**
+     * 索引值等于 value 的缓存 key（value 按字段类型转换后比较）
+     */
+    Set<Object> keys(int position, Object value) {
+        Set<Object> keys = buckets[position].get(mask(fields.get(position).convert(value)));
+        return keys != null ? keys : Collections.emptySet();
+    }
+
+    /**
+     * 实体当前字段值是否仍等于 value（索引取的是提交时的值，读取时再校验一次）
+     */
+    boolean matches(int position, BaseEntity<?> entity, Object value) {
+        FieldInfo field = fields.get(position);
+        return Objects.equals(field.getValue(entity), field.convert(value));
+    }
+
+    private void unlink(int position, Object value, Object cacheKey) {
+        buckets[position].computeIfPresent(value, (v, keys) -> {
+            keys.remove(cacheKey);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static Object mask(Object value) {
+        return value == null ? NULL : value;
+    }
+}
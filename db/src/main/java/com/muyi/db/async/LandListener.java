@@ -0,0 +1,29 @@
+package com.muyi.db.async;
+
+import com.muyi.db.core.BaseEntity;
+
+/**
+ * 异步落地事件监听
+ * <p>
+ * 回调在提交线程或落地线程中同步执行，应保持轻量；抛出的异常会被记录并忽略。
+ */
+public interface LandListener {
+
+    /**
+     * 任务已提交（包括被合并到队列中已有任务的重复提交），在提交线程调用
+     */
+    default void onSubmit(BaseEntity<?> entity, TaskType type) {
+    }
+
+    /**
+     * 任务落地成功，在落地线程调用
+     */
+    default void onLanded(BaseEntity<?> entity, TaskType type) {
+    }
+
+    /**
+     * 任务达到最大重试次数被放弃，在落地线程调用
+     */
+    default void onDropped(BaseEntity<?> entity, TaskType type) {
+    }
+}
@@ -0,0 +1,217 @@
+package com.muyi.db.async;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.muyi.common.util.time.TimeUtils;
+
+/**
+ * 异步落地指标
+ * <p>
+ * 由工作线程在落地路径上记录，查询时汇总。包括：
+ * <ul>
+ *   <li>提交到落地完成的延迟分布（毫秒）</li>
+ *   <li>每条批量语句的行数分布</li>
+ *   <li>JDBC 执行耗时分布（微秒）</li>
+ *   <li>按物理表的落地、重试、放弃计数</li>
+ * </ul>
+ * 队列深度、脏数据缓存大小、自适应状态等瞬时值由 {@link AsyncLandManager#metricsSnapshot()} 在查询时读取。
+ */
+public final class LandMetrics {
+
+    private final Histogram landLatencyMs = new Histogram();
+    private final Histogram batchRows = new Histogram();
+    private final Histogram executeMicros = new Histogram();
+    private final LongAdder landed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final ConcurrentHashMap<String, TableMetrics> tables = new ConcurrentHashMap<>();
+
+    // ==================== 记录（落地线程调用） ====================
+
+    /**
+     * 记录一次 JDBC 批量执行
+     */
+    void recordExecute(String tableName, int rows, long elapsedNanos) {
+        long micros = elapsedNanos / 1000;
+        batchRows.record(rows);
+        executeMicros.record(micros);
+        TableMetrics table = table(tableName);
+        table.executions.increment();
+        table.executeMicros.add(micros);
+    }
+
+    void recordLanded(LandTask task) {
+        long latency = Math.max(0, TimeUtils.currentTimeMillis() - task.getCreateTime());
+        landLatencyMs.record(latency);
+        landed.increment();
+        TableMetrics table = table(task.getEntity().getTableName());
+        table.landed.increment();
+        table.landLatencyMs.record(latency);
+    }
+
+    void recordRetry(LandTask task) {
+        retries.increment();
+        table(task.getEntity().getTableName()).retries.increment();
+    }
+
+    void recordDropped(LandTask task) {
+        dropped.increment();
+        table(task.getEntity().getTableName()).dropped.increment();
+    }
+
+    private TableMetrics table(String tableName) {
+        return tables.computeIfAbsent(tableName, k -> new TableMetrics());
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 提交到落地完成的延迟（毫秒）
+     */
+    public Histogram getLandLatencyMs() {
+        return landLatencyMs;
+    }
+
+    /**
+     * 每条批量语句的行数
+     */
+    public Histogram getBatchRows() {
+        return batchRows;
+    }
+
+    /**
+     * JDBC 执行耗时（微秒）
+     */
+    public Histogram getExecuteMicros() {
+        return executeMicros;
+    }
+
+    public long getLanded() {
+        return landed.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 按物理表的计数（表名 -> 指标）
+     */
+    Map<String, TableMetrics> getTables() {
+        return tables;
+    }
+
+    /**
+     * 单张物理表的指标
+     */
+    static final class TableMetrics {
+        final LongAdder landed = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder executions = new LongAdder();
+        final LongAdder executeMicros = new LongAdder();
+        final Histogram landLatencyMs = new Histogram();
+
+        Map<String, Object> toMap(int queued) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("queued", queued);
+            map.put("landed", landed.sum());
+            map.put("retries", retries.sum());
+            map.put("dropped", dropped.sum());
+            map.put("executions", executions.sum());
+            map.put("executeMicrosTotal", executeMicros.sum());
+            map.put("landLatencyMs", landLatencyMs.toMap());
+            return map;
+        }
+    }
+
+    /**
+     * 无锁直方图（以 2 的幂为桶边界，记录值 v 落入第 {@code 64 - numberOfLeadingZeros(v)} 个桶）
+     * <p>
+     * 分位数返回所在桶的上界，误差在 2 倍以内，足以区分 毫秒级 / 百毫秒级 / 秒级 的延迟问题。
+     */
+    public static final class Histogram {
+
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private volatile long max;
+
+        public void record(long value) {
+            long v = Math.max(0, value);
+            buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(v)));
+            count.increment();
+            sum.add(v);
+            if (v > max) {
+                synchronized (this) {
+                    if (v > max) {
+                        max = v;
+                    }
+                }
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        /**
+         * 分位数（0 ~ 1，返回所在桶的上界，不超过最大值）
+         */
+        public long percentile(double quantile) {
+            long total = 0;
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(Math.min(1.0, Math.max(0.0, quantile)) * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= Math.max(1, rank)) {
+                    long upper = i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                    return Math.min(upper, max);
+                }
+            }
+            return max;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", getCount());
+            map.put("mean", Math.round(getMean() * 100) / 100.0);
+            map.put("p50", percentile(0.5));
+            map.put("p90", percentile(0.9));
+            map.put("p99", percentile(0.99));
+            map.put("max", getMax());
+            return map;
+        }
+    }
+}
@@ -8,11 +8,6 @@ import com.muyi.db.core.BaseEntity;
  */
 public class LandTask {
 
-    /**
-     * 毒丸：用于通知工作线程退出
-     */
-    public static final LandTask POISON_PILL = new LandTask();
-
     private final BaseEntity<?> entity;
     private final TaskType type;
     private final long createTime;
@@ -20,14 +15,9 @@ public class LandTask {
     private int retryCount;
 
     /**
-     * 毒丸专用构造
+     * 开始落地时捕获的实体日志序号（落地成功后据此写入完成记录）
      */
-    private LandTask() {
-        this.entity = null;
-        this.type = null;
-        this.createTime = 0;
-        this.version = 0;
-    }
+    private long journalSeq;
 
     public LandTask(BaseEntity<?> entity, TaskType type) {
         this.entity = entity;
@@ -37,13 +27,6 @@ public class LandTask {
         this.retryCount = 0;
     }
 
-    /**
-     * 是否为毒丸
-     */
-    public boolean isPoisonPill() {
-        return this == POISON_PILL;
-    }
-
     public static LandTask ofInsert(BaseEntity<?> entity) {
         return new LandTask(entity, TaskType.INSERT);
     }
@@ -89,11 +72,18 @@ public class LandTask {
         retryCount++;
     }
 
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+
+    public void setJournalSeq(long journalSeq) {
+        this.journalSeq = journalSeq;
+    }
+
     /**
      * 是否为过期任务（实体已被更新）
      */
     public boolean isStale() {
-        // POISON_PILL 的 entity 为 null，不会过期
-        return entity != null && version < entity.getBusinessVersion();
+        return version < entity.getBusinessVersion();
     }
 }
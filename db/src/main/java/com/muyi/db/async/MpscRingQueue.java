@@ -0,0 +1,195 @@
+package com.muyi.db.async;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 有界多生产者单消费者环形队列
+ * <p>
+ * 落地队列的生产者是上百个业务线程，消费者只有所属的工作线程：
+ * <ul>
+ *   <li>生产者 CAS 推进尾指针占位后写入槽位，无锁、不分配节点</li>
+ *   <li>消费者读到槽位非空才取出（占位未写入时视为暂时为空），清空槽位后推进头指针</li>
+ *   <li>队列满时 {@link #offer} 返回 false，由调用方按溢出策略处理</li>
+ * </ul>
+ * 消费者等待时 park，生产者写入后发现有等待者才 unpark，没有等待者时不产生任何系统调用。
+ *
+ * @param <E> 元素类型
+ */
+final class MpscRingQueue<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+
+    /**
+     * 生产者占位序号
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 消费者读取序号（只有消费者线程写入）
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * 正在等待的消费者线程（null 表示未等待）
+     */
+    private volatile Thread waiter;
+
+    /**
+     * 是否有未处理的 {@link #wakeup} 请求
+     */
+    private volatile boolean wakeupRequested;
+
+    /**
+     * @param capacity 容量（向上取整为 2 的幂）
+     */
+    MpscRingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, got: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        if (size <= 0) {
+            throw new IllegalArgumentException("capacity too large: " + capacity);
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+    }
+
+    // ==================== 生产者 ====================
+
+    /**
+     * 入队（队列满时返回 false，不阻塞）
+     */
+    boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long seq;
+        do {
+            seq = tail.get();
+            if (seq - head.get() >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(seq, seq + 1));
+        // volatile 写，与下面读取 waiter 之间不会重排，消费者不会漏掉唤醒
+        buffer.set((int) seq & mask, element);
+        Thread consumer = waiter;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    // ==================== 消费者（只能由单个线程调用） ====================
+
+    /**
+     * 出队（空时返回 null）
+     */
+    E poll() {
+        long seq = head.get();
+        int index = (int) seq & mask;
+        E element = buffer.get(index);
+        if (element == null) {
+            return null;
+        }
+        buffer.set(index, null);
+        head.set(seq + 1);
+        return element;
+    }
+
+    /**
+     * 出队，最多等待 timeout（被 {@link #wakeup} 唤醒时可能提前返回 null）
+     */
+    E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E element = poll();
+        if (element != null) {
+            return element;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        waiter = Thread.currentThread();
+        try {
+            while ((element = poll()) == null) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (wakeupRequested) {
+                    wakeupRequested = false;
+                    return null;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+            return element;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /**
+     * 批量出队
+     *
+     * @return 取出的个数
+     */
+    int drainTo(Collection<? super E> target, int max) {
+        int count = 0;
+        E element;
+        while (count < max && (element = poll()) != null) {
+            target.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 唤醒等待中的消费者（关闭、溢出链表有新任务时使用），使其 {@link #poll(long, TimeUnit)} 提前返回
+     */
+    void wakeup() {
+        wakeupRequested = true;
+        Thread consumer = waiter;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 当前元素数（含已占位未写入的，仅用于监控和自适应判断）
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 遍历当前元素（弱一致，仅用于监控统计）
+     */
+    void forEach(Consumer<? super E> action) {
+        long from = head.get();
+        long to = tail.get();
+        for (long seq = from; seq < to && seq < from + capacity; seq++) {
+            E element = buffer.get((int) seq & mask);
+            if (element != null) {
+                action.accept(element);
+            }
+        }
+    }
+}
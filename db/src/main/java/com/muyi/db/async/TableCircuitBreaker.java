@@ -0,0 +1,129 @@
+package com.muyi.db.async;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 按物理表的落地熔断器
+ * <p>
+ * 某张表连续多个批次执行失败（表损坏、锁等待风暴等）时熔断：该表的任务暂存在工作线程的延迟队列中，
+ * 不再执行也不消耗重试次数，其他表照常落地。
+ * <ul>
+ *   <li>CLOSED：正常执行，连续失败批次数达到阈值后转为 OPEN</li>
+ *   <li>OPEN：熔断期内该表的任务全部暂存，到期后转为 HALF_OPEN</li>
+ *   <li>HALF_OPEN：放行一个探测批次，成功则恢复 CLOSED，失败则重新 OPEN；探测期间其余批次短暂等待</li>
+ * </ul>
+ * 状态只在失败或熔断时变化，正常路径每批次一次 Map 查找。
+ */
+final class TableCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableCircuitBreaker.class);
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+
+    private final long openMs;
+
+    private final ConcurrentHashMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    /**
+     * @param failureThreshold 连续失败多少个批次后熔断
+     * @param openMs           熔断时长（毫秒）
+     */
+    TableCircuitBreaker(int failureThreshold, long openMs) {
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    /**
+     * 该表当前需要等待的时间
+     *
+     * @return 0 表示可以执行，否则为任务暂存的毫秒数
+     */
+    long blockedFor(String table, long now) {
+        Circuit circuit = circuits.get(table);
+        return circuit == null ? 0 : circuit.blockedFor(now);
+    }
+
+    void recordSuccess(String table) {
+        Circuit circuit = circuits.get(table);
+        if (circuit != null) {
+            circuit.recordSuccess(table);
+        }
+    }
+
+    void recordFailure(String table, long now) {
+        circuits.computeIfAbsent(table, k -> new Circuit()).recordFailure(table, now);
+    }
+
+    State getState(String table) {
+        Circuit circuit = circuits.get(table);
+        return circuit == null ? State.CLOSED : circuit.state;
+    }
+
+    /**
+     * 非 CLOSED 的表及其状态（监控用）
+     */
+    Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        circuits.forEach((table, circuit) -> {
+            if (circuit.state != State.CLOSED) {
+                Map<String, Object> info = new LinkedHashMap<>();
+                info.put("state", circuit.state.name());
+                info.put("failures", circuit.failures);
+                info.put("trips", circuit.trips);
+                result.put(table, info);
+            }
+        });
+        return result;
+    }
+
+    private final class Circuit {
+        volatile State state = State.CLOSED;
+        volatile int failures;
+        volatile int trips;
+        private long openUntil;
+
+        synchronized long blockedFor(long now) {
+            switch (state) {
+                case OPEN -> {
+                    if (now < openUntil) {
+                        return openUntil - now;
+                    }
+                    state = State.HALF_OPEN;
+                    return 0;
+                }
+                case HALF_OPEN -> {
+                    return Math.max(1, openMs / 10);
+                }
+                default -> {
+                    return 0;
+                }
+            }
+        }
+
+        synchronized void recordSuccess(String table) {
+            if (state != State.CLOSED) {
+                logger.info("Land circuit for table {} closed", table);
+            }
+            state = State.CLOSED;
+            failures = 0;
+        }
+
+        synchronized void recordFailure(String table, long now) {
+            failures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+                state = State.OPEN;
+                openUntil = now + openMs;
+                trips++;
+                logger.warn("Land circuit for table {} opened for {}ms after {} consecutive failed batches",
+                        table, openMs, failures);
+            }
+        }
+    }
+}
@@ -2,20 +2,40 @@ package com.muyi.db.async;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.muyi.common.util.time.TimeUtils;
+import com.muyi.db.annotation.LandOptions;
+import com.muyi.db.journal.LandSpill;
 
 /**
  * 工作线程：每个线程有独立的队列，负责处理分配给它的任务
  * <p>
  * 同一个表的数据固定分配到同一个线程，保证顺序且无需锁
+ * <p>
+ * 任务来源（按取出顺序）：
+ * <ol>
+ *   <li>延迟队列：退避重试、表熔断暂存的任务，到期后才取出</li>
+ *   <li>重试队列：本线程落地失败后重新提交的任务，不占环形队列容量，避免工作线程阻塞在自己的队列上</li>
+ *   <li>CRITICAL 通道：提交时唤醒本线程，不等待落地间隔</li>
+ *   <li>环形队列：业务线程提交的 NORMAL 任务（有界、无锁）</li>
+ *   <li>溢出链表：环形队列（或 CRITICAL、BULK 通道）满时按 {@link AsyncLandConfig.Overflow} 策略暂存的任务</li>
+ *   <li>BULK 通道：提交后保留 {@code bulkMaxDelayMs} 才取出，期间的重复提交都合并到同一任务</li>
+ *   <li>溢出文件：SPILL 策略写入本地文件的任务</li>
+ * </ol>
  */
 public class WorkerThread extends Thread {
     
@@ -24,9 +44,72 @@ public class WorkerThread extends Thread {
     private final int workerId;
     
     /**
-     * 阻塞队列（内置 wait/notify 机制）
+     * 生产者队满时的等待间隔（BLOCK 策略）
+     */
+    private static final long PRODUCER_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * 有界环形队列（多个业务线程写，本线程读）
+     */
+    private final MpscRingQueue<LandTask> queue;
+
+    /**
+     * 队列满时的处理策略
+     */
+    private final AsyncLandConfig.Overflow overflow;
+
+    /**
+     * 溢出链表（COALESCE 策略，容量与环形队列相同；或无法溢出到文件的任务）
+     */
+    private final Queue<LandTask> overflowQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger overflowSize = new AtomicInteger();
+
+    /**
+     * 本线程重新提交的任务（重试、溢出文件读回）
+     */
+    private final Queue<LandTask> retryQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger retrySize = new AtomicInteger();
+
+    /**
+     * CRITICAL 通道（提交即唤醒）与 BULK 通道（到期才取出），均按提交顺序；容量与环形队列相同，满时按溢出策略处理
+     */
+    private final Queue<LandTask> criticalQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger criticalSize = new AtomicInteger();
+    private final Queue<LandTask> bulkQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger bulkSize = new AtomicInteger();
+
+    /**
+     * CRITICAL 任务攒批窗口、BULK 任务最长保留时间（毫秒，支持动态调整）
+     */
+    private volatile long criticalMaxDelayMs = 0;
+    private volatile long bulkMaxDelayMs = 2_000;
+
+    /**
+     * 低优先级通道中的任务被提升：flushBulk 下一轮取出全部 BULK 任务，flushNow 同时结束本轮等待
+     */
+    private volatile boolean flushBulk;
+    private volatile boolean flushNow;
+
+    /**
+     * 延迟任务（退避重试、表熔断暂存），到期后按到期时间、提交顺序取出；以队列自身为锁
+     */
+    private final PriorityQueue<DelayedTask> delayedQueue = new PriorityQueue<>();
+    private final AtomicLong delayedSeq = new AtomicLong();
+
+    /**
+     * 溢出文件（SPILL 策略，否则为 null）
+     */
+    private final LandSpill spill;
+
+    /**
+     * 溢出记录 -> 落地任务（实体已不在脏数据缓存中时返回 null）
+     */
+    private final Function<LandSpill.Entry, LandTask> spillResolver;
+
+    /**
+     * 环形队列（或 CRITICAL、BULK 通道）满的次数
      */
-    private final BlockingQueue<LandTask> queue = new LinkedBlockingQueue<>();
+    private final LongAdder overflowCount = new LongAdder();
     
     /**
      * 批量处理器
@@ -99,16 +182,34 @@ public class WorkerThread extends Thread {
     /**
      * 自适应状态枚举
      */
-    private enum AdaptiveState { NORMAL, BACKLOG, IDLE }
+    public enum AdaptiveState { NORMAL, BACKLOG, IDLE }
     
     /**
      * 当前自适应状态
      */
-    private AdaptiveState currentState = AdaptiveState.NORMAL;
+    private volatile AdaptiveState currentState = AdaptiveState.NORMAL;
     
     public WorkerThread(int workerId, long landIntervalMs, int batchSize,
                         Consumer<List<LandTask>> batchProcessor) {
+        this(workerId, landIntervalMs, batchSize, 64 * 1024, AsyncLandConfig.Overflow.COALESCE,
+                null, null, batchProcessor);
+    }
+
+    /**
+     * @param queueCapacity 环形队列容量
+     * @param overflow      队列满时的处理策略
+     * @param spill         溢出文件（仅 SPILL 策略，否则为 null）
+     * @param spillResolver 溢出记录读回时定位最新实体
+     */
+    public WorkerThread(int workerId, long landIntervalMs, int batchSize,
+                        int queueCapacity, AsyncLandConfig.Overflow overflow,
+                        LandSpill spill, Function<LandSpill.Entry, LandTask> spillResolver,
+                        Consumer<List<LandTask>> batchProcessor) {
         super("muyi-db-worker-" + workerId);
+        this.queue = new MpscRingQueue<>(queueCapacity);
+        this.overflow = overflow;
+        this.spill = spill;
+        this.spillResolver = spillResolver;
         this.workerId = workerId;
         this.landIntervalMs = landIntervalMs;
         this.batchSize = batchSize;
@@ -126,41 +227,239 @@ public class WorkerThread extends Thread {
     }
     
     /**
-     * 提交任务
+     * 提交 NORMAL 任务
+     * <p>
+     * 本线程提交的（落地失败重试）进入重试队列；环形队列满时按溢出策略处理。
      */
     public void submit(LandTask task) {
+        submit(task, LandOptions.Priority.NORMAL);
+    }
+
+    /**
+     * 按优先级提交任务（本线程提交的重试任务不区分优先级，进入重试队列）
+     * <p>
+     * 对应通道满时按溢出策略处理：BLOCK 等待该通道有空位；SPILL、COALESCE 溢出的任务不再保留优先级
+     */
+    public void submit(LandTask task, LandOptions.Priority priority) {
+        if (Thread.currentThread() == this) {
+            addRetry(task);
+            return;
+        }
+        if (offer(task, priority)) {
+            return;
+        }
+        overflowCount.increment();
+        switch (overflow) {
+            case BLOCK -> put(task, priority);
+            case SPILL -> spill(task);
+            default -> coalesce(task, priority);
+        }
+    }
+
+    /**
+     * 放入优先级对应的通道，通道满时返回 false
+     */
+    private boolean offer(LandTask task, LandOptions.Priority priority) {
+        if (priority == LandOptions.Priority.CRITICAL) {
+            if (!offerLane(criticalQueue, criticalSize, task)) {
+                return false;
+            }
+            queue.wakeup();
+            return true;
+        }
+        if (priority == LandOptions.Priority.BULK) {
+            return offerLane(bulkQueue, bulkSize, task);
+        }
+        return queue.offer(task);
+    }
+
+    /**
+     * 先占位再入队，并发提交时通道内的任务数也不会超过环形队列容量
+     */
+    private boolean offerLane(Queue<LandTask> lane, AtomicInteger size, LandTask task) {
+        if (size.incrementAndGet() > queue.capacity()) {
+            size.decrementAndGet();
+            return false;
+        }
+        lane.add(task);
+        return true;
+    }
+
+    /**
+     * 阻塞直到入队（关闭中或被中断时转入溢出链表，不丢任务）
+     */
+    private void put(LandTask task, LandOptions.Priority priority) {
+        while (!offer(task, priority)) {
+            if (!running || Thread.currentThread().isInterrupted()) {
+                addOverflow(task);
+                return;
+            }
+            LockSupport.parkNanos(this, PRODUCER_BACKOFF_NANOS);
+        }
+    }
+
+    /**
+     * 写入溢出文件，任务对象随即丢弃（实体仍在脏数据缓存中）
+     */
+    private void spill(LandTask task) {
+        if (spill == null || !LandSpill.isSpillable(task.getEntity())) {
+            addOverflow(task);
+            return;
+        }
         try {
-            queue.put(task);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            spill.append(task.getEntity(), task.getType());
+        } catch (Exception e) {
+            logger.error("Worker-{} failed to spill task, keep in memory: {}", workerId, task.getEntity(), e);
+            addOverflow(task);
         }
     }
-    
+
+    /**
+     * COALESCE：放入溢出链表；溢出链表也满时按 BLOCK 等待，持续积压时不会无限占用内存
+     */
+    private void coalesce(LandTask task, LandOptions.Priority priority) {
+        if (offerLane(overflowQueue, overflowSize, task)) {
+            queue.wakeup();
+            return;
+        }
+        put(task, priority);
+    }
+
+    private void addOverflow(LandTask task) {
+        overflowQueue.add(task);
+        overflowSize.incrementAndGet();
+        queue.wakeup();
+    }
+
+    private void addRetry(LandTask task) {
+        retryQueue.add(task);
+        retrySize.incrementAndGet();
+    }
+
     /**
-     * 停止工作线程
+     * 已在队列中的任务被更紧急的提交合并时调用：不知道任务在哪个位置，
+     * 因此把 BULK 通道整体提前到下一轮；提升为 CRITICAL 时同时唤醒本线程立即开始下一轮
+     */
+    public void promote(LandOptions.Priority priority) {
+        flushBulk = true;
+        if (priority == LandOptions.Priority.CRITICAL) {
+            flushNow = true;
+            queue.wakeup();
+        }
+    }
+
+    /**
+     * 延迟提交（退避重试、表熔断暂存），不阻塞工作线程
+     *
+     * @param delayMs 延迟毫秒数，不大于 0 时等同于 {@link #submit}
+     */
+    public void submitDelayed(LandTask task, long delayMs) {
+        if (delayMs <= 0) {
+            submit(task);
+            return;
+        }
+        DelayedTask delayed = new DelayedTask(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs),
+                delayedSeq.incrementAndGet());
+        synchronized (delayedQueue) {
+            delayedQueue.add(delayed);
+        }
+    }
+
+    /**
+     * 延迟队列中的任务数
+     */
+    public int getDelayedCount() {
+        synchronized (delayedQueue) {
+            return delayedQueue.size();
+        }
+    }
+
+    /**
+     * 停止工作线程（剩余任务全部处理完后退出）
      */
     public void shutdownWorker() {
         running = false;
-        // 放入毒丸，确保 poll() 能退出阻塞
-        try {
-            queue.put(LandTask.POISON_PILL);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        queue.wakeup();
     }
     
     /**
      * 检查队列是否为空
      */
     public boolean isQueueEmpty() {
-        return queue.isEmpty();
+        return getQueueSize() == 0;
     }
     
     /**
-     * 获取队列中的任务数
+     * 获取队列中的任务数（环形队列 + 延迟 + 重试 + 优先级通道 + 溢出链表 + 溢出文件）
      */
     public int getQueueSize() {
-        return queue.size();
+        return queue.size() + getDelayedCount() + retrySize.get() + criticalSize.get() + bulkSize.get()
+                + overflowSize.get() + getSpilledCount();
+    }
+
+    /**
+     * CRITICAL 通道中的任务数
+     */
+    public int getCriticalCount() {
+        return criticalSize.get();
+    }
+
+    /**
+     * BULK 通道中的任务数
+     */
+    public int getBulkCount() {
+        return bulkSize.get();
+    }
+
+    /**
+     * 溢出文件中的记录数
+     */
+    public int getSpilledCount() {
+        return spill != null ? spill.size() : 0;
+    }
+
+    /**
+     * 环形队列（或 CRITICAL、BULK 通道）满的累计次数
+     */
+    public long getOverflowCount() {
+        return overflowCount.sum();
+    }
+
+    /**
+     * 环形队列容量
+     */
+    public int getQueueCapacity() {
+        return queue.capacity();
+    }
+    
+    /**
+     * 按物理表统计队列中的任务数（遍历队列，仅用于监控查询）
+     */
+    public void countQueuedByTable(Map<String, Integer> counts) {
+        Consumer<LandTask> counter = task -> counts.merge(task.getEntity().getTableName(), 1, Integer::sum);
+        queue.forEach(counter);
+        synchronized (delayedQueue) {
+            delayedQueue.forEach(delayed -> counter.accept(delayed.task));
+        }
+        retryQueue.forEach(counter);
+        criticalQueue.forEach(counter);
+        bulkQueue.forEach(counter);
+        overflowQueue.forEach(counter);
+    }
+    
+    /**
+     * 当前自适应状态
+     */
+    public AdaptiveState getAdaptiveState() {
+        return currentState;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public long getLandIntervalMs() {
+        return landIntervalMs;
     }
     
     /**
@@ -180,6 +479,22 @@ public class WorkerThread extends Thread {
     public void setLandIntervalMs(long landIntervalMs) {
         this.landIntervalMs = Math.max(1, landIntervalMs);
     }
+
+    public long getCriticalMaxDelayMs() {
+        return criticalMaxDelayMs;
+    }
+
+    public void setCriticalMaxDelayMs(long criticalMaxDelayMs) {
+        this.criticalMaxDelayMs = Math.max(0, criticalMaxDelayMs);
+    }
+
+    public long getBulkMaxDelayMs() {
+        return bulkMaxDelayMs;
+    }
+
+    public void setBulkMaxDelayMs(long bulkMaxDelayMs) {
+        this.bulkMaxDelayMs = Math.max(0, bulkMaxDelayMs);
+    }
     
     /**
      * 启用/禁用自适应调整
@@ -212,12 +527,10 @@ public class WorkerThread extends Thread {
     public void run() {
         logger.debug("Worker-{} started", workerId);
         
-        boolean receivedPoisonPill = false;
-        
-        while ((running || !queue.isEmpty()) && !receivedPoisonPill) {
+        while (running) {
             try {
                 List<LandTask> batch = new ArrayList<>(batchSize);
-                receivedPoisonPill = collectBatch(batch);
+                collectBatch(batch);
                 
                 // 批量处理
                 if (!batch.isEmpty()) {
@@ -237,12 +550,22 @@ public class WorkerThread extends Thread {
             }
         }
         
-        // 关闭前处理剩余任务
-        List<LandTask> remaining = new ArrayList<>();
-        queue.drainTo(remaining);
-        remaining.removeIf(LandTask::isPoisonPill);
-        if (!remaining.isEmpty()) {
-            batchProcessor.accept(remaining);
+        // 关闭前处理剩余任务（含失败重试，重试次数有上限，必然结束）；延迟任务不再等待到期
+        while (true) {
+            flushDelayed();
+            List<LandTask> remaining = new ArrayList<>(batchSize);
+            drainPending(remaining, Math.max(batchSize, 1));
+            if (remaining.isEmpty()) {
+                break;
+            }
+            try {
+                batchProcessor.accept(remaining);
+            } catch (Exception e) {
+                logger.error("Worker-{} error", workerId, e);
+            }
+        }
+        if (spill != null) {
+            spill.close();
         }
         
         logger.debug("Worker-{} stopped", workerId);
@@ -253,55 +576,172 @@ public class WorkerThread extends Thread {
      * <p>
      * 优化策略：
      * <ol>
-     *   <li>先用 drainTo 非阻塞批量取（高流量时立即返回）</li>
+     *   <li>先非阻塞批量取（高流量时立即返回）</li>
      *   <li>如果不够，再阻塞等待剩余时间（低流量时等待）</li>
      * </ol>
      * <p>
      * 优势：
      * <ul>
-     *   <li>高流量：drainTo 立即取够，不阻塞，性能最优</li>
+     *   <li>高流量：批量取够，不阻塞，性能最优</li>
      *   <li>低流量：先取一部分，再阻塞等待，避免空等</li>
      * </ul>
+     * <p>
+     * 有 CRITICAL 任务时等待截止到最早一个 CRITICAL 任务的 {@code criticalMaxDelayMs} 到期，
+     * 结束前取出等待期间到达的 CRITICAL 任务（可超出 batchSize 一倍，不留到下一轮）
      *
      * @param batch 用于存放收集到的任务
-     * @return 是否收到毒丸（收到毒丸表示应该退出）
      */
-    private boolean collectBatch(List<LandTask> batch) throws InterruptedException {
+    private void collectBatch(List<LandTask> batch) throws InterruptedException {
         long deadline = TimeUtils.currentTimeMillis() + landIntervalMs;
         
-        // 步骤1：先用 drainTo 非阻塞批量取（高流量时立即取够）
-        int needed = batchSize - batch.size();
-        if (needed > 0 && !queue.isEmpty()) {
-            queue.drainTo(batch, needed);
-            // 过滤掉毒丸（如果 drainTo 取到了毒丸）
-            if (batch.removeIf(LandTask::isPoisonPill)) {
-                return true;  // 收到毒丸
-            }
-        }
-        
-        // 步骤2：如果已经取够，直接返回（避免阻塞）
-        if (batch.size() >= batchSize) {
-            return false;
-        }
+        // 步骤1：非阻塞批量取（高流量时立即取够）
+        drainPending(batch, batchSize);
         
-        // 步骤3：不够的话，阻塞等待剩余时间（低流量时等待新任务）
-        while (batch.size() < batchSize) {
-            long remaining = deadline - TimeUtils.currentTimeMillis();
+        // 步骤2：不够的话，阻塞等待剩余时间（低流量时等待新任务；关闭、有溢出或 CRITICAL 任务时提前返回）
+        while (batch.size() < batchSize && running) {
+            long remaining = Math.min(deadline, urgentDeadline()) - TimeUtils.currentTimeMillis();
             if (remaining <= 0) {
                 break;  // 超时兜底
             }
             
             LandTask task = queue.poll(remaining, TimeUnit.MILLISECONDS);
             if (task == null) {
-                break;  // 超时，返回已收集的任务
+                if (criticalSize.get() > 0 && !flushNow) {
+                    continue;  // 被 CRITICAL 任务唤醒，在攒批窗口内继续等待
+                }
+                break;  // 超时或被唤醒，返回已收集的任务
             }
-            if (task.isPoisonPill()) {
-                return true;  // 收到毒丸，通知调用者退出
+            batch.add(task);
+            queue.drainTo(batch, batchSize - batch.size());
+        }
+
+        // 步骤3：等待期间到达的 CRITICAL 任务、被提升的任务随本轮落地
+        int max = batch.size() + batchSize;
+        poll(criticalQueue, criticalSize, batch, max);
+        if (flushNow) {
+            flushNow = false;
+            queue.drainTo(batch, Math.max(0, max - batch.size()));
+            drainBulk(batch, max);
+        }
+    }
+
+    /**
+     * 本轮等待的提前截止时间：最早的 CRITICAL 任务攒批窗口到期，或有任务被提升为 CRITICAL
+     */
+    private long urgentDeadline() {
+        if (flushNow) {
+            return 0;
+        }
+        LandTask first = criticalQueue.peek();
+        return first != null ? first.getCreateTime() + criticalMaxDelayMs : Long.MAX_VALUE;
+    }
+
+    /**
+     * 非阻塞取出任务：到期的延迟任务 -> 重试队列 -> CRITICAL 通道 -> 环形队列 -> 溢出链表 -> 到期的 BULK 任务 -> 溢出文件
+     * <p>
+     * 溢出文件只在环形队列和溢出链表都取空后读回，读回的任务进入重试队列
+     */
+    private void drainPending(List<LandTask> batch, int max) {
+        synchronized (delayedQueue) {
+            long now = System.nanoTime();
+            DelayedTask delayed;
+            while (batch.size() < max && (delayed = delayedQueue.peek()) != null && delayed.dueNanos - now <= 0) {
+                batch.add(delayedQueue.poll().task);
             }
+        }
+        poll(retryQueue, retrySize, batch, max);
+        poll(criticalQueue, criticalSize, batch, max);
+        if (batch.size() < max) {
+            queue.drainTo(batch, max - batch.size());
+        }
+        if (batch.size() < max) {
+            poll(overflowQueue, overflowSize, batch, max);
+        }
+        drainBulk(batch, max);
+        if (batch.size() < max && spill != null && spill.size() > 0 && queue.isEmpty() && overflowSize.get() == 0) {
+            restoreSpilled();
+            poll(retryQueue, retrySize, batch, max);
+        }
+    }
+
+    /**
+     * 取出保留时间已到的 BULK 任务（有任务被提升或关闭阶段时全部取出）
+     */
+    private void drainBulk(List<LandTask> batch, int max) {
+        boolean all = flushBulk || !running;
+        long dueTime = TimeUtils.currentTimeMillis() - bulkMaxDelayMs;
+        LandTask task;
+        while (batch.size() < max && (task = bulkQueue.peek()) != null && (all || task.getCreateTime() <= dueTime)) {
+            bulkQueue.poll();
+            bulkSize.decrementAndGet();
             batch.add(task);
         }
-        
-        return false;
+        if (flushBulk && bulkQueue.isEmpty()) {
+            flushBulk = false;
+        }
+    }
+
+    private static void poll(Queue<LandTask> source, AtomicInteger size, List<LandTask> batch, int max) {
+        LandTask task;
+        while (batch.size() < max && (task = source.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(task);
+        }
+    }
+
+    /**
+     * 关闭阶段：延迟任务不论是否到期全部转入重试队列
+     */
+    private void flushDelayed() {
+        List<DelayedTask> all;
+        synchronized (delayedQueue) {
+            if (delayedQueue.isEmpty()) {
+                return;
+            }
+            all = new ArrayList<>(delayedQueue);
+            delayedQueue.clear();
+        }
+        all.sort(null);
+        for (DelayedTask delayed : all) {
+            addRetry(delayed.task);
+        }
+    }
+
+    /**
+     * 延迟任务（到期时间相同的按提交顺序）
+     */
+    private record DelayedTask(LandTask task, long dueNanos, long seq) implements Comparable<DelayedTask> {
+
+        @Override
+        public int compareTo(DelayedTask that) {
+            int cmp = Long.compare(dueNanos - that.dueNanos, 0);
+            return cmp != 0 ? cmp : Long.compare(seq, that.seq);
+        }
+    }
+
+    /**
+     * 读回溢出文件：按主键定位脏数据缓存中的最新实体，已落地（不在缓存中）的跳过
+     * <p>
+     * 每次最多读回环形队列容量条，其余留在文件中，下次队列取空后再读，重试队列不会因读回而无限增长
+     */
+    private void restoreSpilled() {
+        List<LandSpill.Entry> entries;
+        try {
+            entries = spill.take(queue.capacity());
+        } catch (Exception e) {
+            logger.error("Worker-{} failed to read spill file", workerId, e);
+            return;
+        }
+        int restored = 0;
+        for (LandSpill.Entry entry : entries) {
+            LandTask task = spillResolver.apply(entry);
+            if (task != null) {
+                addRetry(task);
+                restored++;
+            }
+        }
+        logger.info("Worker-{} restored {} spilled tasks ({} records, {} left)", workerId, restored, entries.size(),
+                spill.size());
     }
     
     /**
@@ -323,7 +763,8 @@ public class WorkerThread extends Thread {
         }
         lastAdjustTime = now;
         
-        int queueSize = queue.size();
+        // BULK 任务按设计保留，不计入积压
+        int queueSize = getQueueSize() - bulkSize.get();
         int oldBatchSize = batchSize;
         long oldInterval = landIntervalMs;
         AdaptiveState newState = currentState;
@@ -0,0 +1,223 @@
+package com.muyi.db.cache;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.muyi.db.annotation.EntityCache;
+import com.muyi.db.async.LandListener;
+import com.muyi.db.async.TaskType;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.FieldInfo;
+
+/**
+ * 实体 L1 缓存管理
+ * <p>
+ * 每个标注了 {@link EntityCache} 的实体类一个 {@link WTinyLfuCache}，key 为主键（复合主键为值列表），
+ * 权重为实体的估算堆内存占用。作为 {@link LandListener} 注册到异步落地：
+ * <ul>
+ *   <li>提交 INSERT/UPDATE：写入缓存（缓存的就是业务持有的实体对象）</li>
+ *   <li>提交 DELETE、落地最终失败：失效</li>
+ * </ul>
+ */
+public class EntityCacheManager implements LandListener {
+
+    /**
+     * BaseEntity 自身字段（状态、版本号、落地标记等）的估算占用
+     */
+    private static final int ENTITY_BASE_BYTES = 128;
+
+    /**
+     * entityClass -> 权重估算的固定部分（基础占用 + 基本类型字段 + 引用槽位）与需按值估算的引用字段
+     */
+    private static final ConcurrentHashMap<Class<?>, EntityShape> SHAPES = new ConcurrentHashMap<>();
+
+    private final long defaultMaxBytes;
+
+    /**
+     * entityClass -> 缓存（未启用缓存的类为 empty）
+     */
+    private final ConcurrentHashMap<Class<?>, Optional<WTinyLfuCache<Object, BaseEntity<?>>>> caches =
+            new ConcurrentHashMap<>();
+
+    /**
+     * @param defaultMaxBytes 未指定 {@link EntityCache#maxBytes()} 时每个实体类的缓存上限
+     */
+    public EntityCacheManager(long defaultMaxBytes) {
+        if (defaultMaxBytes <= 0) {
+            throw new IllegalArgumentException("defaultMaxBytes must be positive, got: " + defaultMaxBytes);
+        }
+        this.defaultMaxBytes = defaultMaxBytes;
+    }
+
+    // ==================== 读写 ====================
+
+    /**
+     * 是否启用缓存
+     */
+    public boolean isCached(Class<?> entityClass) {
+        return cacheOf(entityClass) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends BaseEntity<T>> T get(Class<T> entityClass, Object primaryKey) {
+        WTinyLfuCache<Object, BaseEntity<?>> cache = cacheOf(entityClass);
+        return cache != null ? (T) cache.get(primaryKey) : null;
+    }
+
+    public void put(BaseEntity<?> entity) {
+        WTinyLfuCache<Object, BaseEntity<?>> cache = cacheOf(entity.getClass());
+        if (cache != null) {
+            Object key = primaryKey(entity);
+            if (key != null) {
+                cache.put(key, entity);
+            }
+        }
+    }
+
+    /**
+     * 读穿透写入：已缓存（业务持有的实例）时不覆盖
+     *
+     * @return 应返回给调用方的实体（已缓存的实例或传入的实体）
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BaseEntity<T>> T putIfAbsent(T entity) {
+        WTinyLfuCache<Object, BaseEntity<?>> cache = cacheOf(entity.getClass());
+        Object key = cache != null ? primaryKey(entity) : null;
+        if (key == null) {
+            return entity;
+        }
+        BaseEntity<?> existing = cache.putIfAbsent(key, entity);
+        return existing != null ? (T) existing : entity;
+    }
+
+    public void invalidate(BaseEntity<?> entity) {
+        WTinyLfuCache<Object, BaseEntity<?>> cache = cacheOf(entity.getClass());
+        if (cache != null) {
+            Object key = primaryKey(entity);
+            if (key != null) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    public void invalidate(Class<?> entityClass, Object primaryKey) {
+        WTinyLfuCache<Object, BaseEntity<?>> cache = cacheOf(entityClass);
+        if (cache != null) {
+            cache.remove(primaryKey);
+        }
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    public void clear() {
+        for (Optional<WTinyLfuCache<Object, BaseEntity<?>>> cache : caches.values()) {
+            cache.ifPresent(WTinyLfuCache::clear);
+        }
+    }
+
+    /**
+     * 各实体类的缓存统计
+     */
+    public Map<Class<?>, WTinyLfuCache.Stats> getStats() {
+        Map<Class<?>, WTinyLfuCache.Stats> stats = new LinkedHashMap<>();
+        caches.forEach((clazz, cache) -> cache.ifPresent(c -> stats.put(clazz, c.stats())));
+        return stats;
+    }
+
+    // ==================== 落地联动 ====================
+
+    @Override
+    public void onSubmit(BaseEntity<?> entity, TaskType type) {
+        if (type == TaskType.DELETE) {
+            invalidate(entity);
+        } else {
+            put(entity);
+        }
+    }
+
+    @Override
+    public void onDropped(BaseEntity<?> entity, TaskType type) {
+        // 内存与数据库已不一致，下次读取以数据库为准
+        invalidate(entity);
+    }
+
+    // ==================== 内部方法 ====================
+
+    private WTinyLfuCache<Object, BaseEntity<?>> cacheOf(Class<?> entityClass) {
+        return caches.computeIfAbsent(entityClass, clazz -> {
+            EntityCache annotation = clazz.getAnnotation(EntityCache.class);
+            if (annotation == null) {
+                return Optional.empty();
+            }
+            long maxBytes = annotation.maxBytes() > 0 ? annotation.maxBytes() : defaultMaxBytes;
+            return Optional.of(new WTinyLfuCache<>(maxBytes, EntityCacheManager::estimateBytes));
+        }).orElse(null);
+    }
+
+    /**
+     * 缓存 key（与脏数据缓存一致；主键含 null 时不缓存）
+     */
+    private static Object primaryKey(BaseEntity<?> entity) {
+        Object[] pkValues = entity.getPrimaryKeyValues();
+        if (pkValues.length == 1) {
+            return pkValues[0];
+        }
+        List<Object> key = Arrays.asList(pkValues);
+        return key.contains(null) ? null : key;
+    }
+
+    /**
+     * 估算实体堆内存占用（字节）
+     */
+    static int estimateBytes(BaseEntity<?> entity) {
+        EntityShape shape = SHAPES.computeIfAbsent(entity.getClass(), k -> EntityShape.of(entity));
+        long bytes = shape.fixedBytes;
+        for (FieldInfo field : shape.referenceFields) {
+            Object value = field.getValue(entity);
+            if (value instanceof String text) {
+                bytes += 40 + text.length();
+            } else if (value instanceof byte[] data) {
+                bytes += 16 + data.length;
+            } else if (value instanceof BigDecimal) {
+                bytes += 48;
+            } else if (value instanceof Collection<?> elements) {
+                // 编解码字段的集合：每个元素按引用 + 一个装箱对象估算
+                bytes += 32 + 24L * elements.size();
+            } else if (value instanceof Map<?, ?> entries) {
+                bytes += 48 + 56L * entries.size();
+            } else if (value != null) {
+                bytes += 32;
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 实体类的权重估算结构（按类缓存，只有引用字段需要逐个取值）
+     */
+    private record EntityShape(long fixedBytes, FieldInfo[] referenceFields) {
+
+        static EntityShape of(BaseEntity<?> entity) {
+            long fixed = ENTITY_BASE_BYTES;
+            List<FieldInfo> references = new ArrayList<>();
+            for (FieldInfo field : entity.getMetadata().getAllFields()) {
+                Class<?> type = field.getFieldType();
+                if (type.isPrimitive()) {
+                    fixed += type == long.class || type == double.class ? 8 : 4;
+                } else {
+                    fixed += 4;
+                    references.add(field);
+                }
+            }
+            return new EntityShape(fixed, references.toArray(new FieldInfo[0]));
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.muyi.db.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.muyi.db.async.LandListener;
+import com.muyi.db.async.TaskType;
+import com.muyi.db.core.BaseEntity;
+
+/**
+ * 自定义查询结果缓存
+ * <p>
+ * GM 面板、排行榜初始化、联盟列表等重复执行的 {@code selectBySql / selectMapBySql} 查询，结果按 SQL + 参数缓存：
+ * <ul>
+ *   <li>TTL 过期 + 按权重（估算字节数）限容的 {@link WTinyLfuCache}</li>
+ *   <li>按表失效：SQL 中 FROM / JOIN 引用的表，任一张被写入（异步落地成功、同步写、原生 SQL 更新）后条目失效</li>
+ *   <li>失效只递增表的版本号（O(1)），条目在读取时比对版本号惰性淘汰，落地线程每条任务一次回调也不会有压力</li>
+ *   <li>查询执行期间引用的表有写入时，结果不写入缓存，避免把旧数据缓存到下一次失效</li>
+ * </ul>
+ * 解析不出表名的 SQL 不缓存（无法失效）。缓存的结果由所有调用方共享，只能只读使用。
+ */
+public class QueryCache implements LandListener {
+
+    /**
+     * FROM / JOIN 后的表名（含 `库`.`表` 形式）；FROM 后的逗号列表单独处理
+     */
+    private static final Pattern TABLE_REF = Pattern.compile(
+            "\\b(FROM|JOIN)\\s+(`?[\\w$]+`?(?:\\s*\\.\\s*`?[\\w$]+`?)?)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 逗号分隔的后续表（{@code FROM a x, b y}）
+     */
+    private static final Pattern NEXT_TABLE = Pattern.compile(
+            "\\G(?:\\s+(?:AS\\s+)?(?!WHERE\\b|JOIN\\b|INNER\\b|LEFT\\b|RIGHT\\b|CROSS\\b|STRAIGHT_JOIN\\b|GROUP\\b"
+                    + "|ORDER\\b|LIMIT\\b|HAVING\\b|UNION\\b|FOR\\b|LOCK\\b|WINDOW\\b|USE\\b|FORCE\\b|IGNORE\\b)"
+                    + "`?[\\w$]+`?)?\\s*,\\s*(`?[\\w$]+`?(?:\\s*\\.\\s*`?[\\w$]+`?)?)",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 写语句的目标表
+     */
+    private static final Pattern WRITE_TARGET = Pattern.compile(
+            "^\\s*(?:INSERT\\s+(?:IGNORE\\s+)?INTO|REPLACE\\s+INTO|UPDATE|DELETE\\s+FROM|TRUNCATE(?:\\s+TABLE)?)"
+                    + "\\s+(`?[\\w$]+`?(?:\\s*\\.\\s*`?[\\w$]+`?)?)",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * SQL 表名解析缓存上限（拼接了字面量的动态 SQL 不应撑爆内存）
+     */
+    private static final int MAX_PARSED_SQL = 4096;
+
+    private static final String[] NO_TABLES = new String[0];
+
+    private final long defaultTtlMs;
+
+    private final WTinyLfuCache<Key, Entry> cache;
+
+    /**
+     * 表名（小写）-> 版本号，每次写入递增
+     */
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 全局版本号（无法确定写入表时递增，使全部条目失效）
+     */
+    private final AtomicLong globalVersion = new AtomicLong();
+
+    private final ConcurrentHashMap<String, String[]> parsedTables = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder uncacheable = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * 缓存 key：SQL + 参数值
+     */
+    private record Key(String sql, List<Object> params) {
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param tables       引用的表
+     * @param tableVersions 写入缓存时各表的版本号
+     */
+    private record Entry(Object value, int weight, String[] tables, long[] tableVersions, long globalVersion,
+                         long expireAt) {
+    }
+
+    /**
+     * @param maxBytes     内存上限（按估算字节数）
+     * @param defaultTtlMs 默认过期时间（毫秒）
+     */
+    public QueryCache(long maxBytes, long defaultTtlMs) {
+        if (defaultTtlMs <= 0) {
+            throw new IllegalArgumentException("defaultTtlMs must be positive, got: " + defaultTtlMs);
+        }
+        this.defaultTtlMs = defaultTtlMs;
+        this.cache = new WTinyLfuCache<>(maxBytes, Entry::weight);
+    }
+
+    // ==================== 读取 ====================
+
+    /**
+     * 读取缓存，未命中时执行 loader 并写入
+     *
+     * @param weigher 结果的估算字节数
+     */
+    public <V> V get(String sql, Object[] params, Supplier<V> loader, ToIntFunction<? super V> weigher) {
+        return get(sql, params, defaultTtlMs, loader, weigher);
+    }
+
+    /**
+     * 读取缓存，未命中时执行 loader 并写入
+     *
+     * @param ttlMs   本条结果的过期时间（毫秒）
+     * @param weigher 结果的估算字节数
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(String sql, Object[] params, long ttlMs, Supplier<V> loader, ToIntFunction<? super V> weigher) {
+        String[] tables = tablesOf(sql);
+        if (tables.length == 0) {
+            uncacheable.increment();
+            return loader.get();
+        }
+
+        Key key = new Key(sql, params == null ? List.of() : Arrays.asList(params.clone()));
+        Entry entry = cache.get(key);
+        long now = System.currentTimeMillis();
+        if (entry != null) {
+            if (isValid(entry, now)) {
+                hits.increment();
+                return (V) entry.value();
+            }
+            cache.remove(key);
+        }
+        misses.increment();
+
+        // 在查询之前取版本号：查询期间有写入时版本号变化，结果不缓存
+        long global = globalVersion.get();
+        long[] before = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            before[i] = versionOf(tables[i]).get();
+        }
+        V value = loader.get();
+        if (global == globalVersion.get() && Arrays.equals(before, currentVersions(tables))) {
+            int weight = (int) Math.min(Integer.MAX_VALUE, 64L + sql.length() + weigher.applyAsInt(value));
+            cache.put(key, new Entry(value, weight, tables, before, global, now + ttlMs));
+        }
+        return value;
+    }
+
+    private boolean isValid(Entry entry, long now) {
+        return entry.expireAt() > now
+                && entry.globalVersion() == globalVersion.get()
+                && Arrays.equals(entry.tableVersions(), currentVersions(entry.tables()));
+    }
+
+    // ==================== 失效 ====================
+
+    /**
+     * 使引用该表的条目失效
+     */
+    public void invalidateTable(String tableName) {
+        versionOf(normalize(tableName)).incrementAndGet();
+        invalidations.increment();
+    }
+
+    /**
+     * 按原生写 SQL 失效：能解析出目标表时只失效该表，否则全部失效
+     */
+    public void invalidateSql(String sql) {
+        Matcher matcher = WRITE_TARGET.matcher(sql);
+        if (matcher.find()) {
+            invalidateTable(matcher.group(1));
+        } else {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * 全部失效
+     */
+    public void invalidateAll() {
+        globalVersion.incrementAndGet();
+        invalidations.increment();
+        cache.clear();
+    }
+
+    @Override
+    public void onLanded(BaseEntity<?> entity, TaskType type) {
+        invalidateTable(entity.getTableName());
+    }
+
+    // ==================== 统计 ====================
+
+    public WTinyLfuCache.Stats stats() {
+        return cache.stats();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 因解析不出表名而未缓存的查询次数
+     */
+    public long getUncacheableCount() {
+        return uncacheable.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    // ==================== 结果估算 ====================
+
+    /**
+     * 实体列表的估算字节数
+     */
+    public static int estimateEntities(List<? extends BaseEntity<?>> entities) {
+        long bytes = 16L + 4L * entities.size();
+        for (BaseEntity<?> entity : entities) {
+            bytes += EntityCacheManager.estimateBytes(entity);
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Map 行列表的估算字节数
+     */
+    public static int estimateRows(List<Map<String, Object>> rows) {
+        long bytes = 16L + 4L * rows.size();
+        for (Map<String, Object> row : rows) {
+            bytes += 48;
+            for (Map.Entry<String, Object> column : row.entrySet()) {
+                bytes += 40 + estimateValue(column.getValue());
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long estimateValue(Object value) {
+        if (value instanceof CharSequence text) {
+            return 40 + text.length();
+        }
+        if (value instanceof byte[] data) {
+            return 16 + data.length;
+        }
+        return value == null ? 0 : 24;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private AtomicLong versionOf(String table) {
+        return versions.computeIfAbsent(table, k -> new AtomicLong());
+    }
+
+    private long[] currentVersions(String[] tables) {
+        long[] current = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            AtomicLong version = versions.get(tables[i]);
+            current[i] = version != null ? version.get() : 0;
+        }
+        return current;
+    }
+
+    /**
+     * 解析 SQL 引用的表（小写、去掉反引号和库名）
+     */
+    String[] tablesOf(String sql) {
+        String[] tables = parsedTables.get(sql);
+        if (tables != null) {
+            return tables;
+        }
+        List<String> found = new ArrayList<>(2);
+        Matcher matcher = TABLE_REF.matcher(sql);
+        while (matcher.find()) {
+            addTable(found, matcher.group(2));
+            if ("FROM".equalsIgnoreCase(matcher.group(1))) {
+                Matcher next = NEXT_TABLE.matcher(sql);
+                next.region(matcher.end(), sql.length());
+                while (next.find()) {
+                    addTable(found, next.group(1));
+                }
+            }
+        }
+        tables = found.isEmpty() ? NO_TABLES : found.toArray(String[]::new);
+        if (parsedTables.size() >= MAX_PARSED_SQL) {
+            parsedTables.clear();
+        }
+        parsedTables.put(sql, tables);
+        return tables;
+    }
+
+    private static void addTable(List<String> tables, String name) {
+        String table = normalize(name);
+        // 派生表 / 子查询 "FROM (SELECT ..." 不会匹配到这里；DUAL 不是真实表
+        if (!table.equals("dual") && !tables.contains(table)) {
+            tables.add(table);
+        }
+    }
+
+    private static String normalize(String name) {
+        String table = name.replace("`", "");
+        int dot = table.lastIndexOf('.');
+        if (dot >= 0) {
+            table = table.substring(dot + 1);
+        }
+        return table.trim().toLowerCase(Locale.ROOT);
+    }
+}
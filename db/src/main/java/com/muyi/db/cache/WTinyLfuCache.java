@@ -0,0 +1,455 @@
+package com.muyi.db.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * 按权重限容的 W-TinyLFU 缓存
+ * <p>
+ * 结构：
+ * <ul>
+ *   <li>窗口区（1%）：新写入的条目先进入 LRU 窗口，吸收突发访问</li>
+ *   <li>主区（99%）：分段 LRU，试用段（20%）+ 保护段（80%），试用段命中后晋升到保护段</li>
+ *   <li>准入：窗口淘汰出的候选与试用段队首比较访问频率（{@link FrequencySketch}），频率高者留下</li>
+ * </ul>
+ * 一次性扫描（如遍历其它玩家列表）不会冲掉高频条目。
+ * <p>
+ * 线程安全：读取不加锁（并发哈希表查找），访问事件写入按线程分段的有损环形缓冲区，
+ * 缓冲区过半时由拿到锁的线程批量回放（更新频率与 LRU 顺序）；写入、删除在锁内完成并先回放缓冲区。
+ * 缓冲区满时丢弃访问事件，只影响淘汰精度，不影响正确性。
+ *
+ * @param <K> key 类型
+ * @param <V> value 类型
+ */
+public final class WTinyLfuCache<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    /**
+     * 每段访问缓冲区的容量（2 的幂）
+     */
+    private static final int READ_BUFFER_SIZE = 64;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+    /**
+     * 访问缓冲区段数（2 的幂，按线程分散）
+     */
+    private static final int READ_BUFFER_STRIPES =
+            Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), 32) * 2 - 1);
+
+    /**
+     * 读取不加锁；结构修改只在 evictionLock 内进行
+     */
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ToIntFunction<? super V> weigher;
+    private final FrequencySketch sketch;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ReadBuffer<K>[] readBuffers;
+
+    private final long maximumWeight;
+    private final long maxWindowWeight;
+    private final long maxProtectedWeight;
+
+    private final Node<K, V> window = Node.sentinel();
+    private final Node<K, V> probation = Node.sentinel();
+    private final Node<K, V> protectedQueue = Node.sentinel();
+
+    private long weightedSize;
+    private long windowWeight;
+    private long protectedWeight;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private long evictionCount;
+
+    /**
+     * @param maximumWeight 最大总权重（如字节数）
+     * @param weigher       条目权重计算
+     */
+    public WTinyLfuCache(long maximumWeight, ToIntFunction<? super V> weigher) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive, got: " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.maxWindowWeight = Math.max(1, maximumWeight / 100);
+        this.maxProtectedWeight = (maximumWeight - maxWindowWeight) * 80 / 100;
+        // 按每个条目约 256 字节估算条目数，决定频率表大小
+        this.sketch = new FrequencySketch((int) Math.min(maximumWeight / 256, 1 << 24));
+        @SuppressWarnings("unchecked")
+        ReadBuffer<K>[] buffers = new ReadBuffer[READ_BUFFER_STRIPES];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new ReadBuffer<>();
+        }
+        this.readBuffers = buffers;
+    }
+
+    // ==================== 读写 ====================
+
+    /**
+     * 读取（不加锁，访问事件异步回放）
+     */
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        recordAccess(key);
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return node.value;
+    }
+
+    /**
+     * 写入（已存在则替换值并视为一次访问）；单个条目超过最大权重时不缓存
+     * <p>
+     * 写入的是已缓存的同一对象时只记一次访问，不重新计算权重
+     */
+    public void put(K key, V value) {
+        Node<K, V> existing = data.get(key);
+        if (existing != null && existing.value == value) {
+            recordAccess(key);
+            return;
+        }
+        int weight = weigher.applyAsInt(value);
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                sketch.increment(key);
+                node.value = value;
+                int delta = weight - node.weight;
+                node.weight = weight;
+                weightedSize += delta;
+                if (node.queue == WINDOW) {
+                    windowWeight += delta;
+                } else if (node.queue == PROTECTED) {
+                    protectedWeight += delta;
+                }
+                onAccess(node);
+                evict();
+                return;
+            }
+            if (weight > maximumWeight) {
+                return;
+            }
+            sketch.increment(key);
+            node = new Node<>(key, value, weight);
+            data.put(key, node);
+            node.queue = WINDOW;
+            node.linkLast(window);
+            windowWeight += weight;
+            weightedSize += weight;
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 不存在时写入
+     *
+     * @return 已缓存的值（此时不写入），不存在时返回 null
+     */
+    public V putIfAbsent(K key, V value) {
+        Node<K, V> existing = data.get(key);
+        if (existing != null) {
+            recordAccess(key);
+            return existing.value;
+        }
+        int weight = weigher.applyAsInt(value);
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            existing = data.get(key);
+            if (existing != null) {
+                sketch.increment(key);
+                onAccess(existing);
+                return existing.value;
+            }
+            if (weight > maximumWeight) {
+                return null;
+            }
+            sketch.increment(key);
+            Node<K, V> node = new Node<>(key, value, weight);
+            data.put(key, node);
+            node.queue = WINDOW;
+            node.linkLast(window);
+            windowWeight += weight;
+            weightedSize += weight;
+            evict();
+            return null;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public V remove(K key) {
+        evictionLock.lock();
+        try {
+            Node<K, V> node = data.remove(key);
+            if (node == null) {
+                return null;
+            }
+            unlink(node);
+            return node.value;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void clear() {
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            data.clear();
+            window.prev = window.next = window;
+            probation.prev = probation.next = probation;
+            protectedQueue.prev = protectedQueue.next = protectedQueue;
+            weightedSize = windowWeight = protectedWeight = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // ==================== 统计 ====================
+
+    public int size() {
+        return data.size();
+    }
+
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public long maximumWeight() {
+        return maximumWeight;
+    }
+
+    public Stats stats() {
+        evictionLock.lock();
+        try {
+            return new Stats(hitCount.sum(), missCount.sum(), evictionCount, data.size(), weightedSize);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 缓存统计快照
+     */
+    public record Stats(long hitCount, long missCount, long evictionCount, int size, long weightedSize) {
+        public double hitRate() {
+            long total = hitCount + missCount;
+            return total == 0 ? 0 : (double) hitCount / total;
+        }
+    }
+
+    // ==================== 访问缓冲 ====================
+
+    /**
+     * 记录一次访问；缓冲区过半时尝试回放（拿不到锁则留给持锁线程或下一次写入）
+     */
+    private void recordAccess(K key) {
+        ReadBuffer<K> buffer = readBuffers[(int) Thread.currentThread().threadId() & (readBuffers.length - 1)];
+        if (buffer.offer(key) >= READ_BUFFER_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 回放所有缓冲的访问事件（持锁调用）
+     */
+    private void drainReadBuffers() {
+        for (ReadBuffer<K> buffer : readBuffers) {
+            buffer.drainTo(this::applyAccess);
+        }
+    }
+
+    private void applyAccess(K key) {
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        // 回放前已被删除或淘汰的节点不再调整顺序
+        if (node != null && node.prev != null) {
+            onAccess(node);
+        }
+    }
+
+    /**
+     * 有损的多生产者环形缓冲区：满时丢弃，单消费者（持锁线程）回放
+     */
+    private static final class ReadBuffer<K> {
+        private final AtomicReferenceArray<K> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        /**
+         * @return 写入后缓冲的事件数（满时丢弃并返回容量）
+         */
+        int offer(K key) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            int size = (int) (tail - head);
+            if (size >= READ_BUFFER_SIZE) {
+                return READ_BUFFER_SIZE;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                slots.lazySet((int) (tail & READ_BUFFER_MASK), key);
+                return size + 1;
+            }
+            return size;
+        }
+
+        void drainTo(Consumer<K> consumer) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            while (head < tail) {
+                int index = (int) (head & READ_BUFFER_MASK);
+                K key = slots.get(index);
+                if (key == null) {
+                    // 生产者已占位但尚未写入，下次再回放
+                    break;
+                }
+                slots.lazySet(index, null);
+                consumer.accept(key);
+                head++;
+            }
+            readCounter = head;
+        }
+    }
+
+    // ==================== 淘汰 ====================
+
+    private void onAccess(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW -> node.moveToLast(window);
+            case PROBATION -> {
+                node.unlink();
+                node.queue = PROTECTED;
+                node.linkLast(protectedQueue);
+                protectedWeight += node.weight;
+                // 保护段超限：队首降级回试用段
+                while (protectedWeight > maxProtectedWeight && protectedQueue.next != protectedQueue) {
+                    Node<K, V> demoted = protectedQueue.next;
+                    demoted.unlink();
+                    protectedWeight -= demoted.weight;
+                    demoted.queue = PROBATION;
+                    demoted.linkLast(probation);
+                }
+            }
+            default -> node.moveToLast(protectedQueue);
+        }
+    }
+
+    private void evict() {
+        // 窗口超限：窗口队首移入试用段队尾，成为准入候选
+        int candidates = 0;
+        while (windowWeight > maxWindowWeight && window.next != window) {
+            Node<K, V> node = window.next;
+            node.unlink();
+            windowWeight -= node.weight;
+            node.queue = PROBATION;
+            node.linkLast(probation);
+            candidates++;
+        }
+
+        while (weightedSize > maximumWeight) {
+            Node<K, V> victim = probation.next;
+            if (victim == probation) {
+                // 试用段为空：依次从保护段、窗口淘汰
+                victim = protectedQueue.next != protectedQueue ? protectedQueue.next : window.next;
+                evictNode(victim);
+                continue;
+            }
+            Node<K, V> candidate = candidates > 0 ? probation.prev : null;
+            if (candidate == null || candidate == victim) {
+                if (candidate == victim) {
+                    candidates--;
+                }
+                evictNode(victim);
+            } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evictNode(victim);
+            } else {
+                evictNode(candidate);
+                candidates--;
+            }
+        }
+    }
+
+    private void evictNode(Node<K, V> node) {
+        data.remove(node.key);
+        unlink(node);
+        evictionCount++;
+    }
+
+    private void unlink(Node<K, V> node) {
+        node.unlink();
+        weightedSize -= node.weight;
+        if (node.queue == WINDOW) {
+            windowWeight -= node.weight;
+        } else if (node.queue == PROTECTED) {
+            protectedWeight -= node.weight;
+        }
+    }
+
+    // ==================== 链表节点 ====================
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        int weight;
+        int queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+
+        static <K, V> Node<K, V> sentinel() {
+            Node<K, V> node = new Node<>(null, null, 0);
+            node.prev = node;
+            node.next = node;
+            return node;
+        }
+
+        void linkLast(Node<K, V> head) {
+            prev = head.prev;
+            next = head;
+            head.prev.next = this;
+            head.prev = this;
+        }
+
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+
+        void moveToLast(Node<K, V> head) {
+            unlink();
+            linkLast(head);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.muyi.db.cdc;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.muyi.db.async.TaskType;
+
+/**
+ * 已提交的实体变更
+ *
+ * @param sequence       变更序号（单调递增；启用变更日志时跨重启连续）
+ * @param timestamp      提交时间（毫秒）
+ * @param table          逻辑表名
+ * @param physicalTable  物理表名（分表实体为 表名_n，否则同逻辑表名）
+ * @param type           变更类型
+ * @param primaryKey     主键值
+ * @param changedColumns 变更的列名；为空表示整行（INSERT、DELETE 及未标记变更列的整行 UPDATE）
+ * @param version        落地后的实体版本号
+ */
+public record ChangeEvent(long sequence, long timestamp, String table, String physicalTable, TaskType type,
+                          Object[] primaryKey, List<String> changedColumns, long version) {
+
+    /**
+     * 是否整行变更
+     */
+    public boolean isFullRow() {
+        return changedColumns.isEmpty();
+    }
+
+    /**
+     * 单列主键的值
+     */
+    public Object key() {
+        return primaryKey.length == 1 ? primaryKey[0] : Arrays.asList(primaryKey);
+    }
+
+    /**
+     * 是否包含指定列的变更（整行变更视为包含所有列）
+     */
+    public boolean changed(String column) {
+        return changedColumns.isEmpty() || changedColumns.contains(column);
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" + sequence + " " + type + " " + physicalTable + Arrays.toString(primaryKey)
+                + (changedColumns.isEmpty() ? "" : " " + changedColumns) + " v" + version + "}";
+    }
+}
@@ -0,0 +1,219 @@
+package com.muyi.db.cdc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.muyi.db.async.TaskType;
+import com.muyi.db.journal.SegmentedLog;
+import com.muyi.db.journal.ValueCodec;
+
+/**
+ * 本地变更日志
+ * <p>
+ * 把已提交的变更按序号顺序追加到分段日志（{@link SegmentedLog}，目录下 {@code cdc-*.log}），
+ * 其他进程（排行榜、统计服务等）通过 {@link Reader} 从上次消费的序号继续追读。
+ * 只保留最近 retainSegments 个段，追读落后过多时从最早的段继续并计入丢失数。
+ * <p>
+ * 记录格式：
+ * <pre>
+ * [long 序号][long 时间][string 逻辑表][string 物理表][byte 类型][long 版本]
+ * [short 主键个数][主键值...][short 变更列数][string 列名...]
+ * </pre>
+ */
+public class ChangeLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeLog.class);
+
+    static final String FILE_PREFIX = "cdc";
+
+    private static final TaskType[] TYPES = TaskType.values();
+
+    private final SegmentedLog log;
+    private final int retainSegments;
+    private long lastSequence;
+    private long activeSegment = -1;
+
+    /**
+     * @param dir            日志目录
+     * @param segmentSize    单段大小（字节）
+     * @param retainSegments 保留的段数
+     */
+    public ChangeLog(Path dir, int segmentSize, int retainSegments) {
+        if (retainSegments <= 0) {
+            throw new IllegalArgumentException("retainSegments must be positive, got: " + retainSegments);
+        }
+        this.log = new SegmentedLog(dir, FILE_PREFIX, segmentSize);
+        this.retainSegments = retainSegments;
+        List<Long> segments = log.getSegmentIndexes();
+        if (!segments.isEmpty()) {
+            // 序号接着上次写入的最后一条继续
+            log.readFrom(segments.get(segments.size() - 1),
+                    (index, payload) -> lastSequence = Math.max(lastSequence, payload.getLong(0)));
+        }
+    }
+
+    /**
+     * 日志中最后一条变更的序号（空日志为 0）
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * 追加一条变更（序号须大于已写入的序号）
+     */
+    public synchronized void append(ChangeEvent event) {
+        long segment = log.append(encode(event));
+        lastSequence = event.sequence();
+        if (segment != activeSegment) {
+            activeSegment = segment;
+            trim();
+        }
+    }
+
+    private void trim() {
+        List<Long> segments = log.getSegmentIndexes();
+        for (int i = 0; i < segments.size() - retainSegments; i++) {
+            if (!log.deleteSegment(segments.get(i))) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        log.close();
+    }
+
+    // ==================== 编解码 ====================
+
+    static byte[] encode(ChangeEvent event) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(buffer);
+        try {
+            out.writeLong(event.sequence());
+            out.writeLong(event.timestamp());
+            ValueCodec.writeString(out, event.table());
+            ValueCodec.writeString(out, event.physicalTable());
+            out.writeByte(event.type().ordinal());
+            out.writeLong(event.version());
+            out.writeShort(event.primaryKey().length);
+            for (Object pk : event.primaryKey()) {
+                ValueCodec.write(out, pk);
+            }
+            out.writeShort(event.changedColumns().size());
+            for (String column : event.changedColumns()) {
+                ValueCodec.writeString(out, column);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    static ChangeEvent decode(ByteBuffer in) {
+        long sequence = in.getLong();
+        long timestamp = in.getLong();
+        String table = ValueCodec.readString(in);
+        String physicalTable = ValueCodec.readString(in);
+        TaskType type = TYPES[in.get()];
+        long version = in.getLong();
+        Object[] primaryKey = new Object[in.getShort()];
+        for (int i = 0; i < primaryKey.length; i++) {
+            primaryKey[i] = ValueCodec.read(in);
+        }
+        int columnCount = in.getShort();
+        List<String> columns = columnCount == 0 ? Collections.emptyList() : new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            columns.add(ValueCodec.readString(in));
+        }
+        return new ChangeEvent(sequence, timestamp, table, physicalTable, type, primaryKey,
+                Collections.unmodifiableList(columns), version);
+    }
+
+    /**
+     * 变更日志追读器（可在其他进程中使用，不持有写入方的任何状态）
+     * <p>
+     * 示例（定时追读，消费位置由调用方持久化）：
+     * <pre>{@code
+     * ChangeLog.Reader reader = new ChangeLog.Reader(Paths.get("data/cdc"), savedSequence);
+     * scheduler.scheduleWithFixedDelay(() -> {
+     *     reader.poll(event -> rankService.apply(event));
+     *     saveSequence(reader.getLastSequence());
+     * }, 0, 200, TimeUnit.MILLISECONDS);
+     * }</pre>
+     */
+    public static final class Reader {
+
+        private final Path dir;
+        private long lastSequence;
+        private long segment;
+        private long lost;
+
+        /**
+         * @param afterSequence 从该序号之后开始读取（0 表示从最早保留的变更开始）
+         */
+        public Reader(Path dir, long afterSequence) {
+            this.dir = dir;
+            this.lastSequence = afterSequence;
+        }
+
+        /**
+         * 读取新写入的变更
+         *
+         * @return 本次读取的变更数
+         */
+        public int poll(Consumer<ChangeEvent> consumer) {
+            SegmentedLog view = new SegmentedLog(dir, FILE_PREFIX, 4096);
+            int[] count = {0};
+            try {
+                view.readFrom(segment, (index, payload) -> {
+                    if (payload.getLong(0) <= lastSequence) {
+                        return;
+                    }
+                    ChangeEvent event = decode(payload);
+                    if (lastSequence > 0 && event.sequence() > lastSequence + 1) {
+                        // 落后的段已被删除（或写入方重新开始序号）
+                        lost += event.sequence() - lastSequence - 1;
+                    }
+                    consumer.accept(event);
+                    lastSequence = event.sequence();
+                    segment = index;
+                    count[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                // 读取期间段被写入方删除，下一轮从剩余的段继续
+                logger.debug("Change log segment removed while reading: {}", e.getMessage());
+            } finally {
+                view.close();
+            }
+            return count[0];
+        }
+
+        /**
+         * 最后消费的变更序号
+         */
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        /**
+         * 因段被删除而跳过的变更数
+         */
+        public long getLost() {
+            return lost;
+        }
+    }
+}
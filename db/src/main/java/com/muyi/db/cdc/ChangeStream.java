@@ -0,0 +1,367 @@
+package com.muyi.db.cdc;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.muyi.common.util.time.TimeUtils;
+import com.muyi.db.async.TaskType;
+
+/**
+ * 变更流
+ * <p>
+ * 落地线程在事务提交后发布变更，进程内订阅者（排行榜、联盟统计、缓存等）据此增量更新派生视图，无需轮询数据库。
+ * <ul>
+ *   <li>无锁广播环形缓冲区：发布方 CAS 领取序号后写入槽位，各订阅者持有独立的读取位置，互不影响</li>
+ *   <li>发布不等待订阅者：消费过慢的订阅者被覆盖的变更计为丢失（{@link ChangeSubscriber#onGap}），
+ *       不会反压落地线程</li>
+ *   <li>可选本地变更日志（{@link ChangeLog}）：供其他进程追读，序号跨重启连续；由专属写线程像订阅者一样
+ *       按序号顺序读取缓冲区后追加，发布方只写缓冲区，不加锁也不写磁盘。写线程落后超过缓冲区容量时，
+ *       被覆盖的变更不进入日志（计入 logFailures，追读方表现为序号缺口）</li>
+ * </ul>
+ */
+public final class ChangeStream implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeStream.class);
+
+    /**
+     * 订阅线程无变更时的最长等待（发布时会主动唤醒）
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final int POLL_BATCH = 256;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<ChangeEvent> ring;
+
+    /**
+     * 下一个待领取的序号
+     */
+    private final AtomicLong nextSequence;
+
+    /**
+     * 本地变更日志（未启用时为 null）
+     */
+    private final ChangeLog changeLog;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong logFailures = new AtomicLong();
+
+    /**
+     * @param capacity  环形缓冲区容量（2 的幂）
+     * @param changeLog 本地变更日志，null 表示只在进程内发布
+     */
+    public ChangeStream(int capacity, ChangeLog changeLog) {
+        if (capacity < 16 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two >= 16, got: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.changeLog = changeLog;
+        this.nextSequence = new AtomicLong(changeLog != null ? changeLog.getLastSequence() + 1 : 1);
+        if (changeLog != null) {
+            // 写线程作为第一个订阅，关闭时最先停止并写完已发布的变更
+            subscribe("changelog", null, new LogWriter());
+        }
+    }
+
+    /**
+     * 发布一条已提交的变更（落地线程调用）
+     */
+    public ChangeEvent publish(String table, String physicalTable, TaskType type, Object[] primaryKey,
+                               List<String> changedColumns, long version) {
+        ChangeEvent event = new ChangeEvent(nextSequence.getAndIncrement(), TimeUtils.currentTimeMillis(),
+                table, physicalTable, type, primaryKey, changedColumns, version);
+        store(event);
+        for (Subscription subscription : subscriptions) {
+            subscription.wakeup();
+        }
+        return event;
+    }
+
+    /**
+     * 写入槽位；槽位已被更新的序号占用时放弃（该序号对读取方表现为丢失）
+     */
+    private void store(ChangeEvent event) {
+        int index = (int) (event.sequence() & mask);
+        while (true) {
+            ChangeEvent current = ring.get(index);
+            if (current != null && current.sequence() > event.sequence()) {
+                return;
+            }
+            if (ring.compareAndSet(index, current, event)) {
+                return;
+            }
+        }
+    }
+
+    // ==================== 读取 ====================
+
+    /**
+     * 从下一条发布的变更开始读取
+     */
+    public Cursor cursor() {
+        return new Cursor(nextSequence.get());
+    }
+
+    /**
+     * 订阅变更（每个订阅一个虚拟线程，按序号顺序回调）
+     *
+     * @param name   订阅名（线程名与统计）
+     * @param tables 关注的逻辑表名，null 表示全部
+     */
+    public Subscription subscribe(String name, Set<String> tables, ChangeSubscriber subscriber) {
+        Subscription subscription = new Subscription(name, tables, subscriber, cursor());
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * 最后领取的序号
+     */
+    public long getLastSequence() {
+        return nextSequence.get() - 1;
+    }
+
+    public ChangeLog getChangeLog() {
+        return changeLog;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("capacity", capacity);
+        snapshot.put("lastSequence", getLastSequence());
+        snapshot.put("changeLog", changeLog != null);
+        snapshot.put("loggedSequence", getLoggedSequence());
+        snapshot.put("logFailures", logFailures.get());
+        Map<String, Object> subs = new LinkedHashMap<>();
+        for (Subscription subscription : subscriptions) {
+            Map<String, Object> sub = new LinkedHashMap<>();
+            sub.put("position", subscription.cursor.next - 1);
+            sub.put("lag", Math.max(0, getLastSequence() - subscription.cursor.next + 1));
+            sub.put("delivered", subscription.delivered.get());
+            sub.put("lost", subscription.cursor.lost);
+            sub.put("errors", subscription.errors.get());
+            subs.put(subscription.name, sub);
+        }
+        snapshot.put("subscriptions", subs);
+        return snapshot;
+    }
+
+    /**
+     * 变更日志中已写入的最后序号（未启用日志时为 0）
+     */
+    public long getLoggedSequence() {
+        return changeLog != null ? changeLog.getLastSequence() : 0;
+    }
+
+    /**
+     * 停止所有订阅和变更日志写线程（先投递、写完已发布的变更）并关闭变更日志
+     */
+    @Override
+    public void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        subscriptions.clear();
+        if (changeLog != null) {
+            changeLog.close();
+        }
+    }
+
+    /**
+     * 变更日志写入：在写线程中按序号顺序追加，写入失败和被覆盖未写入的变更计入 logFailures
+     */
+    private final class LogWriter implements ChangeSubscriber {
+
+        @Override
+        public void onChange(ChangeEvent event) {
+            try {
+                changeLog.append(event);
+            } catch (Exception e) {
+                logFailures.incrementAndGet();
+                logger.error("Failed to append change log: {}", event, e);
+            }
+        }
+
+        @Override
+        public void onGap(long lost) {
+            logFailures.addAndGet(lost);
+            logger.error("Change log writer lagged behind, {} changes not logged", lost);
+        }
+    }
+
+    /**
+     * 读取位置（单线程使用）
+     */
+    public final class Cursor {
+
+        private volatile long next;
+        private volatile long lost;
+
+        private Cursor(long next) {
+            this.next = next;
+        }
+
+        /**
+         * 读取已发布的变更
+         * <p>
+         * 遇到尚未写入的序号时停止（保证顺序）；遇到已被覆盖的序号时跳到仍在缓冲区中的最早序号并累加丢失数。
+         *
+         * @return 本次读取的变更数
+         */
+        public int poll(Consumer<ChangeEvent> consumer, int max) {
+            int count = 0;
+            long position = next;
+            while (count < max) {
+                ChangeEvent event = ring.get((int) (position & mask));
+                if (event == null || event.sequence() < position) {
+                    break;
+                }
+                if (event.sequence() > position) {
+                    long oldest = Math.max(position + 1, nextSequence.get() - capacity);
+                    lost += oldest - position;
+                    position = oldest;
+                    continue;
+                }
+                position++;
+                next = position;
+                count++;
+                consumer.accept(event);
+            }
+            next = position;
+            return count;
+        }
+
+        /**
+         * 累计丢失的变更数
+         */
+        public long getLost() {
+            return lost;
+        }
+
+        /**
+         * 下一个待读取的序号
+         */
+        public long getNextSequence() {
+            return next;
+        }
+    }
+
+    /**
+     * 订阅
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final String name;
+        private final Set<String> tables;
+        private final ChangeSubscriber subscriber;
+        private final Cursor cursor;
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private volatile boolean running = true;
+        private volatile boolean parked;
+        private Thread thread;
+
+        private Subscription(String name, Set<String> tables, ChangeSubscriber subscriber, Cursor cursor) {
+            this.name = name;
+            this.tables = tables;
+            this.subscriber = subscriber;
+            this.cursor = cursor;
+        }
+
+        private void start() {
+            thread = Thread.ofVirtual().name("db-cdc-" + name).start(this::run);
+        }
+
+        private void run() {
+            long reportedLost = 0;
+            while (true) {
+                boolean stopping = !running;
+                int count = cursor.poll(this::deliver, POLL_BATCH);
+                long lost = cursor.getLost();
+                if (lost > reportedLost) {
+                    logger.warn("Change subscription {} lagged behind, {} changes lost", name, lost - reportedLost);
+                    try {
+                        subscriber.onGap(lost - reportedLost);
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        logger.error("Change subscriber {} onGap failed", name, e);
+                    }
+                    reportedLost = lost;
+                }
+                if (count > 0) {
+                    continue;
+                }
+                if (stopping) {
+                    return;
+                }
+                parked = true;
+                if (cursor.getNextSequence() == nextSequence.get() && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                parked = false;
+            }
+        }
+
+        private void deliver(ChangeEvent event) {
+            if (tables != null && !tables.contains(event.table())) {
+                return;
+            }
+            try {
+                subscriber.onChange(event);
+                delivered.incrementAndGet();
+            } catch (Exception e) {
+                errors.incrementAndGet();
+                logger.error("Change subscriber {} failed on {}", name, event, e);
+            }
+        }
+
+        private void wakeup() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getDelivered() {
+            return delivered.get();
+        }
+
+        public long getLost() {
+            return cursor.getLost();
+        }
+
+        /**
+         * 停止订阅（投递完已发布的变更后退出）
+         */
+        @Override
+        public void close() {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.muyi.db.cdc;
+
+/**
+ * 变更订阅者
+ * <p>
+ * 回调在订阅专属的虚拟线程中按序号顺序执行；抛出的异常会被记录并忽略。
+ */
+public interface ChangeSubscriber {
+
+    /**
+     * 收到一条已提交的变更
+     */
+    void onChange(ChangeEvent event);
+
+    /**
+     * 订阅者消费过慢，环形缓冲区中的变更已被覆盖
+     * <p>
+     * 丢失的变更无法补回，派生视图应全量重建一次（或从变更日志追读）。
+     *
+     * @param lost 丢失的变更数
+     */
+    default void onGap(long lost) {
+    }
+}
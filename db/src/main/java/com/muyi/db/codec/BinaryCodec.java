@@ -0,0 +1,367 @@
+package com.muyi.db.codec;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 内置紧凑二进制编解码器（varint，类似 protobuf 的编码方式）
+ * <p>
+ * 用于部队列表、Buff 列表、道具堆叠等集合字段，比 JSON 字符串体积小、编解码快：
+ * <ul>
+ *   <li>整数（int / long / short）按 zigzag + varint 编码，小数值只占 1~2 字节</li>
+ *   <li>元素全为 Integer / Long 的 List 打包存储（只写一次类型标记），{@code int[] / long[]} 同样打包</li>
+ *   <li>字符串、字节数组为 varint 长度 + 内容；List / Set / Map 可任意嵌套</li>
+ * </ul>
+ * 解码类型：List -> {@link ArrayList}，Set -> {@link LinkedHashSet}，Map -> {@link LinkedHashMap}，
+ * 字段应声明为接口类型（{@code List / Set / Map}）。不支持的元素类型（自定义对象、枚举等）编码时抛出
+ * {@link IllegalArgumentException}，这类字段请实现自己的 {@link ColumnCodec}。
+ * <p>
+ * 首字节为格式版本号，便于以后兼容升级。
+ */
+public class BinaryCodec implements ColumnCodec<Object> {
+
+    /**
+     * 格式版本
+     */
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte SHORT = 5;
+    private static final byte BYTE = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte STRING = 9;
+    private static final byte BYTES = 10;
+    private static final byte DECIMAL = 11;
+    private static final byte LIST = 12;
+    private static final byte SET = 13;
+    private static final byte MAP = 14;
+    private static final byte INT_LIST = 15;
+    private static final byte LONG_LIST = 16;
+    private static final byte INT_ARRAY = 17;
+    private static final byte LONG_ARRAY = 18;
+
+    @Override
+    public byte[] encode(Object value) {
+        Output out = new Output();
+        out.writeByte(VERSION);
+        writeValue(out, value);
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] data) {
+        if (data.length == 0 || data[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary codec version: "
+                    + (data.length == 0 ? "empty" : data[0]));
+        }
+        Input in = new Input(data);
+        in.pos = 1;
+        Object value = readValue(in);
+        if (in.pos != data.length) {
+            throw new IllegalArgumentException("Trailing bytes after value: " + (data.length - in.pos));
+        }
+        return value;
+    }
+
+    // ==================== 编码 ====================
+
+    private static void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer v) {
+            out.writeByte(INT);
+            out.writeVarLong(zigzag(v));
+        } else if (value instanceof Long v) {
+            out.writeByte(LONG);
+            out.writeVarLong(zigzag(v));
+        } else if (value instanceof String v) {
+            out.writeByte(STRING);
+            out.writeBytes(v.getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Boolean v) {
+            out.writeByte(v ? TRUE : FALSE);
+        } else if (value instanceof Short v) {
+            out.writeByte(SHORT);
+            out.writeVarLong(zigzag(v));
+        } else if (value instanceof Byte v) {
+            out.writeByte(BYTE);
+            out.writeByte(v);
+        } else if (value instanceof Float v) {
+            out.writeByte(FLOAT);
+            out.writeFixed(Float.floatToIntBits(v), 4);
+        } else if (value instanceof Double v) {
+            out.writeByte(DOUBLE);
+            out.writeFixed(Double.doubleToLongBits(v), 8);
+        } else if (value instanceof BigDecimal v) {
+            out.writeByte(DECIMAL);
+            out.writeBytes(v.toString().getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof byte[] v) {
+            out.writeByte(BYTES);
+            out.writeBytes(v);
+        } else if (value instanceof int[] v) {
+            out.writeByte(INT_ARRAY);
+            out.writeVarLong(v.length);
+            for (int element : v) {
+                out.writeVarLong(zigzag(element));
+            }
+        } else if (value instanceof long[] v) {
+            out.writeByte(LONG_ARRAY);
+            out.writeVarLong(v.length);
+            for (long element : v) {
+                out.writeVarLong(zigzag(element));
+            }
+        } else if (value instanceof List<?> v) {
+            writeList(out, v);
+        } else if (value instanceof Set<?> v) {
+            writeCollection(out, SET, v);
+        } else if (value instanceof Map<?, ?> v) {
+            out.writeByte(MAP);
+            out.writeVarLong(v.size());
+            for (Map.Entry<?, ?> entry : v.entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value type for BinaryCodec: "
+                    + value.getClass().getName() + ", implement a custom ColumnCodec");
+        }
+    }
+
+    /**
+     * List：元素全为 Integer（或全为 Long）时打包存储
+     */
+    private static void writeList(Output out, List<?> list) {
+        byte packed = list.isEmpty() ? LIST : packedTag(list);
+        if (packed == LIST) {
+            writeCollection(out, LIST, list);
+            return;
+        }
+        out.writeByte(packed);
+        out.writeVarLong(list.size());
+        for (Object element : list) {
+            out.writeVarLong(zigzag(((Number) element).longValue()));
+        }
+    }
+
+    private static byte packedTag(List<?> list) {
+        Class<?> type = list.get(0) == null ? null : list.get(0).getClass();
+        if (type != Integer.class && type != Long.class) {
+            return LIST;
+        }
+        for (Object element : list) {
+            if (element == null || element.getClass() != type) {
+                return LIST;
+            }
+        }
+        return type == Integer.class ? INT_LIST : LONG_LIST;
+    }
+
+    private static void writeCollection(Output out, byte tag, Collection<?> collection) {
+        out.writeByte(tag);
+        out.writeVarLong(collection.size());
+        for (Object element : collection) {
+            writeValue(out, element);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // ==================== 解码 ====================
+
+    private static Object readValue(Input in) {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case NULL -> null;
+            case FALSE -> Boolean.FALSE;
+            case TRUE -> Boolean.TRUE;
+            case INT -> (int) unzigzag(in.readVarLong());
+            case LONG -> unzigzag(in.readVarLong());
+            case SHORT -> (short) unzigzag(in.readVarLong());
+            case BYTE -> in.readByte();
+            case FLOAT -> Float.intBitsToFloat((int) in.readFixed(4));
+            case DOUBLE -> Double.longBitsToDouble(in.readFixed(8));
+            case STRING -> new String(in.readBytes(), StandardCharsets.UTF_8);
+            case BYTES -> in.readBytes();
+            case DECIMAL -> new BigDecimal(new String(in.readBytes(), StandardCharsets.UTF_8));
+            case LIST -> {
+                int size = in.readSize();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                yield list;
+            }
+            case SET -> {
+                int size = in.readSize();
+                Set<Object> set = new LinkedHashSet<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    set.add(readValue(in));
+                }
+                yield set;
+            }
+            case MAP -> {
+                int size = in.readSize();
+                Map<Object, Object> map = new LinkedHashMap<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                yield map;
+            }
+            case INT_LIST -> {
+                int size = in.readSize();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add((int) unzigzag(in.readVarLong()));
+                }
+                yield list;
+            }
+            case LONG_LIST -> {
+                int size = in.readSize();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(unzigzag(in.readVarLong()));
+                }
+                yield list;
+            }
+            case INT_ARRAY -> {
+                int[] array = new int[in.readSize()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = (int) unzigzag(in.readVarLong());
+                }
+                yield array;
+            }
+            case LONG_ARRAY -> {
+                long[] array = new long[in.readSize()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = unzigzag(in.readVarLong());
+                }
+                yield array;
+            }
+            default -> throw new IllegalArgumentException("Unknown value tag: " + tag);
+        };
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int capacity(int size) {
+        return (int) Math.min(1 << 30, size * 4L / 3 + 1);
+    }
+
+    // ==================== 读写缓冲 ====================
+
+    private static final class Output {
+        private byte[] buf = new byte[64];
+        private int pos;
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        /**
+         * 小端定长
+         */
+        void writeFixed(long value, int bytes) {
+            ensure(bytes);
+            for (int i = 0; i < bytes; i++) {
+                buf[pos++] = (byte) (value >>> (i * 8));
+            }
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        private void ensure(int bytes) {
+            if (pos + bytes > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + bytes));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private int pos;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() {
+            if (pos >= data.length) {
+                throw new IllegalArgumentException("Truncated binary codec data at " + pos);
+            }
+            return data[pos++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at " + pos);
+        }
+
+        long readFixed(int bytes) {
+            long value = 0;
+            for (int i = 0; i < bytes; i++) {
+                value |= (long) (readByte() & 0xFF) << (i * 8);
+            }
+            return value;
+        }
+
+        /**
+         * 长度 / 元素个数（不超过剩余字节数，防止损坏数据导致超大分配）
+         */
+        int readSize() {
+            long size = readVarLong();
+            if (size < 0 || size > data.length - pos) {
+                throw new IllegalArgumentException("Invalid length " + size + " at " + pos);
+            }
+            return (int) size;
+        }
+
+        byte[] readBytes() {
+            int length = readSize();
+            byte[] bytes = Arrays.copyOfRange(data, pos, pos + length);
+            pos += length;
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.muyi.db.codec;
+
+/**
+ * 列编解码器
+ * <p>
+ * 通过 {@code @Column(codec = Xxx.class)} 声明在实体字段上，字段值以 {@code byte[]} 存入 BLOB 列：
+ * <ul>
+ *   <li>写入（INSERT / UPDATE / 异步落地 / 本地日志）时调用 {@link #encode}</li>
+ *   <li>查询、Map 回填、日志回放时调用 {@link #decode}</li>
+ *   <li>自动建表时列类型默认 MEDIUMBLOB（可用 {@code columnType} 覆盖）</li>
+ * </ul>
+ * 实现类需要有无参构造器，每个实现类只创建一个实例并被所有实体共享，必须线程安全。
+ * null 值不会传给编解码器（直接存为 NULL）。
+ * <p>
+ * 内置 {@link BinaryCodec}（紧凑二进制，适用于 List / Map / Set 等集合字段），也可以自行实现，例如：
+ * <pre>{@code
+ * public class TroopCodec implements ColumnCodec<List<Troop>> { ... }
+ *
+ * @Column(codec = TroopCodec.class)
+ * private List<Troop> troops;
+ * }</pre>
+ *
+ * @param <T> 字段类型
+ */
+public interface ColumnCodec<T> {
+
+    /**
+     * 编码字段值
+     */
+    byte[] encode(T value);
+
+    /**
+     * 解码列值
+     */
+    T decode(byte[] data);
+}
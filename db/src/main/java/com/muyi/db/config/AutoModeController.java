@@ -0,0 +1,342 @@
+package com.muyi.db.config;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.muyi.db.DbManager;
+import com.muyi.db.async.AsyncLandManager;
+import com.muyi.db.async.LandMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * 落地参数闭环控制器
+ * <p>
+ * 手动模式切换（{@link SLGDbConfigManager}）总有一个时段配错：安静时段与攻城时段负载相差 20 倍以上。
+ * 控制器按固定周期采样全局指标，在上下界内连续调整所有工作线程的批量大小与落地间隔：
+ * <ul>
+ *   <li>积压任务数（所有工作线程队列之和）</li>
+ *   <li>积压增长速率（任务/秒）</li>
+ *   <li>提交到落地完成的平均延迟（本周期内落地的任务）</li>
+ *   <li>等待连接池的线程数（HikariCP，其他数据源视为 0）</li>
+ * </ul>
+ * 调整规则：
+ * <ul>
+ *   <li>连续 upTicks 个周期处于高压（积压超过上阈值、延迟超过上阈值、或积压在增长且超过下阈值）：
+ *       批量翻倍、间隔减半；连接池有等待时只增大批量，不缩短间隔（缩短间隔只会加剧连接争用）</li>
+ *   <li>连续 downTicks 个周期处于低压（积压、延迟均低于下阈值，且积压不增长、连接池无等待）：
+ *       批量与间隔各回退 1/4</li>
+ *   <li>介于两者之间保持不变（死区），扩容快、缩容慢，避免在阈值附近来回抖动</li>
+ * </ul>
+ * 控制器接管期间关闭工作线程各自的自适应调整，避免两套逻辑互相抵消。
+ * 工作线程数不调整：任务按主键固定路由到工作线程，增减线程会打乱同一实体的落地顺序。
+ *
+ * <h3>使用示例：</h3>
+ * <pre>{@code
+ * configManager.startAutoMode(new AutoModeController(dbManager)
+ *     .setBatchBounds(100, 1000)
+ *     .setIntervalBounds(10, 200)
+ *     .setBacklogThresholds(200, 2000));
+ * }</pre>
+ */
+public class AutoModeController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoModeController.class);
+
+    /** 停止时等待采样线程退出的上限（毫秒） */
+    private static final long STOP_TIMEOUT_MS = 1000;
+
+    private final DbManager dbManager;
+
+    // ==================== 参数 ====================
+
+    /** 采样周期（毫秒） */
+    private long periodMs = 1000;
+
+    private int minBatchSize = 100;
+    private int maxBatchSize = 1000;
+    private long minIntervalMs = 10;
+    private long maxIntervalMs = 200;
+
+    /** 积压下阈值 / 上阈值（任务数） */
+    private int backlogLow = 200;
+    private int backlogHigh = 2000;
+
+    /** 平均落地延迟下阈值 / 上阈值（毫秒） */
+    private long latencyLowMs = 200;
+    private long latencyHighMs = 1000;
+
+    /** 扩容、缩容所需的连续周期数 */
+    private int upTicks = 2;
+    private int downTicks = 10;
+
+    // ==================== 状态（仅采样线程访问，volatile 供查询） ====================
+
+    private volatile int batchSize = 400;
+    private volatile long intervalMs = 25;
+    private volatile String lastSignal = "";
+
+    private int pressureStreak;
+    private int relaxStreak;
+    private int lastPending = -1;
+    private long lastLatencySum;
+    private long lastLatencyCount;
+    private long lastSampleTime;
+
+    private ScheduledExecutorService scheduler;
+
+    public AutoModeController(DbManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    // ==================== 配置（链式） ====================
+
+    public AutoModeController setPeriodMs(long periodMs) {
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException("periodMs must be positive");
+        }
+        this.periodMs = periodMs;
+        return this;
+    }
+
+    public AutoModeController setBatchBounds(int min, int max) {
+        if (min <= 0 || max < min) {
+            throw new IllegalArgumentException("Invalid batch bounds: [" + min + ", " + max + "]");
+        }
+        this.minBatchSize = min;
+        this.maxBatchSize = max;
+        return this;
+    }
+
+    public AutoModeController setIntervalBounds(long minMs, long maxMs) {
+        if (minMs <= 0 || maxMs < minMs) {
+            throw new IllegalArgumentException("Invalid interval bounds: [" + minMs + ", " + maxMs + "]");
+        }
+        this.minIntervalMs = minMs;
+        this.maxIntervalMs = maxMs;
+        return this;
+    }
+
+    public AutoModeController setBacklogThresholds(int low, int high) {
+        if (low < 0 || high <= low) {
+            throw new IllegalArgumentException("Invalid backlog thresholds: [" + low + ", " + high + "]");
+        }
+        this.backlogLow = low;
+        this.backlogHigh = high;
+        return this;
+    }
+
+    public AutoModeController setLatencyThresholds(long lowMs, long highMs) {
+        if (lowMs < 0 || highMs <= lowMs) {
+            throw new IllegalArgumentException("Invalid latency thresholds: [" + lowMs + ", " + highMs + "]");
+        }
+        this.latencyLowMs = lowMs;
+        this.latencyHighMs = highMs;
+        return this;
+    }
+
+    /**
+     * 设置滞回周期数（连续多少个周期满足条件才扩容 / 缩容）
+     */
+    public AutoModeController setHysteresis(int upTicks, int downTicks) {
+        if (upTicks <= 0 || downTicks <= 0) {
+            throw new IllegalArgumentException("Hysteresis ticks must be positive");
+        }
+        this.upTicks = upTicks;
+        this.downTicks = downTicks;
+        return this;
+    }
+
+    // ==================== 启停 ====================
+
+    /**
+     * 以给定参数为起点开始闭环控制
+     */
+    synchronized void start(int initialBatchSize, long initialIntervalMs) {
+        if (scheduler != null) {
+            return;
+        }
+        batchSize = clamp(initialBatchSize, minBatchSize, maxBatchSize);
+        intervalMs = clamp(initialIntervalMs, minIntervalMs, maxIntervalMs);
+        pressureStreak = 0;
+        relaxStreak = 0;
+        lastPending = -1;
+        dbManager.setAdaptiveEnabled(false);
+        apply();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-auto-mode");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        logger.info("Auto mode started: batch=[{}, {}], interval=[{}, {}]ms, period={}ms",
+                minBatchSize, maxBatchSize, minIntervalMs, maxIntervalMs, periodMs);
+    }
+
+    /**
+     * 停止闭环控制
+     * <p>
+     * 返回后采样线程不会再修改落地参数（调用方随即恢复手动模式的配置）：
+     * 正在执行的采样在同一把锁下检查已停止后放弃应用，另外最多等待采样线程退出 {@link #STOP_TIMEOUT_MS} 毫秒。
+     */
+    void stop() {
+        ScheduledExecutorService stopped;
+        synchronized (this) {
+            if (scheduler == null) {
+                return;
+            }
+            stopped = scheduler;
+            scheduler = null;
+        }
+        stopped.shutdownNow();
+        try {
+            if (!stopped.awaitTermination(STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                logger.warn("Auto mode sampler did not exit within {}ms", STOP_TIMEOUT_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Auto mode stopped at batch={}, interval={}ms", batchSize, intervalMs);
+    }
+
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+
+    // ==================== 控制逻辑 ====================
+
+    private void tick() {
+        try {
+            AsyncLandManager landManager = dbManager.getAsyncLandManager();
+            LandMetrics.Histogram latency = landManager.getMetrics().getLandLatencyMs();
+            long sum = latency.getSum();
+            long count = latency.getCount();
+            long windowLatency = count > lastLatencyCount ? (sum - lastLatencySum) / (count - lastLatencyCount) : 0;
+            lastLatencySum = sum;
+            lastLatencyCount = count;
+
+            long now = System.nanoTime();
+            long elapsedMs = lastSampleTime == 0 ? periodMs : Math.max(1, (now - lastSampleTime) / 1_000_000);
+            lastSampleTime = now;
+
+            if (step(landManager.getPendingTasks(), windowLatency, awaitingConnections(), elapsedMs)) {
+                applyIfRunning();
+            }
+        } catch (Exception e) {
+            logger.error("Auto mode tick failed", e);
+        }
+    }
+
+    /**
+     * 根据一次采样计算新参数
+     *
+     * @param pending     积压任务数
+     * @param latencyMs   本周期内落地任务的平均延迟（毫秒，无落地时为 0）
+     * @param awaiting    等待连接池的线程数
+     * @param elapsedMs   距上次采样的时间（毫秒）
+     * @return 参数是否变化
+     */
+    boolean step(int pending, long latencyMs, int awaiting, long elapsedMs) {
+        long growthPerSec = lastPending < 0 ? 0 : (pending - lastPending) * 1000L / Math.max(1, elapsedMs);
+        lastPending = pending;
+
+        boolean pressure = pending > backlogHigh
+                || latencyMs > latencyHighMs
+                || (growthPerSec > 0 && pending > backlogLow);
+        boolean relaxed = pending < backlogLow
+                && latencyMs < latencyLowMs
+                && growthPerSec <= 0
+                && awaiting == 0;
+        lastSignal = "pending=" + pending + ", growth=" + growthPerSec + "/s, latency=" + latencyMs
+                + "ms, awaiting=" + awaiting;
+
+        if (pressure) {
+            relaxStreak = 0;
+            if (++pressureStreak < upTicks) {
+                return false;
+            }
+            pressureStreak = 0;
+            return update(batchSize * 2, awaiting > 0 ? intervalMs : intervalMs / 2);
+        }
+        pressureStreak = 0;
+        if (relaxed) {
+            if (++relaxStreak < downTicks) {
+                return false;
+            }
+            relaxStreak = 0;
+            return update(batchSize - Math.max(1, batchSize / 4), intervalMs + Math.max(1, intervalMs / 4));
+        }
+        relaxStreak = 0;
+        return false;
+    }
+
+    private boolean update(int newBatchSize, long newIntervalMs) {
+        int batch = clamp(newBatchSize, minBatchSize, maxBatchSize);
+        long interval = clamp(newIntervalMs, minIntervalMs, maxIntervalMs);
+        if (batch == batchSize && interval == intervalMs) {
+            return false;
+        }
+        logger.info("Auto mode: batch {} -> {}, interval {} -> {}ms ({})",
+                batchSize, batch, intervalMs, interval, lastSignal);
+        batchSize = batch;
+        intervalMs = interval;
+        return true;
+    }
+
+    private void apply() {
+        dbManager.setLandBatchSize(batchSize);
+        dbManager.setLandIntervalMs(intervalMs);
+    }
+
+    /**
+     * 与 {@link #stop()} 同锁：已停止时不再覆盖调用方恢复的配置
+     */
+    private synchronized void applyIfRunning() {
+        if (scheduler != null) {
+            apply();
+        }
+    }
+
+    private int awaitingConnections() {
+        DataSource dataSource = dbManager.getDataSource();
+        if (dataSource instanceof HikariDataSource hikari) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool != null) {
+                return pool.getThreadsAwaitingConnection();
+            }
+        }
+        return 0;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    // ==================== 状态查询 ====================
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    /**
+     * 最近一次采样的信号摘要（用于监控/日志）
+     */
+    public String getLastSignal() {
+        return lastSignal;
+    }
+}
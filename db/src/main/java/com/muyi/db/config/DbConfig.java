@@ -1,9 +1,16 @@
 package com.muyi.db.config;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 import javax.sql.DataSource;
 
+import com.muyi.db.annotation.LandOptions;
+import com.muyi.db.async.AsyncLandConfig;
+import com.muyi.db.log.LogSinkConfig;
+import com.muyi.db.sql.AsyncQueryExecutor;
+import com.muyi.db.sql.ReplicaRouter;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
@@ -31,6 +38,68 @@ public class DbConfig {
     private long landIntervalMs = 25;      // 原 50ms，优化后 25ms
     private int landBatchSize = 400;       // 原 200，优化后 400
     private int landMaxRetries = 3;
+    private long landRetryBackoffMs = 100;                // 重试退避基准，第 n 次约 base * 2^(n-1)，0 立即重试
+    private long landRetryBackoffMaxMs = 10_000;
+    private int landCircuitFailureThreshold = 0;          // 同一张表连续失败批次数达到后熔断，默认 0 不启用
+    private long landCircuitOpenMs = 5_000;
+    private String landDeadLetterDir;                     // 重试耗尽任务的死信目录，null 不启用
+    private String landJournalDir;                        // 落地日志目录，null 不启用
+    private int landJournalSegmentSize = 64 * 1024 * 1024;
+    private LandOptions.Statement landStatementMode = LandOptions.Statement.BATCH;
+    private int landMaxPacketBytes = 0;                   // 0 表示读取服务端 max_allowed_packet
+    private LandOptions.Routing landRoutingMode = LandOptions.Routing.TABLE;
+    private int landQueueCapacity = 64 * 1024;            // 每个落地线程的环形队列容量
+    private AsyncLandConfig.Overflow landOverflow = AsyncLandConfig.Overflow.COALESCE;
+    private String landSpillDir;                          // SPILL 策略的溢出目录
+    private boolean landGroupCommit = false;              // 每个落地线程固定连接，一轮落地一次提交
+    private int landStatementCacheSize = 64;              // 组提交模式下每个落地线程的语句缓存容量
+    private long landCriticalMaxDelayMs = 0;              // CRITICAL 任务攒批窗口，0 提交即落地
+    private long landBulkMaxDelayMs = 2_000;              // BULK 任务最长保留时间
+    private int landChangeStreamCapacity = 0;             // 变更流环形缓冲区容量，0 不发布变更
+    private String landChangeLogDir;                      // 本地变更日志目录，null 只在进程内发布
+    private int landChangeLogRetainSegments = 8;
+
+    // 实体 L1 缓存（仅对标注 @EntityCache 的实体生效，0 表示全部禁用）
+    private long entityCacheMaxBytes = 32L * 1024 * 1024;
+
+    // 自定义查询结果缓存（selectBySqlCached / selectMapBySqlCached，0 表示禁用）
+    private long queryCacheMaxBytes = 0;
+    private long queryCacheTtlMs = 60_000;
+
+    // 流式查询（GM 扫描、数据迁移）
+    private int queryFetchSize = 1000;
+    private boolean useCursorFetch = true;   // false 时使用 MySQL 逐行流式（fetchSize = Integer.MIN_VALUE）
+
+    // 多语句查询（selectByConditions 一次往返执行多条 SELECT）
+    private boolean allowMultiQueries = false;
+
+    // 登录加载合并（并发的单列等值查询合并为 IN 查询，0 表示不启用）
+    private int loadCoalesceMaxBatch = 0;
+    private long loadCoalesceWindowMs = 0;   // 每轮合并前的等待窗口，0 表示只合并查询执行期间到达的请求
+
+    // 异步查询（selectXxxAsync / queryAsync）
+    private int asyncQueryMaxConcurrency = 0;        // 全局同时执行的查询数，0 表示 maximumPoolSize - landThreads（至少 1）
+    private long asyncQueryMaxWaitMs = 5_000;        // 排队等待执行的最长时间
+    private int asyncQueryDefaultMaxConcurrent = 0;  // 未单独配置的类别的并发数，0 表示不单独限制（受全局上限约束）
+    private int asyncQueryDefaultMaxQueued = 1_000;
+    private final Map<String, AsyncQueryExecutor.Limit> asyncQueryBulkheads = new LinkedHashMap<>();
+
+    // 只读副本（replicaJdbcUrl 为 null 表示不启用，账号密码未配置时沿用主库）
+    private String replicaJdbcUrl;
+    private String replicaUsername;
+    private String replicaPassword;
+    private int replicaMaximumPoolSize = 4;
+    private ReplicaRouter.Policy replicaDefaultPolicy = ReplicaRouter.Policy.PRIMARY;
+    private final Map<String, ReplicaRouter.Policy> replicaPolicies = new LinkedHashMap<>();
+    private long replicaLagMs = 1000;        // 写入后该时长内 REPLICA_IF_CLEAN 的表回退主库
+
+    // 行为日志写入（appendLog）
+    private boolean logSinkEnabled = false;
+    private LogSinkConfig.Mode logSinkMode = LogSinkConfig.Mode.MULTI_ROW;
+    private long logSinkFlushIntervalMs = 1000;
+    private int logSinkChunkRows = 4096;
+    private int logSinkMaxBufferedRows = 1_000_000;   // 每张表最多缓冲的行数，超过后丢弃最旧的块
+    private String logSinkStagingDir = "data/log-staging";   // LOAD_DATA 暂存文件目录
 
     // MySQL PreparedStatement 缓存
     private int prepStmtCacheSize = 250;
@@ -63,14 +132,36 @@ public class DbConfig {
             throw new IllegalArgumentException("jdbcUrl cannot be empty");
         }
         
+        return createDataSource(jdbcUrl, username, password, maximumPoolSize, minimumIdle, false);
+    }
+
+    /**
+     * 创建只读副本数据源（连接设置为只读）
+     *
+     * @return 未配置 replicaJdbcUrl 时返回 null
+     */
+    public DataSource createReplicaDataSource() {
+        if (!isReplicaEnabled()) {
+            return null;
+        }
+        String user = replicaUsername != null ? replicaUsername : username;
+        String pwd = replicaPassword != null ? replicaPassword : password;
+        Objects.requireNonNull(user, "replicaUsername cannot be null");
+        Objects.requireNonNull(pwd, "replicaPassword cannot be null");
+        return createDataSource(replicaJdbcUrl, user, pwd, replicaMaximumPoolSize,
+                Math.min(minimumIdle, replicaMaximumPoolSize), true);
+    }
+
+    private DataSource createDataSource(String url, String user, String pwd, int poolSize, int minIdle, boolean readOnly) {
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(jdbcUrl);
-        config.setUsername(username);
-        config.setPassword(password);
+        config.setJdbcUrl(url);
+        config.setUsername(user);
+        config.setPassword(pwd);
         config.setDriverClassName(driverClassName);
+        config.setReadOnly(readOnly);
 
-        config.setMaximumPoolSize(maximumPoolSize);
-        config.setMinimumIdle(minimumIdle);
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(minIdle);
         config.setConnectionTimeout(connectionTimeout);
         config.setIdleTimeout(idleTimeout);
         config.setMaxLifetime(maxLifetime);
@@ -86,6 +177,14 @@ public class DbConfig {
         config.addDataSourceProperty("cacheServerConfiguration", "true");
         config.addDataSourceProperty("elideSetAutoCommits", "true");
         config.addDataSourceProperty("maintainTimeStats", "false");
+        // 仅对设置了 fetchSize 的语句生效（流式查询），普通查询不受影响
+        config.addDataSourceProperty("useCursorFetch", String.valueOf(useCursorFetch));
+        // 含多条语句的 SQL 驱动自动改用客户端预编译，不影响 useServerPrepStmts 对普通语句的作用
+        config.addDataSourceProperty("allowMultiQueries", String.valueOf(allowMultiQueries));
+        if (!readOnly && logSinkEnabled && logSinkMode == LogSinkConfig.Mode.LOAD_DATA) {
+            // LOAD DATA LOCAL INFILE 只允许读取暂存目录下的文件
+            config.addDataSourceProperty("allowLoadLocalInfileInPath", logSinkStagingDir);
+        }
 
         return new HikariDataSource(config);
     }
@@ -184,6 +283,435 @@ public class DbConfig {
         return this;
     }
 
+    /**
+     * 启用落地日志（进程崩溃后重启回放未落地数据；自增主键未生成的 INSERT 只记录错误日志，不自动回放）
+     */
+    public DbConfig landJournalDir(String landJournalDir) {
+        this.landJournalDir = landJournalDir;
+        return this;
+    }
+
+    public DbConfig landJournalSegmentSize(int landJournalSegmentSize) {
+        if (landJournalSegmentSize < 4096) {
+            throw new IllegalArgumentException("landJournalSegmentSize must be at least 4096, got: " + landJournalSegmentSize);
+        }
+        this.landJournalSegmentSize = landJournalSegmentSize;
+        return this;
+    }
+
+    /**
+     * 默认落地语句模式（实体可通过 @LandOptions 单独指定）
+     */
+    public DbConfig landStatementMode(LandOptions.Statement landStatementMode) {
+        if (landStatementMode == null || landStatementMode == LandOptions.Statement.DEFAULT) {
+            throw new IllegalArgumentException("landStatementMode must be BATCH, MULTI_ROW or UPSERT, got: " + landStatementMode);
+        }
+        this.landStatementMode = landStatementMode;
+        return this;
+    }
+
+    public DbConfig landMaxPacketBytes(int landMaxPacketBytes) {
+        if (landMaxPacketBytes != 0 && landMaxPacketBytes < 4096) {
+            throw new IllegalArgumentException("landMaxPacketBytes must be 0 (auto) or at least 4096, got: " + landMaxPacketBytes);
+        }
+        this.landMaxPacketBytes = landMaxPacketBytes;
+        return this;
+    }
+
+    /**
+     * 默认落地线程路由方式（实体可通过 @LandOptions 单独指定）
+     */
+    public DbConfig landRoutingMode(LandOptions.Routing landRoutingMode) {
+        if (landRoutingMode == null || landRoutingMode == LandOptions.Routing.DEFAULT) {
+            throw new IllegalArgumentException("landRoutingMode must be TABLE or PRIMARY_KEY, got: " + landRoutingMode);
+        }
+        this.landRoutingMode = landRoutingMode;
+        return this;
+    }
+
+    public DbConfig landQueueCapacity(int landQueueCapacity) {
+        if (landQueueCapacity < 16 || landQueueCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("landQueueCapacity must be between 16 and 2^30, got: " + landQueueCapacity);
+        }
+        this.landQueueCapacity = landQueueCapacity;
+        return this;
+    }
+
+    /**
+     * 落地队列满时的处理策略（BLOCK 阻塞提交线程 / COALESCE 进入与队列同容量的溢出链表，再满时阻塞 / SPILL 写入本地文件）
+     */
+    public DbConfig landOverflow(AsyncLandConfig.Overflow landOverflow) {
+        if (landOverflow == null) {
+            throw new IllegalArgumentException("landOverflow must not be null");
+        }
+        this.landOverflow = landOverflow;
+        return this;
+    }
+
+    public DbConfig landRetryBackoffMs(long landRetryBackoffMs) {
+        if (landRetryBackoffMs < 0) {
+            throw new IllegalArgumentException("landRetryBackoffMs cannot be negative, got: " + landRetryBackoffMs);
+        }
+        this.landRetryBackoffMs = landRetryBackoffMs;
+        return this;
+    }
+
+    public DbConfig landRetryBackoffMaxMs(long landRetryBackoffMaxMs) {
+        if (landRetryBackoffMaxMs < 0) {
+            throw new IllegalArgumentException("landRetryBackoffMaxMs cannot be negative, got: " + landRetryBackoffMaxMs);
+        }
+        this.landRetryBackoffMaxMs = landRetryBackoffMaxMs;
+        return this;
+    }
+
+    /**
+     * 按表熔断：同一张表连续失败多少个批次后暂停该表落地（其他表不受影响），0 表示不启用
+     */
+    public DbConfig landCircuitFailureThreshold(int landCircuitFailureThreshold) {
+        if (landCircuitFailureThreshold < 0) {
+            throw new IllegalArgumentException("landCircuitFailureThreshold cannot be negative, got: " + landCircuitFailureThreshold);
+        }
+        this.landCircuitFailureThreshold = landCircuitFailureThreshold;
+        return this;
+    }
+
+    public DbConfig landCircuitOpenMs(long landCircuitOpenMs) {
+        if (landCircuitOpenMs <= 0) {
+            throw new IllegalArgumentException("landCircuitOpenMs must be positive, got: " + landCircuitOpenMs);
+        }
+        this.landCircuitOpenMs = landCircuitOpenMs;
+        return this;
+    }
+
+    /**
+     * 死信目录：重试耗尽的任务写入本地文件，可通过 GM 接口重放
+     */
+    public DbConfig landDeadLetterDir(String landDeadLetterDir) {
+        this.landDeadLetterDir = landDeadLetterDir;
+        return this;
+    }
+
+    public DbConfig landSpillDir(String landSpillDir) {
+        this.landSpillDir = landSpillDir;
+        return this;
+    }
+
+    /**
+     * 落地组提交：每个落地线程固定占用一个连接（连接池大小需预留 landThreads 个），
+     * 一轮落地涉及的所有表在同一事务中提交，失败时回滚并逐表重新执行
+     */
+    public DbConfig landGroupCommit(boolean landGroupCommit) {
+        this.landGroupCommit = landGroupCommit;
+        return this;
+    }
+
+    public DbConfig landStatementCacheSize(int landStatementCacheSize) {
+        if (landStatementCacheSize <= 0) {
+            throw new IllegalArgumentException("landStatementCacheSize must be positive, got: " + landStatementCacheSize);
+        }
+        this.landStatementCacheSize = landStatementCacheSize;
+        return this;
+    }
+
+    /**
+     * CRITICAL 优先级任务的攒批窗口（0 表示提交即唤醒落地线程）
+     */
+    public DbConfig landCriticalMaxDelayMs(long landCriticalMaxDelayMs) {
+        if (landCriticalMaxDelayMs < 0) {
+            throw new IllegalArgumentException("landCriticalMaxDelayMs cannot be negative, got: " + landCriticalMaxDelayMs);
+        }
+        this.landCriticalMaxDelayMs = landCriticalMaxDelayMs;
+        return this;
+    }
+
+    /**
+     * BULK 优先级任务的最长保留时间（期间的重复提交合并为一次落地）
+     */
+    public DbConfig landBulkMaxDelayMs(long landBulkMaxDelayMs) {
+        if (landBulkMaxDelayMs < 0) {
+            throw new IllegalArgumentException("landBulkMaxDelayMs cannot be negative, got: " + landBulkMaxDelayMs);
+        }
+        this.landBulkMaxDelayMs = landBulkMaxDelayMs;
+        return this;
+    }
+
+    /**
+     * 启用变更流：落地提交后把变更（表、主键、变更列、版本）发布给进程内订阅者（容量须为 2 的幂，0 不启用）
+     */
+    public DbConfig landChangeStreamCapacity(int landChangeStreamCapacity) {
+        if (landChangeStreamCapacity != 0
+                && (landChangeStreamCapacity < 16 || Integer.bitCount(landChangeStreamCapacity) != 1)) {
+            throw new IllegalArgumentException(
+                    "landChangeStreamCapacity must be 0 or a power of two >= 16, got: " + landChangeStreamCapacity);
+        }
+        this.landChangeStreamCapacity = landChangeStreamCapacity;
+        return this;
+    }
+
+    /**
+     * 本地变更日志目录（需启用变更流），其他进程可通过 ChangeLog.Reader 追读
+     */
+    public DbConfig landChangeLogDir(String landChangeLogDir) {
+        this.landChangeLogDir = landChangeLogDir;
+        return this;
+    }
+
+    /**
+     * 本地变更日志保留的段数（单段大小同 landJournalSegmentSize）
+     */
+    public DbConfig landChangeLogRetainSegments(int landChangeLogRetainSegments) {
+        if (landChangeLogRetainSegments <= 0) {
+            throw new IllegalArgumentException(
+                    "landChangeLogRetainSegments must be positive, got: " + landChangeLogRetainSegments);
+        }
+        this.landChangeLogRetainSegments = landChangeLogRetainSegments;
+        return this;
+    }
+
+    /**
+     * 每个实体类 L1 缓存的默认内存上限（@EntityCache 未指定 maxBytes 时使用，0 表示禁用缓存）
+     */
+    public DbConfig entityCacheMaxBytes(long entityCacheMaxBytes) {
+        if (entityCacheMaxBytes < 0) {
+            throw new IllegalArgumentException("entityCacheMaxBytes cannot be negative, got: " + entityCacheMaxBytes);
+        }
+        this.entityCacheMaxBytes = entityCacheMaxBytes;
+        return this;
+    }
+
+    /**
+     * 自定义查询结果缓存的内存上限（0 表示禁用，此时 *Cached 查询直接查库）
+     */
+    public DbConfig queryCacheMaxBytes(long queryCacheMaxBytes) {
+        if (queryCacheMaxBytes < 0) {
+            throw new IllegalArgumentException("queryCacheMaxBytes cannot be negative, got: " + queryCacheMaxBytes);
+        }
+        this.queryCacheMaxBytes = queryCacheMaxBytes;
+        return this;
+    }
+
+    public DbConfig queryCacheTtlMs(long queryCacheTtlMs) {
+        if (queryCacheTtlMs <= 0) {
+            throw new IllegalArgumentException("queryCacheTtlMs must be positive, got: " + queryCacheTtlMs);
+        }
+        this.queryCacheTtlMs = queryCacheTtlMs;
+        return this;
+    }
+
+    public DbConfig loadCoalesceMaxBatch(int loadCoalesceMaxBatch) {
+        if (loadCoalesceMaxBatch < 0) {
+            throw new IllegalArgumentException("loadCoalesceMaxBatch cannot be negative, got: " + loadCoalesceMaxBatch);
+        }
+        this.loadCoalesceMaxBatch = loadCoalesceMaxBatch;
+        return this;
+    }
+
+    public DbConfig loadCoalesceWindowMs(long loadCoalesceWindowMs) {
+        if (loadCoalesceWindowMs < 0) {
+            throw new IllegalArgumentException("loadCoalesceWindowMs cannot be negative, got: " + loadCoalesceWindowMs);
+        }
+        this.loadCoalesceWindowMs = loadCoalesceWindowMs;
+        return this;
+    }
+
+    public DbConfig queryFetchSize(int queryFetchSize) {
+        if (queryFetchSize <= 0) {
+            throw new IllegalArgumentException("queryFetchSize must be positive, got: " + queryFetchSize);
+        }
+        this.queryFetchSize = queryFetchSize;
+        return this;
+    }
+
+    public DbConfig useCursorFetch(boolean useCursorFetch) {
+        this.useCursorFetch = useCursorFetch;
+        return this;
+    }
+
+    public DbConfig allowMultiQueries(boolean allowMultiQueries) {
+        this.allowMultiQueries = allowMultiQueries;
+        return this;
+    }
+
+    /**
+     * 异步查询全局同时执行的查询数（所有类别合计，不能超过连接池大小）
+     * <p>
+     * 0 表示连接池大小减去落地线程数（至少 1），为落地线程预留连接
+     */
+    public DbConfig asyncQueryMaxConcurrency(int asyncQueryMaxConcurrency) {
+        if (asyncQueryMaxConcurrency < 0) {
+            throw new IllegalArgumentException("asyncQueryMaxConcurrency cannot be negative, got: " + asyncQueryMaxConcurrency);
+        }
+        this.asyncQueryMaxConcurrency = asyncQueryMaxConcurrency;
+        return this;
+    }
+
+    /**
+     * 异步查询等待全局名额的最长时间，超时以异常结束
+     */
+    public DbConfig asyncQueryMaxWaitMs(long asyncQueryMaxWaitMs) {
+        if (asyncQueryMaxWaitMs <= 0) {
+            throw new IllegalArgumentException("asyncQueryMaxWaitMs must be positive, got: " + asyncQueryMaxWaitMs);
+        }
+        this.asyncQueryMaxWaitMs = asyncQueryMaxWaitMs;
+        return this;
+    }
+
+    /**
+     * 未单独配置隔离舱的类别的限制（maxConcurrent 为 0 表示只受全局上限约束，maxQueued 为 0 表示不排队）
+     */
+    public DbConfig asyncQueryDefaultLimit(int maxConcurrent, int maxQueued) {
+        if (maxConcurrent < 0 || maxQueued < 0) {
+            throw new IllegalArgumentException("asyncQuery default limit cannot be negative, got: "
+                    + maxConcurrent + "/" + maxQueued);
+        }
+        this.asyncQueryDefaultMaxConcurrent = maxConcurrent;
+        this.asyncQueryDefaultMaxQueued = maxQueued;
+        return this;
+    }
+
+    /**
+     * 调用方类别的隔离舱限制（如 player、rpc、gm）
+     */
+    public DbConfig asyncQueryBulkhead(String category, int maxConcurrent, int maxQueued) {
+        if (category == null || category.isEmpty()) {
+            throw new IllegalArgumentException("category must not be empty");
+        }
+        this.asyncQueryBulkheads.put(category, new AsyncQueryExecutor.Limit(maxConcurrent, maxQueued));
+        return this;
+    }
+
+    /**
+     * 异步查询执行器（全局上限未配置时为落地线程预留连接）
+     *
+     * @throws IllegalArgumentException 配置的全局上限超过连接池大小
+     */
+    public AsyncQueryExecutor createAsyncQueryExecutor() {
+        if (asyncQueryMaxConcurrency > maximumPoolSize) {
+            throw new IllegalArgumentException("asyncQueryMaxConcurrency must not exceed maximumPoolSize, got: "
+                    + asyncQueryMaxConcurrency + " > " + maximumPoolSize);
+        }
+        int maxConcurrency = asyncQueryMaxConcurrency > 0
+                ? asyncQueryMaxConcurrency
+                : Math.max(1, maximumPoolSize - landThreads);
+        int defaultConcurrent = asyncQueryDefaultMaxConcurrent > 0 ? asyncQueryDefaultMaxConcurrent : maxConcurrency;
+        return new AsyncQueryExecutor(maxConcurrency, asyncQueryMaxWaitMs,
+                new AsyncQueryExecutor.Limit(defaultConcurrent, asyncQueryDefaultMaxQueued), asyncQueryBulkheads);
+    }
+
+    /**
+     * 启用只读副本（GM 导出、排行榜重建、日志查询等重查询走副本，不占用主库连接）
+     */
+    public DbConfig replicaJdbcUrl(String replicaJdbcUrl) {
+        this.replicaJdbcUrl = replicaJdbcUrl;
+        return this;
+    }
+
+    public DbConfig replicaUsername(String replicaUsername) {
+        this.replicaUsername = replicaUsername;
+        return this;
+    }
+
+    public DbConfig replicaPassword(String replicaPassword) {
+        this.replicaPassword = replicaPassword;
+        return this;
+    }
+
+    public DbConfig replicaMaximumPoolSize(int replicaMaximumPoolSize) {
+        if (replicaMaximumPoolSize <= 0) {
+            throw new IllegalArgumentException("replicaMaximumPoolSize must be positive, got: " + replicaMaximumPoolSize);
+        }
+        this.replicaMaximumPoolSize = replicaMaximumPoolSize;
+        return this;
+    }
+
+    /**
+     * 未单独配置策略的表使用的读取策略（默认 PRIMARY，即只有显式只读查询和配置了策略的表走副本）
+     */
+    public DbConfig replicaDefaultPolicy(ReplicaRouter.Policy replicaDefaultPolicy) {
+        if (replicaDefaultPolicy == null) {
+            throw new IllegalArgumentException("replicaDefaultPolicy must not be null");
+        }
+        this.replicaDefaultPolicy = replicaDefaultPolicy;
+        return this;
+    }
+
+    /**
+     * 按逻辑表名（不含分表后缀）配置读取策略
+     */
+    public DbConfig replicaPolicy(String tableName, ReplicaRouter.Policy policy) {
+        if (tableName == null || tableName.isEmpty() || policy == null) {
+            throw new IllegalArgumentException("tableName and policy must not be empty");
+        }
+        this.replicaPolicies.put(tableName, policy);
+        return this;
+    }
+
+    public DbConfig replicaLagMs(long replicaLagMs) {
+        if (replicaLagMs < 0) {
+            throw new IllegalArgumentException("replicaLagMs cannot be negative, got: " + replicaLagMs);
+        }
+        this.replicaLagMs = replicaLagMs;
+        return this;
+    }
+
+    public DbConfig logSinkEnabled(boolean logSinkEnabled) {
+        this.logSinkEnabled = logSinkEnabled;
+        return this;
+    }
+
+    public DbConfig logSinkMode(LogSinkConfig.Mode logSinkMode) {
+        if (logSinkMode == null) {
+            throw new IllegalArgumentException("logSinkMode must not be null");
+        }
+        this.logSinkMode = logSinkMode;
+        return this;
+    }
+
+    public DbConfig logSinkFlushIntervalMs(long logSinkFlushIntervalMs) {
+        if (logSinkFlushIntervalMs <= 0) {
+            throw new IllegalArgumentException("logSinkFlushIntervalMs must be positive, got: " + logSinkFlushIntervalMs);
+        }
+        this.logSinkFlushIntervalMs = logSinkFlushIntervalMs;
+        return this;
+    }
+
+    public DbConfig logSinkChunkRows(int logSinkChunkRows) {
+        if (logSinkChunkRows <= 0) {
+            throw new IllegalArgumentException("logSinkChunkRows must be positive, got: " + logSinkChunkRows);
+        }
+        this.logSinkChunkRows = logSinkChunkRows;
+        return this;
+    }
+
+    public DbConfig logSinkMaxBufferedRows(int logSinkMaxBufferedRows) {
+        if (logSinkMaxBufferedRows <= 0) {
+            throw new IllegalArgumentException("logSinkMaxBufferedRows must be positive, got: " + logSinkMaxBufferedRows);
+        }
+        this.logSinkMaxBufferedRows = logSinkMaxBufferedRows;
+        return this;
+    }
+
+    public DbConfig logSinkStagingDir(String logSinkStagingDir) {
+        this.logSinkStagingDir = logSinkStagingDir;
+        return this;
+    }
+
+    /**
+     * 日志写入配置（多行 INSERT 的包大小沿用 landMaxPacketBytes，未配置时使用默认 4MB）
+     */
+    public LogSinkConfig createLogSinkConfig() {
+        LogSinkConfig sinkConfig = new LogSinkConfig()
+                .mode(logSinkMode)
+                .flushIntervalMs(logSinkFlushIntervalMs)
+                .chunkRows(logSinkChunkRows)
+                .maxBufferedRows(logSinkMaxBufferedRows)
+                .stagingDir(logSinkStagingDir);
+        if (landMaxPacketBytes > 0) {
+            sinkConfig.maxPacketBytes(landMaxPacketBytes);
+        }
+        return sinkConfig;
+    }
+
     public DbConfig prepStmtCacheSize(int size) {
         this.prepStmtCacheSize = size;
         return this;
@@ -214,6 +742,49 @@ public class DbConfig {
     public long getLandIntervalMs() { return landIntervalMs; }
     public int getLandBatchSize() { return landBatchSize; }
     public int getLandMaxRetries() { return landMaxRetries; }
+    public String getLandJournalDir() { return landJournalDir; }
+    public int getLandJournalSegmentSize() { return landJournalSegmentSize; }
+    public LandOptions.Statement getLandStatementMode() { return landStatementMode; }
+    public int getLandMaxPacketBytes() { return landMaxPacketBytes; }
+    public LandOptions.Routing getLandRoutingMode() { return landRoutingMode; }
+    public int getLandQueueCapacity() { return landQueueCapacity; }
+    public AsyncLandConfig.Overflow getLandOverflow() { return landOverflow; }
+    public String getLandSpillDir() { return landSpillDir; }
+    public long getLandRetryBackoffMs() { return landRetryBackoffMs; }
+    public long getLandRetryBackoffMaxMs() { return landRetryBackoffMaxMs; }
+    public int getLandCircuitFailureThreshold() { return landCircuitFailureThreshold; }
+    public long getLandCircuitOpenMs() { return landCircuitOpenMs; }
+    public String getLandDeadLetterDir() { return landDeadLetterDir; }
+    public boolean isLandGroupCommit() { return landGroupCommit; }
+    public int getLandStatementCacheSize() { return landStatementCacheSize; }
+    public long getLandCriticalMaxDelayMs() { return landCriticalMaxDelayMs; }
+    public long getLandBulkMaxDelayMs() { return landBulkMaxDelayMs; }
+    public int getLandChangeStreamCapacity() { return landChangeStreamCapacity; }
+    public String getLandChangeLogDir() { return landChangeLogDir; }
+    public int getLandChangeLogRetainSegments() { return landChangeLogRetainSegments; }
+    public long getEntityCacheMaxBytes() { return entityCacheMaxBytes; }
+    public long getQueryCacheMaxBytes() { return queryCacheMaxBytes; }
+    public long getQueryCacheTtlMs() { return queryCacheTtlMs; }
+    public int getQueryFetchSize() { return queryFetchSize; }
+    public boolean isUseCursorFetch() { return useCursorFetch; }
+    public boolean isAllowMultiQueries() { return allowMultiQueries; }
+    public int getLoadCoalesceMaxBatch() { return loadCoalesceMaxBatch; }
+    public long getLoadCoalesceWindowMs() { return loadCoalesceWindowMs; }
+    public int getAsyncQueryMaxConcurrency() { return asyncQueryMaxConcurrency; }
+    public long getAsyncQueryMaxWaitMs() { return asyncQueryMaxWaitMs; }
+    public Map<String, AsyncQueryExecutor.Limit> getAsyncQueryBulkheads() { return asyncQueryBulkheads; }
+    public boolean isReplicaEnabled() { return replicaJdbcUrl != null && !replicaJdbcUrl.trim().isEmpty(); }
+    public String getReplicaJdbcUrl() { return replicaJdbcUrl; }
+    public int getReplicaMaximumPoolSize() { return replicaMaximumPoolSize; }
+    public ReplicaRouter.Policy getReplicaDefaultPolicy() { return replicaDefaultPolicy; }
+    public Map<String, ReplicaRouter.Policy> getReplicaPolicies() { return replicaPolicies; }
+    public long getReplicaLagMs() { return replicaLagMs; }
+    public boolean isLogSinkEnabled() { return logSinkEnabled; }
+    public LogSinkConfig.Mode getLogSinkMode() { return logSinkMode; }
+    public long getLogSinkFlushIntervalMs() { return logSinkFlushIntervalMs; }
+    public int getLogSinkChunkRows() { return logSinkChunkRows; }
+    public int getLogSinkMaxBufferedRows() { return logSinkMaxBufferedRows; }
+    public String getLogSinkStagingDir() { return logSinkStagingDir; }
     public int getPrepStmtCacheSize() { return prepStmtCacheSize; }
     public int getPrepStmtCacheSqlLimit() { return prepStmtCacheSqlLimit; }
     public boolean isLogSql() { return logSql; }
@@ -36,6 +36,9 @@ import com.muyi.db.DbManager;
  *     .normalConfig(500, 20, true, 2000, 200)
  *     .peakConfig(800, 10, false)
  *     .switchToNormalMode();
+ * 
+ * // 自动模式：按积压、延迟、连接池等待闭环调整，手动切换模式时自动退出
+ * configManager.startAutoMode();
  * }</pre>
  */
 public class SLGDbConfigManager {
@@ -49,6 +52,11 @@ public class SLGDbConfigManager {
      */
     private volatile ConfigMode currentMode = ConfigMode.NORMAL;
 
+    /**
+     * 自动模式控制器（未开启时为 null）
+     */
+    private volatile AutoModeController autoController;
+
     /**
      * 配置模式枚举
      */
@@ -140,6 +148,56 @@ public class SLGDbConfigManager {
         return this;
     }
 
+    // ==================== 自动模式 ====================
+
+    /**
+     * 开启自动模式（使用默认控制参数）
+     */
+    public SLGDbConfigManager startAutoMode() {
+        return startAutoMode(new AutoModeController(dbManager));
+    }
+
+    /**
+     * 开启自动模式
+     * <p>
+     * 以当前模式的批量大小与间隔为起点，由控制器按负载连续调整；之后任何手动模式切换都会先退出自动模式。
+     */
+    public synchronized SLGDbConfigManager startAutoMode(AutoModeController controller) {
+        stopAutoMode();
+        ModeConfig config = getConfig(currentMode);
+        controller.start(config.getBatchSize(), config.getIntervalMs());
+        autoController = controller;
+        return this;
+    }
+
+    /**
+     * 退出自动模式，恢复当前模式的配置
+     */
+    public synchronized SLGDbConfigManager stopAutoMode() {
+        AutoModeController controller = autoController;
+        if (controller != null) {
+            controller.stop();
+            autoController = null;
+            doApplyConfig(getConfig(currentMode));
+            logger.info("Auto mode stopped, restored {} mode", currentMode);
+        }
+        return this;
+    }
+
+    /**
+     * 是否处于自动模式
+     */
+    public boolean isAutoMode() {
+        return autoController != null;
+    }
+
+    /**
+     * 自动模式控制器（未开启时返回 null）
+     */
+    public AutoModeController getAutoController() {
+        return autoController;
+    }
+
     // ==================== 模式切换方法 ====================
 
     /**
@@ -194,7 +252,10 @@ public class SLGDbConfigManager {
      * 应用配置到 DbManager
      */
     private SLGDbConfigManager applyConfig(ConfigMode mode, ModeConfig config) {
-        if (currentMode == mode) {
+        if (autoController != null) {
+            // 手动切换优先，退出自动模式后强制应用目标模式
+            stopAutoMode();
+        } else if (currentMode == mode) {
             logger.debug("Already in {} mode, skip", mode);
             return this;
         }
@@ -209,6 +270,7 @@ public class SLGDbConfigManager {
      * 应用自定义配置（不改变模式名称）
      */
     public SLGDbConfigManager applyCustomConfig(ModeConfig config) {
+        stopAutoMode();
         doApplyConfig(config);
         logger.info("Applied custom config: {}", config);
         return this;
@@ -264,7 +326,9 @@ public class SLGDbConfigManager {
     public String getStatusSummary() {
         return String.format(
                 "Mode=%s, Pending=%d, Success=%d, Failed=%d, Retry=%d",
-                currentMode,
+                autoController != null
+                        ? "AUTO(batch=" + autoController.getBatchSize() + ", interval=" + autoController.getIntervalMs() + "ms)"
+                        : currentMode,
                 dbManager.getPendingLandTasks(),
                 dbManager.getSuccessLandTasks(),
                 dbManager.getFailedLandTasks(),
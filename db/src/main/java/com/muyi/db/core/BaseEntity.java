@@ -1,11 +1,21 @@
 package com.muyi.db.core;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.muyi.db.annotation.LandOptions;
 
 /**
  * 实体基类
@@ -17,10 +27,30 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public abstract class BaseEntity<T extends BaseEntity<T>> {
 
+    private static final Logger logger = LoggerFactory.getLogger(BaseEntity.class);
+
     // ==================== 元数据缓存 ====================
     
     private static final Map<Class<?>, EntityMetadata> METADATA_CACHE = new ConcurrentHashMap<>();
 
+    /**
+     * 无变更时的位图
+     */
+    private static final long[] NO_CHANGES = new long[0];
+
+    private static final VarHandle CHANGED_MASK;
+    private static final VarHandle WIDE_CHANGED_MASK;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            CHANGED_MASK = lookup.findVarHandle(BaseEntity.class, "changedMask", long.class);
+            WIDE_CHANGED_MASK = lookup.findVarHandle(BaseEntity.class, "wideChangedMask", AtomicLongArray.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     // ==================== 实体状态 ====================
     
     /**
@@ -29,9 +59,14 @@ public abstract class BaseEntity<T extends BaseEntity<T>> {
     private transient volatile EntityState state = EntityState.NEW;
 
     /**
-     * 变更的字段集合（线程安全）
+     * 变更位图：第 n 位对应字段序号 n（{@link FieldInfo#getOrdinal()}），通过 CAS 更新
+     */
+    private transient volatile long changedMask;
+
+    /**
+     * 字段序号 >= 64 的变更位图（宽表才会创建，第 0 个 long 对应序号 64~127）
      */
-    private transient Set<String> changedFields;
+    private transient volatile AtomicLongArray wideChangedMask;
 
     /**
      * 业务操作版本（每次修改递增，原子操作）
@@ -48,16 +83,44 @@ public abstract class BaseEntity<T extends BaseEntity<T>> {
      */
     private transient volatile boolean inLandQueue = false;
 
+    /**
+     * 按主键分散路由时分配的工作线程（-1 表示未分配，分配后固定以保证同一实体的任务有序）
+     */
+    private transient volatile int landWorker = -1;
+
+    /**
+     * 分配工作线程时主键尚未生成（按对象标识分配），主键生成后需按主键重新分配
+     */
+    private transient volatile boolean landWorkerByIdentity;
+
+    /**
+     * 落地队列中任务所在的优先级通道（入队时设置，更紧急的重复提交据此提升）
+     */
+    private transient volatile LandOptions.Priority landPriority = LandOptions.Priority.NORMAL;
+
     /**
      * 动态表名（支持分表）
      */
     private transient String dynamicTableName;
 
+    /**
+     * 落地日志中的实体标识（主键未生成时用于关联同一实体的多条记录）
+     */
+    private transient long journalId;
+
+    /**
+     * 最近一次落地日志记录序号（未启用日志时为 0）
+     */
+    private transient volatile long journalSeq;
+
+    /**
+     * 最早一条未落地日志记录序号（0 表示无未落地记录，由日志在实体锁内维护）
+     */
+    private transient long journalFirstSeq;
+
     // ==================== 构造方法 ====================
 
     protected BaseEntity() {
-        // 使用线程安全的 Set
-        this.changedFields = ConcurrentHashMap.newKeySet();
     }
 
     // ==================== 变更追踪 ====================
@@ -65,28 +128,148 @@ public abstract class BaseEntity<T extends BaseEntity<T>> {
     /**
      * 标记字段变更（子类 setter 中调用）
      * <p>
-     * 线程安全：使用 ConcurrentHashMap.KeySet 和 AtomicLong
+     * 推荐使用生成的序号常量，避免按名称查找：
+     * <pre>{@code
+     * public void setLevel(int level) {
+     *     this.level = level;
+     *     markChanged(PlayerEntity_Accessor.LEVEL);
+     * }
+     * }</pre>
+     * 线程安全：位图使用 CAS 更新
+     *
+     * @param ordinal 字段序号
+     */
+    protected final void markChanged(int ordinal) {
+        if (ordinal < 64) {
+            long bit = 1L << ordinal;
+            long current;
+            do {
+                current = changedMask;
+            } while ((current & bit) == 0 && !CHANGED_MASK.compareAndSet(this, current, current | bit));
+        } else {
+            setWideBit(wideChangedMask(), ordinal - 64);
+        }
+        businessVersion.incrementAndGet();
+    }
+
+    /**
+     * 标记字段变更（按字段名，也接受列名；字段不存在时记录警告并忽略）
      */
     protected void markChanged(String fieldName) {
-        if (changedFields != null) {
-            changedFields.add(fieldName);
-            businessVersion.incrementAndGet();
+        int ordinal = ordinalOf(fieldName);
+        if (ordinal < 0) {
+            logger.warn("markChanged ignored, unknown field '{}' in {}", fieldName, getClass().getName());
+            return;
+        }
+        markChanged(ordinal);
+    }
+
+    /**
+     * 字段是否有未落地的变更
+     */
+    public boolean isChanged(int ordinal) {
+        if (ordinal < 64) {
+            return (changedMask & (1L << ordinal)) != 0;
         }
+        AtomicLongArray wide = wideChangedMask;
+        int index = ordinal - 64;
+        return wide != null && (wide.get(index >>> 6) & (1L << index)) != 0;
     }
 
     /**
-     * 获取变更的字段
+     * 获取变更的字段名（快照）
      */
     public Set<String> getChangedFields() {
-        return changedFields != null ? Collections.unmodifiableSet(changedFields) : Collections.emptySet();
+        return toFieldNames(getChangedBits());
+    }
+
+    /**
+     * 获取变更位图快照（第 n 位对应字段序号 n，无变更返回空数组）
+     */
+    public long[] getChangedBits() {
+        long mask = changedMask;
+        AtomicLongArray wide = wideChangedMask;
+        if (wide == null) {
+            return mask == 0 ? NO_CHANGES : new long[]{mask};
+        }
+        long[] bits = new long[wide.length() + 1];
+        bits[0] = mask;
+        for (int i = 0; i < wide.length(); i++) {
+            bits[i + 1] = wide.get(i);
+        }
+        return bits;
     }
 
     /**
      * 清除变更标记
      */
     public void clearChanges() {
-        if (changedFields != null) {
-            changedFields.clear();
+        changedMask = 0;
+        AtomicLongArray wide = wideChangedMask;
+        if (wide != null) {
+            for (int i = 0; i < wide.length(); i++) {
+                wide.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * 取出并清除当前变更位图（异步落地使用）
+     * <p>
+     * 按字原子交换：取出之后并发标记的字段会保留，由下一次落地写入
+     *
+     * @return 取出的变更位图（无变更返回空数组）
+     */
+    public long[] drainChangedBits() {
+        long mask = (long) CHANGED_MASK.getAndSet(this, 0L);
+        AtomicLongArray wide = wideChangedMask;
+        if (wide == null) {
+            return mask == 0 ? NO_CHANGES : new long[]{mask};
+        }
+        long[] bits = new long[wide.length() + 1];
+        bits[0] = mask;
+        for (int i = 0; i < wide.length(); i++) {
+            bits[i + 1] = wide.getAndSet(i, 0);
+        }
+        return bits;
+    }
+
+    /**
+     * 恢复变更位图（落地失败时调用，保证重试时仍写入这些字段）
+     */
+    public void restoreChangedBits(long[] bits) {
+        if (bits.length == 0) {
+            return;
+        }
+        if (bits[0] != 0) {
+            long current;
+            do {
+                current = changedMask;
+            } while (!CHANGED_MASK.compareAndSet(this, current, current | bits[0]));
+        }
+        for (int word = 1; word < bits.length; word++) {
+            if (bits[word] != 0) {
+                wideChangedMask().getAndAccumulate(word - 1, bits[word], (x, y) -> x | y);
+            }
+        }
+    }
+
+    /**
+     * 取出并清除当前变更字段（按字段名，见 {@link #drainChangedBits()}）
+     */
+    public Set<String> drainChangedFields() {
+        return toFieldNames(drainChangedBits());
+    }
+
+    /**
+     * 恢复变更字段（按字段名，见 {@link #restoreChangedBits(long[])}）
+     */
+    public void restoreChangedFields(Set<String> fields) {
+        for (String field : fields) {
+            int ordinal = ordinalOf(field);
+            if (ordinal >= 0) {
+                markChangedSilently(ordinal);
+            }
         }
     }
 
@@ -94,7 +277,76 @@ public abstract class BaseEntity<T extends BaseEntity<T>> {
      * 是否有变更
      */
     public boolean hasChanges() {
-        return changedFields != null && !changedFields.isEmpty();
+        if (changedMask != 0) {
+            return true;
+        }
+        AtomicLongArray wide = wideChangedMask;
+        if (wide != null) {
+            for (int i = 0; i < wide.length(); i++) {
+                if (wide.get(i) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void markChangedSilently(int ordinal) {
+        restoreChangedBits(bitOf(ordinal));
+    }
+
+    private static long[] bitOf(int ordinal) {
+        long[] bits = new long[(ordinal >>> 6) + 1];
+        bits[ordinal >>> 6] = 1L << ordinal;
+        return bits;
+    }
+
+    /**
+     * 字段名（或列名）对应的序号，字段不存在返回 -1
+     */
+    private int ordinalOf(String name) {
+        EntityMetadata metadata = getMetadata();
+        FieldInfo field = metadata.getField(name);
+        if (field == null) {
+            field = metadata.getFieldByColumn(name);
+        }
+        return field != null ? field.getOrdinal() : -1;
+    }
+
+    private Set<String> toFieldNames(long[] bits) {
+        if (bits.length == 0) {
+            return Collections.emptySet();
+        }
+        List<FieldInfo> fields = getMetadata().getAllFields();
+        Set<String> names = new LinkedHashSet<>();
+        for (int word = 0; word < bits.length; word++) {
+            long value = bits[word];
+            while (value != 0) {
+                int ordinal = (word << 6) + Long.numberOfTrailingZeros(value);
+                value &= value - 1;
+                names.add(fields.get(ordinal).getFieldName());
+            }
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    private AtomicLongArray wideChangedMask() {
+        AtomicLongArray wide = wideChangedMask;
+        if (wide == null) {
+            int words = (getMetadata().getAllFields().size() - 64 + 63) >>> 6;
+            AtomicLongArray created = new AtomicLongArray(Math.max(words, 1));
+            wide = WIDE_CHANGED_MASK.compareAndSet(this, null, created) ? created : wideChangedMask;
+        }
+        return wide;
+    }
+
+    private static void setWideBit(AtomicLongArray wide, int index) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        long current;
+        do {
+            current = wide.get(word);
+        } while ((current & bit) == 0 && !wide.compareAndSet(word, current, current | bit));
     }
 
     /**
@@ -157,32 +409,99 @@ public abstract class BaseEntity<T extends BaseEntity<T>> {
         this.inLandQueue = inLandQueue;
     }
 
+    public int getLandWorker() {
+        return landWorker;
+    }
+
+    public void setLandWorker(int landWorker) {
+        setLandWorker(landWorker, false);
+    }
+
+    public void setLandWorker(int landWorker, boolean byIdentity) {
+        this.landWorker = landWorker;
+        this.landWorkerByIdentity = byIdentity;
+    }
+
+    public boolean isLandWorkerByIdentity() {
+        return landWorkerByIdentity;
+    }
+
+    public LandOptions.Priority getLandPriority() {
+        return landPriority;
+    }
+
+    public void setLandPriority(LandOptions.Priority landPriority) {
+        this.landPriority = landPriority;
+    }
+
+    // ==================== 落地日志 ====================
+
+    public long getJournalId() {
+        return journalId;
+    }
+
+    public void setJournalId(long journalId) {
+        this.journalId = journalId;
+    }
+
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+
+    public void setJournalSeq(long journalSeq) {
+        this.journalSeq = journalSeq;
+    }
+
+    public long getJournalFirstSeq() {
+        return journalFirstSeq;
+    }
+
+    public void setJournalFirstSeq(long journalFirstSeq) {
+        this.journalFirstSeq = journalFirstSeq;
+    }
+
     // ==================== 表名 ====================
 
     /**
      * 获取表名
+     * <p>
+     * 优先级：动态表名 > 按分表键路由的物理表名 > 逻辑表名
      */
     public String getTableName() {
         if (dynamicTableName != null) {
             return dynamicTableName;
         }
-        return getMetadata().getTableName();
+        return getMetadata().resolveTableName(this);
     }
 
     /**
-     * 设置动态表名（用于分表）
+     * 设置动态表名（手动指定物理表，优先于分表键路由）
      */
     public void setDynamicTableName(String tableName) {
         this.dynamicTableName = tableName;
     }
 
+    /**
+     * 获取动态表名（未指定时返回 null）
+     */
+    public String getDynamicTableName() {
+        return dynamicTableName;
+    }
+
     // ==================== 元数据 ====================
 
     /**
      * 获取实体元数据
      */
     public EntityMetadata getMetadata() {
-        return METADATA_CACHE.computeIfAbsent(this.getClass(), EntityMetadata::new);
+        return metadataOf(this.getClass());
+    }
+
+    /**
+     * 按实体类型获取元数据（没有实体实例时使用）
+     */
+    public static EntityMetadata metadataOf(Class<?> entityClass) {
+        return METADATA_CACHE.computeIfAbsent(entityClass, EntityMetadata::new);
     }
 
     /**
@@ -193,7 +512,7 @@ public abstract class BaseEntity<T extends BaseEntity<T>> {
     }
 
     /**
-     * 获取所有字段值（按顺序）
+     * 获取所有字段的列值（按顺序，有编解码器的字段为编码后的 byte[]）
      */
     public Object[] getAllValues() {
         return getMetadata().getAllValues(this);
@@ -204,6 +523,13 @@ public abstract class BaseEntity<T extends BaseEntity<T>> {
      */
     public void fromMap(Map<String, Object> values) {
         getMetadata().setValues(this, values);
+        markLoaded();
+    }
+
+    /**
+     * 标记为从数据库加载完成（持久化状态、无变更、版本已同步）
+     */
+    public void markLoaded() {
         this.state = EntityState.PERSISTENT;
         this.clearChanges();
         this.dbVersion.set(this.businessVersion.get());
@@ -223,13 +549,9 @@ public abstract class BaseEntity<T extends BaseEntity<T>> {
      */
     @SuppressWarnings("unchecked")
     public T newInstance() {
-        try {
-            T instance = (T) this.getClass().getDeclaredConstructor().newInstance();
-            instance.setDynamicTableName(this.dynamicTableName);
-            return instance;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create new instance", e);
-        }
+        T instance = (T) getMetadata().newInstance();
+        instance.setDynamicTableName(this.dynamicTableName);
+        return instance;
     }
 
     // ==================== Object 方法 ====================
@@ -241,8 +563,7 @@ public abstract class BaseEntity<T extends BaseEntity<T>> {
 
     @Override
     public int hashCode() {
-        Object[] pkValues = getPrimaryKeyValues();
-        return Arrays.hashCode(pkValues);
+        return getMetadata().getPrimaryKeyHash(this);
     }
 
     @Override
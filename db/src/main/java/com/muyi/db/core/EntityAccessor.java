@@ -0,0 +1,75 @@
+package com.muyi.db.core;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 实体访问器（编译期生成）
+ * <p>
+ * 由 db-processor 注解处理器为每个 {@code @Table} 实体生成 {@code <实体类名>_Accessor}，
+ * 通过 VarHandle 直接读写字段，替代 {@link java.lang.reflect.Field} 反射，并按字段类型绑定/读取 JDBC 参数，避免装箱。
+ * <p>
+ * {@link EntityMetadata} 创建时自动查找生成类，找不到时回退到反射。
+ * <p>
+ * 命名规则：与实体同包，嵌套类以 {@code _} 连接外部类名，例如：
+ * <ul>
+ *   <li>{@code com.x.HeroEntity} -> {@code com.x.HeroEntity_Accessor}</li>
+ *   <li>{@code com.x.Outer.Inner} -> {@code com.x.Outer_Inner_Accessor}</li>
+ * </ul>
+ * 字段序号（ordinal）按 父类字段在前、声明顺序 排列，生成类中以大写常量导出。
+ */
+public interface EntityAccessor {
+
+    /**
+     * 生成类名后缀
+     */
+    String SUFFIX = "_Accessor";
+
+    /**
+     * 字段名（按序号）
+     */
+    String[] fieldNames();
+
+    /**
+     * 读取字段值（装箱）
+     */
+    Object get(Object entity, int ordinal);
+
+    /**
+     * 写入字段值（数值类型按 {@link Number} 转换，基本类型写入 null 时置为默认值）
+     */
+    void set(Object entity, int ordinal, Object value);
+
+    /**
+     * 按字段类型绑定 PreparedStatement 参数（基本类型不装箱）
+     */
+    void bind(PreparedStatement ps, int parameterIndex, Object entity, int ordinal) throws SQLException;
+
+    /**
+     * 按字段类型读取 ResultSet 列并写入字段（基本类型不装箱）
+     */
+    void read(ResultSet rs, int columnIndex, Object entity, int ordinal) throws SQLException;
+
+    /**
+     * 主键值（按主键顺序）
+     */
+    Object[] primaryKeyValues(Object entity);
+
+    /**
+     * 主键哈希（与 {@code Arrays.hashCode(primaryKeyValues(entity))} 结果一致）
+     */
+    int primaryKeyHash(Object entity);
+
+    /**
+     * 获取实体对应的访问器类名
+     */
+    static String accessorClassName(Class<?> entityClass) {
+        String packageName = entityClass.getPackageName();
+        String name = entityClass.getName();
+        if (packageName.isEmpty()) {
+            return name.replace('$', '_') + SUFFIX;
+        }
+        return packageName + "." + name.substring(packageName.length() + 1).replace('$', '_') + SUFFIX;
+    }
+}
@@ -1,12 +1,18 @@
 package com.muyi.db.core;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.muyi.db.annotation.Table;
 import com.muyi.db.util.StringUtils;
@@ -19,11 +25,23 @@ import com.muyi.db.util.StringUtils;
  */
 public class EntityMetadata {
 
+    private static final Logger logger = LoggerFactory.getLogger(EntityMetadata.class);
+
     private final Class<?> entityClass;
     private final String tableName;
     private final String shardKey;
     private final int shardCount;
 
+    /**
+     * 分表键字段（未分表时为 null）
+     */
+    private final FieldInfo shardField;
+
+    /**
+     * 所有分表的物理表名（未分表时只有逻辑表名）
+     */
+    private final List<String> shardTableNames;
+
     /**
      * 所有字段（按声明顺序）
      */
@@ -44,6 +62,26 @@ public class EntityMetadata {
      */
     private final Map<String, FieldInfo> columnMap = new LinkedHashMap<>();
 
+    /**
+     * 非主键字段（按字段序号）
+     */
+    private final List<FieldInfo> nonPrimaryKeys = new ArrayList<>();
+
+    /**
+     * 脏数据缓存索引字段（{@code @DirtyIndex}，按序号排列）
+     */
+    private final List<FieldInfo> dirtyIndexFields = new ArrayList<>();
+
+    /**
+     * 编译期生成的访问器（无生成类时为 null）
+     */
+    private final EntityAccessor accessor;
+
+    /**
+     * 无参构造器（缓存，避免每行查询结果都反射查找）
+     */
+    private volatile Constructor<?> constructor;
+
     public EntityMetadata(Class<?> entityClass) {
         this.entityClass = entityClass;
 
@@ -61,6 +99,66 @@ public class EntityMetadata {
 
         // 解析字段
         parseFields(entityClass);
+
+        // 优先使用生成的访问器，字段序号以访问器为准
+        this.accessor = loadAccessor();
+        if (accessor != null) {
+            List<String> names = List.of(accessor.fieldNames());
+            allFields.sort(Comparator.comparingInt(f -> names.indexOf(f.getFieldName())));
+        }
+        for (int i = 0; i < allFields.size(); i++) {
+            FieldInfo field = allFields.get(i);
+            field.setOrdinal(i, accessor);
+            if (!field.isPrimaryKey()) {
+                nonPrimaryKeys.add(field);
+            }
+            if (field.isDirtyIndexed()) {
+                dirtyIndexFields.add(field);
+            }
+        }
+
+        // 解析分表键：shardCount > 0 才启用分表
+        if (shardCount > 0) {
+            FieldInfo field = fieldMap.get(shardKey);
+            if (field == null) {
+                field = columnMap.get(shardKey);
+            }
+            if (field == null) {
+                throw new IllegalArgumentException("Shard key '" + shardKey + "' not found in " + entityClass.getName());
+            }
+            this.shardField = field;
+            List<String> names = new ArrayList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                names.add(shardTableName(tableName, i));
+            }
+            this.shardTableNames = Collections.unmodifiableList(names);
+        } else {
+            this.shardField = null;
+            this.shardTableNames = List.of(tableName);
+        }
+    }
+
+    /**
+     * 加载生成的访问器（字段不一致时视为过期生成类，回退到反射）
+     */
+    private EntityAccessor loadAccessor() {
+        String className = EntityAccessor.accessorClassName(entityClass);
+        try {
+            Class<?> clazz = Class.forName(className, true, entityClass.getClassLoader());
+            EntityAccessor loaded = (EntityAccessor) clazz.getDeclaredConstructor().newInstance();
+            String[] names = loaded.fieldNames();
+            if (names.length != allFields.size() || !fieldMap.keySet().containsAll(List.of(names))) {
+                logger.warn("Entity accessor {} does not match fields of {}, fallback to reflection",
+                        className, entityClass.getName());
+                return null;
+            }
+            return loaded;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            logger.warn("Failed to load entity accessor {}, fallback to reflection", className, e);
+            return null;
+        }
     }
 
     private void parseFields(Class<?> clazz) {
@@ -110,6 +208,68 @@ public class EntityMetadata {
         return shardCount;
     }
 
+    // ==================== 分表 ====================
+
+    /**
+     * 是否分表（{@code @Table(shardKey = ..., shardCount > 0)}）
+     */
+    public boolean isSharded() {
+        return shardField != null;
+    }
+
+    /**
+     * 分表键字段（未分表时返回 null）
+     */
+    public FieldInfo getShardField() {
+        return shardField;
+    }
+
+    /**
+     * 所有物理表名（未分表时只有逻辑表名）
+     */
+    public List<String> getShardTableNames() {
+        return shardTableNames;
+    }
+
+    /**
+     * 根据分表键值计算物理表名
+     * <p>
+     * 整数按 {@code floorMod(value, shardCount)} 取模，其它类型按 hashCode 取模
+     */
+    public String getShardTableName(Object shardKeyValue) {
+        if (shardField == null) {
+            return tableName;
+        }
+        return shardTableNames.get(shardIndex(shardKeyValue, shardCount));
+    }
+
+    /**
+     * 计算实体所在的物理表名
+     */
+    public String resolveTableName(Object entity) {
+        if (shardField == null) {
+            return tableName;
+        }
+        return getShardTableName(shardField.getValue(entity));
+    }
+
+    /**
+     * 分表序号
+     */
+    public static int shardIndex(Object shardKeyValue, int shardCount) {
+        if (shardKeyValue instanceof Number number && !(shardKeyValue instanceof java.math.BigDecimal)) {
+            return (int) Math.floorMod(number.longValue(), (long) shardCount);
+        }
+        return Math.floorMod(shardKeyValue == null ? 0 : shardKeyValue.hashCode(), shardCount);
+    }
+
+    /**
+     * 分表物理表名：{@code 逻辑表名_序号}
+     */
+    public static String shardTableName(String tableName, int shardIndex) {
+        return tableName + "_" + shardIndex;
+    }
+
     public List<FieldInfo> getAllFields() {
         return Collections.unmodifiableList(allFields);
     }
@@ -118,6 +278,17 @@ public class EntityMetadata {
         return Collections.unmodifiableList(primaryKeys);
     }
 
+    public List<FieldInfo> getNonPrimaryKeyFields() {
+        return Collections.unmodifiableList(nonPrimaryKeys);
+    }
+
+    /**
+     * 获取生成的访问器（无生成类时返回 null）
+     */
+    public EntityAccessor getAccessor() {
+        return accessor;
+    }
+
     public FieldInfo getField(String fieldName) {
         return fieldMap.get(fieldName);
     }
@@ -126,9 +297,91 @@ public class EntityMetadata {
         return columnMap.get(columnName);
     }
 
+    /**
+     * 按列名或字段名查找字段（查询条件的 key 两种写法都可能出现）
+     */
+    public FieldInfo resolveField(String name) {
+        FieldInfo field = columnMap.get(name);
+        return field != null ? field : fieldMap.get(name);
+    }
+
+    /**
+     * 脏数据缓存索引字段（{@code @DirtyIndex}）
+     */
+    public List<FieldInfo> getDirtyIndexFields() {
+        return dirtyIndexFields;
+    }
+
+    /**
+     * 获取变更字段中的非主键字段（按声明顺序）
+     * <p>
+     * 相同变更集合返回内容相同的列表，可直接作为部分更新的分组签名
+     *
+     * @param changedFields 变更的字段名
+     * @return 需要更新的字段（无可更新字段返回空列表）
+     */
+    public List<FieldInfo> getChangedFields(Set<String> changedFields) {
+        if (changedFields.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<FieldInfo> fields = new ArrayList<>(changedFields.size());
+        for (FieldInfo field : allFields) {
+            if (!field.isPrimaryKey() && changedFields.contains(field.getFieldName())) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * 获取变更位图中的非主键字段（按字段序号）
+     * <p>
+     * 与 {@link #getChangedFields(Set)} 语义相同，直接按位取字段，不做名称查找
+     *
+     * @param changedBits 变更位图（第 n 位对应字段序号 n）
+     * @return 需要更新的字段（无可更新字段返回空列表）
+     */
+    public List<FieldInfo> getChangedFields(long[] changedBits) {
+        if (changedBits.length == 0) {
+            return Collections.emptyList();
+        }
+        List<FieldInfo> fields = new ArrayList<>();
+        for (int word = 0; word < changedBits.length; word++) {
+            long bits = changedBits[word];
+            while (bits != 0) {
+                FieldInfo field = allFields.get((word << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+                if (!field.isPrimaryKey()) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
     // ==================== 值操作 ====================
 
+    /**
+     * 通过缓存的无参构造器创建实例
+     */
+    public Object newInstance() {
+        Constructor<?> ctor = constructor;
+        try {
+            if (ctor == null) {
+                ctor = entityClass.getDeclaredConstructor();
+                ctor.setAccessible(true);
+                constructor = ctor;
+            }
+            return ctor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to create new instance: " + entityClass.getName(), e);
+        }
+    }
+
     public Object[] getPrimaryKeyValues(Object entity) {
+        if (accessor != null) {
+            return accessor.primaryKeyValues(entity);
+        }
         Object[] values = new Object[primaryKeys.size()];
         for (int i = 0; i < primaryKeys.size(); i++) {
             values[i] = primaryKeys.get(i).getValue(entity);
@@ -136,10 +389,23 @@ public class EntityMetadata {
         return values;
     }
 
+    /**
+     * 主键哈希（与 {@code Arrays.hashCode(getPrimaryKeyValues(entity))} 一致）
+     */
+    public int getPrimaryKeyHash(Object entity) {
+        if (accessor != null) {
+            return accessor.primaryKeyHash(entity);
+        }
+        return java.util.Arrays.hashCode(getPrimaryKeyValues(entity));
+    }
+
+    /**
+     * 所有字段的列值（按顺序，有编解码器的字段为编码后的 byte[]）
+     */
     public Object[] getAllValues(Object entity) {
         Object[] values = new Object[allFields.size()];
         for (int i = 0; i < allFields.size(); i++) {
-            values[i] = allFields.get(i).getValue(entity);
+            values[i] = allFields.get(i).getColumnValue(entity);
         }
         return values;
     }
@@ -165,7 +431,7 @@ public class EntityMetadata {
                 fieldInfo = columnMap.get(entry.getKey());
             }
             if (fieldInfo != null) {
-                fieldInfo.setValue(entity, convertValue(entry.getValue(), fieldInfo.getFieldType()));
+                fieldInfo.setValue(entity, fieldInfo.toFieldValue(entry.getValue()));
             }
         }
     }
@@ -208,7 +474,7 @@ public class EntityMetadata {
 
     // ==================== 工具方法 ====================
 
-    private Object convertValue(Object value, Class<?> targetType) {
+    static Object convertValue(Object value, Class<?> targetType) {
         if (value == null) {
             return null;
         }
@@ -216,6 +482,37 @@ public class EntityMetadata {
             return value;
         }
 
+        // 数值直接转换，不经过字符串
+        if (value instanceof Number num) {
+            if (targetType == int.class || targetType == Integer.class) {
+                return num.intValue();
+            } else if (targetType == long.class || targetType == Long.class) {
+                return num.longValue();
+            } else if (targetType == double.class || targetType == Double.class) {
+                return num.doubleValue();
+            } else if (targetType == float.class || targetType == Float.class) {
+                return num.floatValue();
+            } else if (targetType == short.class || targetType == Short.class) {
+                return num.shortValue();
+            } else if (targetType == byte.class || targetType == Byte.class) {
+                return num.byteValue();
+            } else if (targetType == boolean.class || targetType == Boolean.class) {
+                return num.intValue() != 0;
+            } else if (targetType == BigDecimal.class) {
+                return new BigDecimal(num.toString());
+            }
+        } else if (value instanceof Boolean bool) {
+            if (targetType == boolean.class) {
+                return bool;
+            } else if (targetType == int.class || targetType == Integer.class) {
+                return bool ? 1 : 0;
+            }
+        } else if (value instanceof java.time.LocalDateTime dateTime) {
+            if (targetType == java.sql.Timestamp.class || targetType == java.util.Date.class) {
+                return java.sql.Timestamp.valueOf(dateTime);
+            }
+        }
+
         String strValue = value.toString();
 
         if (targetType == int.class || targetType == Integer.class) {
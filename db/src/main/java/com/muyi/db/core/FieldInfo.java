@@ -1,9 +1,16 @@
 package com.muyi.db.core;
 
 import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.muyi.db.annotation.Column;
+import com.muyi.db.annotation.DirtyIndex;
 import com.muyi.db.annotation.PrimaryKey;
+import com.muyi.db.codec.ColumnCodec;
 import com.muyi.db.util.StringUtils;
 
 /**
@@ -12,6 +19,12 @@ import com.muyi.db.util.StringUtils;
  * 封装实体字段的元数据，包括字段名、列名、类型、主键信息等
  */
 public class FieldInfo {
+
+    /**
+     * 编解码器实例（每个实现类一个，所有字段共享）
+     */
+    private static final ConcurrentHashMap<Class<?>, ColumnCodec<?>> CODECS = new ConcurrentHashMap<>();
+
     private final Field field;
     private final String fieldName;
     private final String columnName;
@@ -20,6 +33,22 @@ public class FieldInfo {
     private final int primaryKeyOrder;
     private final boolean autoIncrement;
     private final boolean nullable;
+    private final boolean dirtyIndexed;
+
+    /**
+     * 列编解码器（未声明时为 null）
+     */
+    private final ColumnCodec<Object> codec;
+
+    /**
+     * 字段序号（在 EntityMetadata.allFields 中的下标）
+     */
+    private int ordinal = -1;
+
+    /**
+     * 生成的访问器（无生成类时为 null，使用反射）
+     */
+    private EntityAccessor accessor;
 
     public FieldInfo(Field field) {
         this.field = field;
@@ -34,15 +63,43 @@ public class FieldInfo {
             this.columnName = StringUtils.camelToSnake(fieldName);
         }
         this.nullable = columnAnn == null || columnAnn.nullable();
+        this.codec = columnAnn != null ? resolveCodec(columnAnn.codec()) : null;
 
         // 解析 @PrimaryKey 注解
         PrimaryKey pkAnn = field.getAnnotation(PrimaryKey.class);
         this.primaryKey = pkAnn != null;
         this.primaryKeyOrder = pkAnn != null ? pkAnn.order() : 0;
         this.autoIncrement = pkAnn != null && pkAnn.autoIncrement();
+
+        this.dirtyIndexed = field.isAnnotationPresent(DirtyIndex.class);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ColumnCodec<Object> resolveCodec(Class<? extends ColumnCodec> codecClass) {
+        if (codecClass == ColumnCodec.class) {
+            return null;
+        }
+        return (ColumnCodec<Object>) CODECS.computeIfAbsent(codecClass, k -> {
+            try {
+                return (ColumnCodec<?>) k.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to create column codec: " + k.getName(), e);
+            }
+        });
+    }
+
+    /**
+     * 设置字段序号和访问器（由 EntityMetadata 在解析完成后调用）
+     */
+    void setOrdinal(int ordinal, EntityAccessor accessor) {
+        this.ordinal = ordinal;
+        this.accessor = accessor;
     }
 
     public Object getValue(Object entity) {
+        if (accessor != null) {
+            return accessor.get(entity, ordinal);
+        }
         try {
             return field.get(entity);
         } catch (IllegalAccessException e) {
@@ -51,6 +108,10 @@ public class FieldInfo {
     }
 
     public void setValue(Object entity, Object value) {
+        if (accessor != null) {
+            accessor.set(entity, ordinal, value);
+            return;
+        }
         try {
             field.set(entity, value);
         } catch (IllegalAccessException e) {
@@ -58,6 +119,63 @@ public class FieldInfo {
         }
     }
 
+    /**
+     * 读取写入数据库的列值（有编解码器时为编码后的 byte[]）
+     */
+    public Object getColumnValue(Object entity) {
+        Object value = getValue(entity);
+        return codec != null && value != null ? codec.encode(value) : value;
+    }
+
+    /**
+     * 将数据库列值（或日志中保存的列值）转换为字段值：有编解码器时解码 byte[]，否则按字段类型转换
+     */
+    public Object toFieldValue(Object columnValue) {
+        if (codec != null) {
+            return columnValue instanceof byte[] data ? codec.decode(data) : columnValue;
+        }
+        return EntityMetadata.convertValue(columnValue, fieldType);
+    }
+
+    /**
+     * 绑定 PreparedStatement 参数（有访问器时按类型绑定，不装箱；有编解码器时绑定编码后的字节）
+     */
+    public void bind(PreparedStatement ps, int parameterIndex, Object entity) throws SQLException {
+        if (codec != null) {
+            Object value = getValue(entity);
+            if (value == null) {
+                ps.setNull(parameterIndex, Types.VARBINARY);
+            } else {
+                ps.setBytes(parameterIndex, codec.encode(value));
+            }
+        } else if (accessor != null) {
+            accessor.bind(ps, parameterIndex, entity, ordinal);
+        } else {
+            ps.setObject(parameterIndex, getValue(entity));
+        }
+    }
+
+    /**
+     * 读取 ResultSet 列并写入字段（有编解码器时解码字节；有访问器时按类型读取，不装箱；否则按字段类型转换后反射写入）
+     */
+    public void read(ResultSet rs, int columnIndex, Object entity) throws SQLException {
+        if (codec != null) {
+            byte[] data = rs.getBytes(columnIndex);
+            setValue(entity, data != null ? codec.decode(data) : null);
+        } else if (accessor != null) {
+            accessor.read(rs, columnIndex, entity, ordinal);
+        } else {
+            setValue(entity, EntityMetadata.convertValue(rs.getObject(columnIndex), fieldType));
+        }
+    }
+
+    /**
+     * 将外部传入的值（查询条件等）转换为字段类型，例如 Integer 转为 long 字段的 Long
+     */
+    public Object convert(Object value) {
+        return EntityMetadata.convertValue(value, fieldType);
+    }
+
     // Getters
     public String getFieldName() { return fieldName; }
     public String getColumnName() { return columnName; }
@@ -66,4 +184,7 @@ public class FieldInfo {
     public int getPrimaryKeyOrder() { return primaryKeyOrder; }
     public boolean isAutoIncrement() { return autoIncrement; }
     public boolean isNullable() { return nullable; }
+    public boolean isDirtyIndexed() { return dirtyIndexed; }
+    public boolean hasCodec() { return codec != null; }
+    public int getOrdinal() { return ordinal; }
 }
@@ -0,0 +1,147 @@
+package com.muyi.db.journal;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.muyi.db.async.TaskType;
+import com.muyi.db.core.BaseEntity;
+
+/**
+ * 落地死信（重试耗尽的任务）
+ * <p>
+ * 任务达到最大重试次数后，把实体快照写入本地文件（格式同 {@link LandSpill}），排除故障后通过 GM 接口重放。
+ * <ul>
+ *   <li>同一实体多次进入死信时只保留最后一条快照</li>
+ *   <li>同一实体之后又落地成功（业务继续修改后重新提交）时，死信中的旧快照作废，重放时跳过，避免覆盖新数据</li>
+ *   <li>作废同样以作废标记写入文件，进程重启后旧快照不会复活</li>
+ * </ul>
+ * 死信为空时 {@link #resolve} 只做一次判空，不影响正常落地路径。
+ */
+public class DeadLetterStore implements Closeable {
+
+    private static final String FILE_PREFIX = "dead";
+
+    private final LandSpill log;
+
+    /**
+     * 仍然有效的记录 key（{@link LandSpill#keyOf}）-> 最后一次写入的序号
+     */
+    private final Map<String, Long> liveKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 写入序号（每写入一条死信加一）
+     */
+    private long sequence;
+
+    /**
+     * @param dir         死信目录
+     * @param segmentSize 单段大小（字节）
+     */
+    public DeadLetterStore(Path dir, int segmentSize) {
+        this.log = new LandSpill(dir, FILE_PREFIX, segmentSize);
+        for (LandSpill.Entry entry : log.readAll()) {
+            if (!entry.isTombstone()) {
+                liveKeys.put(keyOf(entry), ++sequence);
+            }
+        }
+    }
+
+    /**
+     * 写入一条死信
+     *
+     * @return 主键未生成（自增）的实体无法定位，不写入，返回 false
+     */
+    public synchronized boolean add(BaseEntity<?> entity, TaskType type) {
+        if (!LandSpill.isSpillable(entity)) {
+            return false;
+        }
+        log.append(entity, type);
+        liveKeys.put(LandSpill.keyOf(entity.getClass().getName(), entity.getTableName(), entity.getPrimaryKeyValues()),
+                ++sequence);
+        return true;
+    }
+
+    /**
+     * 实体落地成功：该实体的死信作废
+     */
+    public void resolve(BaseEntity<?> entity) {
+        if (liveKeys.isEmpty()) {
+            return;
+        }
+        String className = entity.getClass().getName();
+        String tableName = entity.getTableName();
+        Object[] primaryKey = entity.getPrimaryKeyValues();
+        if (!liveKeys.containsKey(LandSpill.keyOf(className, tableName, primaryKey))) {
+            return;
+        }
+        synchronized (this) {
+            if (liveKeys.remove(LandSpill.keyOf(className, tableName, primaryKey)) != null) {
+                log.appendTombstone(className, tableName, primaryKey);
+            }
+        }
+    }
+
+    /**
+     * 当前写入序号，配合 {@link #remove} 使用（先取序号再 {@link #list}）
+     */
+    public synchronized long mark() {
+        return sequence;
+    }
+
+    /**
+     * 移除一条已处理的死信
+     *
+     * @param mark 取出该记录前的 {@link #mark()}；之后同一实体又写入了新死信时不移除
+     * @return 是否移除
+     */
+    public synchronized boolean remove(LandSpill.Entry entry, long mark) {
+        String key = keyOf(entry);
+        Long written = liveKeys.get(key);
+        if (written == null || written > mark) {
+            return false;
+        }
+        liveKeys.remove(key);
+        log.appendTombstone(entry.className(), entry.tableName(), entry.primaryKey());
+        return true;
+    }
+
+    /**
+     * 当前有效的死信（每个实体只保留最后一条，不修改文件）
+     */
+    public synchronized List<LandSpill.Entry> list() {
+        List<LandSpill.Entry> entries = new ArrayList<>();
+        for (LandSpill.Entry entry : log.readAll()) {
+            if (!entry.isTombstone() && liveKeys.containsKey(keyOf(entry))) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 压缩文件：只保留有效死信，丢弃作废标记和被覆盖的旧快照
+     */
+    public synchronized void compact() {
+        log.rewrite(list());
+    }
+
+    /**
+     * 有效死信数
+     */
+    public int size() {
+        return liveKeys.size();
+    }
+
+    @Override
+    public void close() {
+        log.close();
+    }
+
+    private static String keyOf(LandSpill.Entry entry) {
+        return LandSpill.keyOf(entry.className(), entry.tableName(), entry.primaryKey());
+    }
+}
@@ -0,0 +1,368 @@
+package com.muyi.db.journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.muyi.db.async.TaskType;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.FieldInfo;
+
+/**
+ * 异步落地预写日志（WAL）
+ * <p>
+ * 每次提交落地任务时追加一条实体快照记录（SUBMIT），批次提交成功后追加完成记录（DONE）。
+ * 进程异常退出后，启动时读取未完成的记录并在接收业务流量前回放，防止玩家进度丢失。
+ * <p>
+ * 记录格式（负载）：
+ * <pre>
+ * SUBMIT: [byte 1][long seq][byte taskType][long 实体标识][str 类名][str 表名][short 主键数][主键值...][short 字段数]([str 字段名][字段值])...
+ * DONE:   [byte 2][long seq]
+ * </pre>
+ * 语义：
+ * <ul>
+ *   <li>同一实体可能有多条 SUBMIT（合并提交时每次都记录），回放只取序号最大的一条</li>
+ *   <li>实体按 类名 + 表名 + 主键 识别；主键含 null（自增主键未生成）时按实体标识识别</li>
+ *   <li>DONE(seq) 表示该实体序号不大于 seq 的所有记录均已落地</li>
+ *   <li>段文件中所有记录都不再需要时（低水位之前）自动删除</li>
+ * </ul>
+ */
+public class LandJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LandJournal.class);
+
+    private static final byte REC_SUBMIT = 1;
+    private static final byte REC_DONE = 2;
+
+    private static final String FILE_PREFIX = "land";
+
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+
+    private final SegmentedLog log;
+
+    /**
+     * 下一个记录序号
+     */
+    private long nextSeq = 1;
+
+    /**
+     * 段序号 -> 段内最大记录序号（仅本次运行写入的段）
+     */
+    private final Map<Long, Long> segmentMaxSeq = new LinkedHashMap<>();
+
+    /**
+     * 未落地记录的下界序号（多重集合：序号 -> 引用次数）
+     * <p>
+     * 每个有未落地记录的实体贡献一个下界，最小值即为低水位
+     */
+    private final ConcurrentSkipListMap<Long, Integer> pendingSeqs = new ConcurrentSkipListMap<>();
+
+    /**
+     * 实体类字段名缓存
+     */
+    private final Map<Class<?>, String[]> fieldNameCache = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时读取到的未完成记录（按序号升序）
+     */
+    private final List<Entry> recoveredEntries;
+
+    /**
+     * 启动时已存在的段（回放完成后删除）
+     */
+    private final List<Long> recoveredSegments;
+
+    private final ThreadLocal<ByteArrayOutputStream> bufferHolder =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(256));
+
+    /**
+     * 未完成的日志记录（回放用）
+     *
+     * @param seq       记录序号
+     * @param type      任务类型
+     * @param className 实体类名
+     * @param tableName 物理表名
+     * @param values    字段名 -> 值
+     */
+    public record Entry(long seq, TaskType type, String className, String tableName, Map<String, Object> values) {
+    }
+
+    /**
+     * @param dir         日志目录
+     * @param segmentSize 单段大小（字节）
+     */
+    public LandJournal(Path dir, int segmentSize) {
+        this.log = new SegmentedLog(dir, FILE_PREFIX, segmentSize);
+        this.recoveredSegments = log.getSegmentIndexes();
+        this.recoveredEntries = recover();
+        if (!recoveredEntries.isEmpty()) {
+            logger.warn("Land journal {} has {} unfinished entries to replay", dir, recoveredEntries.size());
+        }
+    }
+
+    // ==================== 启动恢复 ====================
+
+    /**
+     * 读取已有段，计算每个实体最后一条未完成的记录
+     */
+    private List<Entry> recover() {
+        Map<String, Entry> latest = new HashMap<>();
+        Map<Long, String> seqToKey = new HashMap<>();
+        long[] maxSeq = {0};
+
+        log.readAll((segmentIndex, payload) -> {
+            byte recordType = payload.get();
+            long seq = payload.getLong();
+            maxSeq[0] = Math.max(maxSeq[0], seq);
+            if (recordType == REC_SUBMIT) {
+                TaskType type = TASK_TYPES[payload.get()];
+                long entityId = payload.getLong();
+                String className = ValueCodec.readString(payload);
+                String tableName = ValueCodec.readString(payload);
+                Object[] pkValues = new Object[payload.getShort()];
+                for (int i = 0; i < pkValues.length; i++) {
+                    pkValues[i] = ValueCodec.read(payload);
+                }
+                int fieldCount = payload.getShort();
+                Map<String, Object> values = new LinkedHashMap<>(fieldCount * 2);
+                for (int i = 0; i < fieldCount; i++) {
+                    String name = ValueCodec.readString(payload);
+                    values.put(name, ValueCodec.read(payload));
+                }
+                List<Object> pk = Arrays.asList(pkValues);
+                String key = className + '|' + tableName + '|' + (pk.contains(null) ? "#" + entityId : pk);
+                Entry previous = latest.put(key, new Entry(seq, type, className, tableName, values));
+                if (previous != null) {
+                    seqToKey.remove(previous.seq());
+                }
+                seqToKey.put(seq, key);
+            } else if (recordType == REC_DONE) {
+                // DONE 引用的记录已被更新的记录取代时忽略（更新的记录仍需回放）
+                String key = seqToKey.remove(seq);
+                if (key != null) {
+                    latest.remove(key);
+                }
+            }
+        });
+
+        nextSeq = maxSeq[0] + 1;
+        List<Entry> entries = new ArrayList<>(latest.values());
+        entries.sort(Comparator.comparingLong(Entry::seq));
+        return entries;
+    }
+
+    /**
+     * 获取启动时需要回放的记录（按序号升序）
+     */
+    public List<Entry> getRecoveredEntries() {
+        return Collections.unmodifiableList(recoveredEntries);
+    }
+
+    /**
+     * 标记某条恢复记录已回放成功
+     */
+    public void markReplayed(Entry entry) {
+        appendDone(entry.seq());
+    }
+
+    /**
+     * 结束回放
+     *
+     * @param allReplayed 是否全部回放成功（全部成功才删除旧段，否则保留到下次启动继续回放）
+     */
+    public void finishRecovery(boolean allReplayed) {
+        if (!allReplayed) {
+            logger.error("Land journal replay incomplete, {} old segments kept in {}",
+                    recoveredSegments.size(), log.getDir());
+            return;
+        }
+        for (Long index : recoveredSegments) {
+            log.deleteSegment(index);
+        }
+    }
+
+    // ==================== 写入 ====================
+
+    /**
+     * 记录一次落地提交（每次提交都记录最新快照，包括被合并的重复提交）
+     */
+    public void append(BaseEntity<?> entity, TaskType type) {
+        synchronized (entity) {
+            if (entity.getJournalId() == 0) {
+                entity.setJournalId(nextSeq());
+            }
+            byte[] payload = encodeSubmit(entity, type);
+            long seq;
+            synchronized (this) {
+                seq = nextSeq++;
+                writeSeq(payload, seq);
+                long segment = log.append(payload);
+                segmentMaxSeq.put(segment, seq);
+            }
+            entity.setJournalSeq(seq);
+            if (entity.getJournalFirstSeq() == 0) {
+                entity.setJournalFirstSeq(seq);
+                pendingSeqs.merge(seq, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * 标记实体序号不大于 seq 的记录均已落地
+     *
+     * @param entity 实体
+     * @param seq    开始落地时捕获的实体日志序号
+     */
+    public void markDone(BaseEntity<?> entity, long seq) {
+        if (seq <= 0) {
+            return;
+        }
+        synchronized (entity) {
+            appendDone(seq);
+            long first = entity.getJournalFirstSeq();
+            if (first == 0 || first > seq) {
+                return;
+            }
+            releasePending(first);
+            if (entity.getJournalSeq() > seq) {
+                // 落地期间又有新提交，下界推进到 seq 之后
+                entity.setJournalFirstSeq(seq + 1);
+                pendingSeqs.merge(seq + 1, 1, Integer::sum);
+            } else {
+                entity.setJournalFirstSeq(0);
+            }
+        }
+    }
+
+    /**
+     * 分配序号（实体标识与记录序号共用，保证跨重启不重复）
+     */
+    private synchronized long nextSeq() {
+        return nextSeq++;
+    }
+
+    private void releasePending(long seq) {
+        pendingSeqs.computeIfPresent(seq, (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    private synchronized void appendDone(long seq) {
+        byte[] payload = new byte[9];
+        payload[0] = REC_DONE;
+        writeSeq(payload, seq);
+        long segment = log.append(payload);
+        segmentMaxSeq.merge(segment, nextSeq - 1, Math::max);
+    }
+
+    /**
+     * 清理已无用的段（段内所有记录序号都低于低水位）
+     */
+    public void checkpoint() {
+        long lowWatermark;
+        List<Long> deletable = new ArrayList<>();
+        synchronized (this) {
+            lowWatermark = pendingSeqs.isEmpty() ? nextSeq : pendingSeqs.firstKey();
+            long active = log.getActiveIndex();
+            for (Map.Entry<Long, Long> e : segmentMaxSeq.entrySet()) {
+                if (e.getKey() != active && e.getValue() < lowWatermark) {
+                    deletable.add(e.getKey());
+                }
+            }
+            for (Long index : deletable) {
+                if (log.deleteSegment(index)) {
+                    segmentMaxSeq.remove(index);
+                }
+            }
+        }
+    }
+
+    /**
+     * 强制刷盘（掉电保护）
+     */
+    public void force() {
+        log.force();
+    }
+
+    /**
+     * 未落地的实体数量
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (Integer c : pendingSeqs.values()) {
+            count += c;
+        }
+        return count;
+    }
+
+    /**
+     * 关闭日志
+     *
+     * @param clean 是否所有数据都已落地（是则删除全部段文件）
+     */
+    public void close(boolean clean) {
+        if (clean && pendingSeqs.isEmpty()) {
+            log.deleteAll();
+        }
+        log.close();
+    }
+
+    @Override
+    public void close() {
+        close(false);
+    }
+
+    // ==================== 编码 ====================
+
+    private byte[] encodeSubmit(BaseEntity<?> entity, TaskType type) {
+        ByteArrayOutputStream buffer = bufferHolder.get();
+        buffer.reset();
+        DataOutputStream out = new DataOutputStream(buffer);
+        try {
+            out.writeByte(REC_SUBMIT);
+            out.writeLong(0);   // 序号占位，写入时回填
+            out.writeByte(type.ordinal());
+            out.writeLong(entity.getJournalId());
+            ValueCodec.writeString(out, entity.getClass().getName());
+            ValueCodec.writeString(out, entity.getTableName());
+
+            Object[] pkValues = entity.getPrimaryKeyValues();
+            out.writeShort(pkValues.length);
+            for (Object pk : pkValues) {
+                ValueCodec.write(out, pk);
+            }
+
+            String[] names = fieldNameCache.computeIfAbsent(entity.getClass(),
+                    k -> entity.getMetadata().getAllFields().stream().map(FieldInfo::getFieldName).toArray(String[]::new));
+            Object[] values = entity.getAllValues();
+            out.writeShort(names.length);
+            for (int i = 0; i < names.length; i++) {
+                ValueCodec.writeString(out, names[i]);
+                ValueCodec.write(out, values[i]);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static void writeSeq(byte[] payload, long seq) {
+        ByteBuffer.wrap(payload, 1, 8).putLong(seq);
+    }
+}
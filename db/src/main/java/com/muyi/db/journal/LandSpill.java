@@ -0,0 +1,254 @@
+package com.muyi.db.journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.muyi.db.async.TaskType;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.FieldInfo;
+
+/**
+ * 落地队列溢出文件
+ * <p>
+ * 工作线程队列已满且溢出策略为 SPILL 时，任务不再占用内存，而是把实体快照追加到本地文件；
+ * 实体本身仍留在脏数据缓存中（查询可见），队列有空位后由工作线程读回，按主键找到缓存中的最新实体重新入队。
+ * 进程异常退出时，启动阶段先按快照回放残留的溢出记录，再回放落地日志（落地日志更新）。
+ * <p>
+ * 记录格式（负载）：
+ * <pre>
+ * [byte taskType][str 类名][str 表名][short 主键数][主键值...][short 字段数]([str 字段名][字段值])...
+ * </pre>
+ * 同一实体可能溢出多次，读回时只保留最后一条。主键含 null（自增主键未生成）的实体无法读回定位，不能溢出。
+ * 作废标记（taskType 为 -1、无字段）使该实体之前的记录失效，用于死信等需要持久化删除的场景。
+ * <p>
+ * 线程安全：写入与读回串行化（溢出只发生在数据库已跟不上的慢路径上）。
+ */
+public class LandSpill implements Closeable {
+
+    private static final String FILE_PREFIX = "spill";
+
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+
+    private final SegmentedLog log;
+
+    /**
+     * 当前文件中的记录数（含同一实体的重复记录）
+     */
+    private int count;
+
+    /**
+     * 溢出记录
+     *
+     * @param type       任务类型（作废标记为 null）
+     * @param className  实体类名
+     * @param tableName  物理表名
+     * @param primaryKey 主键值
+     * @param values     字段名 -> 值
+     */
+    public record Entry(TaskType type, String className, String tableName, Object[] primaryKey,
+                        Map<String, Object> values) {
+
+        /**
+         * 是否为作废标记
+         */
+        public boolean isTombstone() {
+            return type == null;
+        }
+    }
+
+    /**
+     * @param dir         溢出目录（每个工作线程独占一个目录）
+     * @param segmentSize 单段大小（字节）
+     */
+    public LandSpill(Path dir, int segmentSize) {
+        this(dir, FILE_PREFIX, segmentSize);
+    }
+
+    /**
+     * @param filePrefix 文件名前缀（同一格式的其他快照文件，如死信）
+     */
+    public LandSpill(Path dir, String filePrefix, int segmentSize) {
+        this.log = new SegmentedLog(dir, filePrefix, segmentSize);
+        log.readAll((segmentIndex, payload) -> count++);
+    }
+
+    /**
+     * 是否可以溢出（主键已生成）
+     */
+    public static boolean isSpillable(BaseEntity<?> entity) {
+        for (Object pk : entity.getPrimaryKeyValues()) {
+            if (pk == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 追加一条溢出记录
+     */
+    public synchronized void append(BaseEntity<?> entity, TaskType type) {
+        log.append(encode(entity, type));
+        count++;
+    }
+
+    /**
+     * 追加一条已读出的记录（原样写回）
+     */
+    public synchronized void append(Entry entry) {
+        log.append(encode(entry));
+        count++;
+    }
+
+    /**
+     * 追加一条作废标记：该实体之前的记录失效
+     */
+    public synchronized void appendTombstone(String className, String tableName, Object[] primaryKey) {
+        log.append(encode(null, className, tableName, primaryKey, new String[0], new Object[0]));
+        count++;
+    }
+
+    /**
+     * 读出全部记录（同一实体只保留最后一条，按首次溢出顺序；最后一条为作废标记时原样返回）
+     */
+    public synchronized List<Entry> readAll() {
+        Map<String, Entry> latest = new LinkedHashMap<>();
+        log.readAll((segmentIndex, payload) -> {
+            byte typeOrdinal = payload.get();
+            TaskType type = typeOrdinal < 0 ? null : TASK_TYPES[typeOrdinal];
+            String className = ValueCodec.readString(payload);
+            String tableName = ValueCodec.readString(payload);
+            Object[] pkValues = new Object[payload.getShort()];
+            for (int i = 0; i < pkValues.length; i++) {
+                pkValues[i] = ValueCodec.read(payload);
+            }
+            int fieldCount = payload.getShort();
+            Map<String, Object> values = new LinkedHashMap<>(fieldCount * 2);
+            for (int i = 0; i < fieldCount; i++) {
+                String name = ValueCodec.readString(payload);
+                values.put(name, ValueCodec.read(payload));
+            }
+            latest.put(keyOf(className, tableName, pkValues), new Entry(type, className, tableName, pkValues, values));
+        });
+        return new ArrayList<>(latest.values());
+    }
+
+    /**
+     * 读出全部记录并清空文件
+     */
+    public synchronized List<Entry> takeAll() {
+        List<Entry> entries = readAll();
+        clear();
+        return entries;
+    }
+
+    /**
+     * 读出最早溢出的至多 max 条记录（去重规则同 {@link #readAll()}），剩余记录通过 {@link #rewrite} 写回
+     *
+     * @param max 本次最多读出的记录数
+     */
+    public synchronized List<Entry> take(int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive: " + max);
+        }
+        List<Entry> entries = readAll();
+        if (entries.size() <= max) {
+            clear();
+            return entries;
+        }
+        rewrite(entries.subList(max, entries.size()));
+        return new ArrayList<>(entries.subList(0, max));
+    }
+
+    /**
+     * 用给定记录替换文件内容：先写入新段，再删除旧段
+     * <p>
+     * 中途异常退出时新旧段同时存在，回放按最后一条去重，结果不变。
+     */
+    public synchronized void rewrite(List<Entry> entries) {
+        List<Long> sealed = log.getSegmentIndexes();
+        log.seal();
+        for (Entry entry : entries) {
+            log.append(encode(entry));
+        }
+        for (Long index : sealed) {
+            log.deleteSegment(index);
+        }
+        count = entries.size();
+    }
+
+    /**
+     * 删除全部溢出文件
+     */
+    public synchronized void clear() {
+        log.deleteAll();
+        count = 0;
+    }
+
+    /**
+     * 当前记录数
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public void close() {
+        log.close();
+    }
+
+    /**
+     * 记录去重 key（类名 + 物理表名 + 主键）
+     */
+    public static String keyOf(String className, String tableName, Object[] primaryKey) {
+        return className + '|' + tableName + '|' + Arrays.asList(primaryKey);
+    }
+
+    private static byte[] encode(BaseEntity<?> entity, TaskType type) {
+        List<FieldInfo> fields = entity.getMetadata().getAllFields();
+        String[] names = new String[fields.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = fields.get(i).getFieldName();
+        }
+        return encode(type, entity.getClass().getName(), entity.getTableName(), entity.getPrimaryKeyValues(),
+                names, entity.getAllValues());
+    }
+
+    private static byte[] encode(Entry entry) {
+        return encode(entry.type(), entry.className(), entry.tableName(), entry.primaryKey(),
+                entry.values().keySet().toArray(String[]::new), entry.values().values().toArray());
+    }
+
+    private static byte[] encode(TaskType type, String className, String tableName, Object[] pkValues,
+                                 String[] names, Object[] values) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(buffer);
+        try {
+            out.writeByte(type != null ? type.ordinal() : -1);
+            ValueCodec.writeString(out, className);
+            ValueCodec.writeString(out, tableName);
+            out.writeShort(pkValues.length);
+            for (Object pk : pkValues) {
+                ValueCodec.write(out, pk);
+            }
+            out.writeShort(names.length);
+            for (int i = 0; i < names.length; i++) {
+                ValueCodec.writeString(out, names[i]);
+                ValueCodec.write(out, values[i]);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
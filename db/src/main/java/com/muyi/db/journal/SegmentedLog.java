@@ -0,0 +1,301 @@
+package com.muyi.db.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 分段内存映射追加日志
+ * <p>
+ * 通用的本地追加写存储，按固定大小切分为多个段文件，每段通过 {@link MappedByteBuffer} 写入。
+ * 写入进入页缓存即返回，进程被 kill -9 后数据仍由操作系统落盘；机器掉电场景需配合 {@link #force()}。
+ * <p>
+ * 记录格式：
+ * <pre>
+ * [int 负载长度][int CRC32][负载字节]
+ * </pre>
+ * 段文件预分配并以 0 填充，长度为 0 表示该段后续无数据；CRC 不匹配视为写入被截断，停止读取该段。
+ * <p>
+ * 线程安全：追加操作串行化；读取用于启动恢复，或由其他进程以只读方式追读（{@link #readFrom}）。
+ */
+public class SegmentedLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedLog.class);
+
+    /**
+     * 记录头长度（长度 + CRC）
+     */
+    private static final int HEADER_SIZE = 8;
+
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+    private final String prefix;
+    private final int segmentSize;
+
+    /**
+     * 所有段：段序号 -> 段文件（按序号有序）
+     */
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+
+    /**
+     * 当前写入段
+     */
+    private long activeIndex = -1;
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeBuffer;
+
+    private final CRC32 crc = new CRC32();
+
+    private boolean closed;
+
+    /**
+     * 打开日志目录（目录不存在则创建），已有段文件保留用于恢复读取
+     *
+     * @param dir         日志目录
+     * @param prefix      段文件名前缀
+     * @param segmentSize 单段大小（字节）
+     */
+    public SegmentedLog(Path dir, String prefix, int segmentSize) {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize too small: " + segmentSize);
+        }
+        this.dir = dir;
+        this.prefix = prefix;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(dir);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, prefix + "-*" + SUFFIX)) {
+                for (Path file : stream) {
+                    String name = file.getFileName().toString();
+                    String index = name.substring(prefix.length() + 1, name.length() - SUFFIX.length());
+                    try {
+                        segments.put(Long.parseLong(index), file);
+                    } catch (NumberFormatException e) {
+                        logger.warn("Ignore unrecognized segment file: {}", file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open segmented log: " + dir, e);
+        }
+    }
+
+    // ==================== 写入 ====================
+
+    /**
+     * 追加一条记录
+     *
+     * @param payload 记录负载
+     * @return 记录所在的段序号
+     */
+    public synchronized long append(byte[] payload) {
+        if (closed) {
+            throw new IllegalStateException("SegmentedLog is closed: " + dir);
+        }
+        int recordSize = HEADER_SIZE + payload.length;
+        if (activeBuffer == null || activeBuffer.remaining() < recordSize + HEADER_SIZE) {
+            roll(recordSize + HEADER_SIZE);
+        }
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+        // 先写负载和 CRC，最后写长度：读取方以长度非 0 判断记录存在
+        int start = activeBuffer.position();
+        activeBuffer.position(start + HEADER_SIZE);
+        activeBuffer.put(payload);
+        activeBuffer.putInt(start + 4, (int) crc.getValue());
+        activeBuffer.putInt(start, payload.length);
+        return activeIndex;
+    }
+
+    /**
+     * 将当前段刷到磁盘（掉电保护，开销较大）
+     */
+    public synchronized void force() {
+        if (activeBuffer != null) {
+            activeBuffer.force();
+        }
+    }
+
+    /**
+     * 封存当前写入段：之后的追加写入新段，原写入段可以删除
+     */
+    public synchronized void seal() {
+        closeActive();
+        activeIndex = -1;
+    }
+
+    /**
+     * 切换到新段
+     */
+    private void roll(int minSize) {
+        closeActive();
+        long index = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        Path file = dir.resolve(String.format("%s-%020d%s", prefix, index, SUFFIX));
+        int size = Math.max(segmentSize, minSize);
+        try {
+            activeChannel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create segment: " + file, e);
+        }
+        activeIndex = index;
+        segments.put(index, file);
+        logger.debug("Segment rolled: {}", file);
+    }
+
+    private void closeActive() {
+        if (activeBuffer != null) {
+            activeBuffer.force();
+            activeBuffer = null;
+        }
+        if (activeChannel != null) {
+            try {
+                activeChannel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close segment channel", e);
+            }
+            activeChannel = null;
+        }
+    }
+
+    // ==================== 读取 ====================
+
+    /**
+     * 记录访问器
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        /**
+         * @param segmentIndex 段序号
+         * @param payload      记录负载（只读，仅在回调内有效）
+         */
+        void visit(long segmentIndex, ByteBuffer payload);
+    }
+
+    /**
+     * 按写入顺序遍历所有段中的有效记录
+     */
+    public void readAll(RecordVisitor visitor) {
+        for (Long index : new ArrayList<>(segments.keySet())) {
+            readSegment(index, visitor);
+        }
+    }
+
+    /**
+     * 从指定段开始（含）按写入顺序遍历有效记录，用于其他进程追读日志
+     * <p>
+     * 只读取构造时扫描到的段；追读方每轮重新打开以发现新段。正在写入的段读到未写完的记录处停止。
+     */
+    public void readFrom(long fromSegment, RecordVisitor visitor) {
+        for (Long index : new ArrayList<>(segments.tailMap(fromSegment, true).keySet())) {
+            readSegment(index, visitor);
+        }
+    }
+
+    private void readSegment(long index, RecordVisitor visitor) {
+        Path file = segments.get(index);
+        if (file == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 readCrc = new CRC32();
+            while (buffer.remaining() >= HEADER_SIZE) {
+                int start = buffer.position();
+                int length = buffer.getInt(start);
+                if (length <= 0 || length > buffer.remaining() - HEADER_SIZE) {
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(start + HEADER_SIZE, length).asReadOnlyBuffer();
+                readCrc.reset();
+                readCrc.update(payload.duplicate());
+                if ((int) readCrc.getValue() != buffer.getInt(start + 4)) {
+                    logger.warn("Segment {} truncated at offset {}, remaining records ignored", file, start);
+                    break;
+                }
+                visitor.visit(index, payload);
+                buffer.position(start + HEADER_SIZE + length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read segment: " + file, e);
+        }
+    }
+
+    // ==================== 段管理 ====================
+
+    /**
+     * 获取所有段序号（升序）
+     */
+    public List<Long> getSegmentIndexes() {
+        return new ArrayList<>(segments.keySet());
+    }
+
+    /**
+     * 获取当前写入段序号（未写入过返回 -1）
+     */
+    public synchronized long getActiveIndex() {
+        return activeIndex;
+    }
+
+    /**
+     * 删除指定段（当前写入段不可删除）
+     *
+     * @return 是否删除成功（Windows 下映射未释放时可能失败，可稍后重试）
+     */
+    public synchronized boolean deleteSegment(long index) {
+        if (index == activeIndex) {
+            return false;
+        }
+        Path file = segments.get(index);
+        if (file == null) {
+            return true;
+        }
+        try {
+            Files.deleteIfExists(file);
+            segments.remove(index);
+            return true;
+        } catch (IOException e) {
+            logger.debug("Segment {} not deletable yet: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 删除全部段（包括当前写入段）
+     */
+    public synchronized void deleteAll() {
+        closeActive();
+        activeIndex = -1;
+        for (Long index : new ArrayList<>(segments.keySet())) {
+            deleteSegment(index);
+        }
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            closeActive();
+        }
+    }
+}
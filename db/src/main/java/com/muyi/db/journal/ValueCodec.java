@@ -0,0 +1,143 @@
+package com.muyi.db.journal;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 列值二进制编解码（带类型标记）
+ * <p>
+ * 用于本地日志中保存实体快照，支持 JDBC 常用的列值类型；
+ * 其他类型按 {@code toString()} 保存，回放时由实体元数据做类型转换。
+ */
+public final class ValueCodec {
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte FLOAT = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte SHORT = 6;
+    private static final byte BYTE = 7;
+    private static final byte STRING = 8;
+    private static final byte BYTES = 9;
+    private static final byte DECIMAL = 10;
+    private static final byte TIMESTAMP = 11;
+    private static final byte SQL_DATE = 12;
+    private static final byte SQL_TIME = 13;
+    private static final byte UTIL_DATE = 14;
+
+    private ValueCodec() {
+    }
+
+    /**
+     * 写入一个值
+     */
+    public static void write(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer v) {
+            out.writeByte(INT);
+            out.writeInt(v);
+        } else if (value instanceof Long v) {
+            out.writeByte(LONG);
+            out.writeLong(v);
+        } else if (value instanceof String v) {
+            out.writeByte(STRING);
+            writeString(out, v);
+        } else if (value instanceof Double v) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(v);
+        } else if (value instanceof Float v) {
+            out.writeByte(FLOAT);
+            out.writeFloat(v);
+        } else if (value instanceof Boolean v) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(v);
+        } else if (value instanceof Short v) {
+            out.writeByte(SHORT);
+            out.writeShort(v);
+        } else if (value instanceof Byte v) {
+            out.writeByte(BYTE);
+            out.writeByte(v);
+        } else if (value instanceof byte[] v) {
+            out.writeByte(BYTES);
+            out.writeInt(v.length);
+            out.write(v);
+        } else if (value instanceof BigDecimal v) {
+            out.writeByte(DECIMAL);
+            writeString(out, v.toString());
+        } else if (value instanceof java.sql.Timestamp v) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(v.getTime());
+            out.writeInt(v.getNanos());
+        } else if (value instanceof java.sql.Date v) {
+            out.writeByte(SQL_DATE);
+            out.writeLong(v.getTime());
+        } else if (value instanceof java.sql.Time v) {
+            out.writeByte(SQL_TIME);
+            out.writeLong(v.getTime());
+        } else if (value instanceof java.util.Date v) {
+            out.writeByte(UTIL_DATE);
+            out.writeLong(v.getTime());
+        } else {
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    /**
+     * 读取一个值
+     */
+    public static Object read(ByteBuffer in) {
+        byte tag = in.get();
+        return switch (tag) {
+            case NULL -> null;
+            case INT -> in.getInt();
+            case LONG -> in.getLong();
+            case DOUBLE -> in.getDouble();
+            case FLOAT -> in.getFloat();
+            case BOOLEAN -> in.get() != 0;
+            case SHORT -> in.getShort();
+            case BYTE -> in.get();
+            case STRING -> readString(in);
+            case BYTES -> {
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                yield bytes;
+            }
+            case DECIMAL -> new BigDecimal(readString(in));
+            case TIMESTAMP -> {
+                java.sql.Timestamp ts = new java.sql.Timestamp(in.getLong());
+                ts.setNanos(in.getInt());
+                yield ts;
+            }
+            case SQL_DATE -> new java.sql.Date(in.getLong());
+            case SQL_TIME -> new java.sql.Time(in.getLong());
+            case UTIL_DATE -> new java.util.Date(in.getLong());
+            default -> throw new IllegalStateException("Unknown value tag: " + tag);
+        };
+    }
+
+    /**
+     * 写入字符串（int 长度 + UTF-8，不受 writeUTF 64KB 限制）
+     */
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 读取字符串
+     */
+    public static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
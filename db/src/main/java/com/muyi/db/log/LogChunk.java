@@ -0,0 +1,108 @@
+package com.muyi.db.log;
+
+/**
+ * 列式日志块
+ * <p>
+ * 每列一个数组（INT / LONG 为 long[]，DOUBLE 为 double[]，STRING 为 String[]），追加时不创建行对象；
+ * 写满后封存，由刷盘线程整块写入。{@link #flushed} 记录已写入的行数，部分写入后重试只写剩余行。
+ * <p>
+ * 追加在表缓冲的锁内进行，刷盘线程只读取已封存的块。
+ */
+final class LogChunk {
+
+    final LogSchema schema;
+
+    /**
+     * 每行的追加时间（决定分表和写入时间列）
+     */
+    final long[] times;
+
+    /**
+     * 每列的值数组
+     */
+    final Object[] columns;
+
+    int size;
+
+    /**
+     * 已写入数据库的行数（刷盘线程维护）
+     */
+    int flushed;
+
+    LogChunk(LogSchema schema, int capacity) {
+        this.schema = schema;
+        this.times = new long[capacity];
+        this.columns = new Object[schema.getColumnCount()];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = switch (schema.getType(c)) {
+                case INT, LONG -> new long[capacity];
+                case DOUBLE -> new double[capacity];
+                case STRING -> new String[capacity];
+            };
+        }
+    }
+
+    boolean isFull() {
+        return size == times.length;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 剩余未写入的行数
+     */
+    int remaining() {
+        return size - flushed;
+    }
+
+    /**
+     * 追加一行（值已由 {@link #validate} 校验）
+     */
+    void append(long time, Object[] values) {
+        int row = size;
+        times[row] = time;
+        for (int c = 0; c < columns.length; c++) {
+            Object value = values[c];
+            switch (schema.getType(c)) {
+                case INT, LONG -> ((long[]) columns[c])[row] = ((Number) value).longValue();
+                case DOUBLE -> ((double[]) columns[c])[row] = ((Number) value).doubleValue();
+                case STRING -> ((String[]) columns[c])[row] = value != null ? value.toString() : null;
+            }
+        }
+        size = row + 1;
+    }
+
+    /**
+     * 校验值的个数和类型（在加锁前调用）
+     */
+    static void validate(LogSchema schema, Object[] values) {
+        if (values == null || values.length != schema.getColumnCount()) {
+            throw new IllegalArgumentException("Log " + schema.getTableName() + " expects " + schema.getColumnCount()
+                    + " values, got: " + (values == null ? 0 : values.length));
+        }
+        for (int c = 0; c < values.length; c++) {
+            if (schema.getType(c) != LogSchema.Type.STRING && !(values[c] instanceof Number)) {
+                throw new IllegalArgumentException("Log column " + schema.getColumns().get(c)
+                        + " expects a number, got: " + values[c]);
+            }
+        }
+    }
+
+    /**
+     * 估算一行在文本协议下的字节数（用于多行语句分块）
+     */
+    long estimateRowBytes(int row) {
+        long bytes = 4;
+        for (int c = 0; c < columns.length; c++) {
+            if (columns[c] instanceof String[] strings) {
+                String value = strings[row];
+                bytes += value == null ? 6 : value.length() * 3L + 4;
+            } else {
+                bytes += 24;
+            }
+        }
+        return schema.getTimeColumn() != null ? bytes + 26 : bytes;
+    }
+}
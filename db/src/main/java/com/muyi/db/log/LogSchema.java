@@ -0,0 +1,186 @@
+package com.muyi.db.log;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 日志表结构
+ * <p>
+ * 日志只追加不修改，不继承 BaseEntity：没有变更追踪、脏数据缓存和版本控制，
+ * 按列顺序传入字段值即可写入 {@link LogSink}。
+ *
+ * <pre>{@code
+ * // 模板表 log_item 需预先建好，按天分表时自动创建 log_item_20261018 等（CREATE TABLE ... LIKE log_item）
+ * public static final LogSchema ITEM_LOG = new LogSchema("log_item", LogSchema.Partition.DAY)
+ *         .column("uid", LogSchema.Type.LONG)
+ *         .column("item_id", LogSchema.Type.INT)
+ *         .column("delta", LogSchema.Type.LONG)
+ *         .column("reason", LogSchema.Type.STRING)
+ *         .timeColumn("log_time");
+ *
+ * db.appendLog(ITEM_LOG, uid, itemId, -5L, "shop_buy");
+ * }</pre>
+ */
+public class LogSchema {
+
+    /**
+     * 列类型（INT / LONG / DOUBLE 按原始类型列式存储，不允许为 null）
+     */
+    public enum Type {
+        INT,
+        LONG,
+        DOUBLE,
+        STRING
+    }
+
+    /**
+     * 分表方式（按写入时间，使用系统时区）
+     */
+    public enum Partition {
+        /**
+         * 不分表，直接写入模板表
+         */
+        NONE(null),
+        /**
+         * 按天分表：table_yyyyMMdd
+         */
+        DAY(DateTimeFormatter.ofPattern("yyyyMMdd")),
+        /**
+         * 按月分表：table_yyyyMM
+         */
+        MONTH(DateTimeFormatter.ofPattern("yyyyMM"));
+
+        private final DateTimeFormatter suffix;
+
+        Partition(DateTimeFormatter suffix) {
+            this.suffix = suffix;
+        }
+
+        /**
+         * 时间所在分区的起始日期
+         */
+        LocalDate startOf(long timeMillis, ZoneId zone) {
+            LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(timeMillis), zone);
+            return this == MONTH ? date.withDayOfMonth(1) : date;
+        }
+
+        /**
+         * 下一个分区的起始日期
+         */
+        LocalDate next(LocalDate start) {
+            return this == MONTH ? start.plusMonths(1) : start.plusDays(1);
+        }
+
+        String tableName(String baseTable, LocalDate start) {
+            return suffix == null ? baseTable : baseTable + "_" + suffix.format(start);
+        }
+    }
+
+    private final String tableName;
+    private final Partition partition;
+    private final List<String> columns = new ArrayList<>();
+    private final List<Type> types = new ArrayList<>();
+
+    /**
+     * 写入时间列（DATETIME(3)，由 LogSink 按追加时间填充，null 表示没有）
+     */
+    private String timeColumn;
+
+    /**
+     * @param tableName 模板表名（分表时作为表名前缀，表结构从模板表复制）
+     * @param partition 分表方式
+     */
+    public LogSchema(String tableName, Partition partition) {
+        if (tableName == null || tableName.isEmpty()) {
+            throw new IllegalArgumentException("tableName must not be empty");
+        }
+        if (partition == null) {
+            throw new IllegalArgumentException("partition must not be null");
+        }
+        this.tableName = tableName;
+        this.partition = partition;
+    }
+
+    public LogSchema column(String name, Type type) {
+        if (name == null || name.isEmpty() || type == null) {
+            throw new IllegalArgumentException("column name and type must not be empty");
+        }
+        if (columns.contains(name) || name.equals(timeColumn)) {
+            throw new IllegalArgumentException("Duplicate log column: " + name);
+        }
+        columns.add(name);
+        types.add(type);
+        return this;
+    }
+
+    /**
+     * 写入时间列：不需要在追加时传值，刷盘时写入事件的追加时间
+     */
+    public LogSchema timeColumn(String name) {
+        if (name == null || name.isEmpty() || columns.contains(name)) {
+            throw new IllegalArgumentException("Invalid time column: " + name);
+        }
+        this.timeColumn = name;
+        return this;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Partition getPartition() {
+        return partition;
+    }
+
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    public List<Type> getTypes() {
+        return Collections.unmodifiableList(types);
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    Type getType(int column) {
+        return types.get(column);
+    }
+
+    public String getTimeColumn() {
+        return timeColumn;
+    }
+
+    /**
+     * 写入语句中的列数（含写入时间列）
+     */
+    int getWriteColumnCount() {
+        return columns.size() + (timeColumn != null ? 1 : 0);
+    }
+
+    /**
+     * 写入语句的列清单：{@code (`a`,`b`,`log_time`)}
+     */
+    String columnList() {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('`').append(columns.get(i)).append('`');
+        }
+        if (timeColumn != null) {
+            if (!columns.isEmpty()) {
+                sb.append(',');
+            }
+            sb.append('`').append(timeColumn).append('`');
+        }
+        return sb.append(')').toString();
+    }
+}
@@ -0,0 +1,549 @@
+package com.muyi.db.log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.muyi.common.util.time.TimeUtils;
+
+/**
+ * 追加型日志写入器
+ * <p>
+ * 用于资源流水、道具流水、战报等只追加的行为日志，绕开实体的变更追踪、脏数据缓存和逐行落地：
+ * <ul>
+ *   <li>追加时只把值写入所在表的列式块（{@link LogChunk}），只锁该表的缓冲</li>
+ *   <li>刷盘线程按 flushIntervalMs 或块写满时批量写入，同一分区的连续行合并为一次写入</li>
+ *   <li>按天/按月分表，首次写入新分区时 {@code CREATE TABLE IF NOT EXISTS ... LIKE 模板表}</li>
+ *   <li>写入方式为多行 INSERT 或 {@code LOAD DATA LOCAL INFILE}（暂存文件），后者失败时回退为多行 INSERT</li>
+ * </ul>
+ * 写入失败的块保留到下一轮重试，数据本身有误的行拆分定位后丢弃并计数；缓冲超过 maxBufferedRows 时丢弃最旧的块并计数，日志写入不会阻塞业务线程。
+ */
+public class LogSink implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogSink.class);
+
+    /**
+     * 单条语句的占位符上限（MySQL 协议限制）
+     */
+    private static final int MAX_STATEMENT_PARAMS = 65535;
+
+    private static final DateTimeFormatter DATETIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final DataSource dataSource;
+    private final LogSinkConfig config;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    /**
+     * 表名 -> 缓冲
+     */
+    private final Map<String, TableBuffer> buffers = new ConcurrentHashMap<>();
+
+    /**
+     * 已创建的分表
+     */
+    private final Set<String> createdTables = ConcurrentHashMap.newKeySet();
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final LongAdder appendedRows = new LongAdder();
+    private final LongAdder droppedRows = new LongAdder();
+    private final LongAdder rejectedRows = new LongAdder();
+    private final AtomicLong writtenRows = new AtomicLong();
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private final AtomicLong loadDataFallbacks = new AtomicLong();
+
+    public LogSink(DataSource dataSource, LogSinkConfig config) {
+        if (config.mode == LogSinkConfig.Mode.LOAD_DATA && config.stagingDir == null) {
+            throw new IllegalArgumentException("stagingDir is required for LOAD_DATA mode");
+        }
+        this.dataSource = dataSource;
+        this.config = config;
+        this.flusher = new Thread(this::runFlusher, "muyi-db-log-sink");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        logger.info("LogSink started: mode={}, flushIntervalMs={}, chunkRows={}",
+                config.mode, config.flushIntervalMs, config.chunkRows);
+    }
+
+    /**
+     * 追加一条日志（按当前时间分表）
+     *
+     * @param values 按 schema 列顺序的值，不含写入时间列
+     * @return false 表示已关闭或缓冲已满被丢弃
+     */
+    public boolean append(LogSchema schema, Object... values) {
+        return appendAt(schema, TimeUtils.currentTimeMillis(), values);
+    }
+
+    /**
+     * 按指定时间追加一条日志（补录等场景，时间决定分表和写入时间列）
+     */
+    public boolean appendAt(LogSchema schema, long timeMillis, Object... values) {
+        LogChunk.validate(schema, values);
+        if (!running) {
+            droppedRows.increment();
+            return false;
+        }
+        TableBuffer buffer = buffers.computeIfAbsent(schema.getTableName(), k -> new TableBuffer(schema));
+        if (buffer.schema != schema && !buffer.schema.columnList().equals(schema.columnList())) {
+            throw new IllegalArgumentException("Log table " + schema.getTableName()
+                    + " already registered with columns " + buffer.schema.columnList());
+        }
+        boolean sealed;
+        synchronized (buffer) {
+            if (buffer.bufferedRows >= config.maxBufferedRows && !buffer.evictOldest()) {
+                droppedRows.increment();
+                return false;
+            }
+            if (buffer.current == null) {
+                buffer.current = new LogChunk(buffer.schema, config.chunkRows);
+            }
+            buffer.current.append(timeMillis, values);
+            buffer.bufferedRows++;
+            sealed = buffer.current.isFull();
+            if (sealed) {
+                buffer.sealed.addLast(buffer.current);
+                buffer.current = null;
+            }
+        }
+        appendedRows.increment();
+        if (sealed) {
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    /**
+     * 立即写入所有已缓冲的日志（在调用线程执行，与刷盘线程互斥）
+     */
+    public void flush() {
+        flushAll(true);
+    }
+
+    /**
+     * 停止刷盘线程并写入剩余日志
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("LogSink closed: appended={}, written={}, dropped={}",
+                appendedRows.sum(), writtenRows.get(), droppedRows.sum());
+    }
+
+    // ==================== 刷盘 ====================
+
+    private void runFlusher() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.flushIntervalMs);
+        long nextSeal = System.nanoTime() + intervalNanos;
+        while (running) {
+            long waitNanos = nextSeal - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+            }
+            // 块写满唤醒时只写已封存的块，到达刷盘间隔才封存未写满的块
+            boolean seal = System.nanoTime() - nextSeal >= 0 || !running;
+            try {
+                flushAll(seal);
+            } catch (Exception e) {
+                logger.error("LogSink flush error", e);
+            }
+            if (seal) {
+                nextSeal = System.nanoTime() + intervalNanos;
+            }
+        }
+        flushAll(true);
+    }
+
+    private synchronized void flushAll(boolean sealCurrent) {
+        for (TableBuffer buffer : buffers.values()) {
+            flushTable(buffer, sealCurrent);
+        }
+    }
+
+    private void flushTable(TableBuffer buffer, boolean sealCurrent) {
+        while (true) {
+            LogChunk chunk;
+            synchronized (buffer) {
+                if (sealCurrent && buffer.current != null && !buffer.current.isEmpty()) {
+                    buffer.sealed.addLast(buffer.current);
+                    buffer.current = null;
+                }
+                chunk = buffer.sealed.peekFirst();
+                if (chunk == null) {
+                    return;
+                }
+                buffer.writing = chunk;
+            }
+            try {
+                writeChunk(buffer.schema, chunk);
+            } catch (SQLException e) {
+                flushFailures.incrementAndGet();
+                logger.warn("LogSink write {} failed, {} rows kept for retry: {}",
+                        buffer.schema.getTableName(), chunk.remaining(), e.getMessage());
+                synchronized (buffer) {
+                    buffer.writing = null;
+                }
+                return;
+            }
+            synchronized (buffer) {
+                buffer.sealed.remove(chunk);
+                buffer.bufferedRows -= chunk.size;
+                buffer.writing = null;
+            }
+        }
+    }
+
+    /**
+     * 写入块中未写入的行：按分区切分为连续的段，每段写入对应的分表
+     */
+    private void writeChunk(LogSchema schema, LogChunk chunk) throws SQLException {
+        LogSchema.Partition partition = schema.getPartition();
+        try (Connection conn = dataSource.getConnection()) {
+            while (chunk.flushed < chunk.size) {
+                int from = chunk.flushed;
+                int end = chunk.size;
+                String table = schema.getTableName();
+                if (partition != LogSchema.Partition.NONE) {
+                    LocalDate start = partition.startOf(chunk.times[from], zone);
+                    long lower = start.atStartOfDay(zone).toInstant().toEpochMilli();
+                    long upper = partition.next(start).atStartOfDay(zone).toInstant().toEpochMilli();
+                    end = from + 1;
+                    while (end < chunk.size && chunk.times[end] >= lower && chunk.times[end] < upper) {
+                        end++;
+                    }
+                    table = partition.tableName(schema.getTableName(), start);
+                    ensureTable(conn, schema.getTableName(), table);
+                }
+                if (config.mode == LogSinkConfig.Mode.LOAD_DATA) {
+                    loadData(conn, schema, chunk, table, end);
+                } else {
+                    insertRows(conn, schema, chunk, table, end);
+                }
+            }
+        }
+    }
+
+    private void ensureTable(Connection conn, String template, String table) throws SQLException {
+        if (createdTables.contains(table)) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS `" + table + "` LIKE `" + template + "`");
+            statements.incrementAndGet();
+        }
+        createdTables.add(table);
+        logger.info("LogSink created partition table {}", table);
+    }
+
+    /**
+     * 多行 INSERT 写入 [flushed, end)，按占位符上限和 maxPacketBytes 分条，每条成功后推进 flushed
+     */
+    private void insertRows(Connection conn, LogSchema schema, LogChunk chunk, String table, int end)
+            throws SQLException {
+        int writeColumns = schema.getWriteColumnCount();
+        int maxRows = Math.max(1, MAX_STATEMENT_PARAMS / Math.max(1, writeColumns));
+        long budget = config.maxPacketBytes - 256L - 64L * writeColumns;
+        String rowPlaceholders = "(" + "?,".repeat(writeColumns - 1) + "?)";
+        String header = "INSERT INTO `" + table + "` " + schema.columnList() + " VALUES ";
+
+        while (chunk.flushed < end) {
+            int from = chunk.flushed;
+            int to = from;
+            long used = 0;
+            while (to < end && to - from < maxRows) {
+                long rowBytes = chunk.estimateRowBytes(to);
+                if (to > from && used + rowBytes > budget) {
+                    break;
+                }
+                used += rowBytes;
+                to++;
+            }
+            insertRange(conn, schema, chunk, table, header, rowPlaceholders, from, to);
+        }
+    }
+
+    /**
+     * 一条多行 INSERT 写入 [from, to)
+     * <p>
+     * 数据错误（超长、类型不符、约束冲突、语法错误）重试也不会成功：二分拆小直到定位出坏行，
+     * 丢弃坏行并计入 rejectedRows，其余行照常写入；连接类等可恢复的错误直接抛出，整块留到下一轮重试。
+     */
+    private void insertRange(Connection conn, LogSchema schema, LogChunk chunk, String table, String header,
+                             String rowPlaceholders, int from, int to) throws SQLException {
+        StringBuilder sql = new StringBuilder(header.length() + (to - from) * (rowPlaceholders.length() + 1));
+        sql.append(header);
+        for (int row = from; row < to; row++) {
+            if (row > from) {
+                sql.append(',');
+            }
+            sql.append(rowPlaceholders);
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (int row = from; row < to; row++) {
+                index = bindRow(ps, index, schema, chunk, row);
+            }
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            if (!isRejected(e)) {
+                throw e;
+            }
+            if (to - from == 1) {
+                rejectedRows.increment();
+                chunk.flushed = to;
+                logger.warn("LogSink dropped bad row {} of {}: {}", from, table, e.getMessage());
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            insertRange(conn, schema, chunk, table, header, rowPlaceholders, from, mid);
+            insertRange(conn, schema, chunk, table, header, rowPlaceholders, mid, to);
+            return;
+        }
+        statements.incrementAndGet();
+        chunk.flushed = to;
+        writtenRows.addAndGet(to - from);
+    }
+
+    /**
+     * 是否为与数据本身相关、重试也不会成功的错误（SQLState 22 数据异常 / 23 约束冲突）
+     * <p>
+     * 表不存在、无权限、表结构不一致（42 类）等属于环境故障，整块保留等待重试，不能逐行丢弃
+     */
+    private static boolean isRejected(SQLException e) {
+        if (e instanceof SQLDataException || e instanceof SQLIntegrityConstraintViolationException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    private static int bindRow(PreparedStatement ps, int index, LogSchema schema, LogChunk chunk, int row)
+            throws SQLException {
+        for (int c = 0; c < chunk.columns.length; c++) {
+            Object column = chunk.columns[c];
+            if (column instanceof long[] longs) {
+                ps.setLong(index++, longs[row]);
+            } else if (column instanceof double[] doubles) {
+                ps.setDouble(index++, doubles[row]);
+            } else {
+                String value = ((String[]) column)[row];
+                if (value == null) {
+                    ps.setNull(index++, Types.VARCHAR);
+                } else {
+                    ps.setString(index++, value);
+                }
+            }
+        }
+        if (schema.getTimeColumn() != null) {
+            ps.setTimestamp(index++, new Timestamp(chunk.times[row]));
+        }
+        return index;
+    }
+
+    /**
+     * 写入暂存文件后 LOAD DATA LOCAL INFILE；失败时本段回退为多行 INSERT
+     */
+    private void loadData(Connection conn, LogSchema schema, LogChunk chunk, String table, int end)
+            throws SQLException {
+        int from = chunk.flushed;
+        Path file = null;
+        try {
+            Path dir = Paths.get(config.stagingDir);
+            Files.createDirectories(dir);
+            file = Files.createTempFile(dir, table + "_", ".tsv");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                StringBuilder line = new StringBuilder(256);
+                for (int row = from; row < end; row++) {
+                    line.setLength(0);
+                    appendTsvRow(line, schema, chunk, row, zone);
+                    writer.append(line);
+                }
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(loadDataSql(file, table, schema));
+            }
+            statements.incrementAndGet();
+            chunk.flushed = end;
+            writtenRows.addAndGet(end - from);
+        } catch (IOException | SQLException e) {
+            loadDataFallbacks.incrementAndGet();
+            logger.warn("LogSink LOAD DATA into {} failed, falling back to multi-row insert: {}",
+                    table, e.getMessage());
+            insertRows(conn, schema, chunk, table, end);
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("LogSink failed to delete staging file {}", file);
+                }
+            }
+        }
+    }
+
+    static String loadDataSql(Path file, String table, LogSchema schema) {
+        String path = file.toAbsolutePath().toString().replace("\\", "\\\\").replace("'", "\\'");
+        return "LOAD DATA LOCAL INFILE '" + path + "' INTO TABLE `" + table + "` CHARACTER SET utf8mb4"
+                + " FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' "
+                + schema.columnList();
+    }
+
+    /**
+     * 一行 TSV（以 \n 结尾），null 写为 \N
+     */
+    static void appendTsvRow(StringBuilder sb, LogSchema schema, LogChunk chunk, int row, ZoneId zone) {
+        for (int c = 0; c < chunk.columns.length; c++) {
+            if (c > 0) {
+                sb.append('\t');
+            }
+            Object column = chunk.columns[c];
+            if (column instanceof long[] longs) {
+                sb.append(longs[row]);
+            } else if (column instanceof double[] doubles) {
+                sb.append(doubles[row]);
+            } else {
+                appendTsvValue(sb, ((String[]) column)[row]);
+            }
+        }
+        if (schema.getTimeColumn() != null) {
+            if (chunk.columns.length > 0) {
+                sb.append('\t');
+            }
+            DATETIME_FORMAT.formatTo(Instant.ofEpochMilli(chunk.times[row]).atZone(zone), sb);
+        }
+        sb.append('\n');
+    }
+
+    static void appendTsvValue(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\0' -> sb.append("\\0");
+                default -> sb.append(ch);
+            }
+        }
+    }
+
+    // ==================== 统计 ====================
+
+    /**
+     * 缓冲中的行数（含写入失败待重试的行）
+     */
+    public long getBufferedRows() {
+        long total = 0;
+        for (TableBuffer buffer : buffers.values()) {
+            synchronized (buffer) {
+                total += buffer.bufferedRows;
+            }
+        }
+        return total;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("mode", config.mode.name());
+        snapshot.put("appendedRows", appendedRows.sum());
+        snapshot.put("writtenRows", writtenRows.get());
+        snapshot.put("droppedRows", droppedRows.sum());
+        snapshot.put("rejectedRows", rejectedRows.sum());
+        snapshot.put("statements", statements.get());
+        snapshot.put("flushFailures", flushFailures.get());
+        snapshot.put("loadDataFallbacks", loadDataFallbacks.get());
+        snapshot.put("partitionTables", createdTables.size());
+        Map<String, Object> tables = new LinkedHashMap<>();
+        for (Map.Entry<String, TableBuffer> entry : buffers.entrySet()) {
+            synchronized (entry.getValue()) {
+                tables.put(entry.getKey(), entry.getValue().bufferedRows);
+            }
+        }
+        snapshot.put("bufferedRows", tables);
+        return snapshot;
+    }
+
+    /**
+     * 单表缓冲：正在追加的块 + 已封存待写入的块（访问需锁定自身）
+     */
+    private final class TableBuffer {
+        final LogSchema schema;
+        final ArrayDeque<LogChunk> sealed = new ArrayDeque<>();
+        LogChunk current;
+
+        /**
+         * 刷盘线程正在写入的块（不可丢弃）
+         */
+        LogChunk writing;
+
+        int bufferedRows;
+
+        TableBuffer(LogSchema schema) {
+            this.schema = schema;
+        }
+
+        /**
+         * 丢弃最旧的一个未在写入的已封存块
+         */
+        boolean evictOldest() {
+            Iterator<LogChunk> it = sealed.iterator();
+            while (it.hasNext()) {
+                LogChunk chunk = it.next();
+                if (chunk != writing) {
+                    it.remove();
+                    bufferedRows -= chunk.size;
+                    droppedRows.add(chunk.remaining());
+                    logger.warn("LogSink buffer of {} full, dropped {} rows", schema.getTableName(), chunk.remaining());
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
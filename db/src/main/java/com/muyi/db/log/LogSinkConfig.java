@@ -0,0 +1,116 @@
+package com.muyi.db.log;
+
+/**
+ * 日志写入配置
+ */
+public class LogSinkConfig {
+
+    /**
+     * 批量写入方式
+     */
+    public enum Mode {
+        /** 多行 INSERT，按 maxPacketBytes 和参数上限分块 */
+        MULTI_ROW,
+        /**
+         * 写入本地暂存文件后 {@code LOAD DATA LOCAL INFILE}（需服务端 local_infile=ON，
+         * 连接只允许读取 stagingDir 下的文件），执行失败时本轮改用多行 INSERT
+         */
+        LOAD_DATA
+    }
+
+    /**
+     * 刷盘间隔（毫秒）；块写满时提前刷盘
+     */
+    long flushIntervalMs = 1000;
+
+    /**
+     * 每个块的行数
+     */
+    int chunkRows = 4096;
+
+    /**
+     * 每张表最多缓冲的行数，超过后丢弃最旧的块（数据库长时间不可用时保护内存）
+     */
+    int maxBufferedRows = 1_000_000;
+
+    Mode mode = Mode.MULTI_ROW;
+
+    /**
+     * LOAD_DATA 暂存文件目录
+     */
+    String stagingDir;
+
+    /**
+     * 多行 INSERT 单条语句的最大字节数（应不大于服务端 max_allowed_packet）
+     */
+    int maxPacketBytes = 4 * 1024 * 1024;
+
+    public LogSinkConfig flushIntervalMs(long intervalMs) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("flushIntervalMs must be positive, got: " + intervalMs);
+        }
+        this.flushIntervalMs = intervalMs;
+        return this;
+    }
+
+    public LogSinkConfig chunkRows(int rows) {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("chunkRows must be positive, got: " + rows);
+        }
+        this.chunkRows = rows;
+        return this;
+    }
+
+    public LogSinkConfig maxBufferedRows(int rows) {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("maxBufferedRows must be positive, got: " + rows);
+        }
+        this.maxBufferedRows = rows;
+        return this;
+    }
+
+    public LogSinkConfig mode(Mode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("mode must not be null");
+        }
+        this.mode = mode;
+        return this;
+    }
+
+    public LogSinkConfig stagingDir(String dir) {
+        this.stagingDir = dir;
+        return this;
+    }
+
+    public LogSinkConfig maxPacketBytes(int bytes) {
+        if (bytes < 4096) {
+            throw new IllegalArgumentException("maxPacketBytes must be at least 4096, got: " + bytes);
+        }
+        this.maxPacketBytes = bytes;
+        return this;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public int getChunkRows() {
+        return chunkRows;
+    }
+
+    public int getMaxBufferedRows() {
+        return maxBufferedRows;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public String getStagingDir() {
+        return stagingDir;
+    }
+
+    public int getMaxPacketBytes() {
+        return maxPacketBytes;
+    }
+}
@@ -0,0 +1,297 @@
+package com.muyi.db.sql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.muyi.db.exception.DbException;
+
+/**
+ * 异步查询执行器
+ * <p>
+ * 每个查询在独立的虚拟线程中执行，调用方（玩家分片线程、RPC 处理线程、定时任务线程）拿到
+ * {@link CompletableFuture} 后立即返回，慢查询不会占用数量有限的平台线程。
+ * <p>
+ * 并发控制：
+ * <ul>
+ *   <li>隔离舱：按调用方类别（如 "player"、"rpc"、"gm"）限制同时执行数 maxConcurrent 和排队数 maxQueued，
+ *       超出时立即以 {@link DbException} 失败，某一类调用方的慢查询不会挤占其他类别</li>
+ *   <li>全局上限：所有类别合计同时执行的查询数（通常等于连接池大小），排队等待超过 maxWaitMs 时失败</li>
+ * </ul>
+ * 后续阶段（thenApply 等）默认在查询的虚拟线程上执行；需要回到业务线程时使用 {@code thenAcceptAsync(action, 业务线程执行器)}。
+ */
+public final class AsyncQueryExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncQueryExecutor.class);
+
+    /**
+     * 未指定类别时使用的默认类别
+     */
+    public static final String DEFAULT_CATEGORY = "default";
+
+    /**
+     * 隔离舱限制
+     *
+     * @param maxConcurrent 同时执行的查询数
+     * @param maxQueued     等待执行的查询数（0 表示不排队，达到并发上限时立即失败）
+     */
+    public record Limit(int maxConcurrent, int maxQueued) {
+        public Limit {
+            if (maxConcurrent <= 0) {
+                throw new IllegalArgumentException("maxConcurrent must be positive, got: " + maxConcurrent);
+            }
+            if (maxQueued < 0) {
+                throw new IllegalArgumentException("maxQueued cannot be negative, got: " + maxQueued);
+            }
+        }
+    }
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-async-query-", 0).factory());
+
+    /**
+     * 全局同时执行数
+     */
+    private final int maxConcurrency;
+    private final Semaphore globalPermits;
+    private final long maxWaitNanos;
+    private final Limit defaultLimit;
+    private final Map<String, Limit> limits;
+    private final ConcurrentHashMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    private volatile boolean shutdown;
+
+    /**
+     * @param maxConcurrency 全局同时执行的查询数
+     * @param maxWaitMs      排队等待执行的最长时间（毫秒）
+     * @param defaultLimit   未单独配置的类别使用的限制
+     * @param limits         类别 -> 限制
+     */
+    public AsyncQueryExecutor(int maxConcurrency, long maxWaitMs, Limit defaultLimit, Map<String, Limit> limits) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive, got: " + maxConcurrency);
+        }
+        if (maxWaitMs <= 0) {
+            throw new IllegalArgumentException("maxWaitMs must be positive, got: " + maxWaitMs);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.globalPermits = new Semaphore(maxConcurrency);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.defaultLimit = defaultLimit;
+        this.limits = Map.copyOf(limits);
+    }
+
+    /**
+     * 提交查询
+     *
+     * @param category 调用方类别（null 使用默认类别）
+     * @param query    查询（在虚拟线程中执行，可以是任意阻塞的 DbManager 查询）
+     * @return 查询结果；隔离舱已满、等待超时或已关闭时以 {@link DbException} 失败
+     */
+    public <T> CompletableFuture<T> submit(String category, Supplier<T> query) {
+        Bulkhead bulkhead = bulkhead(category != null ? category : DEFAULT_CATEGORY);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (shutdown) {
+            future.completeExceptionally(new DbException(DbException.OperationType.SELECT,
+                    "AsyncQueryExecutor has been shutdown"));
+            return future;
+        }
+        bulkhead.submitted.incrementAndGet();
+        if (!bulkhead.tryEnter()) {
+            bulkhead.rejected.incrementAndGet();
+            future.completeExceptionally(new DbException(DbException.OperationType.SELECT,
+                    "Async query bulkhead full: " + bulkhead.name + " (" + bulkhead.limit + ")"));
+            return future;
+        }
+        long submitNanos = System.nanoTime();
+        try {
+            executor.execute(() -> run(bulkhead, query, future, submitNanos));
+        } catch (RejectedExecutionException e) {
+            bulkhead.exit();
+            bulkhead.rejected.incrementAndGet();
+            future.completeExceptionally(new DbException(DbException.OperationType.SELECT,
+                    "AsyncQueryExecutor has been shutdown", e));
+        }
+        return future;
+    }
+
+    private <T> void run(Bulkhead bulkhead, Supplier<T> query, CompletableFuture<T> future, long submitNanos) {
+        boolean localPermit = false;
+        boolean globalPermit = false;
+        try {
+            long deadline = submitNanos + maxWaitNanos;
+            localPermit = bulkhead.permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (localPermit) {
+                globalPermit = globalPermits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            long queuedNanos = System.nanoTime() - submitNanos;
+            if (!globalPermit) {
+                bulkhead.timeouts.incrementAndGet();
+                future.completeExceptionally(new DbException(DbException.OperationType.SELECT,
+                        "Async query waited too long: " + bulkhead.name + ", " + TimeUnit.NANOSECONDS.toMillis(queuedNanos) + "ms"));
+                return;
+            }
+            bulkhead.recordQueue(queuedNanos);
+            long start = System.nanoTime();
+            T result;
+            try {
+                result = query.get();
+            } finally {
+                bulkhead.recordExecute(System.nanoTime() - start);
+            }
+            bulkhead.completed.incrementAndGet();
+            future.complete(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            bulkhead.failed.incrementAndGet();
+            future.completeExceptionally(new DbException(DbException.OperationType.SELECT, "Async query interrupted", e));
+        } catch (Throwable e) {
+            bulkhead.failed.incrementAndGet();
+            future.completeExceptionally(e);
+        } finally {
+            if (globalPermit) {
+                globalPermits.release();
+            }
+            if (localPermit) {
+                bulkhead.permits.release();
+            }
+            bulkhead.exit();
+        }
+    }
+
+    private Bulkhead bulkhead(String category) {
+        Bulkhead bulkhead = bulkheads.get(category);
+        if (bulkhead == null) {
+            bulkhead = bulkheads.computeIfAbsent(category, k -> new Bulkhead(k, limits.getOrDefault(k, defaultLimit)));
+        }
+        return bulkhead;
+    }
+
+    /**
+     * 当前执行中和排队中的查询总数
+     */
+    public int getInFlight() {
+        int total = 0;
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            total += bulkhead.inFlight.get();
+        }
+        return total;
+    }
+
+    /**
+     * 停止接收新查询，等待已提交的查询完成
+     */
+    public void shutdown(long timeoutMs) {
+        shutdown = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                logger.warn("AsyncQueryExecutor shutdown timeout, {} queries still running", getInFlight());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("maxConcurrency", maxConcurrency);
+        snapshot.put("running", maxConcurrency - globalPermits.availablePermits());
+        snapshot.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+        Map<String, Object> categories = new LinkedHashMap<>();
+        bulkheads.forEach((name, bulkhead) -> categories.put(name, bulkhead.snapshot()));
+        snapshot.put("categories", categories);
+        return snapshot;
+    }
+
+    /**
+     * 单个类别的隔离舱与统计
+     */
+    private static final class Bulkhead {
+        final String name;
+        final Limit limit;
+        final Semaphore permits;
+
+        /**
+         * 执行中 + 排队中
+         */
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong timeouts = new AtomicLong();
+        final AtomicLong queueNanos = new AtomicLong();
+        final AtomicLong maxQueueNanos = new AtomicLong();
+        final AtomicLong executeNanos = new AtomicLong();
+        final AtomicLong maxExecuteNanos = new AtomicLong();
+        final AtomicLong started = new AtomicLong();
+
+        Bulkhead(String name, Limit limit) {
+            this.name = name;
+            this.limit = limit;
+            this.permits = new Semaphore(limit.maxConcurrent());
+        }
+
+        boolean tryEnter() {
+            int max = limit.maxConcurrent() + limit.maxQueued();
+            while (true) {
+                int current = inFlight.get();
+                if (current >= max) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void exit() {
+            inFlight.decrementAndGet();
+        }
+
+        void recordQueue(long nanos) {
+            started.incrementAndGet();
+            queueNanos.addAndGet(nanos);
+            maxQueueNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void recordExecute(long nanos) {
+            executeNanos.addAndGet(nanos);
+            maxExecuteNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        Map<String, Object> snapshot() {
+            long count = started.get();
+            int running = limit.maxConcurrent() - permits.availablePermits();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("maxConcurrent", limit.maxConcurrent());
+            snapshot.put("maxQueued", limit.maxQueued());
+            snapshot.put("running", running);
+            snapshot.put("queued", Math.max(0, inFlight.get() - running));
+            snapshot.put("submitted", submitted.get());
+            snapshot.put("completed", completed.get());
+            snapshot.put("failed", failed.get());
+            snapshot.put("rejected", rejected.get());
+            snapshot.put("timeouts", timeouts.get());
+            snapshot.put("avgQueueMicros", count == 0 ? 0 : queueNanos.get() / count / 1000);
+            snapshot.put("maxQueueMicros", maxQueueNanos.get() / 1000);
+            snapshot.put("avgExecuteMicros", count == 0 ? 0 : executeNanos.get() / count / 1000);
+            snapshot.put("maxExecuteMicros", maxExecuteNanos.get() / 1000);
+            return snapshot;
+        }
+    }
+}
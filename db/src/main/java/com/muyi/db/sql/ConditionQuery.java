@@ -0,0 +1,20 @@
+package com.muyi.db.sql;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.muyi.db.core.BaseEntity;
+
+/**
+ * 条件查询描述（用于一次提交多条条件查询）
+ *
+ * @param template   模板实体
+ * @param conditions 查询条件（列名或字段名 -> 值）
+ * @param matcher    判断未落地的脏数据是否符合条件，null 则不补充新数据（同 {@code DbManager.selectByCondition}）
+ */
+public record ConditionQuery<T extends BaseEntity<T>>(T template, Map<String, Object> conditions, Predicate<T> matcher) {
+
+    public static <T extends BaseEntity<T>> ConditionQuery<T> of(T template, Map<String, Object> conditions) {
+        return new ConditionQuery<>(template, conditions, null);
+    }
+}
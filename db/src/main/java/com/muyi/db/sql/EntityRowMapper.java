@@ -0,0 +1,69 @@
+package com.muyi.db.sql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.EntityMetadata;
+import com.muyi.db.core.FieldInfo;
+
+/**
+ * ResultSet 行 -> 实体映射器
+ * <p>
+ * 每条语句创建一次：根据结果集元数据预先解析 列下标 -> 字段，之后每行按下标直接读取并写入实体，
+ * 不再为每行构建 Map。实体有生成的访问器时按字段类型读取（{@code rs.getLong} 等），避免装箱。
+ * <p>
+ * 列匹配顺序：列名 -> 字段名 -> 忽略大小写的列名，无法匹配的列忽略。
+ */
+public final class EntityRowMapper<T extends BaseEntity<T>> {
+
+    private final T template;
+
+    /**
+     * 列下标（从 1 开始）-> 字段，未匹配的列为 null
+     */
+    private final FieldInfo[] columns;
+
+    public EntityRowMapper(T template, ResultSetMetaData rsmd) throws SQLException {
+        this.template = template;
+        EntityMetadata metadata = template.getMetadata();
+        int columnCount = rsmd.getColumnCount();
+        this.columns = new FieldInfo[columnCount + 1];
+        for (int i = 1; i <= columnCount; i++) {
+            columns[i] = resolve(metadata, rsmd.getColumnLabel(i));
+        }
+    }
+
+    private static FieldInfo resolve(EntityMetadata metadata, String label) {
+        FieldInfo field = metadata.getFieldByColumn(label);
+        if (field == null) {
+            field = metadata.getField(label);
+        }
+        if (field == null) {
+            String lower = label.toLowerCase(Locale.ROOT);
+            for (FieldInfo candidate : metadata.getAllFields()) {
+                if (candidate.getColumnName().toLowerCase(Locale.ROOT).equals(lower)) {
+                    return candidate;
+                }
+            }
+        }
+        return field;
+    }
+
+    /**
+     * 映射当前行（调用方负责 {@code rs.next()}）
+     */
+    public T map(ResultSet rs) throws SQLException {
+        T entity = template.newInstance();
+        for (int i = 1; i < columns.length; i++) {
+            FieldInfo field = columns[i];
+            if (field != null) {
+                field.read(rs, i, entity);
+            }
+        }
+        entity.markLoaded();
+        return entity;
+    }
+}
@@ -13,6 +13,7 @@ class FieldMeta {
     String columnType = "";
     boolean nullable = true;
     String defaultValue = "";
+    boolean codec = false;
     boolean primaryKey = false;
     boolean autoIncrement = false;
     List<IndexMeta> indexes = new ArrayList<>();
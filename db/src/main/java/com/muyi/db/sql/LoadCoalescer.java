@@ -0,0 +1,260 @@
+package com.muyi.db.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.FieldInfo;
+import com.muyi.db.exception.DbException;
+
+/**
+ * 跨请求合并的单列加载器
+ * <p>
+ * 开服、维护结束时大量玩家同时登录，每个登录对每张表发起一次 {@code WHERE uid = ?}。
+ * 合并器把同一张表、同一列的并发请求收集起来，用一条 {@code WHERE uid IN (...)} 查询，再按列值把行分发给各个请求。
+ * <p>
+ * 合并方式（按 表 + 列 分通道）：
+ * <ul>
+ *   <li>通道空闲时第一个请求立即触发查询（windowMs = 0 时不增加延迟），查询执行期间到达的请求排队，
+ *       上一次查询结束后一次取出最多 maxBatchSize 个值继续查询</li>
+ *   <li>windowMs > 0 时每轮开始前先等待一个窗口，低负载下也能合并</li>
+ * </ul>
+ * 负载越高每次合并的请求越多，查询次数随之下降。查询失败时该批次的所有请求都抛出 {@link DbException}，
+ * 关闭后提交的请求同样以 {@link DbException} 结束。
+ */
+public final class LoadCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadCoalescer.class);
+
+    private final SqlExecutor sqlExecutor;
+    private final long windowMs;
+    private final int maxBatchSize;
+
+    /**
+     * 查询线程（虚拟线程，每轮合并一个）
+     */
+    private final ExecutorService flusher =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-load-coalescer-", 0).factory());
+
+    private final ConcurrentHashMap<LaneKey, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong queryCount = new AtomicLong();
+
+    /**
+     * @param windowMs     每轮合并前的等待窗口（毫秒，0 表示不等待）
+     * @param maxBatchSize 单条 IN 查询的最大值个数
+     */
+    public LoadCoalescer(SqlExecutor sqlExecutor, long windowMs, int maxBatchSize) {
+        if (windowMs < 0) {
+            throw new IllegalArgumentException("windowMs must not be negative");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.sqlExecutor = sqlExecutor;
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * 按单列等值加载（阻塞直到所在批次查询完成）
+     *
+     * @param template 模板实体（分表实体的动态表名参与通道划分）
+     * @param field    条件列
+     * @param value    条件值（按字段类型转换后分发，不能为 null）
+     * @return 该值对应的数据库行（不含脏数据合并）
+     */
+    public <T extends BaseEntity<T>> List<T> load(T template, FieldInfo field, Object value) {
+        try {
+            return submit(template, field, value).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof DbException dbException) {
+                throw dbException;
+            }
+            throw new DbException(DbException.OperationType.SELECT, "Coalesced load failed", e.getCause());
+        }
+    }
+
+    /**
+     * 提交加载请求
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T extends BaseEntity<T>> CompletableFuture<List<T>> submit(T template, FieldInfo field, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Coalesced load value must not be null: " + field.getFieldName());
+        }
+        requestCount.incrementAndGet();
+        LaneKey key = new LaneKey(template.getClass(), template.getDynamicTableName(), field.getOrdinal());
+        Lane lane = lanes.computeIfAbsent(key, k -> new Lane(template, field));
+        CompletableFuture<List<T>> future = new CompletableFuture<>();
+        if (lane.enqueue(field.convert(value), (CompletableFuture) future)) {
+            try {
+                flusher.execute(() -> drain(lane));
+            } catch (RejectedExecutionException e) {
+                // 已关闭：本轮不会执行，通知排队的请求并让通道回到空闲
+                fail(lane.takeAll(), new DbException(DbException.OperationType.SELECT,
+                        "LoadCoalescer is shut down: " + lane.template.getTableName(), e));
+            }
+        }
+        return future;
+    }
+
+    private void drain(Lane lane) {
+        if (windowMs > 0) {
+            try {
+                Thread.sleep(windowMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Map<Object, List<CompletableFuture<List<BaseEntity<?>>>>> batch;
+        while ((batch = lane.take(maxBatchSize)) != null) {
+            flush(lane, batch);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void flush(Lane lane, Map<Object, List<CompletableFuture<List<BaseEntity<?>>>>> batch) {
+        queryCount.incrementAndGet();
+        List<? extends BaseEntity<?>> rows;
+        try {
+            rows = sqlExecutor.selectIn((BaseEntity) lane.template, lane.field, batch.keySet());
+        } catch (Exception e) {
+            logger.error("Coalesced load failed: {}.{} x{}", lane.template.getTableName(),
+                    lane.field.getColumnName(), batch.size(), e);
+            fail(batch, new DbException(DbException.OperationType.SELECT,
+                    "Coalesced load failed: " + lane.template.getTableName(), e));
+            return;
+        }
+
+        Map<Object, List<BaseEntity<?>>> rowsByValue = new HashMap<>();
+        for (BaseEntity<?> row : rows) {
+            rowsByValue.computeIfAbsent(lane.field.getValue(row), k -> new ArrayList<>()).add(row);
+        }
+        for (Map.Entry<Object, List<CompletableFuture<List<BaseEntity<?>>>>> entry : batch.entrySet()) {
+            List<BaseEntity<?>> matched = rowsByValue.getOrDefault(entry.getKey(), Collections.emptyList());
+            // 每个请求各自一份列表，调用方修改结果不会影响同值的其他请求
+            for (CompletableFuture<List<BaseEntity<?>>> waiter : entry.getValue()) {
+                waiter.complete(new ArrayList<>(matched));
+            }
+        }
+    }
+
+    private static void fail(Map<Object, List<CompletableFuture<List<BaseEntity<?>>>>> batch, DbException error) {
+        for (List<CompletableFuture<List<BaseEntity<?>>>> waiters : batch.values()) {
+            waiters.forEach(waiter -> waiter.completeExceptionally(error));
+        }
+    }
+
+    /**
+     * 累计请求数
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * 累计实际执行的查询轮数
+     */
+    public long getQueryCount() {
+        return queryCount.get();
+    }
+
+    public void shutdown() {
+        flusher.shutdown();
+    }
+
+    private record LaneKey(Class<?> entityClass, String tableName, int ordinal) {
+    }
+
+    /**
+     * 单个 表 + 列 的合并通道
+     * <p>
+     * 使用 ReentrantLock 而非 synchronized，避免调用方是虚拟线程时被固定在载体线程上
+     */
+    private static final class Lane {
+
+        final BaseEntity<?> template;
+        final FieldInfo field;
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<Object, List<CompletableFuture<List<BaseEntity<?>>>>> pending = new LinkedHashMap<>();
+        boolean running;
+
+        Lane(BaseEntity<?> template, FieldInfo field) {
+            this.template = template;
+            this.field = field;
+        }
+
+        /**
+         * 入队，返回 true 表示通道空闲，需要调用方启动一轮合并
+         */
+        boolean enqueue(Object value, CompletableFuture<List<BaseEntity<?>>> future) {
+            lock.lock();
+            try {
+                pending.computeIfAbsent(value, k -> new ArrayList<>(1)).add(future);
+                if (running) {
+                    return false;
+                }
+                running = true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 取出一批待查询的值，没有待查询的值时结束本轮（返回 null）
+         */
+        Map<Object, List<CompletableFuture<List<BaseEntity<?>>>>> take(int maxBatchSize) {
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    running = false;
+                    return null;
+                }
+                Map<Object, List<CompletableFuture<List<BaseEntity<?>>>>> batch = new LinkedHashMap<>();
+                Iterator<Map.Entry<Object, List<CompletableFuture<List<BaseEntity<?>>>>>> it = pending.entrySet().iterator();
+                while (it.hasNext() && batch.size() < maxBatchSize) {
+                    Map.Entry<Object, List<CompletableFuture<List<BaseEntity<?>>>>> entry = it.next();
+                    batch.put(entry.getKey(), entry.getValue());
+                    it.remove();
+                }
+                return batch;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 取出全部待查询的值并结束本轮（无法启动查询时使用）
+         */
+        Map<Object, List<CompletableFuture<List<BaseEntity<?>>>>> takeAll() {
+            lock.lock();
+            try {
+                Map<Object, List<CompletableFuture<List<BaseEntity<?>>>>> all = new LinkedHashMap<>(pending);
+                pending.clear();
+                running = false;
+                return all;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.muyi.db.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 固定连接（单线程独占）
+ * <p>
+ * 落地工作线程长期持有一个连接和自己的预编译语句缓存，配合 {@link SqlExecutor#executeInGroup} 把一轮落地的
+ * 所有批量写（跨表的删除、插入、更新）放在同一个事务里提交，省去每张表一次的借还连接、语句准备和提交（fsync）。
+ * <ul>
+ *   <li>语句缓存按 SQL 文本 LRU 淘汰，淘汰时关闭语句</li>
+ *   <li>事务回滚或连接出错时关闭语句并归还连接，下次使用重新借出（坏连接由连接池剔除）</li>
+ *   <li>持有超过 {@link #MAX_HOLD_MS} 后在事务边界归还重借，避免连接池的 maxLifetime 失效</li>
+ * </ul>
+ * 非线程安全：只能由持有它的线程使用。
+ */
+public final class PinnedConnection implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PinnedConnection.class);
+
+    /**
+     * 单个连接的最长持有时间（毫秒），低于 HikariCP 默认 maxLifetime（30 分钟）
+     */
+    static final long MAX_HOLD_MS = 10 * 60 * 1000L;
+
+    private final DataSource dataSource;
+
+    private final int statementCacheSize;
+
+    /**
+     * SQL -> 预编译语句（访问顺序，超出容量时淘汰最久未用的）
+     */
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    private Connection connection;
+
+    private long acquiredAt;
+
+    private volatile long commitCount;
+
+    /**
+     * @param statementCacheSize 预编译语句缓存容量
+     */
+    public PinnedConnection(DataSource dataSource, int statementCacheSize) {
+        if (statementCacheSize <= 0) {
+            throw new IllegalArgumentException("statementCacheSize must be positive, got: " + statementCacheSize);
+        }
+        this.dataSource = dataSource;
+        this.statementCacheSize = statementCacheSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > PinnedConnection.this.statementCacheSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 开始事务（必要时借出连接）
+     */
+    void begin() throws SQLException {
+        if (connection != null && System.currentTimeMillis() - acquiredAt > MAX_HOLD_MS) {
+            release();
+        }
+        if (connection == null) {
+            connection = dataSource.getConnection();
+            acquiredAt = System.currentTimeMillis();
+        }
+        if (connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+        }
+    }
+
+    /**
+     * 获取预编译语句（缓存命中时复用）
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps == null) {
+            ps = connection.prepareStatement(sql);
+            statements.put(sql, ps);
+        }
+        return ps;
+    }
+
+    void commit() throws SQLException {
+        connection.commit();
+        commitCount++;
+    }
+
+    /**
+     * 回滚并归还连接（失败路径：语句可能残留未执行的批次，连接状态也不可信）
+     */
+    void rollback() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.warn("Rollback on pinned connection failed", e);
+        }
+        release();
+    }
+
+    /**
+     * 关闭缓存的语句并归还连接
+     */
+    private void release() {
+        Iterator<PreparedStatement> it = statements.values().iterator();
+        while (it.hasNext()) {
+            closeQuietly(it.next());
+            it.remove();
+        }
+        if (connection != null) {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                logger.debug("Restore autoCommit on pinned connection failed", e);
+            }
+            closeQuietly(connection);
+            connection = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    // ==================== 状态查询 ====================
+
+    /**
+     * 当前缓存的语句数
+     */
+    public int getCachedStatementCount() {
+        return statements.size();
+    }
+
+    /**
+     * 已提交的组事务数
+     */
+    public long getCommitCount() {
+        return commitCount;
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            logger.debug("Close failed", e);
+        }
+    }
+}
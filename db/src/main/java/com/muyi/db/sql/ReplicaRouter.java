@@ -0,0 +1,180 @@
+package com.muyi.db.sql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.muyi.db.async.AsyncLandManager;
+import com.muyi.db.async.LandListener;
+import com.muyi.db.async.TaskType;
+import com.muyi.db.core.BaseEntity;
+
+/**
+ * 只读副本路由
+ * <p>
+ * GM 导出、排行榜重建、日志查询等重查询走只读副本，避免与玩家加载、落地批次争抢主库连接。按逻辑表配置策略：
+ * <ul>
+ *   <li>{@link Policy#PRIMARY}：始终读主库（默认）</li>
+ *   <li>{@link Policy#REPLICA}：始终读副本，适合只追加的日志表、离线统计表</li>
+ *   <li>{@link Policy#REPLICA_IF_CLEAN}：该实体类型在脏数据缓存中有未落地数据，或表在最近 {@code lagMs}
+ *       内有写入落地（副本可能尚未同步）时回退主库，否则读副本</li>
+ * </ul>
+ * 无论读哪个库，{@code DbManager} 返回前都会照常用脏数据覆盖、排除已删除的实体。
+ * 写入记录只保存每张表最后一次写入的时间戳，落地线程每条任务一次 Map 写入。
+ */
+public class ReplicaRouter implements LandListener {
+
+    /**
+     * 表读取策略
+     */
+    public enum Policy {
+        PRIMARY,
+        REPLICA,
+        REPLICA_IF_CLEAN
+    }
+
+    private final SqlExecutor primary;
+
+    private final SqlExecutor replica;
+
+    private final AsyncLandManager landManager;
+
+    /**
+     * 逻辑表名（小写）-> 策略
+     */
+    private final Map<String, Policy> policies;
+
+    private final Policy defaultPolicy;
+
+    private final long lagMs;
+
+    /**
+     * 逻辑表名（小写）-> 最后一次写入时间
+     */
+    private final ConcurrentHashMap<String, AtomicLong> lastWrites = new ConcurrentHashMap<>();
+
+    /**
+     * 无法确定写入表（原生 SQL、事务）时的全局写入时间
+     */
+    private volatile long lastGlobalWrite;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * @param primary       主库执行器
+     * @param replica       副本执行器
+     * @param landManager   异步落地管理器（判断未落地的脏数据）
+     * @param policies      逻辑表名 -> 策略
+     * @param defaultPolicy 未配置的表使用的策略
+     * @param lagMs         写入后回退主库的时长（毫秒，副本复制延迟上限）
+     */
+    public ReplicaRouter(SqlExecutor primary, SqlExecutor replica, AsyncLandManager landManager,
+                         Map<String, Policy> policies, Policy defaultPolicy, long lagMs) {
+        this.primary = primary;
+        this.replica = replica;
+        this.landManager = landManager;
+        this.policies = new ConcurrentHashMap<>();
+        policies.forEach((table, policy) -> this.policies.put(table.toLowerCase(), policy));
+        this.defaultPolicy = defaultPolicy;
+        this.lagMs = lagMs;
+    }
+
+    // ==================== 路由 ====================
+
+    /**
+     * 按表策略选择执行器
+     */
+    public SqlExecutor route(BaseEntity<?> template) {
+        String table = logicalTable(template);
+        Policy policy = policies.getOrDefault(table, defaultPolicy);
+        if (policy == Policy.PRIMARY) {
+            primaryReads.increment();
+            return primary;
+        }
+        if (policy == Policy.REPLICA_IF_CLEAN && isStale(template.getClass(), table)) {
+            fallbacks.increment();
+            primaryReads.increment();
+            return primary;
+        }
+        replicaReads.increment();
+        return replica;
+    }
+
+    /**
+     * 显式只读查询使用的副本执行器（不检查策略，调用方接受复制延迟）
+     */
+    public SqlExecutor replica() {
+        replicaReads.increment();
+        return replica;
+    }
+
+    public Policy getPolicy(String logicalTable) {
+        return policies.getOrDefault(logicalTable.toLowerCase(), defaultPolicy);
+    }
+
+    /**
+     * 副本上的数据是否可能落后：有未落地的脏数据，或复制延迟窗口内有写入
+     */
+    private boolean isStale(Class<?> entityClass, String table) {
+        if (landManager.hasDirty(entityClass)) {
+            return true;
+        }
+        if (lagMs <= 0) {
+            return false;
+        }
+        long threshold = System.currentTimeMillis() - lagMs;
+        if (lastGlobalWrite > threshold) {
+            return true;
+        }
+        AtomicLong lastWrite = lastWrites.get(table);
+        return lastWrite != null && lastWrite.get() > threshold;
+    }
+
+    // ==================== 写入记录 ====================
+
+    /**
+     * 记录表写入（同步写、异步落地成功）
+     */
+    public void markWritten(BaseEntity<?> entity) {
+        if (lagMs <= 0) {
+            return;
+        }
+        lastWrites.computeIfAbsent(logicalTable(entity), k -> new AtomicLong())
+                .set(System.currentTimeMillis());
+    }
+
+    /**
+     * 记录无法确定表的写入（原生 SQL、事务）：复制延迟窗口内所有 {@link Policy#REPLICA_IF_CLEAN} 表回退主库
+     */
+    public void markAllWritten() {
+        lastGlobalWrite = System.currentTimeMillis();
+    }
+
+    @Override
+    public void onLanded(BaseEntity<?> entity, TaskType type) {
+        markWritten(entity);
+    }
+
+    private static String logicalTable(BaseEntity<?> entity) {
+        return entity.getMetadata().getTableName().toLowerCase();
+    }
+
+    // ==================== 统计 ====================
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("replicaReads", replicaReads.sum());
+        result.put("primaryReads", primaryReads.sum());
+        result.put("fallbacks", fallbacks.sum());
+        result.put("defaultPolicy", defaultPolicy.name());
+        Map<String, Object> tables = new LinkedHashMap<>();
+        policies.forEach((table, policy) -> tables.put(table, policy.name()));
+        result.put("policies", tables);
+        result.put("lagMs", lagMs);
+        return result;
+    }
+}
@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
@@ -28,6 +27,32 @@ public class SqlBuilder {
      * tableName 作为 key 的一部分是为了支持动态表名（分表）
      */
     private static final ConcurrentHashMap<String, String> SQL_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 多行语句模板缓存：class + sqlType + tableName -> 模板
+     * <p>
+     * 行数随批次大小变化，只缓存模板、每次按行数拼接，避免每种行数各占一个缓存项
+     */
+    private static final ConcurrentHashMap<String, MultiRowTemplate> MULTI_ROW_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 多行语句模板：head + row (+ separator + row)* + tail
+     */
+    private record MultiRowTemplate(String head, String row, String separator, String tail) {
+
+        String build(int rows) {
+            StringBuilder sql = new StringBuilder(head.length() + tail.length()
+                    + rows * (row.length() + separator.length()));
+            sql.append(head);
+            for (int i = 0; i < rows; i++) {
+                if (i > 0) {
+                    sql.append(separator);
+                }
+                sql.append(row);
+            }
+            return sql.append(tail).toString();
+        }
+    }
     
     private static String getCacheKey(Class<?> entityClass, String sqlType, String tableName) {
         return entityClass.getName() + "#" + sqlType + "#" + tableName;
@@ -76,29 +101,43 @@ public class SqlBuilder {
     }
 
     /**
-     * 构建批量 INSERT SQL
+     * 构建批量 INSERT SQL（多 VALUES，带缓存）
      */
     public static String buildBatchInsert(BaseEntity<?> entity, int batchSize) {
-        EntityMetadata metadata = entity.getMetadata();
         String tableName = entity.getTableName();
-        
-        List<FieldInfo> fields = metadata.getAllFields();
+        String cacheKey = getCacheKey(entity.getClass(), "BATCH_INSERT", tableName);
+        return MULTI_ROW_CACHE.computeIfAbsent(cacheKey, k -> multiRowInsertTemplate(entity, tableName, ""))
+                .build(batchSize);
+    }
+
+    /**
+     * 构建批量 INSERT ON DUPLICATE KEY UPDATE SQL（多 VALUES，带缓存）
+     */
+    public static String buildBatchUpsert(BaseEntity<?> entity, int batchSize) {
+        String tableName = entity.getTableName();
+        String cacheKey = getCacheKey(entity.getClass(), "BATCH_UPSERT", tableName);
+        return MULTI_ROW_CACHE.computeIfAbsent(cacheKey, k -> multiRowInsertTemplate(entity, tableName,
+                buildUpsertClause(entity.getMetadata()))).build(batchSize);
+    }
+
+    private static String buildUpsertClause(EntityMetadata metadata) {
+        List<FieldInfo> updateFields = metadata.getNonPrimaryKeyFields();
+        if (updateFields.isEmpty()) {
+            // 只有主键列：重复时保持原值
+            String pk = metadata.getPrimaryKeys().get(0).getColumnName();
+            return " ON DUPLICATE KEY UPDATE " + pk + " = " + pk;
+        }
+        return " ON DUPLICATE KEY UPDATE " + updateFields.stream()
+                .map(f -> f.getColumnName() + " = VALUES(" + f.getColumnName() + ")")
+                .collect(Collectors.joining(", "));
+    }
+
+    private static MultiRowTemplate multiRowInsertTemplate(BaseEntity<?> entity, String tableName, String tail) {
+        List<FieldInfo> fields = entity.getMetadata().getAllFields();
         String columnsPart = fields.stream().map(FieldInfo::getColumnName).collect(Collectors.joining(", "));
         String valuesPart = "(" + fields.stream().map(f -> "?").collect(Collectors.joining(", ")) + ")";
-        
-        StringBuilder sql = new StringBuilder();
-        sql.append("INSERT INTO ").append(tableName).append(" (");
-        sql.append(columnsPart);
-        sql.append(") VALUES ");
-        
-        for (int i = 0; i < batchSize; i++) {
-            if (i > 0) {
-                sql.append(", ");
-            }
-            sql.append(valuesPart);
-        }
-        
-        return sql.toString();
+        return new MultiRowTemplate("INSERT INTO " + tableName + " (" + columnsPart + ") VALUES ",
+                valuesPart, ", ", tail);
     }
 
     /**
@@ -160,15 +199,7 @@ public class SqlBuilder {
     public static String buildPartialUpdate(BaseEntity<?> entity) {
         EntityMetadata metadata = entity.getMetadata();
         String tableName = entity.getTableName();
-        Set<String> changedFields = entity.getChangedFields();
-        
-        if (changedFields.isEmpty()) {
-            return null;
-        }
-        
-        List<FieldInfo> updateFields = metadata.getAllFields().stream()
-                .filter(f -> changedFields.contains(f.getFieldName()) && !f.isPrimaryKey())
-                .toList();
+        List<FieldInfo> updateFields = metadata.getChangedFields(entity.getChangedBits());
         
         if (updateFields.isEmpty()) {
             return null;
@@ -186,27 +217,64 @@ public class SqlBuilder {
                         .collect(Collectors.joining(" AND "));
     }
 
+    /**
+     * 构建 UPDATE SQL（只更新指定字段，按 表 + 列集合 缓存）
+     * <p>
+     * 用于批量部分更新：同一列集合的实体共用一条预编译语句
+     *
+     * @param entity       实体（提供表名和主键）
+     * @param updateFields 需要更新的非主键字段
+     */
+    public static String buildPartialUpdate(BaseEntity<?> entity, List<FieldInfo> updateFields) {
+        String tableName = entity.getTableName();
+        String columns = updateFields.stream().map(FieldInfo::getColumnName).collect(Collectors.joining(","));
+        String cacheKey = getCacheKey(entity.getClass(), "PARTIAL_UPDATE:" + columns, tableName);
+
+        return SQL_CACHE.computeIfAbsent(cacheKey, k -> "UPDATE " + tableName + " SET " +
+                updateFields.stream()
+                        .map(f -> f.getColumnName() + " = ?")
+                        .collect(Collectors.joining(", ")) +
+                " WHERE " +
+                entity.getMetadata().getPrimaryKeys().stream()
+                        .map(f -> f.getColumnName() + " = ?")
+                        .collect(Collectors.joining(" AND ")));
+    }
+
+    /**
+     * 获取指定字段部分更新的参数值（字段值 + 主键值）
+     */
+    public static Object[] getPartialUpdateValues(BaseEntity<?> entity, List<FieldInfo> updateFields) {
+        List<FieldInfo> primaryKeys = entity.getMetadata().getPrimaryKeys();
+        Object[] values = new Object[updateFields.size() + primaryKeys.size()];
+        int index = 0;
+        for (FieldInfo field : updateFields) {
+            values[index++] = field.getColumnValue(entity);
+        }
+        for (FieldInfo pk : primaryKeys) {
+            values[index++] = pk.getColumnValue(entity);
+        }
+        return values;
+    }
+
     /**
      * 获取部分更新的参数值
      */
     public static Object[] getPartialUpdateValues(BaseEntity<?> entity) {
         EntityMetadata metadata = entity.getMetadata();
-        Set<String> changedFields = entity.getChangedFields();
+        List<FieldInfo> updateFields = metadata.getChangedFields(entity.getChangedBits());
         List<FieldInfo> primaryKeys = metadata.getPrimaryKeys();
         
         // 预分配容量：变更字段数 + 主键字段数
-        List<Object> values = new ArrayList<>(changedFields.size() + primaryKeys.size());
+        List<Object> values = new ArrayList<>(updateFields.size() + primaryKeys.size());
         
         // 变更字段的值
-        for (FieldInfo field : metadata.getAllFields()) {
-            if (changedFields.contains(field.getFieldName()) && !field.isPrimaryKey()) {
-                values.add(field.getValue(entity));
-            }
+        for (FieldInfo field : updateFields) {
+            values.add(field.getColumnValue(entity));
         }
         
         // 主键值
         for (FieldInfo pk : primaryKeys) {
-            values.add(pk.getValue(entity));
+            values.add(pk.getColumnValue(entity));
         }
         
         return values.toArray();
@@ -233,25 +301,26 @@ public class SqlBuilder {
     }
 
     /**
-     * 构建批量 DELETE SQL
+     * 构建批量 DELETE SQL（带缓存）
      */
     public static String buildBatchDelete(BaseEntity<?> entity, int batchSize) {
-        EntityMetadata metadata = entity.getMetadata();
         String tableName = entity.getTableName();
-        List<FieldInfo> pkFields = metadata.getPrimaryKeys();
+        String cacheKey = getCacheKey(entity.getClass(), "BATCH_DELETE", tableName);
         
-        // 单主键使用 IN，复合主键使用 OR
-        if (pkFields.size() == 1) {
-            return "DELETE FROM " + tableName + " WHERE " +
-                    pkFields.get(0).getColumnName() + " IN (" +
-                    String.join(", ", Collections.nCopies(batchSize, "?")) + ")";
-        } else {
-            String pkCondition = "(" + pkFields.stream()
-                    .map(f -> f.getColumnName() + " = ?")
-                    .collect(Collectors.joining(" AND ")) + ")";
-            return "DELETE FROM " + tableName + " WHERE " +
-                    String.join(" OR ", Collections.nCopies(batchSize, pkCondition));
-        }
+        return MULTI_ROW_CACHE.computeIfAbsent(cacheKey, k -> {
+            List<FieldInfo> pkFields = entity.getMetadata().getPrimaryKeys();
+            
+            // 单主键使用 IN，复合主键使用 OR
+            if (pkFields.size() == 1) {
+                return new MultiRowTemplate("DELETE FROM " + tableName + " WHERE " +
+                        pkFields.get(0).getColumnName() + " IN (", "?", ", ", ")");
+            } else {
+                String pkCondition = "(" + pkFields.stream()
+                        .map(f -> f.getColumnName() + " = ?")
+                        .collect(Collectors.joining(" AND ")) + ")";
+                return new MultiRowTemplate("DELETE FROM " + tableName + " WHERE ", pkCondition, " OR ", "");
+            }
+        }).build(batchSize);
     }
 
     // ==================== SELECT ====================
@@ -260,7 +329,13 @@ public class SqlBuilder {
      * 构建 SELECT BY PRIMARY KEY SQL（带缓存）
      */
     public static String buildSelectByPrimaryKey(BaseEntity<?> entity) {
-        String tableName = entity.getTableName();
+        return buildSelectByPrimaryKey(entity, entity.getTableName());
+    }
+
+    /**
+     * 构建指定物理表的 SELECT BY PRIMARY KEY SQL（分表查询使用）
+     */
+    public static String buildSelectByPrimaryKey(BaseEntity<?> entity, String tableName) {
         String cacheKey = getCacheKey(entity.getClass(), "SELECT_PK", tableName);
         
         return SQL_CACHE.computeIfAbsent(cacheKey, k -> {
@@ -279,8 +354,15 @@ public class SqlBuilder {
      * 构建 SELECT BY 条件 SQL
      */
     public static String buildSelectByCondition(BaseEntity<?> entity, Map<String, Object> conditions) {
+        return buildSelectByCondition(entity, conditions, entity.getTableName());
+    }
+
+    /**
+     * 构建指定物理表的 SELECT BY 条件 SQL（分表查询使用）
+     */
+    public static String buildSelectByCondition(BaseEntity<?> entity, Map<String, Object> conditions,
+                                                String tableName) {
         EntityMetadata metadata = entity.getMetadata();
-        String tableName = entity.getTableName();
         
         String sql = "SELECT " + String.join(", ", metadata.getColumnNames()) + " FROM " + tableName;
         
@@ -297,6 +379,32 @@ public class SqlBuilder {
         return sql;
     }
 
+    /**
+     * 构建按单列 IN 查询的 SQL（合并多个请求的查询使用，带缓存）
+     * <p>
+     * 占位符个数为 {@link #inListSize(int)}：值的个数向上取到 2 的幂，每张表每列最多缓存十几条语句，
+     * 服务端预编译语句缓存也只需容纳这些形状。调用方需把参数补齐到该个数（重复最后一个值即可）。
+     */
+    public static String buildSelectIn(BaseEntity<?> entity, FieldInfo field, int count, String tableName) {
+        int size = inListSize(count);
+        String cacheKey = getCacheKey(entity.getClass(), "SELECT_IN:" + field.getColumnName() + ":" + size, tableName);
+        
+        return SQL_CACHE.computeIfAbsent(cacheKey, k -> "SELECT " +
+                String.join(", ", entity.getMetadata().getColumnNames()) + " FROM " + tableName +
+                " WHERE " + field.getColumnName() + " IN (" + String.join(", ", Collections.nCopies(size, "?")) + ")");
+    }
+
+    /**
+     * IN 列表补齐后的占位符个数：不小于 count 的 2 的幂，超过单条语句参数上限时不补齐
+     */
+    public static int inListSize(int count) {
+        if (count <= 1) {
+            return 1;
+        }
+        int size = Integer.highestOneBit(count - 1) << 1;
+        return size > SqlExecutor.MAX_STATEMENT_PARAMS ? count : size;
+    }
+
     // ==================== 参数提取 ====================
 
     /**
@@ -313,7 +421,7 @@ public class SqlBuilder {
         EntityMetadata metadata = entity.getMetadata();
         return metadata.getAllFields().stream()
                 .filter(f -> !f.isAutoIncrement())
-                .map(f -> f.getValue(entity))
+                .map(f -> f.getColumnValue(entity))
                 .toArray();
     }
 
@@ -331,13 +439,13 @@ public class SqlBuilder {
         // 非主键字段的值
         for (FieldInfo field : allFields) {
             if (!field.isPrimaryKey()) {
-                values.add(field.getValue(entity));
+                values.add(field.getColumnValue(entity));
             }
         }
         
         // 主键值
         for (FieldInfo pk : primaryKeys) {
-            values.add(pk.getValue(entity));
+            values.add(pk.getColumnValue(entity));
         }
         
         return values.toArray();
@@ -8,11 +8,17 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.sql.DataSource;
 
@@ -20,7 +26,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.EntityMetadata;
 import com.muyi.db.core.EntityState;
+import com.muyi.db.core.FieldInfo;
 import com.muyi.db.exception.DbException;
 
 /**
@@ -35,6 +43,16 @@ public class SqlExecutor {
 
     private final DataSource dataSource;
 
+    /**
+     * 当前线程所在组事务的固定连接（见 {@link #executeInGroup}）
+     */
+    private final ThreadLocal<PinnedConnection> groupConnection = new ThreadLocal<>();
+
+    /**
+     * 当前线程所在组事务推迟到提交之后的实体状态更新
+     */
+    private final ThreadLocal<List<Runnable>> groupCommitted = new ThreadLocal<>();
+
     public SqlExecutor(DataSource dataSource) {
         this.dataSource = dataSource;
     }
@@ -187,29 +205,175 @@ public class SqlExecutor {
      * 按主键查询
      */
     public <T extends BaseEntity<T>> T selectByPrimaryKey(T template, Object... pkValues) {
-        String sql = SqlBuilder.buildSelectByPrimaryKey(template);
-        
-        try {
-            List<T> list = executeQuery(sql, template, pkValues);
-            return list.isEmpty() ? null : list.get(0);
-        } catch (SQLException e) {
-            logger.error("Select by primary key failed: {}", sql, e);
-            return null;
+        for (String tableName : routeByPrimaryKey(template, pkValues)) {
+            String sql = SqlBuilder.buildSelectByPrimaryKey(template, tableName);
+            try {
+                List<T> list = executeQuery(sql, template, pkValues);
+                if (!list.isEmpty()) {
+                    return list.get(0);
+                }
+            } catch (SQLException e) {
+                logger.error("Select by primary key failed: {}", sql, e);
+                return null;
+            }
         }
+        return null;
     }
 
     /**
      * 按条件查询列表
+     * <p>
+     * 分表实体：条件包含分表键时只查询对应分表，否则依次查询所有分表并合并结果
      */
     public <T extends BaseEntity<T>> List<T> selectByCondition(T template, Map<String, Object> conditions) {
-        String sql = SqlBuilder.buildSelectByCondition(template, conditions);
         Object[] values = conditions != null ? conditions.values().toArray() : new Object[0];
-        
-        try {
-            return executeQuery(sql, template, values);
-        } catch (SQLException e) {
-            logger.error("Select by condition failed: {}", sql, e);
-            return Collections.emptyList();
+        List<String> tableNames = routeByCondition(template, conditions);
+        List<T> results = tableNames.size() == 1 ? null : new ArrayList<>();
+        for (String tableName : tableNames) {
+            String sql = SqlBuilder.buildSelectByCondition(template, conditions, tableName);
+            try {
+                List<T> list = executeQuery(sql, template, values);
+                if (results == null) {
+                    return list;
+                }
+                results.addAll(list);
+            } catch (SQLException e) {
+                logger.error("Select by condition failed: {}", sql, e);
+                return Collections.emptyList();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 按主键路由物理表：分表键属于主键时定位到单个分表，否则返回所有分表
+     */
+    private List<String> routeByPrimaryKey(BaseEntity<?> template, Object[] pkValues) {
+        EntityMetadata metadata = template.getMetadata();
+        if (!metadata.isSharded() || template.getDynamicTableName() != null) {
+            return List.of(template.getTableName());
+        }
+        int index = metadata.getPrimaryKeys().indexOf(metadata.getShardField());
+        if (index >= 0 && index < pkValues.length) {
+            return List.of(metadata.getShardTableName(pkValues[index]));
+        }
+        return metadata.getShardTableNames();
+    }
+
+    /**
+     * 按查询条件路由物理表：条件包含分表键（字段名或列名）时定位到单个分表，否则返回所有分表
+     */
+    private List<String> routeByCondition(BaseEntity<?> template, Map<String, Object> conditions) {
+        EntityMetadata metadata = template.getMetadata();
+        if (!metadata.isSharded() || template.getDynamicTableName() != null) {
+            return List.of(template.getTableName());
+        }
+        if (conditions != null) {
+            FieldInfo shardField = metadata.getShardField();
+            for (Map.Entry<String, Object> condition : conditions.entrySet()) {
+                String key = condition.getKey();
+                if (key.equals(shardField.getFieldName()) || key.equals(shardField.getColumnName())) {
+                    return List.of(metadata.getShardTableName(condition.getValue()));
+                }
+            }
+        }
+        return metadata.getShardTableNames();
+    }
+
+    /**
+     * 按单列 IN 查询（{@link LoadCoalescer} 合并多个请求后使用）
+     * <p>
+     * 列是分表键时按值分组到各自的分表，否则查询所有分表
+     *
+     * @throws SQLException 查询失败（不吞异常，由调用方通知所有等待的请求）
+     */
+    public <T extends BaseEntity<T>> List<T> selectIn(T template, FieldInfo field, Collection<?> values)
+            throws SQLException {
+        EntityMetadata metadata = template.getMetadata();
+        Map<String, List<Object>> valuesByTable = new LinkedHashMap<>();
+        if (metadata.isSharded() && template.getDynamicTableName() == null && field == metadata.getShardField()) {
+            for (Object value : values) {
+                valuesByTable.computeIfAbsent(metadata.getShardTableName(value), k -> new ArrayList<>()).add(value);
+            }
+        } else {
+            List<String> tableNames = template.getDynamicTableName() != null
+                    ? List.of(template.getDynamicTableName())
+                    : metadata.getShardTableNames();
+            for (String tableName : tableNames) {
+                valuesByTable.put(tableName, new ArrayList<>(values));
+            }
+        }
+
+        List<T> results = new ArrayList<>();
+        for (Map.Entry<String, List<Object>> entry : valuesByTable.entrySet()) {
+            List<Object> tableValues = entry.getValue();
+            if (tableValues.isEmpty()) {
+                continue;
+            }
+            int count = tableValues.size();
+            String sql = SqlBuilder.buildSelectIn(template, field, count, entry.getKey());
+            // 补齐到固定的占位符个数，重复的值不影响结果
+            Object[] params = tableValues.toArray(new Object[SqlBuilder.inListSize(count)]);
+            Arrays.fill(params, count, params.length, tableValues.get(count - 1));
+            results.addAll(executeQuery(sql, template, params));
+        }
+        return results;
+    }
+
+    /**
+     * 多条条件查询合并为一次往返（多语句，MySQL 需开启 allowMultiQueries）
+     * <p>
+     * 每条查询按分表路由展开为一条或多条 SELECT，用 {@code ;} 拼接后在同一连接上执行，
+     * 依次读取各结果集。用于玩家登录等需要同时查询多张表的场景。
+     *
+     * @return 各查询的结果（与 queries 顺序一致）
+     * @throws SQLException 执行失败（包括驱动未开启多语句），由调用方决定是否回退为逐条查询
+     */
+    public List<List<BaseEntity<?>>> selectMultiStatement(List<ConditionQuery<?>> queries) throws SQLException {
+        List<String> statements = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        List<List<BaseEntity<?>>> results = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            ConditionQuery<?> query = queries.get(i);
+            Map<String, Object> conditions = query.conditions();
+            for (String tableName : routeByCondition(query.template(), conditions)) {
+                statements.add(SqlBuilder.buildSelectByCondition(query.template(), conditions, tableName));
+                owners.add(i);
+                if (conditions != null) {
+                    params.addAll(conditions.values());
+                }
+            }
+            results.add(new ArrayList<>());
+        }
+
+        String sql = String.join(";\n", statements);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            setParameters(ps, params.toArray());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Execute Multi Query: {} | Params: {}", sql, params);
+            }
+
+            boolean hasResultSet = ps.execute();
+            for (int i = 0; i < statements.size(); i++) {
+                if (!hasResultSet) {
+                    throw new SQLException("Missing result set for statement " + i + ": " + statements.get(i));
+                }
+                try (ResultSet rs = ps.getResultSet()) {
+                    readAll(rs, queries.get(owners.get(i)), results.get(owners.get(i)));
+                }
+                hasResultSet = ps.getMoreResults();
+            }
+        }
+        return results;
+    }
+
+    private static <T extends BaseEntity<T>> void readAll(ResultSet rs, ConditionQuery<T> query,
+                                                          List<BaseEntity<?>> out) throws SQLException {
+        EntityRowMapper<T> mapper = new EntityRowMapper<>(query.template(), rs.getMetaData());
+        while (rs.next()) {
+            out.add(mapper.map(rs));
         }
     }
 
@@ -225,6 +389,104 @@ public class SqlExecutor {
         }
     }
 
+    /**
+     * 流式查询：逐行回调，不在内存中保留结果集
+     * <p>
+     * 用于 GM 全表扫描、数据迁移等大结果集场景。回调在持有连接期间执行，应避免耗时操作。
+     *
+     * @param fetchSize 每次从服务端拉取的行数（MySQL 需开启 useCursorFetch；{@link Integer#MIN_VALUE} 为逐行流式）
+     * @return 处理的行数
+     */
+    public <T extends BaseEntity<T>> long forEach(T template, String sql, int fetchSize,
+                                                  Consumer<? super T> action, Object... params) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = prepareStreaming(conn, sql, fetchSize, params);
+             ResultSet rs = ps.executeQuery()) {
+            EntityRowMapper<T> mapper = new EntityRowMapper<>(template, rs.getMetaData());
+            long count = 0;
+            while (rs.next()) {
+                action.accept(mapper.map(rs));
+                count++;
+            }
+            return count;
+        } catch (SQLException e) {
+            logger.error("Streaming select failed: {}", sql, e);
+            throw new DbException(DbException.OperationType.SELECT, "Streaming select failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 流式查询：返回惰性 Stream，必须关闭（try-with-resources）以释放连接
+     * <pre>{@code
+     * try (Stream<PlayerEntity> players = sqlExecutor.stream(new PlayerEntity(), sql, 1000)) {
+     *     players.filter(p -> p.getLevel() > 50).forEach(...);
+     * }
+     * }</pre>
+     *
+     * @param fetchSize 每次从服务端拉取的行数（同 {@link #forEach}）
+     */
+    public <T extends BaseEntity<T>> Stream<T> stream(T template, String sql, int fetchSize, Object... params) {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = prepareStreaming(conn, sql, fetchSize, params);
+            rs = ps.executeQuery();
+            EntityRowMapper<T> mapper = new EntityRowMapper<>(template, rs.getMetaData());
+            ResultSet cursor = rs;
+            AutoCloseable[] resources = {rs, ps, conn};
+            Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!cursor.next()) {
+                            return false;
+                        }
+                        action.accept(mapper.map(cursor));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new DbException(DbException.OperationType.SELECT,
+                                "Streaming select failed: " + e.getMessage(), e);
+                    }
+                }
+            };
+            return StreamSupport.stream(spliterator, false).onClose(() -> closeQuietly(resources));
+        } catch (SQLException e) {
+            closeQuietly(new AutoCloseable[]{rs, ps, conn});
+            logger.error("Streaming select failed: {}", sql, e);
+            throw new DbException(DbException.OperationType.SELECT, "Streaming select failed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // 映射器构造等非 SQL 异常同样释放游标、语句和连接
+            closeQuietly(new AutoCloseable[]{rs, ps, conn});
+            throw e;
+        }
+    }
+
+    private PreparedStatement prepareStreaming(Connection conn, String sql, int fetchSize, Object[] params) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            ps.setFetchSize(fetchSize);
+            setParameters(ps, params);
+            return ps;
+        } catch (SQLException | RuntimeException e) {
+            ps.close();
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable[] resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource != null) {
+                try {
+                    resource.close();
+                } catch (Exception e) {
+                    logger.warn("Failed to close resource", e);
+                }
+            }
+        }
+    }
+
     /**
      * 执行自定义查询 SQL，返回 Map 列表
      */
@@ -327,23 +589,19 @@ public class SqlExecutor {
         T first = entities.get(0);
         String sql = SqlBuilder.buildInsert(first);
         
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            boolean originalAutoCommit = conn.getAutoCommit();
-            conn.setAutoCommit(false);
-            
-            try {
+        try {
+            List<FieldInfo> fields = first.getMetadata().getAllFields();
+            int[] results = inWriteTransaction(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
                 for (T entity : entities) {
-                    Object[] values = SqlBuilder.getInsertValues(entity);
-                    setParameters(ps, values);
+                    bindFields(ps, 1, entity, fields);
                     ps.addBatch();
                 }
-                
-                int[] results = ps.executeBatch();
-                conn.commit();
-                
-                // 更新实体状态
+                return ps.executeBatch();
+            });
+            
+            // 更新实体状态
+            afterCommit(() -> {
                 for (int i = 0; i < entities.size(); i++) {
                     if (results[i] > 0) {
                         T entity = entities.get(i);
@@ -352,14 +610,9 @@ public class SqlExecutor {
                         entity.syncVersion();
                     }
                 }
-                
-                return results;
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(originalAutoCommit);
-            }
+            });
+            
+            return results;
         } catch (SQLException e) {
             logger.error("Batch insert failed: {}", sql, e);
             throw new DbException(DbException.OperationType.BATCH_INSERT, 
@@ -367,6 +620,39 @@ public class SqlExecutor {
         }
     }
 
+    /**
+     * 批量部分更新（所有实体更新同一组字段）
+     * <p>
+     * 不清除实体的变更标记：调用方负责在落地前取出变更字段（见 {@link BaseEntity#drainChangedFields()}）
+     *
+     * @param entities     实体列表（同一张表）
+     * @param updateFields 需要更新的非主键字段
+     */
+    public <T extends BaseEntity<T>> int[] batchUpdatePartial(List<T> entities, List<FieldInfo> updateFields) {
+        if (entities == null || entities.isEmpty()) {
+            return new int[0];
+        }
+
+        String sql = SqlBuilder.buildPartialUpdate(entities.get(0), updateFields);
+
+        try {
+            List<FieldInfo> primaryKeys = entities.get(0).getMetadata().getPrimaryKeys();
+            return inWriteTransaction(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
+                for (T entity : entities) {
+                    int index = bindFields(ps, 1, entity, updateFields);
+                    bindFields(ps, index, entity, primaryKeys);
+                    ps.addBatch();
+                }
+                return ps.executeBatch();
+            });
+        } catch (SQLException e) {
+            logger.error("Batch partial update failed: {}", sql, e);
+            throw new DbException(DbException.OperationType.BATCH_UPDATE,
+                    "Batch partial update failed: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 批量更新
      */
@@ -378,23 +664,21 @@ public class SqlExecutor {
         T first = entities.get(0);
         String sql = SqlBuilder.buildUpdate(first);
         
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            boolean originalAutoCommit = conn.getAutoCommit();
-            conn.setAutoCommit(false);
-            
-            try {
+        try {
+            List<FieldInfo> nonPrimaryKeys = first.getMetadata().getNonPrimaryKeyFields();
+            List<FieldInfo> primaryKeys = first.getMetadata().getPrimaryKeys();
+            int[] results = inWriteTransaction(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
                 for (T entity : entities) {
-                    Object[] values = SqlBuilder.getUpdateValues(entity);
-                    setParameters(ps, values);
+                    int index = bindFields(ps, 1, entity, nonPrimaryKeys);
+                    bindFields(ps, index, entity, primaryKeys);
                     ps.addBatch();
                 }
-                
-                int[] results = ps.executeBatch();
-                conn.commit();
-                
-                // 更新实体状态
+                return ps.executeBatch();
+            });
+            
+            // 更新实体状态
+            afterCommit(() -> {
                 for (int i = 0; i < entities.size(); i++) {
                     if (results[i] > 0) {
                         T entity = entities.get(i);
@@ -402,14 +686,9 @@ public class SqlExecutor {
                         entity.syncVersion();
                     }
                 }
-                
-                return results;
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(originalAutoCommit);
-            }
+            });
+            
+            return results;
         } catch (SQLException e) {
             logger.error("Batch update failed: {}", sql, e);
             throw new DbException(DbException.OperationType.BATCH_UPDATE, 
@@ -428,36 +707,27 @@ public class SqlExecutor {
         T first = entities.get(0);
         String sql = SqlBuilder.buildDelete(first);
         
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            boolean originalAutoCommit = conn.getAutoCommit();
-            conn.setAutoCommit(false);
-            
-            try {
+        try {
+            List<FieldInfo> primaryKeys = first.getMetadata().getPrimaryKeys();
+            int[] results = inWriteTransaction(statements -> {
+                PreparedStatement ps = statements.prepare(sql);
                 for (T entity : entities) {
-                    Object[] values = SqlBuilder.getDeleteValues(entity);
-                    setParameters(ps, values);
+                    bindFields(ps, 1, entity, primaryKeys);
                     ps.addBatch();
                 }
-                
-                int[] results = ps.executeBatch();
-                conn.commit();
-                
-                // 更新实体状态
+                return ps.executeBatch();
+            });
+            
+            // 更新实体状态
+            afterCommit(() -> {
                 for (int i = 0; i < entities.size(); i++) {
                     if (results[i] > 0) {
                         entities.get(i).setState(EntityState.DELETED);
                     }
                 }
-                
-                return results;
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(originalAutoCommit);
-            }
+            });
+            
+            return results;
         } catch (SQLException e) {
             logger.error("Batch delete failed: {}", sql, e);
             throw new DbException(DbException.OperationType.BATCH_DELETE, 
@@ -465,6 +735,146 @@ public class SqlExecutor {
         }
     }
 
+    // ==================== 多行语句 ====================
+
+    /**
+     * MySQL 单条预编译语句的参数上限
+     */
+    static final int MAX_STATEMENT_PARAMS = 65535;
+
+    /**
+     * 多行 INSERT（{@code INSERT ... VALUES (...), (...)}）
+     * <p>
+     * 按 maxPacketBytes 分块，所有分块在同一事务中执行：成功时每个实体结果为 1，任一分块失败整体回滚并抛出异常。
+     * 不清除实体的变更标记（由调用方处理）。
+     *
+     * @param maxPacketBytes 单条语句的最大字节数（应不大于服务端 max_allowed_packet）
+     */
+    public <T extends BaseEntity<T>> int[] multiRowInsert(List<T> entities, int maxPacketBytes) {
+        if (entities == null || entities.isEmpty()) {
+            return new int[0];
+        }
+        T first = entities.get(0);
+        int[] results = executeMultiRow(entities, first.getMetadata().getAllFields(), maxPacketBytes,
+                rows -> SqlBuilder.buildBatchInsert(first, rows), DbException.OperationType.BATCH_INSERT);
+        afterCommit(() -> {
+            for (T entity : entities) {
+                entity.setState(EntityState.PERSISTENT);
+            }
+        });
+        return results;
+    }
+
+    /**
+     * 多行 INSERT ... ON DUPLICATE KEY UPDATE（整行写入，语义同 {@link #multiRowInsert}）
+     */
+    public <T extends BaseEntity<T>> int[] multiRowUpsert(List<T> entities, int maxPacketBytes) {
+        if (entities == null || entities.isEmpty()) {
+            return new int[0];
+        }
+        T first = entities.get(0);
+        int[] results = executeMultiRow(entities, first.getMetadata().getAllFields(), maxPacketBytes,
+                rows -> SqlBuilder.buildBatchUpsert(first, rows), DbException.OperationType.BATCH_INSERT);
+        afterCommit(() -> {
+            for (T entity : entities) {
+                entity.setState(EntityState.PERSISTENT);
+            }
+        });
+        return results;
+    }
+
+    /**
+     * 多行 DELETE（单主键 IN 列表，复合主键 OR 条件）
+     * <p>
+     * 删除是幂等的：语句执行成功即视为每个实体删除成功（即使行已不存在）
+     */
+    public <T extends BaseEntity<T>> int[] multiRowDelete(List<T> entities, int maxPacketBytes) {
+        if (entities == null || entities.isEmpty()) {
+            return new int[0];
+        }
+        T first = entities.get(0);
+        int[] results = executeMultiRow(entities, first.getMetadata().getPrimaryKeys(), maxPacketBytes,
+                rows -> SqlBuilder.buildBatchDelete(first, rows), DbException.OperationType.BATCH_DELETE);
+        afterCommit(() -> {
+            for (T entity : entities) {
+                entity.setState(EntityState.DELETED);
+            }
+        });
+        return results;
+    }
+
+    private <T extends BaseEntity<T>> int[] executeMultiRow(List<T> entities, List<FieldInfo> fields,
+                                                            int maxPacketBytes, IntFunction<String> sqlForRows,
+                                                            DbException.OperationType operationType) {
+        String[] sql = new String[1];
+        try {
+            inWriteTransaction(statements -> {
+                int from = 0;
+                while (from < entities.size()) {
+                    int to = chunkEnd(entities, from, fields, maxPacketBytes);
+                    sql[0] = sqlForRows.apply(to - from);
+                    PreparedStatement ps = statements.prepare(sql[0]);
+                    int index = 1;
+                    for (int i = from; i < to; i++) {
+                        index = bindFields(ps, index, entities.get(i), fields);
+                    }
+                    ps.executeUpdate();
+                    from = to;
+                }
+                return null;
+            });
+
+            int[] results = new int[entities.size()];
+            Arrays.fill(results, 1);
+            return results;
+        } catch (SQLException e) {
+            logger.error("Multi-row {} failed: {}", operationType, sql[0], e);
+            throw new DbException(operationType, "Multi-row statement failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 计算从 from 开始的分块结束位置（不含）
+     * <p>
+     * 按行估算语句字节数（文本协议下参数内联到 SQL 中），同时受参数上限约束；单行超限时单独成块
+     */
+    static int chunkEnd(List<? extends BaseEntity<?>> entities, int from, List<FieldInfo> fields,
+                        int maxPacketBytes) {
+        // 语句头（INSERT INTO t (列...) VALUES / ON DUPLICATE KEY UPDATE ...）按每列 64 字节预留
+        long budget = maxPacketBytes - 256L - 64L * fields.size();
+        int maxRows = Math.max(1, MAX_STATEMENT_PARAMS / Math.max(1, fields.size()));
+        long used = 0;
+        int end = from;
+        while (end < entities.size() && end - from < maxRows) {
+            long rowBytes = estimateRowBytes(entities.get(end), fields);
+            if (end > from && used + rowBytes > budget) {
+                break;
+            }
+            used += rowBytes;
+            end++;
+        }
+        return end;
+    }
+
+    private static long estimateRowBytes(BaseEntity<?> entity, List<FieldInfo> fields) {
+        long bytes = 4;  // 括号和分隔符
+        for (FieldInfo field : fields) {
+            Object value = field.getColumnValue(entity);
+            if (value == null) {
+                bytes += 6;
+            } else if (value instanceof CharSequence text) {
+                // utf8mb4 每个 char 最多 3 字节（代理对 2 个 char 共 4 字节），另加引号和少量转义
+                bytes += text.length() * 3L + 4;
+            } else if (value instanceof byte[] data) {
+                // 文本协议下以十六进制或转义形式发送
+                bytes += data.length * 2L + 4;
+            } else {
+                bytes += 24;
+            }
+        }
+        return bytes;
+    }
+
     // ==================== 事务操作 ====================
 
     /**
@@ -486,6 +896,111 @@ public class SqlExecutor {
         }
     }
 
+    /**
+     * 创建固定连接（连接在首次组事务时才借出）
+     *
+     * @param statementCacheSize 预编译语句缓存容量
+     */
+    public PinnedConnection pinConnection(int statementCacheSize) {
+        return new PinnedConnection(dataSource, statementCacheSize);
+    }
+
+    /**
+     * 在固定连接上以组事务执行
+     * <p>
+     * action 执行期间，当前线程调用的批量写方法（batchInsert / batchUpdate / batchUpdatePartial / batchDelete /
+     * multiRow*）都使用该连接及其语句缓存，且不单独提交；action 正常结束后统一提交一次。
+     * action 抛出异常或提交失败时回滚整个组事务并抛出 {@link DbException}，调用方可改为逐表执行兜底。
+     * <p>
+     * 批量写方法对实体状态的更新（状态、变更标记、版本）推迟到组事务提交之后，回滚时实体保持原状态，可直接重新落地。
+     *
+     * @param pinned 当前线程独占的固定连接
+     */
+    public void executeInGroup(PinnedConnection pinned, Runnable action) {
+        if (groupConnection.get() != null) {
+            throw new IllegalStateException("Nested group transaction is not supported");
+        }
+        List<Runnable> committed = new ArrayList<>();
+        try {
+            pinned.begin();
+            groupConnection.set(pinned);
+            groupCommitted.set(committed);
+            try {
+                action.run();
+            } finally {
+                groupConnection.remove();
+                groupCommitted.remove();
+            }
+            pinned.commit();
+        } catch (SQLException e) {
+            pinned.rollback();
+            logger.error("Group commit failed", e);
+            throw new DbException(DbException.OperationType.TRANSACTION,
+                    "Group commit failed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            pinned.rollback();
+            throw e;
+        }
+        committed.forEach(Runnable::run);
+    }
+
+    /**
+     * 写入成功后的实体状态更新：组事务中推迟到提交之后（回滚时丢弃），否则立即执行
+     */
+    private void afterCommit(Runnable update) {
+        List<Runnable> committed = groupCommitted.get();
+        if (committed != null) {
+            committed.add(update);
+        } else {
+            update.run();
+        }
+    }
+
+    /**
+     * 在写事务中执行：当前线程处于组事务中时使用固定连接且不提交，否则借出连接单独提交
+     */
+    private <R> R inWriteTransaction(WriteAction<R> action) throws SQLException {
+        PinnedConnection pinned = groupConnection.get();
+        if (pinned != null) {
+            return action.apply(pinned::prepare);
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            List<PreparedStatement> opened = new ArrayList<>(1);
+            boolean originalAutoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                R result = action.apply(sql -> {
+                    PreparedStatement ps = conn.prepareStatement(sql);
+                    opened.add(ps);
+                    return ps;
+                });
+                conn.commit();
+                return result;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                for (PreparedStatement ps : opened) {
+                    ps.close();
+                }
+                conn.setAutoCommit(originalAutoCommit);
+            }
+        }
+    }
+
+    /**
+     * 语句来源（固定连接时为语句缓存）
+     */
+    @FunctionalInterface
+    private interface StatementSource {
+        PreparedStatement prepare(String sql) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface WriteAction<R> {
+        R apply(StatementSource statements) throws SQLException;
+    }
+
     // ==================== 底层执行方法 ====================
 
     private int executeUpdate(String sql, Object[] params) throws SQLException {
@@ -514,18 +1029,9 @@ public class SqlExecutor {
             }
             
             try (ResultSet rs = ps.executeQuery()) {
-                ResultSetMetaData rsmd = rs.getMetaData();
-                int columnCount = rsmd.getColumnCount();
-                
+                EntityRowMapper<T> mapper = new EntityRowMapper<>(template, rs.getMetaData());
                 while (rs.next()) {
-                    Map<String, Object> row = new LinkedHashMap<>();
-                    for (int i = 1; i <= columnCount; i++) {
-                        row.put(rsmd.getColumnLabel(i), rs.getObject(i));
-                    }
-                    
-                    T entity = template.newInstance();
-                    entity.fromMap(row);
-                    results.add(entity);
+                    results.add(mapper.map(rs));
                 }
             }
         }
@@ -558,6 +1064,19 @@ public class SqlExecutor {
         return results;
     }
 
+    /**
+     * 按字段绑定参数（有生成访问器时按类型绑定，不经过 Object[] 装箱）
+     *
+     * @return 下一个参数下标
+     */
+    private int bindFields(PreparedStatement ps, int startIndex, Object entity, List<FieldInfo> fields) throws SQLException {
+        int index = startIndex;
+        for (FieldInfo field : fields) {
+            field.bind(ps, index++, entity);
+        }
+        return index;
+    }
+
     private void setParameters(PreparedStatement ps, Object[] params) throws SQLException {
         if (params != null) {
             for (int i = 0; i < params.length; i++) {
@@ -7,13 +7,16 @@ import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import com.muyi.db.annotation.Column;
 import com.muyi.db.annotation.Index;
 import com.muyi.db.annotation.Indexes;
 import com.muyi.db.annotation.PrimaryKey;
 import com.muyi.db.annotation.Table;
+import com.muyi.db.codec.ColumnCodec;
 import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.EntityMetadata;
 import com.muyi.db.util.StringUtils;
 
 /**
@@ -26,12 +29,19 @@ public class TableGenerator {
 
     /**
      * 生成建表 SQL
+     * <p>
+     * 分表实体（{@code shardCount > 0}）生成所有分表 {@code 表名_0 ~ 表名_(n-1)} 的建表语句
      *
      * @param entityClass 实体类
      * @return CREATE TABLE SQL
      */
     public static String generateCreateTable(Class<? extends BaseEntity<?>> entityClass) {
-        String tableName = getTableName(entityClass);
+        return getTableNames(entityClass).stream()
+                .map(tableName -> generateCreateTable(entityClass, tableName))
+                .collect(Collectors.joining("\n\n"));
+    }
+
+    private static String generateCreateTable(Class<? extends BaseEntity<?>> entityClass, String tableName) {
         List<FieldMeta> fields = parseFields(entityClass);
         
         StringBuilder sql = new StringBuilder();
@@ -90,14 +100,18 @@ public class TableGenerator {
      * 生成删表 SQL
      */
     public static String generateDropTable(Class<? extends BaseEntity<?>> entityClass) {
-        return "DROP TABLE IF EXISTS `" + getTableName(entityClass) + "`;";
+        return getTableNames(entityClass).stream()
+                .map(tableName -> "DROP TABLE IF EXISTS `" + tableName + "`;")
+                .collect(Collectors.joining("\n"));
     }
 
     /**
      * 生成清空表 SQL
      */
     public static String generateTruncateTable(Class<? extends BaseEntity<?>> entityClass) {
-        return "TRUNCATE TABLE `" + getTableName(entityClass) + "`;";
+        return getTableNames(entityClass).stream()
+                .map(tableName -> "TRUNCATE TABLE `" + tableName + "`;")
+                .collect(Collectors.joining("\n"));
     }
 
     /**
@@ -122,6 +136,22 @@ public class TableGenerator {
         return StringUtils.camelToSnake(entityClass.getSimpleName());
     }
 
+    /**
+     * 物理表名列表（未分表时只有逻辑表名）
+     */
+    private static List<String> getTableNames(Class<?> entityClass) {
+        String tableName = getTableName(entityClass);
+        Table tableAnn = entityClass.getAnnotation(Table.class);
+        if (tableAnn == null || tableAnn.shardCount() <= 0) {
+            return List.of(tableName);
+        }
+        List<String> names = new ArrayList<>(tableAnn.shardCount());
+        for (int i = 0; i < tableAnn.shardCount(); i++) {
+            names.add(EntityMetadata.shardTableName(tableName, i));
+        }
+        return names;
+    }
+
     private static List<FieldMeta> parseFields(Class<?> clazz) {
         List<FieldMeta> fields = new ArrayList<>();
         parseFieldsRecursive(clazz, fields);
@@ -152,6 +182,7 @@ public class TableGenerator {
                 meta.nullable = columnAnn.nullable();
                 meta.columnType = columnAnn.columnType();
                 meta.defaultValue = columnAnn.defaultValue();
+                meta.codec = columnAnn.codec() != ColumnCodec.class;
             } else {
                 meta.columnName = StringUtils.camelToSnake(field.getName());
                 meta.nullable = true;
@@ -195,7 +226,15 @@ public class TableGenerator {
         def.append("`").append(field.columnName).append("` ");
 
         // 列类型
-        String sqlType = field.columnType.isEmpty() ? mapJavaTypeToSql(field.fieldType) : field.columnType;
+        String sqlType;
+        if (!field.columnType.isEmpty()) {
+            sqlType = field.columnType;
+        } else if (field.codec) {
+            // 编解码字段存编码后的字节，MEDIUMBLOB 上限 16MB
+            sqlType = "MEDIUMBLOB";
+        } else {
+            sqlType = mapJavaTypeToSql(field.fieldType);
+        }
         def.append(sqlType);
 
         // NOT NULL
@@ -0,0 +1,196 @@
+package com.muyi.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.annotation.DirtyIndex;
+import com.muyi.db.annotation.EntityCache;
+import com.muyi.db.annotation.PrimaryKey;
+import com.muyi.db.annotation.Table;
+import com.muyi.db.config.DbConfig;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.EntityState;
+import com.muyi.db.sql.ReplicaRouter;
+import com.muyi.db.testing.FakeDatabase;
+import com.muyi.db.testing.FakeJdbc;
+
+/**
+ * DbManager 查询测试：合并脏数据、实体缓存（数据库为模拟数据库，落地间隔足够长，提交的实体在测试期间一直是脏数据）
+ */
+class DbManagerTest {
+
+    private static final String[] COLUMNS = {"id", "uid"};
+
+    /** 模拟表 test_indexed 的行：{id, uid} */
+    private final List<Object[]> rows = new ArrayList<>();
+    private final FakeDatabase db = new FakeDatabase().onQuery((sql, params) -> {
+        List<Object[]> matched = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (params.isEmpty() || row[1].equals(((Number) params.get(0)).longValue())) {
+                matched.add(row);
+            }
+        }
+        return List.of(FakeJdbc.resultSet(COLUMNS, matched.toArray(new Object[0][])));
+    });
+    private DbManager dbManager;
+
+    @BeforeEach
+    void setUp() {
+        dbManager = new DbManager(new DbConfig().landThreads(1).landIntervalMs(60_000), db.dataSource());
+    }
+
+    @AfterEach
+    void tearDown() {
+        dbManager.shutdown();
+    }
+
+    @Test
+    @DisplayName("按 @DirtyIndex 条件查询：排除已删除和改出条件的行，补充改入条件和新增的脏数据")
+    void testSelectByConditionMergesIndexedDirty() {
+        rows.add(new Object[]{1L, 10001L});
+        rows.add(new Object[]{2L, 10001L});
+        rows.add(new Object[]{3L, 10001L});
+        rows.add(new Object[]{4L, 10002L});
+
+        // 2 已删除
+        dbManager.submitDelete(persistent(2L, 10001L));
+        // 3 改出条件，4 改入条件
+        IndexedEntity movedOut = persistent(3L, 10001L);
+        movedOut.setUid(10002L);
+        dbManager.submitUpdate(movedOut);
+        IndexedEntity movedIn = persistent(4L, 10002L);
+        movedIn.setUid(10001L);
+        dbManager.submitUpdate(movedIn);
+        // 5 新增且符合条件，6 新增但不符合
+        IndexedEntity inserted = new IndexedEntity(5L, 10001L);
+        dbManager.submitInsert(inserted);
+        dbManager.submitInsert(new IndexedEntity(6L, 10002L));
+
+        List<IndexedEntity> result = dbManager.selectByCondition(new IndexedEntity(), Map.of("uid", 10001L),
+                e -> e.getUid() == 10001L);
+
+        assertEquals(List.of(1L, 4L, 5L), result.stream().map(IndexedEntity::getId).sorted().toList());
+        assertSame(movedIn, find(result, 4L));
+        assertSame(inserted, find(result, 5L));
+        assertEquals(List.of("SELECT id, uid FROM test_indexed WHERE uid = ?"), db.executed);
+
+        // 不提供匹配器时只覆盖和排除数据库中查到的行
+        List<IndexedEntity> overlaid = dbManager.selectByCondition(new IndexedEntity(), Map.of("uid", 10001L));
+        assertEquals(List.of(1L, 3L), overlaid.stream().map(IndexedEntity::getId).sorted().toList());
+        assertSame(movedOut, find(overlaid, 3L));
+    }
+
+    @Test
+    @DisplayName("实体缓存只接收主库读到的行，副本读到的行不写入缓存")
+    void testEntityCacheSkipsReplicaReads() {
+        FakeDatabase primary = new FakeDatabase().onQuery((sql, params) ->
+                List.of(FakeJdbc.resultSet(COLUMNS, new Object[][]{{params.get(0), 10001L}})));
+        FakeDatabase replica = new FakeDatabase().onQuery((sql, params) ->
+                List.of(FakeJdbc.resultSet(COLUMNS, new Object[][]{{params.get(0), 10001L}})));
+        DbManager manager = new DbManager(new DbConfig()
+                .landThreads(1)
+                .landIntervalMs(60_000)
+                .entityCacheMaxBytes(1024 * 1024)
+                .replicaPolicy("test_cached_replica", ReplicaRouter.Policy.REPLICA),
+                primary.dataSource(), replica.dataSource());
+        try {
+            ReplicaCachedEntity fromReplica = manager.selectByPrimaryKey(new ReplicaCachedEntity(), 1L);
+            assertNotSame(fromReplica, manager.selectByPrimaryKey(new ReplicaCachedEntity(), 1L));
+            assertEquals(2, replica.executed.size());
+
+            PrimaryCachedEntity fromPrimary = manager.selectByPrimaryKey(new PrimaryCachedEntity(), 1L);
+            assertSame(fromPrimary, manager.selectByPrimaryKey(new PrimaryCachedEntity(), 1L));
+            assertEquals(1, primary.executed.size());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("查询缓存从主库加载，不缓存副本读到的结果")
+    void testQueryCacheLoadsFromPrimary() {
+        FakeDatabase primary = new FakeDatabase().onQuery((sql, params) ->
+                List.of(FakeJdbc.resultSet(COLUMNS, new Object[][]{{1L, params.get(0)}})));
+        FakeDatabase replica = new FakeDatabase().onQuery((sql, params) ->
+                List.of(FakeJdbc.resultSet(COLUMNS, new Object[][]{{1L, params.get(0)}})));
+        DbManager manager = new DbManager(new DbConfig()
+                .landThreads(1)
+                .landIntervalMs(60_000)
+                .queryCacheMaxBytes(1024 * 1024)
+                .replicaPolicy("test_indexed", ReplicaRouter.Policy.REPLICA),
+                primary.dataSource(), replica.dataSource());
+        try {
+            String sql = "SELECT id, uid FROM test_indexed WHERE uid = ?";
+            List<IndexedEntity> first = manager.selectBySqlCached(new IndexedEntity(), sql, 10001L);
+            List<IndexedEntity> second = manager.selectBySqlCached(new IndexedEntity(), sql, 10001L);
+
+            assertSame(first.get(0), second.get(0));
+            assertEquals(1, primary.executed.size());
+            assertEquals(0, replica.executed.size());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    private static IndexedEntity persistent(long id, long uid) {
+        IndexedEntity entity = new IndexedEntity(id, uid);
+        entity.setState(EntityState.PERSISTENT);
+        entity.clearChanges();
+        return entity;
+    }
+
+    private static IndexedEntity find(List<IndexedEntity> entities, long id) {
+        return entities.stream().filter(e -> e.getId() == id).findFirst().orElseThrow();
+    }
+
+    @Table("test_indexed")
+    static class IndexedEntity extends BaseEntity<IndexedEntity> {
+        @PrimaryKey
+        private long id;
+
+        @DirtyIndex
+        private long uid;
+
+        public IndexedEntity() {}
+
+        IndexedEntity(long id, long uid) {
+            this.id = id;
+            this.uid = uid;
+        }
+
+        long getId() { return id; }
+        long getUid() { return uid; }
+        void setUid(long uid) { this.uid = uid; markChanged("uid"); }
+    }
+
+    @EntityCache
+    @Table("test_cached_replica")
+    static class ReplicaCachedEntity extends BaseEntity<ReplicaCachedEntity> {
+        @PrimaryKey
+        private long id;
+
+        private long uid;
+
+        public ReplicaCachedEntity() {}
+    }
+
+    @EntityCache
+    @Table("test_cached_primary")
+    static class PrimaryCachedEntity extends BaseEntity<PrimaryCachedEntity> {
+        @PrimaryKey
+        private long id;
+
+        private long uid;
+
+        public PrimaryCachedEntity() {}
+    }
+}
@@ -11,6 +11,7 @@ import com.muyi.db.annotation.PrimaryKey;
 import com.muyi.db.annotation.Table;
 import com.muyi.db.core.BaseEntity;
 import com.muyi.db.core.EntityState;
+import com.muyi.db.core.FieldInfo;
 import com.muyi.db.sql.SqlExecutor;
 
 /**
@@ -356,6 +357,11 @@ class AdaptiveEffectivenessTest {
             return results;
         }
         
+        @Override
+        public <T extends BaseEntity<T>> int[] batchUpdatePartial(List<T> entities, List<FieldInfo> updateFields) {
+            return batchUpdate(entities);
+        }
+        
         @Override
         public <T extends BaseEntity<T>> int[] batchDelete(List<T> entities) {
             simulateLatency(entities.size());
@@ -2,7 +2,10 @@ package com.muyi.db.async;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -11,16 +14,20 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import com.muyi.db.annotation.Column;
+import com.muyi.db.annotation.DirtyIndex;
+import com.muyi.db.annotation.LandOptions;
 import com.muyi.db.annotation.PrimaryKey;
 import com.muyi.db.annotation.Table;
 import com.muyi.db.core.BaseEntity;
 import com.muyi.db.core.EntityState;
+import com.muyi.db.core.FieldInfo;
 import com.muyi.db.sql.SqlExecutor;
 
 /**
@@ -452,6 +459,85 @@ class AsyncLandManagerTest {
         assertEquals(0, allDirty.size());
     }
 
+    @Test
+    @DisplayName("脏数据缓存: @DirtyIndex 按字段值查找，提交更新时移动索引")
+    void testDirtyCache_Index() throws InterruptedException {
+        List<IndexedEntity> entities = new ArrayList<>();
+        for (long i = 1; i <= 5; i++) {
+            IndexedEntity entity = new IndexedEntity(i, i <= 3 ? 10001L : 10002L);
+            entities.add(entity);
+            landManager.submitInsert(entity);
+        }
+
+        assertTrue(landManager.hasDirtyIndex(IndexedEntity.class, "uid"));
+        assertFalse(landManager.hasDirtyIndex(IndexedEntity.class, "id"));
+        // 条件值按字段类型转换（Integer -> long）
+        assertEquals(3, landManager.getDirtyByIndex(IndexedEntity.class, "uid", 10001).size());
+        assertEquals(2, landManager.getDirtyByIndex(IndexedEntity.class, "uid", 10002L).size());
+
+        // 修改索引字段后重新提交，索引从旧值移到新值
+        IndexedEntity moved = entities.get(0);
+        moved.setUid(10002L);
+        landManager.submitUpdate(moved);
+        assertEquals(2, landManager.getDirtyByIndex(IndexedEntity.class, "uid", 10001L).size());
+        assertEquals(3, landManager.getDirtyByIndex(IndexedEntity.class, "uid", 10002L).size());
+
+        // 已删除的不返回
+        landManager.submitDelete(entities.get(4));
+        assertEquals(2, landManager.getDirtyByIndex(IndexedEntity.class, "uid", 10002L).size());
+
+        waitForLand();
+        assertTrue(landManager.getDirtyByIndex(IndexedEntity.class, "uid", 10001L).isEmpty());
+        assertTrue(landManager.getDirtyByIndex(IndexedEntity.class, "uid", 10002L).isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> landManager.getDirtyByIndex(TestEntity.class, "name", "x"));
+    }
+
+    // ==================== 落地指标测试 ====================
+
+    @Test
+    @DisplayName("落地指标: 记录延迟、批量行数和按表计数")
+    @SuppressWarnings("unchecked")
+    void testMetricsSnapshot() throws InterruptedException {
+        for (long i = 1; i <= 4; i++) {
+            TestEntity entity = new TestEntity(i);
+            entity.setName("m" + i);
+            landManager.submitInsert(entity);
+        }
+        waitForLand();
+
+        LandMetrics metrics = landManager.getMetrics();
+        assertEquals(4, metrics.getLanded());
+        assertEquals(4, metrics.getLandLatencyMs().getCount());
+        assertTrue(metrics.getBatchRows().getSum() >= 4);
+        assertTrue(metrics.getLandLatencyMs().percentile(0.99) <= metrics.getLandLatencyMs().getMax());
+
+        Map<String, Object> snapshot = landManager.metricsSnapshot();
+        assertEquals(0, snapshot.get("pendingTasks"));
+        List<Map<String, Object>> workers = (List<Map<String, Object>>) snapshot.get("workers");
+        assertEquals(1, workers.size());
+        assertNotNull(workers.get(0).get("state"));
+        Map<String, Object> tables = (Map<String, Object>) snapshot.get("tables");
+        Map<String, Object> table = (Map<String, Object>) tables.get("test_entity");
+        assertEquals(4L, table.get("landed"));
+        assertEquals(0, table.get("queued"));
+    }
+
+    @Test
+    @DisplayName("落地指标: 直方图分位数取桶上界且不超过最大值")
+    void testMetricsHistogram() {
+        LandMetrics.Histogram histogram = new LandMetrics.Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0.001);
+        assertEquals(63, histogram.percentile(0.5));
+        assertEquals(100, histogram.percentile(0.99));
+        assertEquals(0, new LandMetrics.Histogram().percentile(0.5));
+    }
+
     // ==================== DbManager 脏数据合并测试 ====================
     
     @Test
@@ -514,8 +600,213 @@ class AsyncLandManagerTest {
         assertTrue(allDirty.stream().noneMatch(e -> e.getId() == 601L));
     }
 
+    // ==================== 部分更新测试 ====================
+
+    @Test
+    @DisplayName("UPDATE 按变更列分组：有变更标记走部分更新，无变更标记走整行更新")
+    void testUpdateGroupedByChangedColumns() throws InterruptedException {
+        TestEntity changed = new TestEntity(700L);
+        changed.setState(EntityState.PERSISTENT);
+        changed.clearChanges();
+        changed.setName("changed");
+
+        TestEntity unmarked = new TestEntity(701L);
+        unmarked.setState(EntityState.PERSISTENT);
+        unmarked.clearChanges();
+
+        landManager.submitUpdate(changed);
+        landManager.submitUpdate(unmarked);
+        waitForLand();
+
+        assertEquals(2, mockExecutor.updateCount.get());
+        assertEquals(List.of(List.of("name")), mockExecutor.partialUpdateColumns);
+        assertFalse(changed.hasChanges());
+    }
+
+    @Test
+    @DisplayName("UPSERT 模式: INSERT 与 UPDATE 合并为一条多行 upsert")
+    void testUpsertModeMergesInsertAndUpdate() throws InterruptedException {
+        landManager.shutdown();
+        landManager = new AsyncLandManager(mockExecutor, new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(100)
+                .batchSize(10)
+                .statementMode(LandOptions.Statement.UPSERT)
+                .maxPacketBytes(1024 * 1024));
+
+        TestEntity created = new TestEntity(800L);
+        created.setName("new");
+        TestEntity existing = new TestEntity(801L);
+        existing.setState(EntityState.PERSISTENT);
+        existing.clearChanges();
+        existing.setName("changed");
+
+        landManager.submitInsert(created);
+        landManager.submitUpdate(existing);
+        waitForLand();
+
+        assertEquals(List.of(2), mockExecutor.upsertStatements);
+        assertEquals(0, mockExecutor.insertCount.get());
+        assertEquals(0, mockExecutor.updateCount.get());
+        assertEquals(EntityState.PERSISTENT, created.getState());
+        assertFalse(existing.hasChanges());
+    }
+
+    @Test
+    @DisplayName("主键路由: 同一张表分散到多个线程，同一实体始终进入同一线程")
+    void testPrimaryKeyRouting() throws InterruptedException {
+        landManager.shutdown();
+        landManager = new AsyncLandManager(mockExecutor, new AsyncLandConfig()
+                .landThreads(4)
+                .landIntervalMs(100)
+                .batchSize(10)
+                .routingMode(LandOptions.Routing.PRIMARY_KEY));
+
+        Set<Integer> workers = new HashSet<>();
+        List<TestEntity> entities = new ArrayList<>();
+        for (long id = 900; id < 964; id++) {
+            TestEntity entity = new TestEntity(id);
+            entity.setName("n" + id);
+            landManager.submitInsert(entity);
+            workers.add(entity.getLandWorker());
+            entities.add(entity);
+        }
+        waitForLand();
+        assertTrue(workers.size() > 1, "workers used: " + workers);
+        assertEquals(64, mockExecutor.insertCount.get());
+
+        TestEntity first = entities.get(0);
+        int worker = first.getLandWorker();
+        first.setName("updated");
+        landManager.submitUpdate(first);
+        assertEquals(worker, first.getLandWorker());
+        // 同主键的新对象路由到同一线程
+        TestEntity copy = new TestEntity(900L);
+        copy.setState(EntityState.PERSISTENT);
+        landManager.submitDelete(copy);
+        assertEquals(worker, copy.getLandWorker());
+        waitForLand();
+        assertEquals(1, mockExecutor.deleteCount.get());
+    }
+
+    @Test
+    @DisplayName("主键路由: 自增主键生成前按对象分配，生成后改按主键分配，与同主键的其他实例同线程")
+    void testPrimaryKeyRoutingAfterKeyGenerated() throws InterruptedException {
+        landManager.shutdown();
+        landManager = new AsyncLandManager(mockExecutor, new AsyncLandConfig()
+                .landThreads(8)
+                .landIntervalMs(100)
+                .batchSize(10)
+                .routingMode(LandOptions.Routing.PRIMARY_KEY));
+
+        List<AutoIdEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            AutoIdEntity entity = new AutoIdEntity();
+            landManager.submitInsert(entity);
+            assertTrue(entity.isLandWorkerByIdentity());
+            entities.add(entity);
+        }
+        waitForLand();
+
+        for (int i = 0; i < entities.size(); i++) {
+            AutoIdEntity entity = entities.get(i);
+            // 模拟 INSERT 回填自增主键
+            entity.assignId(i + 1);
+            entity.setName("n" + i);
+            landManager.submitUpdate(entity);
+            assertFalse(entity.isLandWorkerByIdentity());
+
+            AutoIdEntity copy = new AutoIdEntity();
+            copy.assignId(i + 1);
+            copy.setState(EntityState.PERSISTENT);
+            landManager.submitDelete(copy);
+            assertEquals(copy.getLandWorker(), entity.getLandWorker());
+        }
+        waitForLand();
+        assertEquals(32, mockExecutor.deleteCount.get());
+    }
+
+    // ==================== 优先级通道 ====================
+
+    @Test
+    @DisplayName("优先级: CRITICAL 提交立即唤醒落地，NORMAL 仍等待落地间隔")
+    void testCriticalLandsImmediately() throws InterruptedException {
+        landManager.shutdown();
+        landManager = new AsyncLandManager(mockExecutor, new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(2000)
+                .batchSize(10));
+
+        TestEntity normal = new TestEntity(1000L);
+        landManager.submitInsert(normal);
+        Thread.sleep(300);
+        assertEquals(EntityState.NEW, normal.getState());
+
+        TestEntity critical = new TestEntity(1001L);
+        long start = System.currentTimeMillis();
+        landManager.submitInsert(critical, LandOptions.Priority.CRITICAL);
+        waitUntil(() -> critical.getState() == EntityState.PERSISTENT);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+    @Test
+    @DisplayName("优先级: BULK 任务保留到最长等待时间，期间的重复提交合并为一次落地")
+    void testBulkHeldAndCoalesced() throws InterruptedException {
+        landManager.shutdown();
+        landManager = new AsyncLandManager(mockExecutor, new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(20)
+                .batchSize(10)
+                .bulkMaxDelayMs(500));
+
+        TestEntity entity = new TestEntity(1100L);
+        landManager.submitInsert(entity, LandOptions.Priority.BULK);
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(30);
+            entity.setName("n" + i);
+            landManager.submitUpdate(entity, LandOptions.Priority.BULK);
+        }
+        assertEquals(EntityState.NEW, entity.getState());
+        List<?> workers = (List<?>) landManager.metricsSnapshot().get("workers");
+        assertEquals(1, ((Map<?, ?>) workers.get(0)).get("bulk"));
+
+        waitUntil(() -> entity.getState() == EntityState.PERSISTENT);
+        assertEquals(1, mockExecutor.insertCount.get());
+        assertEquals(0, mockExecutor.updateCount.get());
+    }
+
+    @Test
+    @DisplayName("优先级: BULK 通道中的实体被 CRITICAL 提交时提前落地")
+    void testPromoteBulkToCritical() throws InterruptedException {
+        landManager.shutdown();
+        landManager = new AsyncLandManager(mockExecutor, new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(1000)
+                .batchSize(10)
+                .bulkMaxDelayMs(60_000));
+
+        TestEntity entity = new TestEntity(1200L);
+        landManager.submitInsert(entity, LandOptions.Priority.BULK);
+        Thread.sleep(200);
+        assertEquals(EntityState.NEW, entity.getState());
+
+        entity.setName("paid");
+        landManager.submitUpdate(entity, LandOptions.Priority.CRITICAL);
+        assertEquals(LandOptions.Priority.CRITICAL, entity.getLandPriority());
+        waitUntil(() -> entity.getState() == EntityState.PERSISTENT);
+        assertEquals(1, mockExecutor.insertCount.get());
+    }
+
     // ==================== 辅助方法 ====================
 
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
     private void waitForLand() throws InterruptedException {
         // 等待异步处理完成
         // 新策略（定量优先+超时兜底）下，任务可能已从队列取出但还在等待超时
@@ -560,6 +851,41 @@ class AsyncLandManagerTest {
         }
     }
 
+    @Table("test_auto_id")
+    public static class AutoIdEntity extends BaseEntity<AutoIdEntity> {
+        @PrimaryKey(autoIncrement = true)
+        @Column("id")
+        private Long id;
+
+        @Column("name")
+        private String name;
+
+        public Long getId() { return id; }
+        void assignId(long id) { this.id = id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; markChanged("name"); }
+    }
+
+    @Table("test_indexed")
+    public static class IndexedEntity extends BaseEntity<IndexedEntity> {
+        @PrimaryKey
+        private long id;
+
+        @DirtyIndex
+        private long uid;
+
+        public IndexedEntity() {}
+
+        public IndexedEntity(long id, long uid) {
+            this.id = id;
+            this.uid = uid;
+        }
+
+        public long getId() { return id; }
+        public long getUid() { return uid; }
+        public void setUid(long uid) { this.uid = uid; markChanged("uid"); }
+    }
+
     // ==================== Mock SqlExecutor ====================
 
     /**
@@ -570,6 +896,8 @@ class AsyncLandManagerTest {
         final java.util.concurrent.atomic.AtomicInteger updateCount = new java.util.concurrent.atomic.AtomicInteger(0);
         final java.util.concurrent.atomic.AtomicInteger deleteCount = new java.util.concurrent.atomic.AtomicInteger(0);
         final List<Object> lastUpdatedEntities = Collections.synchronizedList(new ArrayList<>());
+        final List<List<String>> partialUpdateColumns = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> upsertStatements = Collections.synchronizedList(new ArrayList<>());
 
         public MockSqlExecutor() {
             super(null); // 不需要真实数据源
@@ -629,6 +957,27 @@ class AsyncLandManagerTest {
             return results;
         }
 
+        @Override
+        public <T extends BaseEntity<T>> int[] batchUpdatePartial(List<T> entities, List<FieldInfo> updateFields) {
+            List<String> columns = new ArrayList<>();
+            for (FieldInfo field : updateFields) {
+                columns.add(field.getColumnName());
+            }
+            partialUpdateColumns.add(columns);
+            return batchUpdate(entities);
+        }
+
+        @Override
+        public <T extends BaseEntity<T>> int[] multiRowUpsert(List<T> entities, int maxPacketBytes) {
+            upsertStatements.add(entities.size());
+            int[] results = new int[entities.size()];
+            for (int i = 0; i < entities.size(); i++) {
+                entities.get(i).setState(EntityState.PERSISTENT);
+                results[i] = 1;
+            }
+            return results;
+        }
+
         @Override
         @SuppressWarnings("unchecked")
         public <T extends BaseEntity<T>> int[] batchDelete(List<T> entities) {
@@ -0,0 +1,230 @@
+package com.muyi.db.async;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.async.AsyncLandManagerTest.IndexedEntity;
+import com.muyi.db.async.AsyncLandManagerTest.TestEntity;
+import com.muyi.db.core.EntityState;
+import com.muyi.db.exception.DbException;
+import com.muyi.db.sql.PinnedConnection;
+import com.muyi.db.sql.SqlExecutor;
+
+/**
+ * 固定连接 + 跨表组提交测试（JDBC 接口用动态代理模拟，只记录连接、语句和提交次数）
+ */
+class GroupCommitTest {
+
+    @Test
+    @DisplayName("组提交：一轮落地多张表只提交一次，连接与预编译语句跨轮复用")
+    void testGroupCommit() throws Exception {
+        FakeDatabase db = new FakeDatabase();
+        AsyncLandManager manager = newManager(db);
+        try {
+            TestEntity[] entities = new TestEntity[5];
+            IndexedEntity[] indexed = new IndexedEntity[5];
+            for (int i = 0; i < 5; i++) {
+                entities[i] = new TestEntity(i);
+                indexed[i] = new IndexedEntity(i, 10001L);
+                manager.submitInsert(entities[i]);
+                manager.submitInsert(indexed[i]);
+            }
+            waitForSuccess(manager, 10);
+            assertEquals(1, db.commits.get());
+            assertEquals(1, db.connections.get());
+
+            for (int i = 0; i < 5; i++) {
+                entities[i].setName("n" + i);
+                indexed[i].setUid(10002L);
+                manager.submitUpdate(entities[i]);
+                manager.submitUpdate(indexed[i]);
+            }
+            waitForSuccess(manager, 20);
+            assertEquals(2, db.commits.get());
+            assertEquals(1, db.connections.get());
+            // 两张表各一条 INSERT 和一条部分 UPDATE，各只准备一次
+            assertEquals(4, db.prepared.size());
+            assertTrue(db.prepared.values().stream().allMatch(count -> count.get() == 1));
+            assertEquals(2L, manager.metricsSnapshot().get("groupCommits"));
+        } finally {
+            manager.shutdown();
+        }
+        assertEquals(0, db.openConnections.get());
+    }
+
+    @Test
+    @DisplayName("组提交失败时整体回滚，逐表单独事务重新落地")
+    void testGroupCommitFallback() throws Exception {
+        FakeDatabase db = new FakeDatabase();
+        db.failNextCommit.set(true);
+        AsyncLandManager manager = newManager(db);
+        try {
+            for (int i = 0; i < 5; i++) {
+                manager.submitInsert(new TestEntity(i));
+                manager.submitInsert(new IndexedEntity(i, 10001L));
+            }
+            waitForSuccess(manager, 10);
+            assertEquals(1, db.rollbacks.get());
+            // 兜底：每张表一次单独提交
+            assertEquals(2, db.commits.get());
+            assertEquals(0, manager.getRetryCount());
+            assertEquals(1L, manager.metricsSnapshot().get("groupFallbacks"));
+        } finally {
+            manager.shutdown();
+        }
+        assertEquals(0, db.openConnections.get());
+    }
+
+    @Test
+    @DisplayName("组事务回滚时实体状态不变，提交后才更新")
+    void testEntityStateAfterCommit() {
+        FakeDatabase db = new FakeDatabase();
+        SqlExecutor executor = new SqlExecutor(db.dataSource());
+        try (PinnedConnection pinned = executor.pinConnection(16)) {
+            TestEntity entity = new TestEntity(1L);
+            entity.setName("n1");
+            db.failNextCommit.set(true);
+            assertThrows(DbException.class,
+                    () -> executor.executeInGroup(pinned, () -> executor.batchInsert(List.of(entity))));
+            assertEquals(EntityState.NEW, entity.getState());
+            assertTrue(entity.hasChanges());
+
+            executor.executeInGroup(pinned, () -> executor.batchInsert(List.of(entity)));
+            assertEquals(EntityState.PERSISTENT, entity.getState());
+            assertFalse(entity.hasChanges());
+        }
+    }
+
+    private static AsyncLandManager newManager(FakeDatabase db) {
+        // 间隔足够长且关闭自适应，凑满 10 个任务才落地，保证每轮批次确定
+        AsyncLandManager manager = new AsyncLandManager(new SqlExecutor(db.dataSource()), new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(60_000)
+                .batchSize(10)
+                .groupCommit(true));
+        manager.setAdaptiveEnabled(false);
+        return manager;
+    }
+
+    private static void waitForSuccess(AsyncLandManager manager, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (manager.getSuccessTasks() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, manager.getSuccessTasks());
+    }
+
+    /**
+     * 模拟数据库：executeBatch 每行返回 1
+     */
+    private static class FakeDatabase {
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger openConnections = new AtomicInteger();
+        final AtomicInteger commits = new AtomicInteger();
+        final AtomicInteger rollbacks = new AtomicInteger();
+        final AtomicBoolean failNextCommit = new AtomicBoolean();
+        final Map<String, AtomicInteger> prepared = new ConcurrentHashMap<>();
+
+        DataSource dataSource() {
+            return proxy(DataSource.class, (method, args) -> {
+                if (method.equals("getConnection")) {
+                    connections.incrementAndGet();
+                    openConnections.incrementAndGet();
+                    return connection();
+                }
+                return null;
+            });
+        }
+
+        private Connection connection() {
+            boolean[] autoCommit = {true};
+            return proxy(Connection.class, (method, args) -> switch (method) {
+                case "getAutoCommit" -> autoCommit[0];
+                case "setAutoCommit" -> {
+                    autoCommit[0] = (Boolean) args[0];
+                    yield null;
+                }
+                case "prepareStatement" -> {
+                    prepared.computeIfAbsent((String) args[0], k -> new AtomicInteger()).incrementAndGet();
+                    yield statement();
+                }
+                case "commit" -> {
+                    if (failNextCommit.compareAndSet(true, false)) {
+                        throw new SQLException("Simulated commit failure");
+                    }
+                    commits.incrementAndGet();
+                    yield null;
+                }
+                case "rollback" -> {
+                    rollbacks.incrementAndGet();
+                    yield null;
+                }
+                case "close" -> {
+                    openConnections.decrementAndGet();
+                    yield null;
+                }
+                default -> null;
+            });
+        }
+
+        private PreparedStatement statement() {
+            int[] batched = {0};
+            return proxy(PreparedStatement.class, (method, args) -> switch (method) {
+                case "addBatch" -> {
+                    batched[0]++;
+                    yield null;
+                }
+                case "executeBatch" -> {
+                    int[] results = new int[batched[0]];
+                    Arrays.fill(results, 1);
+                    batched[0] = 0;
+                    yield results;
+                }
+                case "executeUpdate" -> 1;
+                default -> null;
+            });
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws SQLException;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+            Object result = handler.invoke(method.getName(), args);
+            if (result == null && method.getReturnType().isPrimitive()) {
+                Class<?> returnType = method.getReturnType();
+                if (returnType == boolean.class) {
+                    return false;
+                }
+                if (returnType == int.class) {
+                    return 0;
+                }
+                if (returnType == long.class) {
+                    return 0L;
+                }
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,227 @@
+package com.muyi.db.async;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.async.AsyncLandManagerTest.IndexedEntity;
+import com.muyi.db.async.AsyncLandManagerTest.TestEntity;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.EntityState;
+import com.muyi.db.journal.DeadLetterStore;
+import com.muyi.db.journal.LandSpill;
+import com.muyi.db.sql.SqlExecutor;
+
+/**
+ * 落地失败处理测试：退避重试、按表熔断、死信
+ */
+class LandFailureTest {
+
+    private Path dir;
+    private FlakyExecutor executor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("land-deadletter");
+        executor = new FlakyExecutor();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("重试按指数退避间隔执行，耗尽后写入死信，修复后通过重放落地")
+    void testBackoffAndDeadLetter() throws InterruptedException {
+        TestEntity entity = new TestEntity(1L);
+        executor.broken.add(entity.getTableName());
+        AsyncLandManager manager = new AsyncLandManager(executor, new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(5)
+                .maxRetries(3)
+                .retryBackoffMs(40)
+                .circuitFailureThreshold(0)
+                .deadLetterDir(dir.toString()));
+        try {
+            manager.submitInsert(entity);
+            waitUntil(() -> manager.getDeadLetterCount() == 1);
+            assertEquals(3, executor.attempts.size());
+            // 第 1、2 次重试的退避分别不少于 40ms、80ms 的一半
+            assertTrue(executor.attempts.get(1) - executor.attempts.get(0) >= 20);
+            assertTrue(executor.attempts.get(2) - executor.attempts.get(1) >= 40);
+            assertEquals(1, manager.getFailedTasks());
+
+            executor.broken.clear();
+            Map<String, Object> result = manager.replayDeadLetters();
+            assertEquals(1, result.get("replayed"));
+            assertEquals(0, result.get("remaining"));
+            assertEquals(1, executor.upserts.get());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("死信：同一实体只保留最后一条，作废持久化，重启后旧快照不复活，新写入的死信不被误删")
+    void testDeadLetterStore() {
+        DeadLetterStore store = new DeadLetterStore(dir, 4096);
+        TestEntity first = new TestEntity(1L);
+        first.setName("old");
+        store.add(first, TaskType.INSERT);
+        first.setName("new");
+        store.add(first, TaskType.UPDATE);
+        store.add(new TestEntity(2L), TaskType.INSERT);
+        store.add(new TestEntity(3L), TaskType.INSERT);
+
+        List<LandSpill.Entry> entries = store.list();
+        assertEquals(3, entries.size());
+        assertEquals("new", entries.get(0).values().get("name"));
+
+        // 2 落地成功作废；3 在重放期间又写入了新死信，不能被本轮重放移除
+        store.resolve(new TestEntity(2L));
+        long mark = store.mark();
+        store.add(new TestEntity(3L), TaskType.UPDATE);
+        assertFalse(store.remove(entries.get(2), mark));
+        assertTrue(store.remove(entries.get(0), mark));
+        assertEquals(1, store.size());
+        store.close();
+
+        DeadLetterStore reopened = new DeadLetterStore(dir, 4096);
+        assertEquals(1, reopened.size());
+        reopened.compact();
+        reopened.close();
+
+        DeadLetterStore compacted = new DeadLetterStore(dir, 4096);
+        List<LandSpill.Entry> live = compacted.list();
+        assertEquals(1, live.size());
+        assertEquals(3L, live.get(0).primaryKey()[0]);
+        assertEquals(TaskType.UPDATE, live.get(0).type());
+        compacted.close();
+    }
+
+    @Test
+    @DisplayName("一张表连续失败后熔断，任务暂存不消耗重试次数，其他表照常落地，恢复后探测成功继续落地")
+    void testCircuitBreaker() throws InterruptedException {
+        TestEntity broken = new TestEntity(1L);
+        executor.broken.add(broken.getTableName());
+        AsyncLandManager manager = new AsyncLandManager(executor, new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(5)
+                .maxRetries(5)
+                .retryBackoffMs(0)
+                .circuitFailureThreshold(2)
+                .circuitOpenMs(300)
+                .deadLetterDir(dir.toString()));
+        try {
+            manager.submitInsert(broken);
+            waitUntil(() -> executor.attempts.size() == 2);
+            Thread.sleep(100);
+            // 熔断期间不再执行，其他表不受影响
+            assertEquals(2, executor.attempts.size());
+            IndexedEntity healthy = new IndexedEntity(2L, 10001L);
+            manager.submitInsert(healthy);
+            waitUntil(() -> manager.getSuccessTasks() == 1);
+            assertEquals(EntityState.NEW, broken.getState());
+            assertTrue(((Map<?, ?>) manager.metricsSnapshot().get("openCircuits")).containsKey(broken.getTableName()));
+
+            executor.broken.clear();
+            waitUntil(() -> manager.getSuccessTasks() == 2);
+            assertEquals(0, manager.getFailedTasks());
+            assertEquals(0, manager.getDeadLetterCount());
+            assertTrue(((Map<?, ?>) manager.metricsSnapshot().get("openCircuits")).isEmpty());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("0 行受影响只重试任务，不计入熔断")
+    void testZeroRowsNotCircuitFailure() throws InterruptedException {
+        TestEntity entity = new TestEntity(1L);
+        executor.zeroRows.add(entity.getTableName());
+        AsyncLandManager manager = new AsyncLandManager(executor, new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(5)
+                .maxRetries(3)
+                .retryBackoffMs(0)
+                .circuitFailureThreshold(2)
+                .circuitOpenMs(60_000));
+        try {
+            manager.submitInsert(entity);
+            waitUntil(() -> executor.attempts.size() >= 3);
+            assertTrue(executor.attempts.size() >= 3);
+            assertTrue(((Map<?, ?>) manager.metricsSnapshot().get("openCircuits")).isEmpty());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    /**
+     * 指定表的批量写入抛异常或返回 0 行受影响，记录失败表的每次执行时间
+     */
+    private static class FlakyExecutor extends SqlExecutor {
+        final Set<String> broken = ConcurrentHashMap.newKeySet();
+        final Set<String> zeroRows = ConcurrentHashMap.newKeySet();
+        final List<Long> attempts = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger upserts = new AtomicInteger();
+
+        FlakyExecutor() {
+            super(null);
+        }
+
+        @Override
+        public <T extends BaseEntity<T>> int[] batchInsert(List<T> entities) {
+            if (broken.contains(entities.get(0).getTableName())) {
+                attempts.add(System.currentTimeMillis());
+                throw new IllegalStateException("Simulated lock wait timeout");
+            }
+            if (zeroRows.contains(entities.get(0).getTableName())) {
+                attempts.add(System.currentTimeMillis());
+                return new int[entities.size()];
+            }
+            int[] results = new int[entities.size()];
+            for (int i = 0; i < entities.size(); i++) {
+                entities.get(i).setState(EntityState.PERSISTENT);
+                results[i] = 1;
+            }
+            return results;
+        }
+
+        @Override
+        public <T extends BaseEntity<T>> boolean upsert(T entity) {
+            upserts.incrementAndGet();
+            return true;
+        }
+    }
+}
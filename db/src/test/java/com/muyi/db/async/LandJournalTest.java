@@ -0,0 +1,194 @@
+package com.muyi.db.async;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.async.AsyncLandManagerTest.TestEntity;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.EntityState;
+import com.muyi.db.journal.LandJournal;
+import com.muyi.db.sql.SqlExecutor;
+
+/**
+ * 落地日志测试
+ * <p>
+ * 通过不写完成记录直接关闭日志来模拟进程崩溃
+ */
+class LandJournalTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("land-journal");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("崩溃后恢复：同一实体多次提交只回放最后一次快照")
+    void testRecoverLatestSnapshot() {
+        LandJournal journal = new LandJournal(dir, 4096);
+        TestEntity entity = new TestEntity(1L);
+        entity.setName("a");
+        journal.append(entity, TaskType.INSERT);
+        entity.setName("b");
+        journal.append(entity, TaskType.INSERT);
+        journal.close();
+
+        LandJournal reopened = new LandJournal(dir, 4096);
+        List<LandJournal.Entry> entries = reopened.getRecoveredEntries();
+        assertEquals(1, entries.size());
+        assertEquals(TaskType.INSERT, entries.get(0).type());
+        assertEquals("b", entries.get(0).values().get("name"));
+        assertEquals(1L, entries.get(0).values().get("id"));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("已落地的记录不回放，落地期间的新提交仍回放")
+    void testDoneRecordsSkipped() {
+        LandJournal journal = new LandJournal(dir, 4096);
+        TestEntity landed = new TestEntity(1L);
+        landed.setName("landed");
+        journal.append(landed, TaskType.UPDATE);
+
+        TestEntity inFlight = new TestEntity(2L);
+        inFlight.setName("old");
+        journal.append(inFlight, TaskType.UPDATE);
+        long captured = inFlight.getJournalSeq();
+        inFlight.setName("new");
+        journal.append(inFlight, TaskType.UPDATE);
+
+        journal.markDone(landed, landed.getJournalSeq());
+        journal.markDone(inFlight, captured);
+        assertEquals(1, journal.getPendingCount());
+        journal.close();
+
+        LandJournal reopened = new LandJournal(dir, 4096);
+        List<LandJournal.Entry> entries = reopened.getRecoveredEntries();
+        assertEquals(1, entries.size());
+        assertEquals("new", entries.get(0).values().get("name"));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("检查点删除已无用的段文件")
+    void testCheckpointDeletesSegments() throws IOException {
+        LandJournal journal = new LandJournal(dir, 4096);
+        for (int i = 0; i < 200; i++) {
+            TestEntity entity = new TestEntity(i);
+            entity.setName("name-" + i);
+            journal.append(entity, TaskType.UPDATE);
+            journal.markDone(entity, entity.getJournalSeq());
+        }
+        assertTrue(countSegments() > 1);
+
+        journal.checkpoint();
+        assertEquals(1, countSegments());
+        journal.close(true);
+        assertEquals(0, countSegments());
+    }
+
+    @Test
+    @DisplayName("启动时回放未落地数据：INSERT/UPDATE 走 upsert，DELETE 走 delete")
+    void testReplayOnStartup() {
+        LandJournal journal = new LandJournal(dir, 4096);
+        TestEntity updated = new TestEntity(1L);
+        updated.setName("v2");
+        journal.append(updated, TaskType.UPDATE);
+        TestEntity deleted = new TestEntity(2L);
+        deleted.setState(EntityState.DELETED);
+        journal.append(deleted, TaskType.DELETE);
+        journal.close();
+
+        ReplaySqlExecutor executor = new ReplaySqlExecutor();
+        AsyncLandManager manager = new AsyncLandManager(executor,
+                new AsyncLandConfig().landThreads(1).journalDir(dir.toString()).journalSegmentSize(4096));
+        manager.shutdown();
+
+        assertEquals(List.of("UPSERT TestEntity{id=1, name='v2'}", "DELETE TestEntity{id=2, name='null'}"),
+                executor.operations);
+        assertEquals(0, countSegmentsUnchecked());
+    }
+
+    @Test
+    @DisplayName("主键未生成的 INSERT 不回放（无法判断是否已提交），视为已处理并清理日志")
+    void testSkipUnkeyedInsertOnReplay() {
+        LandJournal journal = new LandJournal(dir, 4096);
+        AsyncLandManagerTest.AutoIdEntity unkeyed = new AsyncLandManagerTest.AutoIdEntity();
+        unkeyed.setName("mail");
+        journal.append(unkeyed, TaskType.INSERT);
+        TestEntity keyed = new TestEntity(1L);
+        keyed.setName("v1");
+        journal.append(keyed, TaskType.INSERT);
+        journal.close();
+
+        ReplaySqlExecutor executor = new ReplaySqlExecutor();
+        AsyncLandManager manager = new AsyncLandManager(executor,
+                new AsyncLandConfig().landThreads(1).journalDir(dir.toString()).journalSegmentSize(4096));
+        manager.shutdown();
+
+        assertEquals(List.of("UPSERT TestEntity{id=1, name='v1'}"), executor.operations);
+        assertEquals(0, countSegmentsUnchecked());
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    private long countSegmentsUnchecked() {
+        try {
+            return countSegments();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 记录回放操作的 SQL 执行器
+     */
+    private static class ReplaySqlExecutor extends SqlExecutor {
+        final List<String> operations = Collections.synchronizedList(new ArrayList<>());
+
+        ReplaySqlExecutor() {
+            super(null);
+        }
+
+        @Override
+        public <T extends BaseEntity<T>> boolean upsert(T entity) {
+            operations.add("UPSERT " + entity);
+            return true;
+        }
+
+        @Override
+        public <T extends BaseEntity<T>> int[] batchDelete(List<T> entities) {
+            for (T entity : entities) {
+                operations.add("DELETE " + entity);
+            }
+            return new int[entities.size()];
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.muyi.db.async;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.annotation.LandOptions;
+import com.muyi.db.async.AsyncLandManagerTest.TestEntity;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.EntityState;
+import com.muyi.db.journal.LandSpill;
+import com.muyi.db.sql.SqlExecutor;
+
+/**
+ * 有界环形落地队列与溢出策略测试
+ */
+class MpscRingQueueTest {
+
+    @Test
+    @DisplayName("容量向上取整为 2 的幂，队满时 offer 返回 false")
+    void testBounded() {
+        MpscRingQueue<Integer> queue = new MpscRingQueue<>(5);
+        assertEquals(8, queue.capacity());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(8));
+        assertEquals(Integer.valueOf(0), queue.poll());
+        assertTrue(queue.offer(8));
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(8, queue.drainTo(drained, 100));
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8), drained);
+        assertNull(queue.poll());
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingQueue<>(0));
+    }
+
+    @Test
+    @DisplayName("多生产者并发写入，单消费者不丢不重且每个生产者内有序")
+    void testConcurrentProducers() throws Exception {
+        MpscRingQueue<long[]> queue = new MpscRingQueue<>(64);
+        int producers = 8;
+        int perProducer = 20_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    long[] element = {id, i};
+                    while (!queue.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long[] next = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            long[] element = queue.poll(1, TimeUnit.SECONDS);
+            assertNotNull(element);
+            assertEquals(next[(int) element[0]]++, element[1]);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test
+    @DisplayName("SPILL: 队满后写入溢出文件，实体仍可从脏数据缓存查询，恢复后全部落地一次")
+    void testSpillOverflow() throws Exception {
+        Path dir = Files.createTempDirectory("land-spill");
+        GatedExecutor executor = new GatedExecutor();
+        AsyncLandManager manager = new AsyncLandManager(executor, new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(20)
+                .batchSize(1)
+                .queueCapacity(16)
+                .overflow(AsyncLandConfig.Overflow.SPILL)
+                .spillDir(dir.toString()));
+        try {
+            TestEntity first = new TestEntity(0L);
+            first.setName("n0");
+            manager.submitInsert(first);
+            assertTrue(executor.entered.await(5, TimeUnit.SECONDS));
+
+            for (long i = 1; i <= 100; i++) {
+                TestEntity entity = new TestEntity(i);
+                entity.setName("n" + i);
+                manager.submitInsert(entity);
+            }
+            Map<String, Object> worker = workerInfo(manager);
+            assertEquals(84, worker.get("spilled"));
+            assertEquals(100, manager.getPendingTasks());
+            assertNotNull(manager.getDirty(TestEntity.class, 100L));
+
+            executor.gate.countDown();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (manager.getSuccessTasks() < 101 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(101, manager.getSuccessTasks());
+            assertEquals(101, executor.inserted.size());
+            assertEquals(0, manager.getPendingTasks());
+        } finally {
+            executor.gate.countDown();
+            manager.shutdown();
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("SPILL: 溢出文件分块读回，同一实体只读回最后一条，剩余记录重启后仍在")
+    void testSpillTakeChunk() throws Exception {
+        Path dir = Files.createTempDirectory("land-spill");
+        try {
+            LandSpill spill = new LandSpill(dir, 256);
+            for (long i = 1; i <= 10; i++) {
+                TestEntity entity = new TestEntity(i);
+                entity.setName("n" + i);
+                spill.append(entity, TaskType.INSERT);
+            }
+            TestEntity updated = new TestEntity(2L);
+            updated.setName("n2-updated");
+            spill.append(updated, TaskType.UPDATE);
+
+            List<LandSpill.Entry> chunk = spill.take(4);
+            assertEquals(List.of(1L, 2L, 3L, 4L), chunk.stream().map(e -> e.primaryKey()[0]).toList());
+            assertEquals(TaskType.UPDATE, chunk.get(1).type());
+            assertEquals(6, spill.size());
+            spill.close();
+
+            LandSpill reopened = new LandSpill(dir, 256);
+            assertEquals(6, reopened.size());
+            assertEquals(List.of(5L, 6L, 7L, 8L, 9L, 10L),
+                    reopened.take(16).stream().map(e -> e.primaryKey()[0]).toList());
+            assertEquals(0, reopened.size());
+            reopened.close();
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("SPILL: 启动回放部分失败时只保留失败的记录，成功的不会在下次启动时重复回放")
+    void testSpillReplayPartialFailure() throws Exception {
+        Path root = Files.createTempDirectory("land-spill");
+        try {
+            LandSpill spill = new LandSpill(root.resolve("worker-0"), 256);
+            for (long i = 1; i <= 3; i++) {
+                spill.append(new TestEntity(i), TaskType.INSERT);
+            }
+            spill.close();
+
+            List<Object> upserted = Collections.synchronizedList(new ArrayList<>());
+            Set<Object> failing = ConcurrentHashMap.newKeySet();
+            failing.add(2L);
+            SqlExecutor executor = new SqlExecutor(null) {
+                @Override
+                public <T extends BaseEntity<T>> boolean upsert(T entity) {
+                    Object id = entity.getPrimaryKeyValues()[0];
+                    upserted.add(id);
+                    return !failing.contains(id);
+                }
+            };
+            AsyncLandConfig config = new AsyncLandConfig()
+                    .landThreads(1)
+                    .spillDir(root.toString())
+                    .overflow(AsyncLandConfig.Overflow.SPILL);
+            new AsyncLandManager(executor, config).shutdown();
+            assertEquals(List.of(1L, 2L, 3L), upserted);
+
+            // 第二次启动只回放上次失败的记录
+            failing.clear();
+            upserted.clear();
+            new AsyncLandManager(executor, config).shutdown();
+            assertEquals(List.of(2L), upserted);
+
+            // 第三次启动没有可回放的记录
+            upserted.clear();
+            new AsyncLandManager(executor, config).shutdown();
+            assertEquals(List.of(), upserted);
+        } finally {
+            try (Stream<Path> files = Files.walk(root)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("BULK 通道与环形队列同样有界：超出容量的任务按溢出策略进入溢出链表，最终全部落地")
+    void testBulkLaneBounded() throws Exception {
+        GatedExecutor executor = new GatedExecutor();
+        executor.gate.countDown();
+        AsyncLandManager manager = new AsyncLandManager(executor, new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(20)
+                .queueCapacity(16)
+                .bulkMaxDelayMs(60_000)
+                .overflow(AsyncLandConfig.Overflow.COALESCE));
+        try {
+            for (long i = 1; i <= 20; i++) {
+                manager.submitInsert(new TestEntity(i), LandOptions.Priority.BULK);
+            }
+            Map<String, Object> worker = workerInfo(manager);
+            assertEquals(16, worker.get("bulk"));
+            assertEquals(4L, worker.get("overflowCount"));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (executor.inserted.size() < 4 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            // 溢出的任务按 NORMAL 顺序落地，通道中的任务仍等待 BULK 保留时间
+            assertEquals(4, executor.inserted.size());
+            assertEquals(16, manager.getPendingTasks());
+        } finally {
+            manager.shutdown();
+        }
+        assertEquals(20, executor.inserted.size());
+    }
+
+    @Test
+    @DisplayName("BLOCK: 队满时阻塞提交线程，数据库恢复后继续")
+    void testBlockOverflow() throws Exception {
+        GatedExecutor executor = new GatedExecutor();
+        AsyncLandManager manager = new AsyncLandManager(executor, new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(20)
+                .batchSize(1)
+                .queueCapacity(16)
+                .overflow(AsyncLandConfig.Overflow.BLOCK));
+        try {
+            TestEntity first = new TestEntity(0L);
+            manager.submitInsert(first);
+            assertTrue(executor.entered.await(5, TimeUnit.SECONDS));
+
+            CountDownLatch submitted = new CountDownLatch(1);
+            Thread producer = new Thread(() -> {
+                for (long i = 1; i <= 20; i++) {
+                    manager.submitInsert(new TestEntity(i));
+                }
+                submitted.countDown();
+            });
+            producer.start();
+            assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+            assertEquals(16, manager.getPendingTasks());
+
+            executor.gate.countDown();
+            assertTrue(submitted.await(5, TimeUnit.SECONDS));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (manager.getSuccessTasks() < 21 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(21, executor.inserted.size());
+        } finally {
+            executor.gate.countDown();
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("COALESCE: 溢出链表与环形队列同样有界，再满时阻塞提交线程")
+    void testCoalesceOverflowBounded() throws Exception {
+        GatedExecutor executor = new GatedExecutor();
+        AsyncLandManager manager = new AsyncLandManager(executor, new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(20)
+                .batchSize(1)
+                .queueCapacity(16)
+                .overflow(AsyncLandConfig.Overflow.COALESCE));
+        try {
+            manager.submitInsert(new TestEntity(0L));
+            assertTrue(executor.entered.await(5, TimeUnit.SECONDS));
+
+            CountDownLatch submitted = new CountDownLatch(1);
+            Thread producer = new Thread(() -> {
+                for (long i = 1; i <= 40; i++) {
+                    manager.submitInsert(new TestEntity(i));
+                }
+                submitted.countDown();
+            });
+            producer.start();
+            assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+            // 环形队列 16 + 溢出链表 16
+            assertEquals(32, manager.getPendingTasks());
+
+            executor.gate.countDown();
+            assertTrue(submitted.await(5, TimeUnit.SECONDS));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (manager.getSuccessTasks() < 41 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(41, executor.inserted.size());
+        } finally {
+            executor.gate.countDown();
+            manager.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> workerInfo(AsyncLandManager manager) {
+        return ((List<Map<String, Object>>) manager.metricsSnapshot().get("workers")).get(0);
+    }
+
+    /**
+     * 第一次执行时阻塞，模拟数据库卡顿
+     */
+    private static class GatedExecutor extends SqlExecutor {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final Set<Object> inserted = Collections.synchronizedSet(new HashSet<>());
+
+        GatedExecutor() {
+            super(null);
+        }
+
+        @Override
+        public <T extends BaseEntity<T>> int[] batchInsert(List<T> entities) {
+            entered.countDown();
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int[] results = new int[entities.size()];
+            for (int i = 0; i < entities.size(); i++) {
+                T entity = entities.get(i);
+                assertTrue(inserted.add(entity.getPrimaryKeyValues()[0]));
+                entity.setState(EntityState.PERSISTENT);
+                results[i] = 1;
+            }
+            return results;
+        }
+    }
+}
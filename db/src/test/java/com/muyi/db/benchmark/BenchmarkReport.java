@@ -0,0 +1,160 @@
+package com.muyi.db.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测报告
+ * <p>
+ * 每个场景一份，包含压测参数、吞吐量和延迟分位数，输出为 JSON（便于不同调优参数的结果对比）。
+ */
+final class BenchmarkReport {
+
+    private final String scenario;
+    private final Map<String, Object> params = new LinkedHashMap<>();
+    private final Map<String, Object> metrics = new LinkedHashMap<>();
+
+    BenchmarkReport(String scenario) {
+        this.scenario = scenario;
+    }
+
+    BenchmarkReport param(String name, Object value) {
+        params.put(name, value);
+        return this;
+    }
+
+    BenchmarkReport metric(String name, Object value) {
+        metrics.put(name, value);
+        return this;
+    }
+
+    /**
+     * 吞吐量（ops/s）
+     */
+    BenchmarkReport throughput(String name, long ops, long elapsedNanos) {
+        double seconds = Math.max(1, elapsedNanos) / 1e9;
+        metrics.put(name, Math.round(ops / seconds * 10) / 10.0);
+        return this;
+    }
+
+    BenchmarkReport latency(String name, LatencyRecorder recorder) {
+        metrics.put(name, recorder.summary());
+        return this;
+    }
+
+    String scenario() {
+        return scenario;
+    }
+
+    /**
+     * 写入 dir/场景名.json 并打印到标准输出
+     */
+    Path write(Path dir) throws IOException {
+        String json = toJson();
+        System.out.println("[land-benchmark] " + json);
+        Files.createDirectories(dir);
+        Path file = dir.resolve(scenario + ".json");
+        Files.writeString(file, json + "\n", StandardCharsets.UTF_8);
+        return file;
+    }
+
+    String toJson() {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("scenario", scenario);
+        root.put("timestamp", System.currentTimeMillis());
+        root.put("params", params);
+        root.put("metrics", metrics);
+        StringBuilder sb = new StringBuilder(512);
+        appendJson(sb, root);
+        return sb.toString();
+    }
+
+    private static void appendJson(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof Map<?, ?> map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                appendJson(sb, String.valueOf(entry.getKey()));
+                sb.append(':');
+                appendJson(sb, entry.getValue());
+            }
+            sb.append('}');
+        } else {
+            sb.append('"');
+            String text = value.toString();
+            for (int i = 0; i < text.length(); i++) {
+                char ch = text.charAt(i);
+                switch (ch) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    default -> {
+                        if (ch < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) ch));
+                        } else {
+                            sb.append(ch);
+                        }
+                    }
+                }
+            }
+            sb.append('"');
+        }
+    }
+
+    /**
+     * 延迟记录（纳秒），线程安全；报告中以微秒输出
+     */
+    static final class LatencyRecorder {
+
+        private long[] samples = new long[1024];
+        private int size;
+
+        synchronized void record(long nanos) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        }
+
+        synchronized int count() {
+            return size;
+        }
+
+        synchronized Map<String, Object> summary() {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", size);
+            summary.put("p50Us", percentileMicros(sorted, 0.50));
+            summary.put("p90Us", percentileMicros(sorted, 0.90));
+            summary.put("p99Us", percentileMicros(sorted, 0.99));
+            summary.put("p999Us", percentileMicros(sorted, 0.999));
+            summary.put("maxUs", size == 0 ? 0 : sorted[size - 1] / 1000);
+            return summary;
+        }
+
+        /**
+         * 最近秩分位数
+         */
+        static long percentileMicros(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)] / 1000;
+        }
+    }
+}
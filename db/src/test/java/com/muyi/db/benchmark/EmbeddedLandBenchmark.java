@@ -0,0 +1,422 @@
+package com.muyi.db.benchmark;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.DbManager;
+import com.muyi.db.annotation.LandOptions;
+import com.muyi.db.async.LandListener;
+import com.muyi.db.async.TaskType;
+import com.muyi.db.config.DbConfig;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.example.PlayerBuildingEntity;
+import com.muyi.db.example.PlayerEntity;
+import com.muyi.db.sql.TableGenerator;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * 落地管线端到端压测（嵌入式数据库）
+ * <p>
+ * 与 {@code AsyncLandManagerBenchmark} 使用假执行器不同，这里经过 DbManager → AsyncLandManager → SqlExecutor
+ * 的完整路径，在内存 H2（MySQL 兼容模式）上真实执行 SQL 构建、参数绑定、批量语句和事务，不依赖网络。
+ * <p>
+ * 默认不随 {@code test} 执行：{@code ./gradlew :db:landBenchmark}，
+ * 报告写入 {@code db/build/reports/land-benchmark/场景名.json}。
+ * 规模通过 {@code -Dland.benchmark.scale=N} 放大（默认 1）。
+ * <p>
+ * 嵌入式数据库只用于比较管线本身的调优（批量大小、语句模式、优先级等），绝对数值不代表 MySQL。
+ */
+@Tag("benchmark")
+class EmbeddedLandBenchmark {
+
+    private static final int SCALE = Integer.getInteger("land.benchmark.scale", 1);
+
+    /** 预置玩家数 */
+    private static final int PLAYERS = 10_000 * SCALE;
+
+    /** 每个玩家的建筑数 */
+    private static final int BUILDINGS_PER_PLAYER = 5;
+
+    /** 写入操作总数 */
+    private static final int OPERATIONS = 50_000 * SCALE;
+
+    /** 业务线程数（每个线程只操作自己的玩家，与逻辑线程按玩家分配一致） */
+    private static final int THREADS = 8;
+
+    /** 登录查询线程数 */
+    private static final int LOGIN_THREADS = 16;
+
+    private static final long DRAIN_TIMEOUT_MS = 120_000;
+
+    private static final Path REPORT_DIR = Paths.get(System.getProperty("land.benchmark.dir", "build/reports/land-benchmark"));
+
+    // ==================== 场景 ====================
+
+    @Test
+    @DisplayName("混合写入：更新/删除/重新插入混合，按语句模式对比")
+    void benchmarkMixed() throws Exception {
+        for (LandOptions.Statement mode : new LandOptions.Statement[]{
+                LandOptions.Statement.BATCH, LandOptions.Statement.MULTI_ROW, LandOptions.Statement.UPSERT}) {
+            try (Bench bench = new Bench("mixed_" + mode.name().toLowerCase(), mode)) {
+                List<List<PlayerEntity>> owned = bench.preloadPlayers();
+                bench.report.param("updatePct", 85).param("deletePct", 15).param("reinsertDeleted", true);
+
+                bench.runWriters(owned.size(), thread -> {
+                    List<PlayerEntity> players = owned.get(thread);
+                    boolean[] deleted = new boolean[players.size()];
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < OPERATIONS / THREADS; i++) {
+                        int index = random.nextInt(players.size());
+                        if (deleted[index]) {
+                            // 已删除的玩家再次访问时重新创建
+                            PlayerEntity player = newPlayer(players.get(index).getUid());
+                            players.set(index, player);
+                            deleted[index] = false;
+                            bench.submit(player, TaskType.INSERT);
+                        } else if (random.nextInt(100) < 85) {
+                            PlayerEntity player = players.get(index);
+                            player.setLevel(player.getLevel() + 1);
+                            player.setLastLoginTime(System.currentTimeMillis());
+                            bench.submit(player, TaskType.UPDATE);
+                        } else {
+                            deleted[index] = true;
+                            bench.submit(players.get(index), TaskType.DELETE);
+                        }
+                    }
+                });
+                bench.finish();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("热点表倾斜：80% 写入集中在 1% 玩家的建筑上")
+    void benchmarkHotTableSkew() throws Exception {
+        try (Bench bench = new Bench("hot_table_skew", LandOptions.Statement.DEFAULT)) {
+            List<List<PlayerEntity>> owned = bench.preloadPlayers();
+            List<List<PlayerBuildingEntity>> buildings = bench.preloadBuildings(owned);
+            bench.report.param("hotPlayerPct", 1).param("hotWritePct", 80).param("buildingWritePct", 90);
+
+            bench.runWriters(owned.size(), thread -> {
+                List<PlayerEntity> players = owned.get(thread);
+                List<PlayerBuildingEntity> own = buildings.get(thread);
+                int hotPlayers = Math.max(1, players.size() / 100);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS / THREADS; i++) {
+                    int playerIndex = random.nextInt(100) < 80
+                            ? random.nextInt(hotPlayers)
+                            : random.nextInt(players.size());
+                    if (random.nextInt(100) < 90) {
+                        PlayerBuildingEntity building = own.get(playerIndex * BUILDINGS_PER_PLAYER
+                                + random.nextInt(BUILDINGS_PER_PLAYER));
+                        building.setLevel(building.getLevel() + 1);
+                        building.setStatus(random.nextInt(3));
+                        bench.submit(building, TaskType.UPDATE);
+                    } else {
+                        PlayerEntity player = players.get(playerIndex);
+                        player.setExp(player.getExp() + 1);
+                        bench.submit(player, TaskType.UPDATE);
+                    }
+                }
+            });
+            bench.finish();
+        }
+    }
+
+    @Test
+    @DisplayName("登录风暴：大量并发登录查询，同时持续有落地写入")
+    void benchmarkLoginStorm() throws Exception {
+        try (Bench bench = new Bench("login_storm", LandOptions.Statement.DEFAULT)) {
+            List<List<PlayerEntity>> owned = bench.preloadPlayers();
+            List<List<PlayerBuildingEntity>> buildings = bench.preloadBuildings(owned);
+            int logins = OPERATIONS / 2;
+            bench.report.param("loginThreads", LOGIN_THREADS).param("logins", logins);
+
+            BenchmarkReport.LatencyRecorder loginLatency = new BenchmarkReport.LatencyRecorder();
+            AtomicLong loginRows = new AtomicLong();
+            AtomicBoolean loginsDone = new AtomicBoolean();
+            CountDownLatch loginLatch = new CountDownLatch(LOGIN_THREADS);
+            long loginStart = System.nanoTime();
+            for (int t = 0; t < LOGIN_THREADS; t++) {
+                Thread.ofPlatform().name("bench-login-" + t).start(() -> {
+                    try {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < logins / LOGIN_THREADS; i++) {
+                            long uid = 1 + random.nextInt(PLAYERS);
+                            long start = System.nanoTime();
+                            PlayerEntity player = bench.db.selectByPrimaryKey(new PlayerEntity(), uid);
+                            List<PlayerBuildingEntity> list = bench.db.selectByCondition(
+                                    new PlayerBuildingEntity(), Map.of("uid", uid));
+                            loginLatency.record(System.nanoTime() - start);
+                            loginRows.addAndGet(list.size() + (player != null ? 1 : 0));
+                        }
+                    } finally {
+                        loginLatch.countDown();
+                    }
+                });
+            }
+
+            // 登录期间业务线程持续写入（登录结束后停止）
+            Thread.ofPlatform().name("bench-login-watch").start(() -> {
+                try {
+                    loginLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                loginsDone.set(true);
+            });
+            bench.runWriters(owned.size(), thread -> {
+                List<PlayerBuildingEntity> own = buildings.get(thread);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!loginsDone.get()) {
+                    PlayerBuildingEntity building = own.get(random.nextInt(own.size()));
+                    building.setLevel(building.getLevel() + 1);
+                    bench.submit(building, TaskType.UPDATE);
+                    // 模拟逻辑帧内的写入间隔
+                    LockSupport.parkNanos(20_000);
+                }
+            });
+            long loginElapsed = System.nanoTime() - loginStart;
+
+            bench.report.throughput("loginsPerSec", loginLatency.count(), loginElapsed)
+                    .latency("loginLatency", loginLatency)
+                    .metric("loginRows", loginRows.get());
+            bench.finish();
+        }
+    }
+
+    // ==================== 压测环境 ====================
+
+    @FunctionalInterface
+    private interface Writer {
+        void run(int thread) throws Exception;
+    }
+
+    /**
+     * 单个场景的数据库、DbManager 与统计
+     */
+    private static final class Bench implements AutoCloseable, LandListener {
+
+        final BenchmarkReport report;
+        final HikariDataSource dataSource;
+        final DbManager db;
+
+        /**
+         * 提交到落地的延迟：同一实体合并的多次提交从第一次提交开始计时
+         */
+        final Map<BaseEntity<?>, Long> submitted = new ConcurrentHashMap<>();
+        final BenchmarkReport.LatencyRecorder landLatency = new BenchmarkReport.LatencyRecorder();
+        final BenchmarkReport.LatencyRecorder submitLatency = new BenchmarkReport.LatencyRecorder();
+        final AtomicLong submits = new AtomicLong();
+        final AtomicLong landed = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+        long writeStart;
+        long writeEnd;
+
+        Bench(String scenario, LandOptions.Statement statementMode) throws Exception {
+            this.report = new BenchmarkReport(scenario);
+            HikariConfig hikari = new HikariConfig();
+            hikari.setJdbcUrl("jdbc:h2:mem:" + scenario + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+            hikari.setUsername("sa");
+            hikari.setPassword("");
+            hikari.setMaximumPoolSize(LOGIN_THREADS + 8);
+            this.dataSource = new HikariDataSource(hikari);
+            createTables();
+
+            DbConfig config = new DbConfig()
+                    .landThreads(4)
+                    .landIntervalMs(25)
+                    .landBatchSize(400)
+                    .landStatementMode(statementMode)
+                    .landMaxPacketBytes(4 * 1024 * 1024);
+            this.db = new DbManager(config, dataSource);
+            db.getAsyncLandManager().addListener(this);
+            report.param("players", PLAYERS)
+                    .param("operations", OPERATIONS)
+                    .param("threads", THREADS)
+                    .param("landThreads", config.getLandThreads())
+                    .param("landIntervalMs", config.getLandIntervalMs())
+                    .param("landBatchSize", config.getLandBatchSize())
+                    .param("statementMode", statementMode.name());
+        }
+
+        private void createTables() throws Exception {
+            try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.execute(embeddedDdl(TableGenerator.generateCreateTable(PlayerEntity.class)));
+                stmt.execute(embeddedDdl(TableGenerator.generateCreateTable(PlayerBuildingEntity.class)));
+            }
+        }
+
+        /**
+         * 去掉 MySQL 表选项（ENGINE / CHARSET / COLLATE），其余 DDL 与生产一致
+         */
+        private static String embeddedDdl(String ddl) {
+            return ddl.substring(0, ddl.lastIndexOf(')') + 1);
+        }
+
+        /**
+         * 预置玩家并按线程分配（uid 对线程数取模）
+         */
+        List<List<PlayerEntity>> preloadPlayers() {
+            List<List<PlayerEntity>> owned = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                owned.add(new ArrayList<>());
+            }
+            List<PlayerEntity> batch = new ArrayList<>();
+            for (int uid = 1; uid <= PLAYERS; uid++) {
+                PlayerEntity player = newPlayer(uid);
+                owned.get(uid % THREADS).add(player);
+                batch.add(player);
+                if (batch.size() == 1000) {
+                    db.getSqlExecutor().batchInsert(batch);
+                    batch.clear();
+                }
+            }
+            db.getSqlExecutor().batchInsert(batch);
+            return owned;
+        }
+
+        /**
+         * 预置建筑，列表按玩家在线程内的顺序排列（第 i 个玩家的建筑位于 i * BUILDINGS_PER_PLAYER 起）
+         */
+        List<List<PlayerBuildingEntity>> preloadBuildings(List<List<PlayerEntity>> owned) {
+            List<List<PlayerBuildingEntity>> result = new ArrayList<>();
+            long uuid = 1;
+            for (List<PlayerEntity> players : owned) {
+                List<PlayerBuildingEntity> buildings = new ArrayList<>(players.size() * BUILDINGS_PER_PLAYER);
+                for (PlayerEntity player : players) {
+                    for (int i = 0; i < BUILDINGS_PER_PLAYER; i++) {
+                        PlayerBuildingEntity building = new PlayerBuildingEntity(player.getUid());
+                        building.setUuid(uuid++);
+                        building.setConfigId(1000 + i);
+                        building.setLevel(1);
+                        building.setX(i);
+                        building.setY(i);
+                        buildings.add(building);
+                    }
+                }
+                for (int from = 0; from < buildings.size(); from += 1000) {
+                    db.getSqlExecutor().batchInsert(buildings.subList(from, Math.min(from + 1000, buildings.size())));
+                }
+                result.add(buildings);
+            }
+            return result;
+        }
+
+        void submit(BaseEntity<?> entity, TaskType type) {
+            long start = System.nanoTime();
+            submitted.putIfAbsent(entity, start);
+            switch (type) {
+                case INSERT -> db.submitInsert(entity);
+                case DELETE -> db.submitDelete(entity);
+                default -> db.submitUpdate(entity);
+            }
+            submitLatency.record(System.nanoTime() - start);
+            submits.incrementAndGet();
+        }
+
+        /**
+         * 并发执行业务线程，返回时所有写入已提交（未必已落地）
+         */
+        void runWriters(int threads, Writer writer) throws Exception {
+            CountDownLatch done = new CountDownLatch(threads);
+            List<Throwable> errors = new ArrayList<>();
+            writeStart = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                Thread.ofPlatform().name("bench-writer-" + t).start(() -> {
+                    try {
+                        writer.run(thread);
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+            writeEnd = System.nanoTime();
+            if (!errors.isEmpty()) {
+                throw new AssertionError("writer failed", errors.get(0));
+            }
+        }
+
+        /**
+         * 等待全部落地并输出报告
+         */
+        void finish() throws Exception {
+            long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+            while ((db.getPendingLandTasks() > 0 || !submitted.isEmpty()) && System.currentTimeMillis() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(5);
+            }
+            long drainEnd = System.nanoTime();
+            assertEquals(0, db.getPendingLandTasks(), "land pipeline did not drain");
+
+            report.throughput("submitsPerSec", submits.get(), writeEnd - writeStart)
+                    .throughput("landedPerSec", landed.get(), drainEnd - writeStart)
+                    .metric("submits", submits.get())
+                    .metric("landed", landed.get())
+                    .metric("coalesced", submits.get() - landed.get() - dropped.get())
+                    .metric("dropped", dropped.get())
+                    .metric("failedTasks", db.getFailedLandTasks())
+                    .metric("retries", db.getLandRetryCount())
+                    .metric("drainMs", TimeUnit.NANOSECONDS.toMillis(drainEnd - writeEnd))
+                    .latency("submitLatency", submitLatency)
+                    .latency("landLatency", landLatency);
+            Path file = report.write(REPORT_DIR);
+            assertTrue(file.toFile().isFile());
+            assertEquals(0L, dropped.get(), "tasks dropped during benchmark");
+        }
+
+        @Override
+        public void onLanded(BaseEntity<?> entity, TaskType type) {
+            Long start = submitted.remove(entity);
+            if (start != null) {
+                landLatency.record(System.nanoTime() - start);
+            }
+            landed.incrementAndGet();
+        }
+
+        @Override
+        public void onDropped(BaseEntity<?> entity, TaskType type) {
+            submitted.remove(entity);
+            dropped.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            // 关闭时同时关闭连接池，内存库随最后一个连接释放
+            db.shutdown();
+        }
+    }
+
+    private static PlayerEntity newPlayer(long uid) {
+        PlayerEntity player = new PlayerEntity(uid);
+        player.setName("p" + uid);
+        player.setLevel(1);
+        player.setServerId(1);
+        player.setCreateTime(System.currentTimeMillis());
+        return player;
+    }
+}
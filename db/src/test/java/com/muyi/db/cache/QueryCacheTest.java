@@ -0,0 +1,101 @@
+package com.muyi.db.cache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.async.TaskType;
+import com.muyi.db.example.PlayerEntity;
+
+/**
+ * 自定义查询结果缓存测试
+ */
+class QueryCacheTest {
+
+    @Test
+    @DisplayName("解析 FROM / JOIN / 逗号列表中的表名")
+    void testTablesOf() {
+        QueryCache cache = new QueryCache(1 << 20, 60_000);
+        assertArrayEquals(new String[]{"player"}, cache.tablesOf("SELECT * FROM `game`.`Player` WHERE level > ?"));
+        assertArrayEquals(new String[]{"alliance", "alliance_member"}, cache.tablesOf(
+                "SELECT a.id, COUNT(*) FROM alliance a LEFT JOIN alliance_member m ON m.aid = a.id GROUP BY a.id"));
+        assertArrayEquals(new String[]{"rank_power", "player"}, cache.tablesOf(
+                "SELECT * FROM rank_power r, player p WHERE r.uid = p.uid ORDER BY r.power DESC, p.uid LIMIT 0, 100"));
+        assertArrayEquals(new String[]{"player", "building"}, cache.tablesOf(
+                "SELECT * FROM player WHERE uid IN (SELECT uid FROM building WHERE type = ?)"));
+        assertArrayEquals(new String[0], cache.tablesOf("SELECT 1 FROM DUAL"));
+    }
+
+    @Test
+    @DisplayName("按 SQL + 参数命中，引用的表写入后失效")
+    void testHitAndInvalidate() {
+        QueryCache cache = new QueryCache(1 << 20, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        String sql = "SELECT * FROM player WHERE level > ?";
+
+        assertEquals(List.of(1), load(cache, sql, 10, loads));
+        assertEquals(List.of(1), load(cache, sql, 10, loads));
+        assertEquals(1, loads.get());
+        assertEquals(List.of(2), load(cache, sql, 20, loads));
+        assertEquals(2, loads.get());
+
+        // 无关表写入不影响
+        cache.invalidateTable("building");
+        load(cache, sql, 10, loads);
+        assertEquals(2, loads.get());
+
+        // 异步落地成功 -> 按实体物理表失效
+        cache.onLanded(new PlayerEntity(), TaskType.UPDATE);
+        assertEquals(List.of(3), load(cache, sql, 10, loads));
+        assertEquals(3, loads.get());
+
+        cache.invalidateSql("UPDATE `player` SET level = level + 1");
+        load(cache, sql, 10, loads);
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    @DisplayName("查询执行期间表有写入时不缓存结果；无法解析表名的 SQL 不缓存")
+    void testConcurrentWriteAndUncacheable() {
+        QueryCache cache = new QueryCache(1 << 20, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        String sql = "SELECT * FROM player";
+        cache.get(sql, null, () -> {
+            loads.incrementAndGet();
+            cache.invalidateTable("player");
+            return "stale";
+        }, v -> 16);
+        cache.get(sql, null, () -> {
+            loads.incrementAndGet();
+            return "fresh";
+        }, v -> 16);
+        assertEquals(2, loads.get());
+
+        cache.get("SELECT NOW()", null, loads::incrementAndGet, v -> 16);
+        cache.get("SELECT NOW()", null, loads::incrementAndGet, v -> 16);
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getUncacheableCount());
+    }
+
+    @Test
+    @DisplayName("TTL 过期后重新查询")
+    void testTtl() throws InterruptedException {
+        QueryCache cache = new QueryCache(1 << 20, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("SELECT * FROM player", null, 20, loads::incrementAndGet, v -> 16);
+        cache.get("SELECT * FROM player", null, 20, loads::incrementAndGet, v -> 16);
+        assertEquals(1, loads.get());
+        Thread.sleep(40);
+        cache.get("SELECT * FROM player", null, 20, loads::incrementAndGet, v -> 16);
+        assertEquals(2, loads.get());
+    }
+
+    private static List<Integer> load(QueryCache cache, String sql, int level, AtomicInteger loads) {
+        return cache.get(sql, new Object[]{level}, () -> List.of(loads.incrementAndGet()), v -> 32);
+    }
+}
@@ -0,0 +1,131 @@
+package com.muyi.db.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.annotation.Column;
+import com.muyi.db.annotation.EntityCache;
+import com.muyi.db.annotation.PrimaryKey;
+import com.muyi.db.annotation.Table;
+import com.muyi.db.async.TaskType;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.example.PlayerEntity;
+
+/**
+ * W-TinyLFU 缓存与实体缓存测试
+ */
+class WTinyLfuCacheTest {
+
+    @Test
+    @DisplayName("总权重不超过上限")
+    void testWeightBound() {
+        WTinyLfuCache<Integer, String> cache = new WTinyLfuCache<>(1000, String::length);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "0123456789");
+        }
+        assertTrue(cache.weightedSize() <= 1000);
+        assertEquals(100, cache.size());
+        assertTrue(cache.stats().evictionCount() >= 900);
+    }
+
+    @Test
+    @DisplayName("高频条目不会被一次性扫描冲掉")
+    void testScanResistance() {
+        WTinyLfuCache<Integer, String> cache = new WTinyLfuCache<>(100, v -> 1);
+        for (int round = 0; round < 5; round++) {
+            for (int hot = 0; hot < 50; hot++) {
+                if (cache.get(hot) == null) {
+                    cache.put(hot, "hot");
+                }
+            }
+        }
+        for (int cold = 1000; cold < 11000; cold++) {
+            cache.put(cold, "cold");
+        }
+        int survivors = 0;
+        for (int hot = 0; hot < 50; hot++) {
+            if (cache.get(hot) != null) {
+                survivors++;
+            }
+        }
+        assertTrue(survivors >= 45, "hot survivors: " + survivors);
+    }
+
+    @Test
+    @DisplayName("并发读写：读取不加锁，总权重仍不超过上限")
+    void testConcurrentAccess() throws InterruptedException {
+        WTinyLfuCache<Integer, String> cache = new WTinyLfuCache<>(500, v -> 1);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int seed = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    int key = (i * 31 + seed) % 2000;
+                    if (cache.get(key) == null) {
+                        cache.put(key, "v");
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(cache.weightedSize() <= 500);
+        assertEquals(cache.size(), (int) cache.weightedSize());
+        WTinyLfuCache.Stats stats = cache.stats();
+        assertEquals(160_000L, stats.hitCount() + stats.missCount());
+    }
+
+    @Test
+    @DisplayName("读穿透写入不覆盖已缓存的业务实例")
+    void testPutIfAbsent() {
+        EntityCacheManager manager = new EntityCacheManager(1024 * 1024);
+        CityEntity held = new CityEntity(9L);
+        manager.onSubmit(held, TaskType.UPDATE);
+        assertSame(held, manager.putIfAbsent(new CityEntity(9L)));
+        assertSame(held, manager.get(CityEntity.class, 9L));
+
+        CityEntity loaded = new CityEntity(10L);
+        assertSame(loaded, manager.putIfAbsent(loaded));
+        assertSame(loaded, manager.get(CityEntity.class, 10L));
+    }
+
+    @Test
+    @DisplayName("提交写入缓存，提交删除失效，未标注的实体不缓存")
+    void testEntityCacheManager() {
+        EntityCacheManager manager = new EntityCacheManager(1024 * 1024);
+        CityEntity city = new CityEntity(7L);
+        manager.onSubmit(city, TaskType.UPDATE);
+        assertSame(city, manager.get(CityEntity.class, 7L));
+
+        manager.onSubmit(city, TaskType.DELETE);
+        assertNull(manager.get(CityEntity.class, 7L));
+
+        assertFalse(manager.isCached(PlayerEntity.class));
+        manager.put(new PlayerEntity(1L));
+        assertNull(manager.get(PlayerEntity.class, 1L));
+        assertNotNull(manager.getStats().get(CityEntity.class));
+    }
+
+    @Table("city")
+    @EntityCache(maxBytes = 4096)
+    static class CityEntity extends BaseEntity<CityEntity> {
+        @PrimaryKey
+        @Column("uid")
+        private long uid;
+
+        public CityEntity() {
+        }
+
+        CityEntity(long uid) {
+            this.uid = uid;
+        }
+    }
+}
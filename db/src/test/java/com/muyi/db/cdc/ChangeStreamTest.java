@@ -0,0 +1,232 @@
+package com.muyi.db.cdc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.async.AsyncLandConfig;
+import com.muyi.db.async.AsyncLandManager;
+import com.muyi.db.async.TaskType;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.EntityState;
+import com.muyi.db.core.FieldInfo;
+import com.muyi.db.example.PlayerEntity;
+import com.muyi.db.sql.SqlExecutor;
+
+/**
+ * 变更流测试
+ */
+class ChangeStreamTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("land-cdc");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("游标按序号顺序读取，被覆盖的变更计为丢失并跳到最早可读的序号")
+    void testCursorAndGap() {
+        ChangeStream stream = new ChangeStream(16, null);
+        ChangeStream.Cursor cursor = stream.cursor();
+        List<Long> read = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            stream.publish("player", "player", TaskType.UPDATE, new Object[]{(long) i}, List.of("level"), i);
+        }
+        assertEquals(10, cursor.poll(e -> read.add(e.sequence()), 100));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), read);
+        assertEquals(0, cursor.poll(e -> read.add(e.sequence()), 100));
+
+        // 再发布 40 条，容量 16，只能读到最后 16 条
+        read.clear();
+        for (int i = 0; i < 40; i++) {
+            stream.publish("player", "player", TaskType.UPDATE, new Object[]{(long) i}, List.of(), i);
+        }
+        assertEquals(16, cursor.poll(e -> read.add(e.sequence()), 100));
+        assertEquals(35L, (long) read.get(0));
+        assertEquals(50L, (long) read.get(15));
+        assertEquals(24L, cursor.getLost());
+        assertEquals(50L, stream.getLastSequence());
+    }
+
+    @Test
+    @DisplayName("订阅者在独立线程中按表过滤收到变更，关闭时投递完已发布的变更")
+    void testSubscription() {
+        ChangeStream stream = new ChangeStream(1024, null);
+        List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+        ChangeStream.Subscription subscription = stream.subscribe("rank", Set.of("player"), received::add);
+
+        for (int i = 1; i <= 100; i++) {
+            stream.publish("player", "player", TaskType.UPDATE, new Object[]{(long) i}, List.of("exp"), i);
+            stream.publish("player_building", "player_building_3", TaskType.INSERT,
+                    new Object[]{(long) i, 1}, List.of(), 1);
+        }
+        stream.close();
+
+        assertEquals(100, received.size());
+        assertEquals(100L, subscription.getDelivered());
+        assertEquals(0L, subscription.getLost());
+        for (int i = 0; i < received.size(); i++) {
+            ChangeEvent event = received.get(i);
+            assertEquals((long) (i + 1), event.key());
+            assertTrue(event.changed("exp"));
+            assertTrue(!event.changed("level"));
+        }
+    }
+
+    @Test
+    @DisplayName("变更日志：写线程按序号写入，编解码一致，重启后序号连续，其他进程从断点追读")
+    void testChangeLog() throws InterruptedException {
+        ChangeLog log = new ChangeLog(dir, 4096, 4);
+        ChangeStream stream = new ChangeStream(16, log);
+        ChangeEvent first = stream.publish("player", "player", TaskType.UPDATE,
+                new Object[]{7L}, List.of("level", "exp"), 3);
+        stream.publish("player_building", "player_building_2", TaskType.DELETE,
+                new Object[]{7L, 2}, Collections.emptyList(), 5);
+
+        ChangeEvent decoded = ChangeLog.decode(ByteBuffer.wrap(ChangeLog.encode(first)));
+        assertEquals(first.sequence(), decoded.sequence());
+        assertEquals("player", decoded.table());
+        assertArrayEquals(first.primaryKey(), decoded.primaryKey());
+        assertEquals(List.of("level", "exp"), decoded.changedColumns());
+        assertEquals(3L, decoded.version());
+
+        // 发布只写缓冲区，由写线程异步写入日志
+        waitLogged(stream, 2L);
+        ChangeLog.Reader reader = new ChangeLog.Reader(dir, 0);
+        List<ChangeEvent> tailed = new ArrayList<>();
+        assertEquals(2, reader.poll(tailed::add));
+        assertEquals("player_building_2", tailed.get(1).physicalTable());
+        assertEquals(TaskType.DELETE, tailed.get(1).type());
+        assertTrue(tailed.get(1).isFullRow());
+        stream.close();
+
+        // 重启：序号接着日志继续
+        ChangeStream restarted = new ChangeStream(16, new ChangeLog(dir, 4096, 4));
+        assertEquals(2L, restarted.getLastSequence());
+        restarted.publish("player", "player", TaskType.INSERT, new Object[]{8L}, List.of(), 1);
+        waitLogged(restarted, 3L);
+        tailed.clear();
+        assertEquals(1, reader.poll(tailed::add));
+        assertEquals(3L, tailed.get(0).sequence());
+        assertEquals(3L, reader.getLastSequence());
+        assertEquals(0L, reader.getLost());
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("落地提交后发布变更：UPDATE 带变更列，INSERT 为整行")
+    void testPublishOnLand() throws InterruptedException {
+        AsyncLandManager manager = new AsyncLandManager(new CommitExecutor(), new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(5)
+                .changeStreamCapacity(64)
+                .changeLogDir(dir.toString()));
+        List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+        try {
+            manager.getChangeStream().subscribe("test", null, received::add);
+
+            PlayerEntity inserted = new PlayerEntity(1L);
+            manager.submitInsert(inserted);
+
+            PlayerEntity updated = new PlayerEntity(2L);
+            updated.setState(EntityState.PERSISTENT);
+            updated.clearChanges();
+            updated.setLevel(10);
+            manager.submitUpdate(updated);
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (received.size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+        } finally {
+            manager.shutdown();
+        }
+
+        assertEquals(2, received.size());
+        for (ChangeEvent event : received) {
+            assertEquals("player", event.table());
+            if (event.type() == TaskType.INSERT) {
+                assertEquals(1L, event.key());
+                assertTrue(event.isFullRow());
+            } else {
+                assertEquals(TaskType.UPDATE, event.type());
+                assertEquals(2L, event.key());
+                assertEquals(List.of("level"), event.changedColumns());
+            }
+        }
+
+        List<ChangeEvent> tailed = new ArrayList<>();
+        new ChangeLog.Reader(dir, 0).poll(tailed::add);
+        assertEquals(2, tailed.size());
+    }
+
+    private static void waitLogged(ChangeStream stream, long sequence) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (stream.getLoggedSequence() < sequence && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(sequence, stream.getLoggedSequence());
+    }
+
+    /**
+     * 批量写入全部成功
+     */
+    private static class CommitExecutor extends SqlExecutor {
+
+        CommitExecutor() {
+            super(null);
+        }
+
+        @Override
+        public <T extends BaseEntity<T>> int[] batchInsert(List<T> entities) {
+            return succeed(entities);
+        }
+
+        @Override
+        public <T extends BaseEntity<T>> int[] batchUpdate(List<T> entities) {
+            return succeed(entities);
+        }
+
+        @Override
+        public <T extends BaseEntity<T>> int[] batchUpdatePartial(List<T> entities, List<FieldInfo> updateFields) {
+            return succeed(entities);
+        }
+
+        private static <T extends BaseEntity<T>> int[] succeed(List<T> entities) {
+            int[] results = new int[entities.size()];
+            for (int i = 0; i < entities.size(); i++) {
+                entities.get(i).setState(EntityState.PERSISTENT);
+                results[i] = 1;
+            }
+            return results;
+        }
+    }
+}
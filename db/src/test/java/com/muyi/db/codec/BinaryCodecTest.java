@@ -0,0 +1,145 @@
+package com.muyi.db.codec;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.annotation.Column;
+import com.muyi.db.annotation.PrimaryKey;
+import com.muyi.db.annotation.Table;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.FieldInfo;
+import com.muyi.db.sql.TableGenerator;
+
+/**
+ * 列编解码器测试
+ */
+class BinaryCodecTest {
+
+    private final BinaryCodec codec = new BinaryCodec();
+
+    @Test
+    @DisplayName("嵌套集合与各类标量往返一致")
+    void testRoundTrip() {
+        Map<Object, Object> buff = new LinkedHashMap<>();
+        buff.put("id", 3001);
+        buff.put("expireAt", 1_760_000_000_000L);
+        buff.put("rate", 0.25);
+        buff.put("stack", (short) -2);
+        buff.put("flags", List.of(true, false));
+        buff.put("tags", new LinkedHashSet<>(List.of("atk", "def")));
+        buff.put("price", new BigDecimal("12.50"));
+        buff.put("raw", new byte[]{1, 2, 3});
+        buff.put("ratio", 1.5f);
+        buff.put("none", null);
+        List<Object> value = new ArrayList<>(List.of(buff, List.of(1, -1, Integer.MAX_VALUE), List.of(Long.MIN_VALUE)));
+        value.add(new ArrayList<>(List.of(1, 2L, "x")));
+
+        @SuppressWarnings("unchecked")
+        List<Object> decoded = (List<Object>) codec.decode(codec.encode(value));
+        assertEquals(4, decoded.size());
+        Map<?, ?> decodedBuff = (Map<?, ?>) decoded.get(0);
+        assertEquals(List.copyOf(buff.keySet()), List.copyOf(decodedBuff.keySet()));
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) decodedBuff.remove("raw"));
+        buff.remove("raw");
+        assertEquals(buff, decodedBuff);
+        assertInstanceOf(Set.class, decodedBuff.get("tags"));
+        assertEquals(value.subList(1, 4), decoded.subList(1, 4));
+
+        assertArrayEquals(new int[]{0, -7, 300}, (int[]) codec.decode(codec.encode(new int[]{0, -7, 300})));
+        assertArrayEquals(new long[]{-1L, 1L << 40}, (long[]) codec.decode(codec.encode(new long[]{-1L, 1L << 40})));
+    }
+
+    @Test
+    @DisplayName("整数列表打包存储：小数值每个元素 1 字节")
+    void testPackedIntList() {
+        List<Integer> troops = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            troops.add(i - 30);
+        }
+        // 版本 + 类型标记 + 长度 + 60 个元素
+        assertEquals(63, codec.encode(troops).length);
+        assertEquals(troops, codec.decode(codec.encode(troops)));
+    }
+
+    @Test
+    @DisplayName("损坏数据与不支持的类型直接报错")
+    void testInvalid() {
+        byte[] data = codec.encode(List.of("abc"));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(java.util.Arrays.copyOf(data, data.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(new byte[]{9}));
+        assertThrows(IllegalArgumentException.class, () -> codec.encode(List.of(new Object())));
+    }
+
+    @Test
+    @DisplayName("实体字段：建表为 BLOB、落地绑定字节、查询与 Map 回填解码")
+    void testEntityField() throws Exception {
+        CodecEntity entity = new CodecEntity();
+        entity.id = 1;
+        entity.troops = new ArrayList<>(List.of(101, 102, 103));
+        entity.items = new HashMap<>(Map.of(2001, 5L));
+
+        String ddl = TableGenerator.generateCreateTable(CodecEntity.class);
+        assertTrue(ddl.contains("`troops` MEDIUMBLOB"), ddl);
+        assertTrue(ddl.contains("`items` BLOB"), ddl);
+
+        Object[] values = entity.getAllValues();
+        assertInstanceOf(byte[].class, values[1]);
+
+        // 绑定：编码后的字节
+        FieldInfo troops = entity.getMetadata().getField("troops");
+        Object[] bound = new Object[1];
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (p, method, args) -> {
+                    if (method.getName().equals("setBytes")) {
+                        bound[0] = args[1];
+                    }
+                    return null;
+                });
+        troops.bind(ps, 1, entity);
+        assertArrayEquals((byte[]) values[1], (byte[]) bound[0]);
+
+        // 查询：读取字节解码
+        CodecEntity loaded = new CodecEntity();
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (p, method, args) -> method.getName().equals("getBytes") ? bound[0] : null);
+        troops.read(rs, 1, loaded);
+        assertEquals(List.of(101, 102, 103), loaded.troops);
+
+        // 日志回放 / Map 回填
+        CodecEntity replayed = new CodecEntity();
+        replayed.fromMap(Map.of("id", 1L, "troops", values[1], "items", values[2]));
+        assertEquals(entity.troops, replayed.troops);
+        assertEquals(entity.items, replayed.items);
+    }
+
+    @Table("codec_entity")
+    public static class CodecEntity extends BaseEntity<CodecEntity> {
+        @PrimaryKey
+        private long id;
+
+        @Column(codec = BinaryCodec.class)
+        private List<Integer> troops;
+
+        @Column(codec = BinaryCodec.class, columnType = "BLOB")
+        private Map<Integer, Long> items;
+
+        public CodecEntity() {}
+    }
+}
@@ -0,0 +1,73 @@
+package com.muyi.db.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 落地参数闭环控制测试（只验证控制逻辑，不启动采样线程）
+ */
+class AutoModeControllerTest {
+
+    private AutoModeController newController() {
+        return new AutoModeController(null)
+                .setBatchBounds(100, 800)
+                .setIntervalBounds(10, 100)
+                .setBacklogThresholds(200, 2000)
+                .setLatencyThresholds(100, 1000)
+                .setHysteresis(2, 3);
+    }
+
+    @Test
+    @DisplayName("持续高压时扩容，受上下界约束")
+    void testScaleUp() {
+        AutoModeController controller = newController();
+        // 第一个周期只计入滞回
+        assertFalse(controller.step(5000, 0, 0, 1000));
+        assertTrue(controller.step(5000, 0, 0, 1000));
+        assertEquals(800, controller.getBatchSize());
+        assertEquals(12, controller.getIntervalMs());
+
+        controller.step(6000, 0, 0, 1000);
+        controller.step(7000, 0, 0, 1000);
+        assertEquals(800, controller.getBatchSize());
+        assertEquals(10, controller.getIntervalMs());
+    }
+
+    @Test
+    @DisplayName("连接池有等待时只增大批量，不缩短间隔")
+    void testPoolWaitKeepsInterval() {
+        AutoModeController controller = newController();
+        controller.step(3000, 0, 5, 1000);
+        controller.step(3000, 0, 5, 1000);
+        assertEquals(800, controller.getBatchSize());
+        assertEquals(25, controller.getIntervalMs());
+    }
+
+    @Test
+    @DisplayName("低压需连续多个周期才缩容，死区内保持不变")
+    void testScaleDownWithHysteresis() {
+        AutoModeController controller = newController();
+        assertFalse(controller.step(10, 10, 0, 1000));
+        assertFalse(controller.step(10, 10, 0, 1000));
+        // 死区打断连续计数
+        assertFalse(controller.step(10, 500, 0, 1000));
+        assertFalse(controller.step(10, 10, 0, 1000));
+        assertFalse(controller.step(10, 10, 0, 1000));
+        assertTrue(controller.step(10, 10, 0, 1000));
+        assertEquals(300, controller.getBatchSize());
+        assertEquals(31, controller.getIntervalMs());
+    }
+
+    @Test
+    @DisplayName("非法参数抛出 IllegalArgumentException")
+    void testInvalidBounds() {
+        AutoModeController controller = new AutoModeController(null);
+        assertThrows(IllegalArgumentException.class, () -> controller.setBatchBounds(500, 100));
+        assertThrows(IllegalArgumentException.class, () -> controller.setBacklogThresholds(100, 100));
+        assertThrows(IllegalArgumentException.class, () -> controller.setHysteresis(0, 1));
+    }
+}
@@ -0,0 +1,214 @@
+package com.muyi.db.core;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.annotation.PrimaryKey;
+import com.muyi.db.annotation.Table;
+import com.muyi.db.example.PlayerEntity;
+import com.muyi.db.example.PlayerEntity_Accessor;
+import com.muyi.db.sql.EntityRowMapper;
+import com.muyi.db.sql.SqlExecutor;
+
+/**
+ * 生成的实体访问器测试
+ */
+class EntityAccessorTest {
+
+    @Test
+    @DisplayName("元数据自动加载生成的访问器，字段序号与生成常量一致")
+    void testMetadataUsesAccessor() {
+        EntityMetadata metadata = new PlayerEntity().getMetadata();
+        assertNotNull(metadata.getAccessor());
+        assertEquals(PlayerEntity_Accessor.class, metadata.getAccessor().getClass());
+        assertEquals(PlayerEntity_Accessor.LEVEL, metadata.getField("level").getOrdinal());
+        assertEquals("vipLevel", metadata.getAllFields().get(PlayerEntity_Accessor.VIP_LEVEL).getFieldName());
+    }
+
+    @Test
+    @DisplayName("fromMap/toMap 经访问器读写，数值类型按 Number 转换")
+    void testFromMapToMap() {
+        PlayerEntity entity = new PlayerEntity();
+        entity.fromMap(Map.of("uid", 10001, "name", "muyi", "level", 30L, "exp", 123456L));
+
+        assertEquals(10001L, entity.getUid());
+        assertEquals("muyi", entity.getName());
+        assertEquals(30, entity.getLevel());
+        assertEquals(30, entity.toMap().get("level"));
+        assertFalse(entity.hasChanges());
+    }
+
+    @Test
+    @DisplayName("主键值与哈希与反射实现一致")
+    void testPrimaryKey() {
+        PlayerEntity entity = new PlayerEntity(42L);
+        assertEquals(List.of(42L), Arrays.asList(entity.getPrimaryKeyValues()));
+        assertEquals(Arrays.hashCode(new Object[]{42L}), entity.hashCode());
+    }
+
+    @Test
+    @DisplayName("类型化 getter/setter 不触发变更追踪")
+    void testTypedAccessors() {
+        PlayerEntity entity = new PlayerEntity(1L);
+        PlayerEntity_Accessor.setExp(entity, 99L);
+        assertEquals(99L, PlayerEntity_Accessor.getExp(entity));
+        assertFalse(entity.hasChanges());
+    }
+
+    @Test
+    @DisplayName("参数绑定按字段类型调用 setLong/setInt/setString")
+    void testBind() throws Exception {
+        List<String> calls = new ArrayList<>();
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    calls.add(method.getName() + "(" + args[0] + ", " + args[1] + ")");
+                    return null;
+                });
+
+        PlayerEntity entity = new PlayerEntity(7L);
+        entity.setName("a");
+        entity.setLevel(3);
+        EntityMetadata metadata = entity.getMetadata();
+        metadata.getField("uid").bind(ps, 1, entity);
+        metadata.getField("name").bind(ps, 2, entity);
+        metadata.getField("level").bind(ps, 3, entity);
+
+        assertEquals(List.of("setLong(1, 7)", "setString(2, a)", "setInt(3, 3)"), calls);
+    }
+
+    @Test
+    @DisplayName("结果集按列下标直接映射为实体，未知列忽略")
+    void testRowMapper() throws Exception {
+        String[] labels = {"uid", "name", "level", "unknown_col"};
+        Object[] row = {5L, "abc", 12, "x"};
+        ResultSetMetaData rsmd = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> labels.length;
+                    case "getColumnLabel" -> labels[(int) args[0] - 1];
+                    default -> null;
+                });
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    Object value = row[(int) args[0] - 1];
+                    return switch (method.getName()) {
+                        case "getLong" -> ((Number) value).longValue();
+                        case "getInt" -> ((Number) value).intValue();
+                        case "wasNull" -> false;
+                        default -> value;
+                    };
+                });
+
+        PlayerEntity entity = new EntityRowMapper<>(new PlayerEntity(), rsmd).map(rs);
+        assertEquals(5L, entity.getUid());
+        assertEquals("abc", entity.getName());
+        assertEquals(12, entity.getLevel());
+        assertFalse(entity.hasChanges());
+    }
+
+    @Test
+    @DisplayName("流式查询打开游标后映射器构造失败时，结果集、语句和连接都被关闭")
+    void testStreamClosesOnMapperFailure() {
+        List<String> closed = new ArrayList<>();
+        ResultSetMetaData rsmd = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    throw new IllegalStateException("Simulated metadata failure");
+                });
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getMetaData" -> rsmd;
+                    case "close" -> closed.add("rs");
+                    default -> null;
+                });
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "executeQuery" -> rs;
+                    case "close" -> closed.add("ps");
+                    default -> null;
+                });
+        Connection conn = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "prepareStatement" -> ps;
+                    case "close" -> closed.add("conn");
+                    default -> null;
+                });
+        DataSource dataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> conn);
+
+        assertThrows(IllegalStateException.class,
+                () -> new SqlExecutor(dataSource).stream(new PlayerEntity(), "SELECT * FROM player", 100));
+        assertEquals(List.of("rs", "ps", "conn"), closed);
+    }
+
+    @Test
+    @DisplayName("变更位图：序号与名称两种标记方式等价，取出后清空，失败可恢复")
+    void testChangedBits() {
+        PlayerEntity entity = new PlayerEntity(1L);
+        entity.setLevel(5);
+        entity.markChanged("vip_level");
+        assertTrue(entity.isChanged(PlayerEntity_Accessor.LEVEL));
+        assertEquals(Set.of("level", "vipLevel"), entity.getChangedFields());
+
+        long[] drained = entity.drainChangedBits();
+        assertFalse(entity.hasChanges());
+        assertEquals(List.of(entity.getMetadata().getField("level"), entity.getMetadata().getField("vipLevel")),
+                entity.getMetadata().getChangedFields(drained));
+
+        entity.restoreChangedBits(drained);
+        assertEquals(Set.of("level", "vipLevel"), entity.getChangedFields());
+
+        // 未知字段名保持旧版宽松行为：记录警告后忽略
+        entity.markChanged("missing");
+        assertEquals(Set.of("level", "vipLevel"), entity.getChangedFields());
+    }
+
+    @Test
+    @DisplayName("超过 64 列的宽表使用扩展位图")
+    void testWideEntity() {
+        WideEntity entity = new WideEntity();
+        entity.touch(3);
+        entity.touch(69);
+        assertTrue(entity.isChanged(entity.getMetadata().getField("c69").getOrdinal()));
+        assertEquals(Set.of("c3", "c69"), entity.getChangedFields());
+
+        long[] drained = entity.drainChangedBits();
+        assertEquals(2, drained.length);
+        assertFalse(entity.hasChanges());
+        entity.restoreChangedBits(drained);
+        assertEquals(2, entity.getMetadata().getChangedFields(entity.getChangedBits()).size());
+    }
+
+    @Table("wide")
+    static class WideEntity extends BaseEntity<WideEntity> {
+        @PrimaryKey
+        private long id;
+        private int c0, c1, c2, c3, c4, c5, c6, c7, c8, c9,
+                c10, c11, c12, c13, c14, c15, c16, c17, c18, c19,
+                c20, c21, c22, c23, c24, c25, c26, c27, c28, c29,
+                c30, c31, c32, c33, c34, c35, c36, c37, c38, c39,
+                c40, c41, c42, c43, c44, c45, c46, c47, c48, c49,
+                c50, c51, c52, c53, c54, c55, c56, c57, c58, c59,
+                c60, c61, c62, c63, c64, c65, c66, c67, c68, c69;
+
+        void touch(int column) {
+            markChanged("c" + column);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.muyi.db.core;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.annotation.Column;
+import com.muyi.db.annotation.PrimaryKey;
+import com.muyi.db.annotation.Table;
+import com.muyi.db.example.PlayerBuildingEntity;
+import com.muyi.db.sql.SqlBuilder;
+import com.muyi.db.sql.TableGenerator;
+
+/**
+ * 分表路由测试
+ */
+class ShardRoutingTest {
+
+    @Test
+    @DisplayName("按分表键取模路由物理表，负数使用 floorMod")
+    void testResolveTableName() {
+        MailEntity mail = new MailEntity(1L, 10005L);
+        assertEquals("mail_1", mail.getTableName());
+        assertEquals("mail_3", new MailEntity(2L, -1L).getTableName());
+
+        mail.setDynamicTableName("mail_archive");
+        assertEquals("mail_archive", mail.getTableName());
+
+        EntityMetadata metadata = mail.getMetadata();
+        assertTrue(metadata.isSharded());
+        assertEquals(List.of("mail_0", "mail_1", "mail_2", "mail_3"), metadata.getShardTableNames());
+    }
+
+    @Test
+    @DisplayName("shardCount 为 0 时不分表")
+    void testNotSharded() {
+        PlayerBuildingEntity building = new PlayerBuildingEntity(10005L);
+        assertFalse(building.getMetadata().isSharded());
+        assertEquals("player_building", building.getTableName());
+    }
+
+    @Test
+    @DisplayName("SQL 使用物理表名，建表脚本包含所有分表")
+    void testSqlAndDdl() {
+        assertTrue(SqlBuilder.buildInsert(new MailEntity(1L, 6L)).startsWith("INSERT INTO mail_2 "));
+
+        String ddl = TableGenerator.generateCreateTable(MailEntity.class);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ddl.contains("CREATE TABLE IF NOT EXISTS `mail_" + i + "`"));
+        }
+        assertEquals(4, TableGenerator.generateDropTable(MailEntity.class).lines().count());
+    }
+
+    @Table(value = "mail", shardKey = "uid", shardCount = 4)
+    static class MailEntity extends BaseEntity<MailEntity> {
+        @PrimaryKey
+        @Column("id")
+        private long id;
+
+        @Column("uid")
+        private long uid;
+
+        public MailEntity() {
+        }
+
+        MailEntity(long id, long uid) {
+            this.id = id;
+            this.uid = uid;
+        }
+    }
+}
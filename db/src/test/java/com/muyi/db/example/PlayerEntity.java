@@ -51,7 +51,7 @@ public class PlayerEntity extends BaseEntity<PlayerEntity> {
 
     public void setUid(long uid) {
         this.uid = uid;
-        markChanged("uid");
+        markChanged(PlayerEntity_Accessor.UID);
     }
 
     public String getName() {
@@ -60,7 +60,7 @@ public class PlayerEntity extends BaseEntity<PlayerEntity> {
 
     public void setName(String name) {
         this.name = name;
-        markChanged("name");
+        markChanged(PlayerEntity_Accessor.NAME);
     }
 
     public int getLevel() {
@@ -69,7 +69,7 @@ public class PlayerEntity extends BaseEntity<PlayerEntity> {
 
     public void setLevel(int level) {
         this.level = level;
-        markChanged("level");
+        markChanged(PlayerEntity_Accessor.LEVEL);
     }
 
     public long getExp() {
@@ -78,7 +78,7 @@ public class PlayerEntity extends BaseEntity<PlayerEntity> {
 
     public void setExp(long exp) {
         this.exp = exp;
-        markChanged("exp");
+        markChanged(PlayerEntity_Accessor.EXP);
     }
 
     public int getVipLevel() {
@@ -87,7 +87,7 @@ public class PlayerEntity extends BaseEntity<PlayerEntity> {
 
     public void setVipLevel(int vipLevel) {
         this.vipLevel = vipLevel;
-        markChanged("vipLevel");
+        markChanged(PlayerEntity_Accessor.VIP_LEVEL);
     }
 
     public int getServerId() {
@@ -96,7 +96,7 @@ public class PlayerEntity extends BaseEntity<PlayerEntity> {
 
     public void setServerId(int serverId) {
         this.serverId = serverId;
-        markChanged("serverId");
+        markChanged(PlayerEntity_Accessor.SERVER_ID);
     }
 
     public long getCreateTime() {
@@ -105,7 +105,7 @@ public class PlayerEntity extends BaseEntity<PlayerEntity> {
 
     public void setCreateTime(long createTime) {
         this.createTime = createTime;
-        markChanged("createTime");
+        markChanged(PlayerEntity_Accessor.CREATE_TIME);
     }
 
     public long getLastLoginTime() {
@@ -114,6 +114,6 @@ public class PlayerEntity extends BaseEntity<PlayerEntity> {
 
     public void setLastLoginTime(long lastLoginTime) {
         this.lastLoginTime = lastLoginTime;
-        markChanged("lastLoginTime");
+        markChanged(PlayerEntity_Accessor.LAST_LOGIN_TIME);
     }
 }
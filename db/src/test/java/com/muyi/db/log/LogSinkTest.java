@@ -0,0 +1,255 @@
+package com.muyi.db.log;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.testing.FakeDatabase;
+
+/**
+ * 行为日志写入测试
+ */
+class LogSinkTest {
+
+    private static final LogSchema ITEM_LOG = new LogSchema("log_item", LogSchema.Partition.NONE)
+            .column("uid", LogSchema.Type.LONG)
+            .column("delta", LogSchema.Type.INT)
+            .column("reason", LogSchema.Type.STRING)
+            .timeColumn("log_time");
+
+    @Test
+    @DisplayName("按块写入多行 INSERT，占位符数量与行数一致")
+    void testMultiRowInsert() {
+        FakeDb db = new FakeDb();
+        try (LogSink sink = new LogSink(db.dataSource(), new LogSinkConfig().chunkRows(3).flushIntervalMs(60_000))) {
+            for (int i = 0; i < 7; i++) {
+                assertTrue(sink.append(ITEM_LOG, 1000L + i, i, "reason" + i));
+            }
+            sink.flush();
+
+            // 两个写满的块 + 一个未写满的块
+            assertEquals(3, db.sql.size());
+            assertTrue(db.sql.get(0).startsWith("INSERT INTO `log_item` (`uid`,`delta`,`reason`,`log_time`) VALUES "));
+            assertEquals(7, db.insertedRows);
+            assertEquals(7 * 4, db.boundParams);
+            assertEquals(0L, sink.getBufferedRows());
+            assertEquals(7L, sink.snapshot().get("writtenRows"));
+        }
+    }
+
+    @Test
+    @DisplayName("按天分表：跨天的行写入各自的分表，首次写入时从模板表建表")
+    void testDailyPartition() {
+        FakeDb db = new FakeDb();
+        LogSchema schema = new LogSchema("log_battle", LogSchema.Partition.DAY)
+                .column("uid", LogSchema.Type.LONG)
+                .column("score", LogSchema.Type.DOUBLE);
+        ZoneId zone = ZoneId.systemDefault();
+        long day1 = LocalDateTime.of(2026, 10, 17, 23, 59).atZone(zone).toInstant().toEpochMilli();
+        long day2 = LocalDateTime.of(2026, 10, 18, 0, 1).atZone(zone).toInstant().toEpochMilli();
+        try (LogSink sink = new LogSink(db.dataSource(), new LogSinkConfig().flushIntervalMs(60_000))) {
+            sink.appendAt(schema, day1, 1L, 1.5);
+            sink.appendAt(schema, day1 + 1, 2L, 2.5);
+            sink.appendAt(schema, day2, 3L, 3.5);
+            sink.flush();
+            sink.appendAt(schema, day2 + 1, 4L, 4.5);
+            sink.flush();
+        }
+
+        assertEquals(List.of(
+                "CREATE TABLE IF NOT EXISTS `log_battle_20261017` LIKE `log_battle`",
+                "INSERT INTO `log_battle_20261017` (`uid`,`score`) VALUES (?,?),(?,?)",
+                "CREATE TABLE IF NOT EXISTS `log_battle_20261018` LIKE `log_battle`",
+                "INSERT INTO `log_battle_20261018` (`uid`,`score`) VALUES (?,?)",
+                // 已创建的分表不再重复建表
+                "INSERT INTO `log_battle_20261018` (`uid`,`score`) VALUES (?,?)"), db.sql);
+    }
+
+    @Test
+    @DisplayName("写入失败的块保留到下一轮重试，缓冲满时丢弃最旧的块")
+    void testRetryAndDrop() {
+        FakeDb db = new FakeDb();
+        db.failing = true;
+        try (LogSink sink = new LogSink(db.dataSource(), new LogSinkConfig()
+                .chunkRows(2)
+                .maxBufferedRows(4)
+                .flushIntervalMs(60_000))) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(sink.append(ITEM_LOG, (long) i, i, null));
+            }
+            sink.flush();
+            assertEquals(4L, sink.getBufferedRows());
+            // 块写满会唤醒刷盘线程，它可能先于 flush() 尝试写入一次
+            assertTrue((long) sink.snapshot().get("flushFailures") >= 1L);
+
+            // 缓冲已满，丢弃最旧的块（2 行）后接收新行
+            assertTrue(sink.append(ITEM_LOG, 9L, 9, "x"));
+            assertEquals(2L, sink.snapshot().get("droppedRows"));
+            assertEquals(3L, sink.getBufferedRows());
+
+            db.failing = false;
+            sink.flush();
+            assertEquals(3, db.insertedRows);
+            assertEquals(0L, sink.getBufferedRows());
+        }
+    }
+
+    @Test
+    @DisplayName("数据错误时二分定位坏行，丢弃坏行并计数，其余行照常写入")
+    void testRejectBadRows() {
+        FakeDb db = new FakeDb();
+        db.rejectedValue = "bad";
+        try (LogSink sink = new LogSink(db.dataSource(), new LogSinkConfig().chunkRows(8).flushIntervalMs(60_000))) {
+            for (int i = 0; i < 8; i++) {
+                sink.append(ITEM_LOG, (long) i, i, i == 2 || i == 5 ? "bad" : "ok");
+            }
+            sink.flush();
+
+            assertEquals(6, db.insertedRows);
+            Map<String, Object> snapshot = sink.snapshot();
+            assertEquals(6L, snapshot.get("writtenRows"));
+            assertEquals(2L, snapshot.get("rejectedRows"));
+            assertEquals(0L, snapshot.get("flushFailures"));
+            assertEquals(0L, sink.getBufferedRows());
+        }
+    }
+
+    @Test
+    @DisplayName("表不存在等 42 类错误整块保留重试，不按坏行丢弃")
+    void testMissingTableRetried() {
+        FakeDb db = new FakeDb();
+        db.missingTable = true;
+        try (LogSink sink = new LogSink(db.dataSource(), new LogSinkConfig().chunkRows(4).flushIntervalMs(60_000))) {
+            for (int i = 0; i < 4; i++) {
+                sink.append(ITEM_LOG, (long) i, i, "ok");
+            }
+            sink.flush();
+
+            Map<String, Object> snapshot = sink.snapshot();
+            assertEquals(0L, snapshot.get("rejectedRows"));
+            assertTrue((long) snapshot.get("flushFailures") >= 1L);
+            assertEquals(4L, sink.getBufferedRows());
+
+            // 建表后整块写入
+            db.missingTable = false;
+            sink.flush();
+            assertEquals(4, db.insertedRows);
+            assertEquals(0L, sink.getBufferedRows());
+        }
+    }
+
+    @Test
+    @DisplayName("LOAD_DATA：暂存文件为转义后的 TSV，执行失败时回退多行 INSERT")
+    void testLoadDataFallback() throws Exception {
+        FakeDb db = new FakeDb();
+        db.rejectLoadData = true;
+        Path dir = Files.createTempDirectory("log-staging");
+        try (LogSink sink = new LogSink(db.dataSource(), new LogSinkConfig()
+                .mode(LogSinkConfig.Mode.LOAD_DATA)
+                .stagingDir(dir.toString())
+                .flushIntervalMs(60_000))) {
+            long time = LocalDateTime.of(2026, 10, 18, 12, 0, 0, 5_000_000)
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            sink.appendAt(ITEM_LOG, time, 7L, -5, "a\tb\\c\nd");
+            sink.appendAt(ITEM_LOG, time, 8L, 3, null);
+            sink.flush();
+
+            assertTrue(db.sql.get(0).startsWith("LOAD DATA LOCAL INFILE '"));
+            assertTrue(db.sql.get(0).endsWith("INTO TABLE `log_item` CHARACTER SET utf8mb4"
+                    + " FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n'"
+                    + " (`uid`,`delta`,`reason`,`log_time`)"));
+            assertEquals("7\t-5\ta\\tb\\\\c\\nd\t2026-10-18 12:00:00.005\n"
+                    + "8\t3\t\\N\t2026-10-18 12:00:00.005\n", db.loadedFile);
+            assertEquals(2, db.insertedRows);
+            Map<String, Object> snapshot = sink.snapshot();
+            assertEquals(1L, snapshot.get("loadDataFallbacks"));
+            assertEquals(2L, snapshot.get("writtenRows"));
+        }
+        // 暂存文件写入后即删除
+        try (var files = Files.list(dir)) {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+
+    @Test
+    @DisplayName("值的个数和类型不符时拒绝追加")
+    void testValidate() {
+        FakeDb db = new FakeDb();
+        try (LogSink sink = new LogSink(db.dataSource(), new LogSinkConfig())) {
+            assertThrowsIllegalArgument(() -> sink.append(ITEM_LOG, 1L, 2));
+            assertThrowsIllegalArgument(() -> sink.append(ITEM_LOG, 1L, "2", "x"));
+        }
+    }
+
+    private static void assertThrowsIllegalArgument(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        throw new AssertionError("expected IllegalArgumentException");
+    }
+
+    /**
+     * 记录执行的 SQL 的假数据源
+     */
+    private static class FakeDb {
+        final FakeDatabase database = new FakeDatabase();
+        final List<String> sql = database.executed;
+        volatile boolean failing;
+        volatile boolean missingTable;
+        volatile boolean rejectLoadData;
+        volatile String rejectedValue;
+        volatile String loadedFile;
+        int insertedRows;
+        int boundParams;
+
+        FakeDb() {
+            database.onUpdate(this::update);
+        }
+
+        DataSource dataSource() {
+            return database.dataSource();
+        }
+
+        private int update(String text, List<Object> params) throws Exception {
+            if (text.startsWith("LOAD DATA")) {
+                String path = text.substring("LOAD DATA LOCAL INFILE '".length(), text.indexOf("' INTO"));
+                loadedFile = Files.readString(Path.of(path), StandardCharsets.UTF_8);
+                if (rejectLoadData) {
+                    throw new SQLException("Loading local data is disabled");
+                }
+                return 0;
+            }
+            if (text.startsWith("INSERT")) {
+                if (failing) {
+                    throw new SQLException("connection refused");
+                }
+                if (missingTable) {
+                    throw new SQLSyntaxErrorException("Table 'game.log_item' doesn't exist", "42S02");
+                }
+                if (rejectedValue != null && params.contains(rejectedValue)) {
+                    throw new SQLDataException("Data too long for column 'reason'");
+                }
+                insertedRows += text.split("\\),\\(").length;
+                boundParams += params.size();
+            }
+            return 1;
+        }
+    }
+}
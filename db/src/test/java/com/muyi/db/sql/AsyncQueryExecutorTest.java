@@ -0,0 +1,151 @@
+package com.muyi.db.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.config.DbConfig;
+import com.muyi.db.exception.DbException;
+
+/**
+ * 异步查询执行器测试
+ */
+class AsyncQueryExecutorTest {
+
+    @Test
+    @DisplayName("DbConfig：全局上限默认为连接池大小减去落地线程数（至少 1），配置值不能超过连接池大小")
+    void testConfigMaxConcurrency() {
+        assertMaxConcurrency(6, new DbConfig().maximumPoolSize(10).landThreads(4));
+        assertMaxConcurrency(1, new DbConfig().maximumPoolSize(4).landThreads(4));
+        assertMaxConcurrency(10, new DbConfig().maximumPoolSize(10).asyncQueryMaxConcurrency(10));
+        assertThrows(IllegalArgumentException.class,
+                () -> new DbConfig().maximumPoolSize(10).asyncQueryMaxConcurrency(11).createAsyncQueryExecutor());
+    }
+
+    private static void assertMaxConcurrency(int expected, DbConfig config) {
+        AsyncQueryExecutor executor = config.createAsyncQueryExecutor();
+        try {
+            assertEquals(expected, executor.snapshot().get("maxConcurrency"));
+        } finally {
+            executor.shutdown(1000);
+        }
+    }
+
+    @Test
+    @DisplayName("查询在虚拟线程中执行，调用方立即返回")
+    void testRunsOnVirtualThread() {
+        AsyncQueryExecutor executor = new AsyncQueryExecutor(4, 1000, new AsyncQueryExecutor.Limit(4, 10), Map.of());
+        try {
+            CompletableFuture<Boolean> future = executor.submit(null, () -> Thread.currentThread().isVirtual());
+            assertTrue(future.join());
+
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, Object>> categories =
+                    (Map<String, Map<String, Object>>) executor.snapshot().get("categories");
+            assertEquals(1L, categories.get(AsyncQueryExecutor.DEFAULT_CATEGORY).get("completed"));
+        } finally {
+            executor.shutdown(1000);
+        }
+    }
+
+    @Test
+    @DisplayName("隔离舱：超过并发 + 排队上限立即失败，其他类别不受影响")
+    void testBulkheadRejects() throws Exception {
+        AsyncQueryExecutor executor = new AsyncQueryExecutor(8, 5000, new AsyncQueryExecutor.Limit(8, 0),
+                Map.of("gm", new AsyncQueryExecutor.Limit(1, 1)));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            List<CompletableFuture<Integer>> slow = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                slow.add(executor.submit("gm", () -> {
+                    await(release);
+                    return 1;
+                }));
+            }
+            CompletableFuture<Integer> rejected = executor.submit("gm", () -> 1);
+            CompletionException e = assertThrows(CompletionException.class, rejected::join);
+            assertTrue(e.getCause() instanceof DbException);
+
+            assertEquals(2, (int) executor.submit("player", () -> 2).get(1, TimeUnit.SECONDS));
+
+            release.countDown();
+            for (CompletableFuture<Integer> future : slow) {
+                assertEquals(1, (int) future.get(1, TimeUnit.SECONDS));
+            }
+        } finally {
+            release.countDown();
+            executor.shutdown(1000);
+        }
+    }
+
+    @Test
+    @DisplayName("全局上限：同时执行的查询数不超过 maxConcurrency，等待超时失败并计数")
+    void testGlobalLimitAndTimeout() throws Exception {
+        AsyncQueryExecutor executor = new AsyncQueryExecutor(2, 100, new AsyncQueryExecutor.Limit(10, 10), Map.of());
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit("rpc", () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    await(release);
+                    running.decrementAndGet();
+                    return 1;
+                }));
+                if (i == 1) {
+                    // 前两个占满全局并发后再提交，后两个等待 100ms 后超时
+                    long deadline = System.currentTimeMillis() + 5000;
+                    while (running.get() < 2 && System.currentTimeMillis() < deadline) {
+                        Thread.sleep(1);
+                    }
+                }
+            }
+            int timeouts = 0;
+            for (CompletableFuture<Integer> future : futures.subList(2, 4)) {
+                try {
+                    future.get(1, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof DbException);
+                    timeouts++;
+                }
+            }
+            release.countDown();
+            assertEquals(2, timeouts);
+            for (CompletableFuture<Integer> future : futures.subList(0, 2)) {
+                assertEquals(1, (int) future.get(1, TimeUnit.SECONDS));
+            }
+            assertEquals(2, maxRunning.get());
+
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, Object>> categories =
+                    (Map<String, Map<String, Object>>) executor.snapshot().get("categories");
+            assertEquals(2L, categories.get("rpc").get("timeouts"));
+            assertEquals(2L, categories.get("rpc").get("completed"));
+        } finally {
+            release.countDown();
+            executor.shutdown(1000);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
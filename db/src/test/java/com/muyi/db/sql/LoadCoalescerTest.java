@@ -0,0 +1,143 @@
+package com.muyi.db.sql;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.FieldInfo;
+import com.muyi.db.example.PlayerEntity;
+import com.muyi.db.exception.DbException;
+
+/**
+ * 加载合并测试
+ */
+class LoadCoalescerTest {
+
+    @Test
+    @DisplayName("查询执行期间到达的请求合并为一次 IN 查询，行按列值分发")
+    void testCoalesce() throws Exception {
+        CountDownLatch firstQuery = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<Object>> queries = new ArrayList<>();
+        SqlExecutor executor = new SqlExecutor(null) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T extends BaseEntity<T>> List<T> selectIn(T template, FieldInfo field, Collection<?> values) {
+                synchronized (queries) {
+                    queries.add(new ArrayList<>(values));
+                }
+                firstQuery.countDown();
+                await(release);
+                List<T> rows = new ArrayList<>();
+                for (Object value : values) {
+                    PlayerEntity row = new PlayerEntity((Long) value);
+                    row.setName("p" + value);
+                    rows.add((T) row);
+                }
+                return rows;
+            }
+        };
+        LoadCoalescer coalescer = new LoadCoalescer(executor, 0, 100);
+        FieldInfo uid = new PlayerEntity().getMetadata().getField("uid");
+
+        CompletableFuture<List<PlayerEntity>> first = coalescer.submit(new PlayerEntity(), uid, 1);
+        assertTrue(firstQuery.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<List<PlayerEntity>>> queued = new ArrayList<>();
+        for (long i = 2; i <= 11; i++) {
+            queued.add(coalescer.submit(new PlayerEntity(), uid, i));
+        }
+        release.countDown();
+
+        assertEquals(1L, first.get(5, TimeUnit.SECONDS).get(0).getUid());
+        for (int i = 0; i < queued.size(); i++) {
+            List<PlayerEntity> rows = queued.get(i).get(5, TimeUnit.SECONDS);
+            assertEquals(1, rows.size());
+            assertEquals(i + 2L, rows.get(0).getUid());
+        }
+        assertEquals(2, queries.size());
+        assertEquals(10, queries.get(1).size());
+        assertEquals(11, coalescer.getRequestCount());
+        assertEquals(2, coalescer.getQueryCount());
+        coalescer.shutdown();
+    }
+
+    @Test
+    @DisplayName("同一个值的多个请求各自得到独立的结果列表")
+    void testWaitersGetOwnList() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SqlExecutor executor = new SqlExecutor(null) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T extends BaseEntity<T>> List<T> selectIn(T template, FieldInfo field, Collection<?> values) {
+                await(release);
+                List<T> rows = new ArrayList<>();
+                for (Object value : values) {
+                    rows.add((T) new PlayerEntity((Long) value));
+                }
+                return rows;
+            }
+        };
+        LoadCoalescer coalescer = new LoadCoalescer(executor, 0, 100);
+        FieldInfo uid = new PlayerEntity().getMetadata().getField("uid");
+
+        coalescer.submit(new PlayerEntity(), uid, 1L);
+        CompletableFuture<List<PlayerEntity>> a = coalescer.submit(new PlayerEntity(), uid, 2L);
+        CompletableFuture<List<PlayerEntity>> b = coalescer.submit(new PlayerEntity(), uid, 2L);
+        release.countDown();
+
+        List<PlayerEntity> rowsA = a.get(5, TimeUnit.SECONDS);
+        List<PlayerEntity> rowsB = b.get(5, TimeUnit.SECONDS);
+        assertNotSame(rowsA, rowsB);
+        rowsA.clear();
+        assertEquals(1, rowsB.size());
+        coalescer.shutdown();
+    }
+
+    @Test
+    @DisplayName("查询失败时批次内所有请求抛出 DbException")
+    void testFailure() {
+        SqlExecutor executor = new SqlExecutor(null) {
+            @Override
+            public <T extends BaseEntity<T>> List<T> selectIn(T template, FieldInfo field, Collection<?> values)
+                    throws SQLException {
+                throw new SQLException("boom");
+            }
+        };
+        LoadCoalescer coalescer = new LoadCoalescer(executor, 0, 100);
+        FieldInfo uid = new PlayerEntity().getMetadata().getField("uid");
+        assertThrows(DbException.class, () -> coalescer.load(new PlayerEntity(), uid, 1L));
+        coalescer.shutdown();
+    }
+
+    @Test
+    @DisplayName("关闭后提交的请求立即失败，通道不会停留在运行状态")
+    void testSubmitAfterShutdown() {
+        LoadCoalescer coalescer = new LoadCoalescer(new SqlExecutor(null), 0, 100);
+        FieldInfo uid = new PlayerEntity().getMetadata().getField("uid");
+        coalescer.shutdown();
+
+        CompletableFuture<List<PlayerEntity>> future = coalescer.submit(new PlayerEntity(), uid, 1L);
+        assertTrue(future.isCompletedExceptionally());
+        assertThrows(DbException.class, () -> coalescer.load(new PlayerEntity(), uid, 1L));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
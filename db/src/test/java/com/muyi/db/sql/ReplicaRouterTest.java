@@ -0,0 +1,123 @@
+package com.muyi.db.sql;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.async.AsyncLandConfig;
+import com.muyi.db.async.AsyncLandManager;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.EntityState;
+import com.muyi.db.example.PlayerBuildingEntity;
+import com.muyi.db.example.PlayerEntity;
+
+/**
+ * 只读副本路由测试
+ */
+class ReplicaRouterTest {
+
+    private final SqlExecutor primary = new SqlExecutor(null);
+    private final SqlExecutor replica = new SqlExecutor(null);
+
+    @Test
+    @DisplayName("按表策略路由，未配置的表使用默认策略，显式只读查询始终走副本")
+    void testPolicies() {
+        AsyncLandManager manager = new AsyncLandManager(new BlockingExecutor(), new AsyncLandConfig().landThreads(1));
+        try {
+            ReplicaRouter router = new ReplicaRouter(primary, replica, manager,
+                    Map.of("Player", ReplicaRouter.Policy.REPLICA), ReplicaRouter.Policy.PRIMARY, 0);
+            assertSame(replica, router.route(new PlayerEntity()));
+            assertSame(primary, router.route(new PlayerBuildingEntity()));
+            assertSame(replica, router.replica());
+            assertEquals(ReplicaRouter.Policy.REPLICA, router.getPolicy("player"));
+
+            Map<String, Object> snapshot = router.snapshot();
+            assertEquals(2L, snapshot.get("replicaReads"));
+            assertEquals(1L, snapshot.get("primaryReads"));
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("REPLICA_IF_CLEAN：有未落地的脏数据时回退主库，落地后读副本")
+    void testFallbackOnDirty() throws InterruptedException {
+        BlockingExecutor executor = new BlockingExecutor();
+        AsyncLandManager manager = new AsyncLandManager(executor, new AsyncLandConfig()
+                .landThreads(1)
+                .landIntervalMs(5));
+        try {
+            ReplicaRouter router = new ReplicaRouter(primary, replica, manager,
+                    Map.of(), ReplicaRouter.Policy.REPLICA_IF_CLEAN, 0);
+            assertSame(replica, router.route(new PlayerEntity()));
+
+            manager.submitInsert(new PlayerEntity(1L));
+            assertSame(primary, router.route(new PlayerEntity()));
+            // 其他实体类型不受影响
+            assertSame(replica, router.route(new PlayerBuildingEntity()));
+
+            executor.release.countDown();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (manager.hasDirty(PlayerEntity.class) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertSame(replica, router.route(new PlayerEntity()));
+            assertEquals(1L, router.snapshot().get("fallbacks"));
+        } finally {
+            executor.release.countDown();
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("REPLICA_IF_CLEAN：复制延迟窗口内有写入时回退主库，无法确定表的写入影响所有表")
+    void testFallbackOnRecentWrite() {
+        AsyncLandManager manager = new AsyncLandManager(new BlockingExecutor(), new AsyncLandConfig().landThreads(1));
+        try {
+            ReplicaRouter router = new ReplicaRouter(primary, replica, manager,
+                    Map.of(), ReplicaRouter.Policy.REPLICA_IF_CLEAN, 60_000);
+            router.markWritten(new PlayerEntity(1L));
+            assertSame(primary, router.route(new PlayerEntity()));
+            assertSame(replica, router.route(new PlayerBuildingEntity()));
+
+            router.markAllWritten();
+            assertSame(primary, router.route(new PlayerBuildingEntity()));
+            assertTrue((Long) router.snapshot().get("fallbacks") >= 2);
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    /**
+     * 批量插入阻塞到 release 后成功
+     */
+    private static class BlockingExecutor extends SqlExecutor {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingExecutor() {
+            super(null);
+        }
+
+        @Override
+        public <T extends BaseEntity<T>> int[] batchInsert(List<T> entities) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int[] results = new int[entities.size()];
+            for (int i = 0; i < entities.size(); i++) {
+                entities.get(i).setState(EntityState.PERSISTENT);
+                results[i] = 1;
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.muyi.db.sql;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.FieldInfo;
+import com.muyi.db.example.PlayerEntity;
+
+/**
+ * 多行语句分块、多语句查询与 SQL 构建测试
+ */
+class SqlExecutorChunkTest {
+
+    @Test
+    @DisplayName("按包大小分块，单行超限时单独成块")
+    void testChunkByPacketSize() {
+        List<PlayerEntity> players = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            PlayerEntity player = new PlayerEntity(i);
+            player.setName(i == 50 ? "x".repeat(10_000) : "p" + i);
+            players.add(player);
+        }
+        List<FieldInfo> fields = players.get(0).getMetadata().getAllFields();
+
+        assertEquals(100, SqlExecutor.chunkEnd(players, 0, fields, 4 * 1024 * 1024));
+
+        int end = SqlExecutor.chunkEnd(players, 0, fields, 8192);
+        assertTrue(end > 1 && end < 50);
+        assertEquals(51, SqlExecutor.chunkEnd(players, 50, fields, 8192));
+    }
+
+    @Test
+    @DisplayName("分块受 65535 个参数上限约束")
+    void testChunkByParameterLimit() {
+        List<PlayerEntity> players = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            players.add(new PlayerEntity(i));
+        }
+        List<FieldInfo> fields = players.get(0).getMetadata().getAllFields();
+        int end = SqlExecutor.chunkEnd(players, 0, fields, Integer.MAX_VALUE);
+        assertEquals(SqlExecutor.MAX_STATEMENT_PARAMS / fields.size(), end);
+    }
+
+    @Test
+    @DisplayName("多行 upsert 语句")
+    void testBuildBatchUpsert() {
+        String sql = SqlBuilder.buildBatchUpsert(new PlayerEntity(), 2);
+        assertTrue(sql.startsWith("INSERT INTO player (uid, name,"));
+        assertTrue(sql.contains("?), (?"));
+        assertTrue(sql.endsWith("last_login_time = VALUES(last_login_time)"));
+    }
+
+    @Test
+    @DisplayName("多行 DELETE 按行数拼接模板")
+    void testBuildBatchDelete() {
+        assertEquals("DELETE FROM player WHERE uid IN (?, ?, ?)", SqlBuilder.buildBatchDelete(new PlayerEntity(), 3));
+        assertEquals("DELETE FROM player WHERE uid IN (?)", SqlBuilder.buildBatchDelete(new PlayerEntity(), 1));
+    }
+
+    @Test
+    @DisplayName("IN 查询补齐到 2 的幂个占位符，补齐的参数重复最后一个值")
+    void testSelectInPadding() throws Exception {
+        assertEquals(List.of(1, 2, 4, 4, 8, 8, 1024, 65535),
+                List.of(1, 2, 3, 4, 5, 8, 1000, 65535).stream().map(SqlBuilder::inListSize).toList());
+        FieldInfo uid = new PlayerEntity().getMetadata().getField("uid");
+        assertSame(SqlBuilder.buildSelectIn(new PlayerEntity(), uid, 3, "player"),
+                SqlBuilder.buildSelectIn(new PlayerEntity(), uid, 4, "player"));
+
+        List<String> sqls = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        PreparedStatement ps = proxy(PreparedStatement.class, (method, args) -> switch (method) {
+            case "setObject" -> params.add(args[1]);
+            case "executeQuery" -> resultSet(new Object[][]{{1L, "a"}, {2L, "b"}, {3L, "c"}});
+            default -> null;
+        });
+        Connection conn = proxy(Connection.class, (method, args) -> {
+            if (method.equals("prepareStatement")) {
+                sqls.add((String) args[0]);
+                return ps;
+            }
+            return null;
+        });
+        DataSource dataSource = proxy(DataSource.class, (method, args) -> conn);
+
+        List<PlayerEntity> rows = new SqlExecutor(dataSource).selectIn(new PlayerEntity(), uid, List.of(1L, 2L, 3L));
+
+        assertTrue(sqls.get(0).endsWith("WHERE uid IN (?, ?, ?, ?)"));
+        assertEquals(List.of(1L, 2L, 3L, 3L), params);
+        assertEquals(3, rows.size());
+    }
+
+    @Test
+    @DisplayName("多条条件查询拼成一次往返，结果集按查询顺序分发")
+    void testSelectMultiStatement() throws Exception {
+        List<String> sqls = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        Iterator<Object[][]> resultSets = List.of(new Object[][]{{1L, "a"}}, new Object[][]{{2L, "b"}, {3L, "b"}}).iterator();
+        PreparedStatement ps = proxy(PreparedStatement.class, (method, args) -> switch (method) {
+            case "setObject" -> params.add(args[1]);
+            case "execute", "getMoreResults" -> resultSets.hasNext();
+            case "getResultSet" -> resultSet(resultSets.next());
+            default -> null;
+        });
+        Connection conn = proxy(Connection.class, (method, args) -> {
+            if (method.equals("prepareStatement")) {
+                sqls.add((String) args[0]);
+                return ps;
+            }
+            return null;
+        });
+        DataSource dataSource = proxy(DataSource.class, (method, args) -> conn);
+
+        List<List<BaseEntity<?>>> results = new SqlExecutor(dataSource).selectMultiStatement(List.of(
+                ConditionQuery.of(new PlayerEntity(), Map.of("uid", 1L)),
+                ConditionQuery.of(new PlayerEntity(), Map.of("name", "b"))));
+
+        assertEquals(1, sqls.size());
+        assertEquals(2, sqls.get(0).split(";\n").length);
+        assertEquals(List.of(1L, "b"), params);
+        assertEquals(1, results.get(0).size());
+        assertEquals(List.of(2L, 3L), results.get(1).stream().map(p -> ((PlayerEntity) p).getUid()).toList());
+    }
+
+    private static ResultSet resultSet(Object[][] rows) {
+        String[] labels = {"uid", "name"};
+        ResultSetMetaData rsmd = proxy(ResultSetMetaData.class, (method, args) -> switch (method) {
+            case "getColumnCount" -> labels.length;
+            case "getColumnLabel" -> labels[(int) args[0] - 1];
+            default -> null;
+        });
+        int[] cursor = {-1};
+        return proxy(ResultSet.class, (method, args) -> switch (method) {
+            case "getMetaData" -> rsmd;
+            case "next" -> ++cursor[0] < rows.length;
+            case "getLong" -> ((Number) rows[cursor[0]][(int) args[0] - 1]).longValue();
+            case "getString" -> rows[cursor[0]][(int) args[0] - 1];
+            case "wasNull" -> false;
+            default -> null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, java.util.function.BiFunction<String, Object[], Object> handler) {
+        return (T) Proxy.newProxyInstance(SqlExecutorChunkTest.class.getClassLoader(), new Class<?>[]{type},
+                (p, method, args) -> handler.apply(method.getName(), args));
+    }
+}
@@ -0,0 +1,177 @@
+package com.muyi.db.testing;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * 可编排的模拟数据库
+ * <p>
+ * 记录连接、预编译、提交与回滚次数以及执行过的 SQL；语句的结果由 {@link #onUpdate} / {@link #onQuery} 决定。
+ * 默认每次更新（含批量中的每一行）返回 1，查询返回空结果集。
+ * <p>
+ * 以 SELECT 开头的 {@code execute} 按查询处理，支持多结果集（{@code getMoreResults}），其余按更新处理。
+ */
+public class FakeDatabase {
+
+    /**
+     * 更新应答：返回影响行数，抛出 SQLException 模拟执行失败
+     */
+    @FunctionalInterface
+    public interface UpdateResponder {
+        int update(String sql, List<Object> params) throws Exception;
+    }
+
+    /**
+     * 查询应答：按语句顺序返回结果集
+     */
+    @FunctionalInterface
+    public interface QueryResponder {
+        List<ResultSet> query(String sql, List<Object> params) throws Exception;
+    }
+
+    public final AtomicInteger connections = new AtomicInteger();
+    public final AtomicInteger openConnections = new AtomicInteger();
+    public final AtomicInteger commits = new AtomicInteger();
+    public final AtomicInteger rollbacks = new AtomicInteger();
+    public final AtomicBoolean failNextCommit = new AtomicBoolean();
+    /** 每条 SQL 的预编译次数 */
+    public final Map<String, AtomicInteger> prepared = new ConcurrentHashMap<>();
+    /** 按执行顺序记录的 SQL（批量执行记一次） */
+    public final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile UpdateResponder updateResponder = (sql, params) -> 1;
+    private volatile QueryResponder queryResponder = (sql, params) -> List.of();
+
+    public FakeDatabase onUpdate(UpdateResponder responder) {
+        this.updateResponder = responder;
+        return this;
+    }
+
+    public FakeDatabase onQuery(QueryResponder responder) {
+        this.queryResponder = responder;
+        return this;
+    }
+
+    public DataSource dataSource() {
+        return FakeJdbc.proxy(DataSource.class, (method, args) -> {
+            if (method.equals("getConnection")) {
+                connections.incrementAndGet();
+                openConnections.incrementAndGet();
+                return connection();
+            }
+            return null;
+        });
+    }
+
+    private Connection connection() {
+        boolean[] autoCommit = {true};
+        boolean[] closed = {false};
+        return FakeJdbc.proxy(Connection.class, (method, args) -> switch (method) {
+            case "getAutoCommit" -> autoCommit[0];
+            case "setAutoCommit" -> {
+                autoCommit[0] = (Boolean) args[0];
+                yield null;
+            }
+            case "prepareStatement" -> {
+                prepared.computeIfAbsent((String) args[0], k -> new AtomicInteger()).incrementAndGet();
+                yield statement(PreparedStatement.class, (String) args[0]);
+            }
+            case "createStatement" -> statement(Statement.class, null);
+            case "commit" -> {
+                if (failNextCommit.compareAndSet(true, false)) {
+                    throw new SQLException("Simulated commit failure");
+                }
+                commits.incrementAndGet();
+                yield null;
+            }
+            case "rollback" -> {
+                rollbacks.incrementAndGet();
+                yield null;
+            }
+            case "isClosed" -> closed[0];
+            case "close" -> {
+                if (!closed[0]) {
+                    closed[0] = true;
+                    openConnections.decrementAndGet();
+                }
+                yield null;
+            }
+            default -> null;
+        });
+    }
+
+    private <T extends Statement> T statement(Class<T> type, String preparedSql) {
+        Map<Integer, Object> params = new TreeMap<>();
+        List<List<Object>> batch = new ArrayList<>();
+        Deque<ResultSet> results = new ArrayDeque<>();
+        ResultSet[] current = new ResultSet[1];
+        return FakeJdbc.proxy(type, (method, args) -> {
+            if (method.startsWith("set") && args.length >= 2 && args[0] instanceof Integer index) {
+                params.put(index, method.equals("setNull") ? null : args[1]);
+                return null;
+            }
+            String sql = preparedSql != null ? preparedSql : args.length > 0 ? (String) args[0] : null;
+            switch (method) {
+                case "clearParameters":
+                    params.clear();
+                    return null;
+                case "addBatch":
+                    batch.add(new ArrayList<>(params.values()));
+                    params.clear();
+                    return null;
+                case "executeBatch": {
+                    executed.add(sql);
+                    int[] counts = new int[batch.size()];
+                    for (int i = 0; i < counts.length; i++) {
+                        counts[i] = updateResponder.update(sql, batch.get(i));
+                    }
+                    batch.clear();
+                    return counts;
+                }
+                case "executeUpdate":
+                    executed.add(sql);
+                    return updateResponder.update(sql, new ArrayList<>(params.values()));
+                case "executeQuery": {
+                    executed.add(sql);
+                    List<ResultSet> sets = queryResponder.query(sql, new ArrayList<>(params.values()));
+                    return sets.isEmpty() ? FakeJdbc.resultSet(new String[0], new Object[0][]) : sets.get(0);
+                }
+                case "execute": {
+                    executed.add(sql);
+                    if (!sql.stripLeading().regionMatches(true, 0, "SELECT", 0, 6)) {
+                        updateResponder.update(sql, new ArrayList<>(params.values()));
+                        return false;
+                    }
+                    results.clear();
+                    results.addAll(queryResponder.query(sql, new ArrayList<>(params.values())));
+                    current[0] = results.poll();
+                    return current[0] != null;
+                }
+                case "getResultSet":
+                    return current[0];
+                case "getMoreResults":
+                    current[0] = results.poll();
+                    return current[0] != null;
+                case "getUpdateCount":
+                    return -1;
+                default:
+                    return null;
+            }
+        });
+    }
+}
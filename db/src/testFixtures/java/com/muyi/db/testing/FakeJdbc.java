@@ -0,0 +1,122 @@
+package com.muyi.db.testing;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.List;
+
+/**
+ * 测试用 JDBC 接口模拟（动态代理）
+ * <p>
+ * 只实现测试关心的方法，其余方法返回 null 或基本类型的零值。
+ */
+public final class FakeJdbc {
+
+    private FakeJdbc() {}
+
+    /**
+     * 代理方法处理器（close 也会交给处理器）
+     */
+    @FunctionalInterface
+    public interface Handler {
+        Object handle(String method, Object[] args) throws Exception;
+    }
+
+    /**
+     * 创建接口代理，处理器返回 null 时基本类型返回值取零值
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(FakeJdbc.class.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+            Object result = handler.handle(method.getName(), args == null ? new Object[0] : args);
+            return result != null ? result : defaultValue(method.getReturnType());
+        });
+    }
+
+    /**
+     * 按列标签和行数据构造结果集，getX 按列下标或标签读取，数值按 Number 转换
+     */
+    public static ResultSet resultSet(String[] labels, Object[][] rows) {
+        ResultSetMetaData metaData = metaData(labels);
+        int[] cursor = {-1};
+        Object[] last = new Object[1];
+        List<String> columns = List.of(labels);
+        return proxy(ResultSet.class, (method, args) -> {
+            switch (method) {
+                case "getMetaData":
+                    return metaData;
+                case "next":
+                    return ++cursor[0] < rows.length;
+                case "wasNull":
+                    return last[0] == null;
+                case "findColumn":
+                    return columns.indexOf((String) args[0]) + 1;
+                default:
+                    break;
+            }
+            if (!method.startsWith("get") || args.length == 0) {
+                return null;
+            }
+            int column = args[0] instanceof String label ? columns.indexOf(label) : (int) args[0] - 1;
+            Object value = rows[cursor[0]][column];
+            last[0] = value;
+            return convert(method, value);
+        });
+    }
+
+    /**
+     * 只含列标签的结果集元数据
+     */
+    public static ResultSetMetaData metaData(String... labels) {
+        return proxy(ResultSetMetaData.class, (method, args) -> switch (method) {
+            case "getColumnCount" -> labels.length;
+            case "getColumnLabel", "getColumnName" -> labels[(int) args[0] - 1];
+            default -> null;
+        });
+    }
+
+    private static Object convert(String method, Object value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (method) {
+            case "getLong" -> ((Number) value).longValue();
+            case "getInt" -> ((Number) value).intValue();
+            case "getShort" -> ((Number) value).shortValue();
+            case "getByte" -> ((Number) value).byteValue();
+            case "getDouble" -> ((Number) value).doubleValue();
+            case "getFloat" -> ((Number) value).floatValue();
+            case "getBoolean" -> value instanceof Number n ? n.intValue() != 0 : value;
+            case "getString" -> value.toString();
+            default -> value;
+        };
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == char.class) {
+            return (char) 0;
+        }
+        return 0;
+    }
+}
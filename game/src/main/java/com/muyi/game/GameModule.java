@@ -3,6 +3,7 @@ package com.muyi.game;
 import com.muyi.core.module.AbstractGameModule;
 import com.muyi.core.web.WebServer;
 import com.muyi.game.controller.GameGmController;
+import com.muyi.game.playerdata.PlayerDataLoader;
 import com.muyi.game.playerdata.PlayerDataRegistry;
 import com.muyi.game.handler.GameMessageDispatcher;
 import com.muyi.game.player.GatePusher;
@@ -27,6 +28,11 @@ public class GameModule extends AbstractGameModule {
     
     private static final int DEFAULT_PLAYER_STRIPES = Runtime.getRuntime().availableProcessors();
     
+    /**
+     * PARALLEL 加载时单次登录最多同时占用的连接数（extra.playerLoadConcurrency 未配置时）
+     */
+    private static final int DEFAULT_LOAD_CONCURRENCY = 4;
+    
     protected GameGmController gmController;
     protected PlayerExecutorManager playerExecutorManager;
     protected GameMessageDispatcher messageDispatcher;
@@ -63,7 +69,7 @@ public class GameModule extends AbstractGameModule {
         com.muyi.proto.MessageRegistry.init();
         
         // 初始化玩家数据注册中心
-        playerDataRegistry = new PlayerDataRegistry(dbManager);
+        playerDataRegistry = new PlayerDataRegistry(dbManager, createPlayerDataLoader());
         playerDataRegistry.scan(getManagerScanPackages());
         
         // 初始化玩家执行器管理器
@@ -104,6 +110,25 @@ public class GameModule extends AbstractGameModule {
         return DEFAULT_PLAYER_STRIPES;
     }
     
+    /**
+     * 玩家数据加载器，默认在登录线程上逐个查询，子类可重写
+     * <p>
+     * 可通过 extra 配置切换模式：
+     * <ul>
+     *   <li>playerLoadMode — SEQUENTIAL（默认）/ PARALLEL / MULTI_STATEMENT（需数据库开启 allowMultiQueries）</li>
+     *   <li>playerLoadConcurrency — PARALLEL 模式下单次登录的最大并发查询数，默认 4。
+     *       并发是按单次登录计算的，同时登录的玩家越多占用的连接越多，需结合连接池大小设置</li>
+     * </ul>
+     */
+    protected PlayerDataLoader createPlayerDataLoader() {
+        if (config == null) {
+            return PlayerDataLoader.sequential();
+        }
+        String mode = config.getExtra("playerLoadMode", PlayerDataLoader.Mode.SEQUENTIAL.name());
+        Number concurrency = config.getExtra("playerLoadConcurrency", DEFAULT_LOAD_CONCURRENCY);
+        return new PlayerDataLoader(PlayerDataLoader.Mode.valueOf(mode.toUpperCase()), concurrency.intValue());
+    }
+    
     /**
      * Manager 扫描包名，子类可重写以添加更多包
      */
@@ -126,6 +151,13 @@ public class GameModule extends AbstractGameModule {
         return new GameGmController();
     }
     
+    @Override
+    protected void doStop() {
+        if (playerDataRegistry != null) {
+            playerDataRegistry.getLoader().shutdown();
+        }
+    }
+    
     @Override
     protected void registerRpcServices(RpcServer server) {
         server.registerService(gameService);
@@ -1,6 +1,7 @@
 package com.muyi.game.entity;
 
 import com.muyi.db.annotation.Column;
+import com.muyi.db.annotation.DirtyIndex;
 import com.muyi.db.annotation.PrimaryKey;
 import com.muyi.db.annotation.Table;
 import com.muyi.db.core.BaseEntity;
@@ -17,6 +18,7 @@ public class HeroEntity extends BaseEntity<HeroEntity> {
     private long id;
 
     @Column
+    @DirtyIndex
     private long uid;
 
     @Column("hero_id")
@@ -63,7 +65,7 @@ public class HeroEntity extends BaseEntity<HeroEntity> {
 
     public void setLevel(int level) {
         this.level = level;
-        markChanged("level");
+        markChanged(HeroEntity_Accessor.LEVEL);
     }
 
     public int getExp() {
@@ -72,7 +74,7 @@ public class HeroEntity extends BaseEntity<HeroEntity> {
 
     public void setExp(int exp) {
         this.exp = exp;
-        markChanged("exp");
+        markChanged(HeroEntity_Accessor.EXP);
     }
 
     public int getStar() {
@@ -81,7 +83,7 @@ public class HeroEntity extends BaseEntity<HeroEntity> {
 
     public void setStar(int star) {
         this.star = star;
-        markChanged("star");
+        markChanged(HeroEntity_Accessor.STAR);
     }
 
     @Override
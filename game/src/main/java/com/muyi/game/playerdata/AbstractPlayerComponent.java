@@ -1,8 +1,12 @@
 package com.muyi.game.playerdata;
 
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.sql.ConditionQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 /**
  * 玩家组件公共基类
  * <p>
@@ -51,6 +55,19 @@ public abstract class AbstractPlayerComponent {
     void load() {
     }
 
+    /**
+     * 加载查询（null 表示不需要查 DB），供 {@link PlayerDataLoader} 并发或合并执行
+     */
+    ConditionQuery<?> loadQuery() {
+        return null;
+    }
+
+    /**
+     * 写入 {@link #loadQuery()} 的查询结果（在登录线程按 order 顺序调用）
+     */
+    void applyLoaded(List<? extends BaseEntity<?>> entities) {
+    }
+
     void clear() {
         onLogout();
     }
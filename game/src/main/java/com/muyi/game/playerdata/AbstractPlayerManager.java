@@ -2,11 +2,14 @@ package com.muyi.game.playerdata;
 
 import com.muyi.db.DbManager;
 import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.FieldInfo;
+import com.muyi.db.sql.ConditionQuery;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -79,11 +82,25 @@ public abstract class AbstractPlayerManager<K, T extends BaseEntity<T>> extends
     }
 
     @Override
-    void load() {
+    ConditionQuery<T> loadQuery() {
         T template = newEntity();
-        List<T> entities = db.selectByCondition(template, Map.of(loadColumn(), getUid()));
-        for (T entity : entities) {
-            dataMap.put(keyOf(entity), entity);
+        // 带上匹配器以补充尚未落地的新增数据；加载列声明 @DirtyIndex 时只查该玩家的脏数据
+        FieldInfo column = template.getMetadata().resolveField(loadColumn());
+        Object uid = column != null ? column.convert(getUid()) : getUid();
+        return new ConditionQuery<>(template, Map.of(loadColumn(), getUid()),
+                column != null ? entity -> Objects.equals(column.getValue(entity), uid) : null);
+    }
+
+    @Override
+    void load() {
+        applyLoaded(db.selectCoalesced(loadQuery()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void applyLoaded(List<? extends BaseEntity<?>> entities) {
+        for (BaseEntity<?> entity : entities) {
+            dataMap.put(keyOf((T) entity), (T) entity);
         }
         afterLoad();
         log.debug("Player[{}] loaded {} {} records", getUid(), dataMap.size(), entityClass().getSimpleName());
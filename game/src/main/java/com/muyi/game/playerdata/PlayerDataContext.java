@@ -24,12 +24,14 @@ public class PlayerDataContext {
 
     private final long uid;
     private final DbManager db;
+    private final PlayerDataLoader loader;
     private final Map<Class<?>, AbstractPlayerComponent> components = new ConcurrentHashMap<>();
     private final List<AbstractPlayerComponent> orderedComponents;
 
-    PlayerDataContext(long uid, DbManager db, List<PlayerDataRegistry.ComponentMeta> metas) {
+    PlayerDataContext(long uid, DbManager db, PlayerDataLoader loader, List<PlayerDataRegistry.ComponentMeta> metas) {
         this.uid = uid;
         this.db = db;
+        this.loader = loader;
         List<AbstractPlayerComponent> ordered = new ArrayList<>(metas.size());
 
         for (PlayerDataRegistry.ComponentMeta meta : metas) {
@@ -46,12 +48,12 @@ public class PlayerDataContext {
     }
 
     /**
-     * 加载所有组件的数据（按 order 顺序，仅 Manager 类型会实际查 DB）
+     * 加载所有组件的数据（仅 Manager 类型会实际查 DB）
+     * <p>
+     * 查询方式由 {@link PlayerDataLoader} 决定，查询结果总是按 order 顺序写入组件
      */
     public void loadAll() {
-        for (AbstractPlayerComponent component : orderedComponents) {
-            component.load();
-        }
+        loader.load(db, orderedComponents);
     }
 
     /**
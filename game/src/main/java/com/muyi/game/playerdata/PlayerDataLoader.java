@@ -0,0 +1,169 @@
+package com.muyi.game.playerdata;
+
+import com.muyi.db.DbManager;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.sql.ConditionQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 玩家数据加载器
+ * <p>
+ * 登录时各 Manager 的查询互不依赖，依次执行时登录耗时是 N 次 DB 往返之和。加载器支持三种模式：
+ * <ul>
+ *   <li>{@link Mode#SEQUENTIAL} — 在登录线程上逐个查询</li>
+ *   <li>{@link Mode#PARALLEL} — 每个查询在虚拟线程上并发执行，单次登录最多同时占用 maxConcurrency 个连接</li>
+ *   <li>{@link Mode#MULTI_STATEMENT} — 所有查询拼成一次多语句往返，只占用一个连接（需开启 {@code allowMultiQueries}，
+ *       未开启时退化为逐条查询）</li>
+ * </ul>
+ * 无论哪种模式，查询结果都在登录线程上按 {@link PlayerData#order()} 顺序写入组件并触发 afterLoad。
+ * SEQUENTIAL/PARALLEL 模式经 {@link DbManager#selectCoalesced} 查询，开启加载合并时不同玩家的同表查询会合并为 IN 查询。
+ *
+ * @author muyi
+ */
+public class PlayerDataLoader {
+
+    public enum Mode {
+        SEQUENTIAL,
+        PARALLEL,
+        MULTI_STATEMENT
+    }
+
+    private final Mode mode;
+    private final int maxConcurrency;
+    private final ExecutorService executor;
+
+    /**
+     * @param mode           加载模式
+     * @param maxConcurrency 单次登录的最大并发查询数（仅 PARALLEL 模式生效）
+     */
+    public PlayerDataLoader(Mode mode, int maxConcurrency) {
+        if (mode == null) {
+            throw new IllegalArgumentException("mode must not be null");
+        }
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.mode = mode;
+        this.maxConcurrency = maxConcurrency;
+        this.executor = mode == Mode.PARALLEL
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("player-load-", 0).factory())
+                : null;
+    }
+
+    /**
+     * 逐个加载（默认）
+     */
+    public static PlayerDataLoader sequential() {
+        return new PlayerDataLoader(Mode.SEQUENTIAL, 1);
+    }
+
+    /**
+     * 加载所有组件的数据
+     */
+    void load(DbManager db, List<AbstractPlayerComponent> components) {
+        switch (mode) {
+            case SEQUENTIAL -> {
+                for (AbstractPlayerComponent component : components) {
+                    component.load();
+                }
+            }
+            case PARALLEL -> loadParallel(db, components);
+            case MULTI_STATEMENT -> loadMultiStatement(db, components);
+        }
+    }
+
+    private void loadParallel(DbManager db, List<AbstractPlayerComponent> components) {
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<Future<List<BaseEntity<?>>>> futures = new ArrayList<>(components.size());
+        try {
+            for (AbstractPlayerComponent component : components) {
+                ConditionQuery<?> query = component.loadQuery();
+                if (query == null) {
+                    futures.add(null);
+                    continue;
+                }
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        return select(db, query);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (int i = 0; i < components.size(); i++) {
+                Future<List<BaseEntity<?>>> future = futures.get(i);
+                if (future != null) {
+                    components.get(i).applyLoaded(future.get());
+                } else {
+                    components.get(i).load();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(futures);
+            throw new RuntimeException("Player data load interrupted", e);
+        } catch (ExecutionException e) {
+            cancel(futures);
+            throw new RuntimeException("Failed to load player data", e.getCause());
+        }
+    }
+
+    private void loadMultiStatement(DbManager db, List<AbstractPlayerComponent> components) {
+        List<ConditionQuery<?>> queries = new ArrayList<>(components.size());
+        List<AbstractPlayerComponent> owners = new ArrayList<>(components.size());
+        for (AbstractPlayerComponent component : components) {
+            ConditionQuery<?> query = component.loadQuery();
+            if (query != null) {
+                queries.add(query);
+                owners.add(component);
+            }
+        }
+        List<List<BaseEntity<?>>> results = queries.isEmpty() ? List.of() : db.selectByConditions(queries);
+        int next = 0;
+        for (AbstractPlayerComponent component : components) {
+            if (next < owners.size() && owners.get(next) == component) {
+                component.applyLoaded(results.get(next++));
+            } else {
+                component.load();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends BaseEntity<T>> List<BaseEntity<?>> select(DbManager db, ConditionQuery<T> query) {
+        return (List<BaseEntity<?>>) (List<?>) db.selectCoalesced(query);
+    }
+
+    private static void cancel(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 关闭加载线程（模块停止时调用）
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+}
@@ -31,9 +31,15 @@ public class PlayerDataRegistry {
 
     private final List<ComponentMeta> registeredComponents = new ArrayList<>();
     private final DbManager db;
+    private final PlayerDataLoader loader;
 
     public PlayerDataRegistry(DbManager db) {
+        this(db, PlayerDataLoader.sequential());
+    }
+
+    public PlayerDataRegistry(DbManager db, PlayerDataLoader loader) {
         this.db = db;
+        this.loader = loader;
     }
 
     /**
@@ -82,7 +88,11 @@ public class PlayerDataRegistry {
      * 为玩家创建数据上下文（登录时调用）
      */
     public PlayerDataContext createContext(long uid) {
-        return new PlayerDataContext(uid, db, registeredComponents);
+        return new PlayerDataContext(uid, db, loader, registeredComponents);
+    }
+
+    public PlayerDataLoader getLoader() {
+        return loader;
     }
 
     public int getManagerCount() {
@@ -148,7 +148,8 @@ public class PlayerDataGenerator {
             sb.append("    public void set").append(upperField).append("(").append(javaType).append(" ").append(javaField).append(") {\n");
             sb.append("        this.").append(javaField).append(" = ").append(javaField).append(";\n");
             if (!col.isPrimaryKey() && !"uid".equals(col.name)) {
-                sb.append("        markChanged(\"").append(col.name).append("\");\n");
+                sb.append("        markChanged(").append(className).append("_Accessor.")
+                        .append(col.name.toUpperCase()).append(");\n");
             }
             sb.append("    }\n\n");
         }
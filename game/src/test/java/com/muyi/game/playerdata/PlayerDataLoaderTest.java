@@ -0,0 +1,278 @@
+package com.muyi.game.playerdata;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.muyi.db.DbManager;
+import com.muyi.db.annotation.DirtyIndex;
+import com.muyi.db.annotation.PrimaryKey;
+import com.muyi.db.annotation.Table;
+import com.muyi.db.config.DbConfig;
+import com.muyi.db.core.BaseEntity;
+import com.muyi.db.core.EntityState;
+import com.muyi.db.testing.FakeDatabase;
+import com.muyi.db.testing.FakeJdbc;
+
+/**
+ * 玩家数据加载器测试
+ * <p>
+ * 三种模式经 DbManager 查询模拟数据库：结果按 order 顺序在登录线程写入组件，并合并尚未落地的脏数据
+ * （落地间隔足够长，测试期间提交的实体一直是脏数据）。
+ */
+class PlayerDataLoaderTest {
+
+    private static final long UID = 10001L;
+
+    /** 各组件 afterLoad 的调用顺序 */
+    private static final List<String> LOADED = new CopyOnWriteArrayList<>();
+    /** afterLoad 所在线程 */
+    private static final List<Thread> LOAD_THREADS = new CopyOnWriteArrayList<>();
+
+    /** 模拟表：表名 -> 行 {id, uid, value} */
+    private final Map<String, List<Object[]>> tables = Map.of(
+            "test_hero", List.of(new Object[]{1L, UID, 10}, new Object[]{2L, UID, 20}, new Object[]{3L, 20002L, 30}),
+            "test_item", List.<Object[]>of(new Object[]{1L, UID, 5}),
+            "test_building", List.<Object[]>of());
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile long queryDelayMs;
+    private final FakeDatabase db = new FakeDatabase().onQuery(this::query);
+
+    private DbManager dbManager;
+    private PlayerDataLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        LOADED.clear();
+        LOAD_THREADS.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (loader != null) {
+            loader.shutdown();
+        }
+        if (dbManager != null) {
+            dbManager.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("SEQUENTIAL：逐个查询，按 order 写入并合并脏数据")
+    void testSequential() {
+        PlayerDataContext context = login(new DbConfig(), PlayerDataLoader.sequential());
+
+        assertLoaded(context);
+        assertEquals(3, db.executed.size());
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    @DisplayName("PARALLEL：查询在虚拟线程上并发，同时进行的查询数不超过 maxConcurrency")
+    void testParallel() {
+        queryDelayMs = 100;
+        PlayerDataContext context = login(new DbConfig(), new PlayerDataLoader(PlayerDataLoader.Mode.PARALLEL, 2));
+
+        assertLoaded(context);
+        assertEquals(3, db.executed.size());
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    @DisplayName("PARALLEL：maxConcurrency 为 1 时查询依次执行")
+    void testParallelSinglePermit() {
+        queryDelayMs = 20;
+        PlayerDataContext context = login(new DbConfig(), new PlayerDataLoader(PlayerDataLoader.Mode.PARALLEL, 1));
+
+        assertLoaded(context);
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    @DisplayName("MULTI_STATEMENT：所有查询一次往返，结果按查询顺序分发")
+    void testMultiStatement() {
+        PlayerDataContext context = login(new DbConfig().allowMultiQueries(true),
+                new PlayerDataLoader(PlayerDataLoader.Mode.MULTI_STATEMENT, 1));
+
+        assertLoaded(context);
+        assertEquals(1, db.executed.size());
+        assertEquals(3, db.executed.get(0).split(";\n").length);
+    }
+
+    @Test
+    @DisplayName("MULTI_STATEMENT：未开启 allowMultiQueries 时退化为逐条查询")
+    void testMultiStatementFallback() {
+        PlayerDataContext context = login(new DbConfig(),
+                new PlayerDataLoader(PlayerDataLoader.Mode.MULTI_STATEMENT, 1));
+
+        assertLoaded(context);
+        assertEquals(3, db.executed.size());
+    }
+
+    /**
+     * 提交脏数据后登录：新增英雄 4，删除英雄 2
+     */
+    private PlayerDataContext login(DbConfig config, PlayerDataLoader loader) {
+        this.loader = loader;
+        this.dbManager = new DbManager(config.landThreads(1).landIntervalMs(60_000), db.dataSource());
+        dbManager.submitInsert(new HeroEntity(4L, UID, 40));
+        HeroEntity deleted = new HeroEntity(2L, UID, 20);
+        deleted.setState(EntityState.PERSISTENT);
+        dbManager.submitDelete(deleted);
+
+        PlayerDataRegistry registry = new PlayerDataRegistry(dbManager, loader);
+        registry.register(BuildingManager.class, 30);
+        registry.register(HeroManager.class, 10);
+        registry.register(ItemManager.class, 20);
+        registry.register(NoDataLogic.class, 15);
+        PlayerDataContext context = registry.createContext(UID);
+        context.loadAll();
+        return context;
+    }
+
+    private void assertLoaded(PlayerDataContext context) {
+        assertEquals(List.of("hero", "item", "building"), LOADED);
+        assertTrue(LOAD_THREADS.stream().allMatch(thread -> thread == Thread.currentThread()));
+
+        HeroManager heroes = context.getManager(HeroManager.class);
+        assertEquals(List.of(1L, 4L), heroes.getAll().stream().map(HeroEntity::getId).sorted().toList());
+        assertEquals(40, heroes.get(4L).getLevel());
+        assertNull(heroes.get(2L));
+        assertEquals(1, context.getManager(ItemManager.class).size());
+        assertEquals(0, context.getManager(BuildingManager.class).size());
+    }
+
+    /**
+     * 按 "FROM 表 WHERE uid = ?" 过滤模拟表，多语句时每条语句一个结果集
+     */
+    private List<ResultSet> query(String sql, List<Object> params) throws InterruptedException {
+        int running = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(running, Math::max);
+        try {
+            if (queryDelayMs > 0) {
+                Thread.sleep(queryDelayMs);
+            }
+            String[] statements = sql.split(";\n");
+            List<ResultSet> results = new ArrayList<>(statements.length);
+            for (int i = 0; i < statements.length; i++) {
+                String statement = statements[i];
+                String table = statement.substring(statement.indexOf(" FROM ") + 6, statement.indexOf(" WHERE "));
+                String[] labels = statement.substring("SELECT ".length(), statement.indexOf(" FROM ")).split(", ");
+                long uid = ((Number) params.get(i)).longValue();
+                results.add(FakeJdbc.resultSet(labels, tables.get(table).stream()
+                        .filter(row -> row[1].equals(uid))
+                        .toArray(Object[][]::new)));
+            }
+            return results;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    // ==================== 测试用组件 ====================
+
+    static class HeroManager extends AbstractPlayerManager<Long, HeroEntity> {
+        @Override
+        protected Class<HeroEntity> entityClass() { return HeroEntity.class; }
+
+        @Override
+        protected Long keyOf(HeroEntity entity) { return entity.getId(); }
+
+        @Override
+        protected void afterLoad() {
+            LOADED.add("hero");
+            LOAD_THREADS.add(Thread.currentThread());
+        }
+    }
+
+    static class ItemManager extends AbstractPlayerManager<Long, ItemEntity> {
+        @Override
+        protected Class<ItemEntity> entityClass() { return ItemEntity.class; }
+
+        @Override
+        protected Long keyOf(ItemEntity entity) { return entity.id; }
+
+        @Override
+        protected void afterLoad() {
+            LOADED.add("item");
+            LOAD_THREADS.add(Thread.currentThread());
+        }
+    }
+
+    static class BuildingManager extends AbstractPlayerManager<Long, BuildingEntity> {
+        @Override
+        protected Class<BuildingEntity> entityClass() { return BuildingEntity.class; }
+
+        @Override
+        protected Long keyOf(BuildingEntity entity) { return entity.id; }
+
+        @Override
+        protected void afterLoad() {
+            LOADED.add("building");
+            LOAD_THREADS.add(Thread.currentThread());
+        }
+    }
+
+    static class NoDataLogic extends AbstractPlayerLogic {
+    }
+
+    // ==================== 测试用实体 ====================
+
+    @Table("test_hero")
+    static class HeroEntity extends BaseEntity<HeroEntity> {
+        @PrimaryKey
+        private long id;
+
+        @DirtyIndex
+        private long uid;
+
+        private int level;
+
+        public HeroEntity() {}
+
+        HeroEntity(long id, long uid, int level) {
+            this.id = id;
+            this.uid = uid;
+            this.level = level;
+        }
+
+        long getId() { return id; }
+        int getLevel() { return level; }
+    }
+
+    @Table("test_item")
+    static class ItemEntity extends BaseEntity<ItemEntity> {
+        @PrimaryKey
+        private long id;
+
+        private long uid;
+
+        private int amount;
+
+        public ItemEntity() {}
+    }
+
+    @Table("test_building")
+    static class BuildingEntity extends BaseEntity<BuildingEntity> {
+        @PrimaryKey
+        private long id;
+
+        private long uid;
+
+        private int level;
+
+        public BuildingEntity() {}
+    }
+}